@@ -0,0 +1,199 @@
+package com.order.cluster;
+
+import com.order.common.BackpressureException;
+import com.order.common.OrderBookException;
+import com.order.journal.JournalCodec;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.valueobject.BatchResultVO;
+import com.order.valueobject.OrderBookStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.*;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Client of the cluster endpoints of the other nodes. Commands are sent as journal records, a request carries a run of
+ * commands and its response the outcome of each command. A node which cannot be connected to rejects the commands with
+ * a {@link BackpressureException}, so the caller may retry them.
+ * <p>
+ * Forwarding is not idempotent: a node which received the commands but did not respond in time, or whose connection
+ * failed while responding, may have applied them, and a retry would apply them again under new ids. These commands are
+ * rejected with an {@link OrderBookException} stating that their outcome is unknown, which is not to be retried, and
+ * the statistics of the node tell whether they were applied.
+ */
+@Component
+@ConditionalOnProperty(name = "order.cluster.enabled", havingValue = "true")
+public class ClusterClient {
+
+    public static final String COMMANDS_PATH = "/cluster/commands";
+
+    public static final String ORDER_BOOK_PATH = "/cluster/orderbook";
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private static final ParameterizedTypeReference<List<BatchResultVO>> RESULTS = new ParameterizedTypeReference<List<BatchResultVO>>() {
+    };
+
+    private static final ParameterizedTypeReference<List<OrderBookStatistics>> STATISTICS = new ParameterizedTypeReference<List<OrderBookStatistics>>() {
+    };
+
+    private final PartitionMap partitionMap;
+
+    private final RestTemplate restTemplate;
+
+    @Autowired
+    public ClusterClient(PartitionMap partitionMap, RestTemplateBuilder restTemplateBuilder, @Value("${order.cluster.timeout:2000}") int timeout) {
+        this.partitionMap = partitionMap;
+        this.restTemplate = restTemplateBuilder.setConnectTimeout(timeout).setReadTimeout(timeout).build();
+    }
+
+    public void open(int node, String instrumentId) {
+        rethrow(send(node, Collections.singletonList(instrumentId), (codec, buffer, id) -> codec.writeOpen(buffer, id)));
+    }
+
+    public void close(int node, String instrumentId) {
+        rethrow(send(node, Collections.singletonList(instrumentId), (codec, buffer, id) -> codec.writeClose(buffer, id)));
+    }
+
+    /**
+     * Adds orders to their books on the node.
+     * @param node
+     * @param orders
+     * @return the exception rejecting each order, null for the orders accepted
+     */
+    public OrderBookException[] addOrders(int node, List<Order> orders) {
+        return send(node, orders, JournalCodec::writeOrder);
+    }
+
+    /**
+     * Adds executions to their books on the node.
+     * @param node
+     * @param executions
+     * @return the exception rejecting each execution, null for the executions accepted
+     */
+    public OrderBookException[] addExecutions(int node, List<Execution> executions) {
+        return send(node, executions, JournalCodec::writeExecution);
+    }
+
+    /**
+     * Returns the statistics of an order book held by the node.
+     * @param node
+     * @param instrumentId
+     * @return null if the node holds no book for the instrument
+     */
+    public OrderBookStatistics findStatistics(int node, String instrumentId) {
+        try {
+            return restTemplate.getForObject(partitionMap.urlOf(node) + ORDER_BOOK_PATH + "/{instrument_id}", OrderBookStatistics.class, instrumentId);
+        } catch (ResourceAccessException ex) {
+            throw new BackpressureException(String.format("Cluster node %d is unavailable: %s", node, ex.getMessage()));
+        }
+    }
+
+    /**
+     * Returns the statistics of all order books held by the node.
+     * @param node
+     * @return
+     */
+    public List<OrderBookStatistics> findAllStatistics(int node) {
+        try {
+            return restTemplate.exchange(partitionMap.urlOf(node) + ORDER_BOOK_PATH + "/all", HttpMethod.GET, null, STATISTICS).getBody();
+        } catch (ResourceAccessException ex) {
+            throw new BackpressureException(String.format("Cluster node %d is unavailable: %s", node, ex.getMessage()));
+        }
+    }
+
+    private <T> OrderBookException[] send(int node, List<T> commands, RecordWriter<T> writer) {
+        OrderBookException[] rejections = new OrderBookException[commands.size()];
+        if (commands.isEmpty()) {
+            return rejections;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        try {
+            List<BatchResultVO> results = restTemplate.exchange(partitionMap.urlOf(node) + COMMANDS_PATH, HttpMethod.POST,
+                    new HttpEntity<>(encode(commands, writer), headers), RESULTS).getBody();
+            if (results == null || results.size() != commands.size()) {
+                throw new OrderBookException(String.format("Cluster node %d returned %s results for %d commands", node,
+                        results == null ? "no" : String.valueOf(results.size()), commands.size()));
+            }
+            for (int i = 0; i < rejections.length; i++) {
+                rejections[i] = rejectionOf(results.get(i));
+            }
+        } catch (ResourceAccessException ex) {
+            Arrays.fill(rejections, isNotSent(ex)
+                    ? new BackpressureException(String.format("Cluster node %d is unavailable: %s", node, ex.getMessage()))
+                    : new OrderBookException(String.format("Cluster node %d did not respond, the commands may have been applied: %s", node, ex.getMessage())));
+        } catch (HttpStatusCodeException ex) {
+            OrderBookException rejection = ex.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE
+                    ? new BackpressureException(String.format("Cluster node %d is unavailable", node))
+                    : new OrderBookException(String.format("Cluster node %d failed the commands: %s", node, ex.getStatusCode()));
+            Arrays.fill(rejections, rejection);
+        }
+        return rejections;
+    }
+
+    /**
+     * Returns true if the request failed before it was sent, so the node cannot have applied it. A connect timeout is
+     * not told apart from a read timeout, so it is taken as sent.
+     * @param ex
+     * @return
+     */
+    private static boolean isNotSent(ResourceAccessException ex) {
+        Throwable cause = ex.getCause();
+        return cause instanceof ConnectException || cause instanceof NoRouteToHostException || cause instanceof UnknownHostException;
+    }
+
+    /**
+     * Encodes the commands as journal records, the buffer grows until the records fit.
+     * @param commands
+     * @param writer
+     * @return
+     */
+    private static <T> byte[] encode(List<T> commands, RecordWriter<T> writer) {
+        JournalCodec codec = new JournalCodec();
+        ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        for (T command : commands) {
+            while (!writer.write(codec, buffer, command)) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                buffer = larger.put(buffer);
+            }
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static OrderBookException rejectionOf(BatchResultVO result) {
+        if (result.getStatus() == HttpStatus.CREATED.value()) {
+            return null;
+        }
+        return result.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value() ? new BackpressureException(result.getMessage())
+                : new OrderBookException(result.getMessage());
+    }
+
+    private static void rethrow(OrderBookException[] rejections) {
+        if (rejections[0] != null) {
+            throw rejections[0];
+        }
+    }
+
+    private interface RecordWriter<T> {
+
+        boolean write(JournalCodec codec, ByteBuffer buffer, T command);
+    }
+}
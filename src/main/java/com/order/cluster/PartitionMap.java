@@ -0,0 +1,100 @@
+package com.order.cluster;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Assigns every instrument to one node of the cluster, the node holding its order book. Instruments are assigned by
+ * the hash of the instrument id unless they are assigned explicitly. Every node must be configured with the same
+ * nodes and assignments.
+ */
+@Component
+@ConditionalOnProperty(name = "order.cluster.enabled", havingValue = "true")
+public class PartitionMap {
+
+    private final List<String> nodes;
+
+    private final int node;
+
+    private final Map<String, Integer> assignments = new HashMap<>();
+
+    /**
+     *
+     * @param nodes the base urls of the nodes
+     * @param node the index of this node in the nodes
+     * @param assignments instruments assigned explicitly, as instrumentId:node
+     */
+    @Autowired
+    public PartitionMap(@Value("${order.cluster.nodes}") String[] nodes, @Value("${order.cluster.node:0}") int node,
+                        @Value("${order.cluster.assignments:}") String[] assignments) {
+        if (nodes.length == 0) {
+            throw new IllegalArgumentException("Nodes cannot not be empty!");
+        }
+        if (node < 0 || node >= nodes.length) {
+            throw new IllegalArgumentException(String.format("Node must be between 0 and %d! node=%d", nodes.length - 1, node));
+        }
+        this.nodes = Collections.unmodifiableList(Arrays.asList(nodes));
+        this.node = node;
+
+        for (String assignment : assignments) {
+            int separator = assignment.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException(String.format("Assignment must be instrumentId:node! assignment=%s", assignment));
+            }
+            int assigned = Integer.parseInt(assignment.substring(separator + 1).trim());
+            if (assigned < 0 || assigned >= nodes.length) {
+                throw new IllegalArgumentException(String.format("Node must be between 0 and %d! assignment=%s", nodes.length - 1, assignment));
+            }
+            this.assignments.put(assignment.substring(0, separator).trim(), assigned);
+        }
+    }
+
+    /**
+     * Returns the node holding the order book of the instrument.
+     * @param instrumentId
+     * @return
+     */
+    public int nodeOf(String instrumentId) {
+        Objects.requireNonNull(instrumentId, "Instrument cannot not be null!");
+        Integer assigned = assignments.get(instrumentId);
+        return assigned != null ? assigned : Math.floorMod(instrumentId.hashCode(), nodes.size());
+    }
+
+    /**
+     *
+     * @param instrumentId
+     * @return true if the order book of the instrument is held by this node
+     */
+    public boolean isLocal(String instrumentId) {
+        return nodeOf(instrumentId) == node;
+    }
+
+    /**
+     *
+     * @return the index of this node
+     */
+    public int getNode() {
+        return node;
+    }
+
+    /**
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     *
+     * @param node
+     * @return the base url of the node
+     */
+    public String urlOf(int node) {
+        return nodes.get(node);
+    }
+}
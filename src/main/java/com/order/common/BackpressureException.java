@@ -0,0 +1,10 @@
+package com.order.common;
+
+/**
+ * Raised when an order event cannot be accepted because the service is overloaded, the caller may retry later.
+ */
+public class BackpressureException extends OrderBookException {
+    public BackpressureException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,115 @@
+package com.order.common;
+
+/**
+ * An open addressing hash map from primitive long keys to non-negative ints on primitive arrays, so neither keys nor
+ * values are boxed. Entries can be added and replaced but not removed. Not thread safe.
+ */
+public class LongIntHashMap {
+
+    private long[] keys = new long[16];
+
+    // the value plus one, 0 for a free slot
+    private int[] values = new int[16];
+
+    private int size;
+
+    /**
+     *
+     * @param key
+     * @return -1 if the key is not mapped
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; values[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     *
+     * @param key
+     * @param value must not be negative
+     */
+    public void put(long key, int value) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == 0) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                put(key, value);
+                return;
+            }
+            size++;
+            keys[slot] = key;
+        }
+        values[slot] = value + 1;
+    }
+
+    /**
+     * Adds to the value mapped to the key, an unmapped key is mapped to the amount.
+     * @param key
+     * @param amount
+     */
+    public void add(long key, int amount) {
+        int value = get(key);
+        put(key, value < 0 ? amount : value + amount);
+    }
+
+    /**
+     *
+     * @return the number of keys mapped
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every mapping, in no particular order.
+     * @param visitor
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != 0) {
+                visitor.visit(keys[i], values[i] - 1);
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Visits a mapping.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        void visit(long key, int value);
+    }
+}
@@ -0,0 +1,230 @@
+package com.order.common;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An open addressing hash map from primitive long keys to objects, so keys are not boxed and no entry object is
+ * allocated per mapping. Entries can be added and replaced but not removed.
+ * <p>
+ * Writes are synchronized on the map. Reads are lock free: a reader probes the table it found when it started, which
+ * is never changed in place after a resize. The slots are atomic arrays, a value is stored with a volatile write
+ * before its key, so a reader which sees a key sees its value, and a reader which sees a value sees the writes made to
+ * it before it was put. The values view is weakly consistent.
+ * @param <V>
+ */
+public class LongObjectHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // the key marking an empty slot, mappings for this key are kept outside the table
+    private static final long EMPTY = 0;
+
+    private volatile Table table;
+
+    private volatile Object emptyKeyValue;
+
+    private volatile int size;
+
+    private final Collection<V> values = new Values();
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     *
+     * @param expectedSize
+     */
+    public LongObjectHashMap(int expectedSize) {
+        // keep the load factor at or below 0.5 to keep the probe sequences short
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, DEFAULT_CAPACITY / 2) * 2 - 1) << 1;
+        table = new Table(capacity);
+    }
+
+    /**
+     * Returns the value mapped to the key or null.
+     * @param key
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY) {
+            return (V) emptyKeyValue;
+        }
+
+        Table t = table;
+        for (int index = t.indexOf(key); ; index = (index + 1) & t.mask) {
+            long k = t.keys.get(index);
+            if (k == key) {
+                return (V) t.values.get(index);
+            }
+            if (k == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     *
+     * @param key
+     * @return
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the key to the value.
+     * @param key
+     * @param value cannot be null
+     * @return the previous value mapped to the key or null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Value cannot not be null!");
+        }
+
+        if (key == EMPTY) {
+            Object previous = emptyKeyValue;
+            emptyKeyValue = value;
+            if (previous == null) {
+                size++;
+            }
+            return (V) previous;
+        }
+
+        Table t = table;
+        int index = t.indexOf(key);
+        for (; ; index = (index + 1) & t.mask) {
+            long k = t.keys.get(index);
+            if (k == key) {
+                return (V) t.values.getAndSet(index, value);
+            }
+            if (k == EMPTY) {
+                break;
+            }
+        }
+
+        // the value is published before the key, a reader seeing the key sees the value
+        t.values.set(index, value);
+        t.keys.set(index, key);
+        size++;
+
+        if (++t.used > t.mask >> 1) {
+            table = t.resize();
+        }
+        return null;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns an unmodifiable, weakly consistent view of the values in this map.
+     * @return
+     */
+    public Collection<V> values() {
+        return values;
+    }
+
+    private static final class Table {
+
+        final AtomicLongArray keys;
+
+        final AtomicReferenceArray<Object> values;
+
+        final int mask;
+
+        // the number of keys in the table, only accessed by writers
+        int used;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            values = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+
+        int indexOf(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        Table resize() {
+            // the resized table is published by the volatile write of the table field
+            Table resized = new Table(keys.length() << 1);
+            for (int i = 0; i < keys.length(); i++) {
+                long key = keys.get(i);
+                if (key != EMPTY) {
+                    int index = resized.indexOf(key);
+                    while (resized.keys.get(index) != EMPTY) {
+                        index = (index + 1) & resized.mask;
+                    }
+                    resized.values.lazySet(index, values.get(i));
+                    resized.keys.lazySet(index, key);
+                }
+            }
+            resized.used = used;
+            return resized;
+        }
+    }
+
+    private class Values extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+
+                private final Table t = table;
+
+                private int index = -1;
+
+                private Object next = emptyKeyValue;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null && ++index < t.keys.length()) {
+                        if (t.keys.get(index) != EMPTY) {
+                            next = t.values.get(index);
+                        }
+                    }
+                    return next != null;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Object value = next;
+                    next = null;
+                    return (V) value;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.order.configuration;
+
+import com.order.enumeration.IdMode;
+import com.order.id.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Clock;
+
+/**
+ * Id config, the allocators of the order ids and of the execution ids. Snowflake ids are allocated in ranges of at
+ * most {@link SnowflakeIdAllocator#MAX_COUNT}, so the id blocks and the stream chunks, which are allocated as one
+ * range, are checked against it at startup. The nodes of a cluster allocate ids independently, so a cluster needs
+ * snowflake ids with the node of the cluster as the node of the ids.
+ */
+@Configuration
+public class IdConfiguration {
+
+    private final IdMode mode;
+
+    private final int node;
+
+    private final int blockSize;
+
+    private final boolean persist;
+
+    private final String directory;
+
+    private final long lease;
+
+    public IdConfiguration(@Value("${order.id.mode:SEQUENCE}") IdMode mode,
+                           @Value("${order.id.node:0}") int node,
+                           @Value("${order.id.block-size:0}") int blockSize,
+                           @Value("${order.id.persist.enabled:false}") boolean persist,
+                           @Value("${order.id.directory:${java.io.tmpdir}/order-id}") String directory,
+                           @Value("${order.id.lease:1000000}") long lease,
+                           @Value("${order.stream.chunk-size:1000}") int chunkSize,
+                           @Value("${order.cluster.enabled:false}") boolean cluster,
+                           @Value("${order.cluster.node:0}") int clusterNode) {
+        if (cluster && mode != IdMode.SNOWFLAKE) {
+            throw new IllegalArgumentException(String.format("Cluster nodes must allocate snowflake ids! mode=%s", mode));
+        }
+        if (cluster && node != clusterNode) {
+            throw new IllegalArgumentException(String.format("Id node must be the cluster node! node=%d clusterNode=%d", node, clusterNode));
+        }
+        if (mode == IdMode.SNOWFLAKE && blockSize > SnowflakeIdAllocator.MAX_COUNT) {
+            throw new IllegalArgumentException(String.format("Block size must be at most %d with snowflake ids! blockSize=%d",
+                    SnowflakeIdAllocator.MAX_COUNT, blockSize));
+        }
+        if (mode == IdMode.SNOWFLAKE && chunkSize > SnowflakeIdAllocator.MAX_COUNT) {
+            throw new IllegalArgumentException(String.format("Stream chunk size must be at most %d with snowflake ids! chunkSize=%d",
+                    SnowflakeIdAllocator.MAX_COUNT, chunkSize));
+        }
+        this.mode = mode;
+        this.node = node;
+        this.blockSize = blockSize;
+        this.persist = persist;
+        this.directory = directory;
+        this.lease = lease;
+    }
+
+    @Bean
+    public IdAllocator orderIdAllocator() throws IOException {
+        return createIdAllocator("order");
+    }
+
+    @Bean
+    public IdAllocator executionIdAllocator() throws IOException {
+        return createIdAllocator("execution");
+    }
+
+    /**
+     * Creates an allocator, with thread-local blocks of ids when a block size is configured and with a high-water
+     * mark file per allocator when persisted.
+     * @param name
+     * @return
+     * @throws IOException
+     */
+    private IdAllocator createIdAllocator(String name) throws IOException {
+        IdHighWaterMark highWaterMark = persist ? new FileIdHighWaterMark(Paths.get(directory, name + ".hwm"), lease) : IdHighWaterMark.NONE;
+        IdAllocator allocator = mode == IdMode.SNOWFLAKE ? new SnowflakeIdAllocator(node, Clock.systemUTC(), highWaterMark)
+                : new SequenceIdAllocator(highWaterMark);
+        return blockSize > 0 ? new BlockIdAllocator(allocator, blockSize) : allocator;
+    }
+}
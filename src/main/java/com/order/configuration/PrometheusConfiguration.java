@@ -1,8 +1,36 @@
 package com.order.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
 /**
  * Prometheus config
  */
+@Configuration
 public class PrometheusConfiguration {
 
+    /**
+     * Tags every meter with the application, so the series of several services can be told apart.
+     * @param application
+     * @return
+     */
+    @Bean
+    public MeterRegistryCustomizer<MeterRegistry> applicationTag(@Value("${spring.application.name:order}") String application) {
+        return registry -> registry.config().commonTags("application", application);
+    }
+
+    /**
+     * Limits the number of instruments the order book meters are tagged with, the instruments are chosen by the
+     * clients and every instrument adds a series to each order book meter. The books beyond the limit are not metered.
+     * @param maxInstruments
+     * @return
+     */
+    @Bean
+    public MeterFilter orderBookInstrumentLimit(@Value("${order.metrics.max-instruments:1000}") int maxInstruments) {
+        return MeterFilter.maximumAllowableTags("order.book", "instrument", maxInstruments, MeterFilter.deny());
+    }
 }
@@ -0,0 +1,44 @@
+package com.order.configuration;
+
+import com.order.replication.ReplicationStandby;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Standby config, refuses the commands sent to a standby with 503 until it is promoted, so its books only change by
+ * replication. Reads and the replication requests are served, the order entry gateway refuses its commands as well.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.replication.role", havingValue = "STANDBY")
+public class ReplicationConfiguration implements WebMvcConfigurer {
+
+    private final ReplicationStandby standby;
+
+    @Autowired
+    public ReplicationConfiguration(ReplicationStandby standby) {
+        this.standby = standby;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (standby.isPromoted() || HttpMethod.GET.matches(request.getMethod())) {
+                    return true;
+                }
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                return false;
+            }
+        }).excludePathPatterns("/replication/**");
+    }
+}
@@ -0,0 +1,54 @@
+package com.order.configuration;
+
+import com.order.controller.RequestModeMapping;
+import com.order.enumeration.RequestMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+
+/**
+ * Request mode config, maps the handlers of the configured request mode only.
+ */
+@Configuration
+public class RequestModeConfiguration {
+
+    /**
+     * Replaces the handler mapping of the annotated controllers with one skipping the handlers of the other request
+     * modes, so the blocking and the asynchronous handler of a route do not conflict.
+     * @param requestMode
+     * @return
+     */
+    @Bean
+    public WebMvcRegistrations requestModeRegistrations(@Value("${order.web.mode:BLOCKING}") RequestMode requestMode) {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new RequestModeHandlerMapping(requestMode);
+            }
+        };
+    }
+
+    static class RequestModeHandlerMapping extends RequestMappingHandlerMapping {
+
+        private final RequestMode requestMode;
+
+        RequestModeHandlerMapping(RequestMode requestMode) {
+            this.requestMode = requestMode;
+        }
+
+        @Override
+        protected RequestMappingInfo getMappingForMethod(Method method, Class<?> handlerType) {
+            RequestModeMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestModeMapping.class);
+            if (mapping != null && mapping.value() != requestMode) {
+                return null;
+            }
+            return super.getMappingForMethod(method, handlerType);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.order.controller;
+
+import com.order.common.BackpressureException;
+import org.apache.commons.logging.Log;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Responses of the asynchronous handlers, with the statuses of the blocking handlers: created when the command is
+ * accepted, unavailable when it is refused by backpressure and unprocessable otherwise.
+ */
+final class AsyncResponses {
+
+    private AsyncResponses() {
+    }
+
+    /**
+     * Submits a command and responds once it completes, without holding the request thread meanwhile.
+     * @param command submits the command
+     * @param accepted run once the command is accepted, before responding
+     * @param logger
+     * @param call the name of the REST call logged with failures
+     * @return
+     */
+    static <T> CompletableFuture<ResponseEntity<T>> created(Supplier<CompletableFuture<Void>> command, Runnable accepted, Log logger, String call) {
+        CompletableFuture<Void> submitted;
+        try {
+            submitted = command.get();
+        } catch (Exception ex) {
+            submitted = new CompletableFuture<>();
+            submitted.completeExceptionally(ex);
+        }
+
+        return submitted.handle((ignored, failure) -> {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            if (cause == null) {
+                try {
+                    accepted.run();
+                    return new ResponseEntity<>(HttpStatus.CREATED);
+                } catch (Exception ex) {
+                    cause = ex;
+                }
+            }
+            if (cause instanceof BackpressureException) {
+                logger.warn(String.format("Backpressure raised %s REST Call {0}", call), cause);
+                return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            logger.warn(String.format("Exception raised %s REST Call {0}", call), cause);
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        });
+    }
+}
@@ -0,0 +1,166 @@
+package com.order.controller;
+
+import com.order.cluster.ClusterClient;
+import com.order.common.OrderBookException;
+import com.order.factory.BatchResultFactory;
+import com.order.journal.JournalCodec;
+import com.order.journal.JournalHandler;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.service.OrderBookService;
+import com.order.service.OrderBookStatisticsCache;
+import com.order.service.RoutingOrderBookService;
+import com.order.valueobject.BatchResultVO;
+import com.order.valueobject.OrderBookStatistics;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Controller for the requests of the other nodes of the cluster. Applies the commands forwarded to this node to the
+ * local order books and returns the statistics of the local order books, nothing is forwarded again.
+ */
+@RestController
+@ConditionalOnProperty(name = "order.cluster.enabled", havingValue = "true")
+public class ClusterController {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private OrderBookService orderBookService;
+
+    private OrderBookStatisticsCache statisticsCache;
+
+    @Autowired
+    public ClusterController(RoutingOrderBookService routingOrderBookService, OrderBookStatisticsCache statisticsCache) {
+        this.orderBookService = routingOrderBookService.getLocal();
+        this.statisticsCache = statisticsCache;
+    }
+
+    @PostMapping(value = ClusterClient.COMMANDS_PATH, consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<List<BatchResultVO>> apply(@RequestBody byte[] records) {
+        List<Object> commands = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        JournalCodec codec = new JournalCodec();
+        CommandCollector collector = new CommandCollector(commands);
+        int read = codec.read(buffer, collector);
+        while (read > 0) {
+            read = codec.read(buffer, collector);
+        }
+        if (read == JournalCodec.CORRUPT) {
+            logger.warn(String.format("Corrupt cluster command at %d of %d bytes", buffer.position(), records.length));
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        logger.info(String.format("Cluster service apply %d commands", commands.size()));
+
+        return new ResponseEntity<>(BatchResultFactory.createBatchResults(0, applyRuns(commands)), HttpStatus.OK);
+    }
+
+    @GetMapping(value = ClusterClient.ORDER_BOOK_PATH + "/{instrument_id}")
+    public ResponseEntity<OrderBookStatistics> findByInstrumentId(@PathVariable("instrument_id") String instrumentId) {
+        OrderBook orderBook = orderBookService.findByInstrumentId(instrumentId);
+        return orderBook != null ? new ResponseEntity<>(statisticsCache.get(orderBook), HttpStatus.OK) : new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @GetMapping(value = ClusterClient.ORDER_BOOK_PATH + "/all")
+    public ResponseEntity<List<OrderBookStatistics>> findAll() {
+        return new ResponseEntity<>(orderBookService.findAll().stream().map(statisticsCache::get).collect(Collectors.toList()), HttpStatus.OK);
+    }
+
+    /**
+     * Applies the commands in order, each run of consecutive orders or executions is added to the books in one call.
+     * @param commands
+     * @return the exception rejecting each command, null for the commands accepted
+     */
+    @SuppressWarnings("unchecked")
+    private OrderBookException[] applyRuns(List<Object> commands) {
+        OrderBookException[] rejections = new OrderBookException[commands.size()];
+        int start = 0;
+        while (start < commands.size()) {
+            Class<?> type = commands.get(start).getClass();
+            int end = start + 1;
+            if (type != BookCommand.class) {
+                while (end < commands.size() && commands.get(end).getClass() == type) {
+                    end++;
+                }
+            }
+
+            List<Object> run = commands.subList(start, end);
+            OrderBookException[] runRejections;
+            if (type == Order.class) {
+                runRejections = orderBookService.addOrders((List<Order>) (List<?>) run);
+            } else if (type == Execution.class) {
+                runRejections = orderBookService.addExecutions((List<Execution>) (List<?>) run);
+            } else {
+                runRejections = new OrderBookException[]{apply((BookCommand) run.get(0))};
+            }
+            System.arraycopy(runRejections, 0, rejections, start, runRejections.length);
+            start = end;
+        }
+        return rejections;
+    }
+
+    private OrderBookException apply(BookCommand command) {
+        try {
+            if (command.open) {
+                orderBookService.open(command.instrumentId);
+            } else {
+                orderBookService.close(command.instrumentId);
+            }
+            return null;
+        } catch (OrderBookException ex) {
+            return ex;
+        }
+    }
+
+    private static class BookCommand {
+
+        final boolean open;
+
+        final String instrumentId;
+
+        BookCommand(boolean open, String instrumentId) {
+            this.open = open;
+            this.instrumentId = instrumentId;
+        }
+    }
+
+    private static class CommandCollector implements JournalHandler {
+
+        private final List<Object> commands;
+
+        CommandCollector(List<Object> commands) {
+            this.commands = commands;
+        }
+
+        @Override
+        public void onOpen(String instrumentId) {
+            commands.add(new BookCommand(true, instrumentId));
+        }
+
+        @Override
+        public void onClose(String instrumentId) {
+            commands.add(new BookCommand(false, instrumentId));
+        }
+
+        @Override
+        public void onOrder(Order order) {
+            commands.add(order);
+        }
+
+        @Override
+        public void onExecution(Execution execution) {
+            commands.add(execution);
+        }
+    }
+}
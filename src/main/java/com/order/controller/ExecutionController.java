@@ -1,17 +1,35 @@
 package com.order.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.common.BackpressureException;
+import com.order.common.OrderBookException;
+import com.order.enumeration.RequestMode;
 import com.order.event.OrderEvents;
+import com.order.factory.BatchResultFactory;
+import com.order.factory.ExecutionFactory;
 import com.order.model.Execution;
 import com.order.repository.ExecutionRepository;
+import com.order.valueobject.BatchResultVO;
+import com.order.valueobject.IngestProgressVO;
 import com.order.valueobject.OrderVO;
+import com.order.valueobject.PageVO;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Controller for executions. Stores an execution in the repository and notifies other components.
@@ -19,16 +37,26 @@ import java.util.List;
 @RestController
 public class ExecutionController {
 
+    private static final String MAX_ID = "9223372036854775807";
+
+    private static final int MAX_PAGE_SIZE = 10000;
+
     private final Log logger = LogFactory.getLog(getClass());
 
     private ExecutionRepository executionRepository;
 
     private OrderEvents orderEvents;
 
+    private NdjsonIngest ndjsonIngest;
+
+    private ObjectMapper objectMapper;
+
     @Autowired
-    public ExecutionController(ExecutionRepository executionRepository, OrderEvents orderEvents) {
+    public ExecutionController(ExecutionRepository executionRepository, OrderEvents orderEvents, NdjsonIngest ndjsonIngest, ObjectMapper objectMapper) {
         this.executionRepository = executionRepository;
         this.orderEvents = orderEvents;
+        this.ndjsonIngest = ndjsonIngest;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping(value = "/execution/{execution_id}")
@@ -47,17 +75,22 @@ public class ExecutionController {
     }
 
     @PostMapping(value = "/execution")
+    @RequestModeMapping(RequestMode.BLOCKING)
     public ResponseEntity<Execution> add(@RequestBody OrderVO orderVO) {
         final long executionId = executionRepository.nextExecutionId();
         logger.info(String.format("Execution service add for executionId: %s", executionId));
 
-        final Execution execution = new Execution(executionId, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice());
         try {
-            // save the execution
-            executionRepository.store(execution);
+            final Execution execution = ExecutionFactory.createExecution(executionId, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice());
 
-            //notify other components
+            //notify other components first, an event refused by backpressure is not stored
             orderEvents.newExecution(execution);
+
+            // save the execution
+            executionRepository.store(execution);
+        } catch (BackpressureException ex) {
+            logger.warn("Backpressure raised add execution REST Call {0}", ex);
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception ex) {
             logger.warn("Exception raised add execution REST Call {0}", ex);
             return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
@@ -65,14 +98,120 @@ public class ExecutionController {
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/execution")
+    @RequestModeMapping(RequestMode.ASYNC)
+    public CompletableFuture<ResponseEntity<Execution>> addAsync(@RequestBody OrderVO orderVO) {
+        final long executionId = executionRepository.nextExecutionId();
+        logger.info(String.format("Execution service add async for executionId: %s", executionId));
+
+        // the price is validated inside the command, so an invalid price is unprocessable
+        final AtomicReference<Execution> created = new AtomicReference<>();
+        //notify other components first, an event refused by backpressure is not stored
+        return AsyncResponses.created(() -> {
+            created.set(ExecutionFactory.createExecution(executionId, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice()));
+            return orderEvents.submitExecution(created.get());
+        }, () -> executionRepository.store(created.get()), logger, "add execution");
+    }
+
+    @PostMapping(value = "/execution/batch")
+    public ResponseEntity<List<BatchResultVO>> addBatch(@RequestBody List<OrderVO> orderVOs) {
+        if (orderVOs.isEmpty()) {
+            return new ResponseEntity<>(Collections.emptyList(), HttpStatus.CREATED);
+        }
+        // the ids of a batch are allocated as one range
+        if (orderVOs.size() > executionRepository.getMaxExecutionIdCount()) {
+            logger.warn(String.format("Execution service batch of %d is larger than %d", orderVOs.size(), executionRepository.getMaxExecutionIdCount()));
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        final long firstId = executionRepository.nextExecutionIds(orderVOs.size());
+        logger.info(String.format("Execution service add batch of %d from executionId: %s", orderVOs.size(), firstId));
+
+        // an item with an invalid price is rejected alone, the others are submitted
+        final OrderBookException[] rejections = new OrderBookException[orderVOs.size()];
+        final List<Execution> executions = new ArrayList<>(orderVOs.size());
+        for (int i = 0; i < orderVOs.size(); i++) {
+            OrderVO orderVO = orderVOs.get(i);
+            try {
+                executions.add(ExecutionFactory.createExecution(firstId + i, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice()));
+            } catch (OrderBookException ex) {
+                rejections[i] = ex;
+            }
+        }
+
+        List<BatchResultVO> results;
+        try {
+            //notify other components first, the executions which are not accepted are not stored
+            OrderBookException[] submitted = executions.isEmpty() ? new OrderBookException[0] : orderEvents.newExecutions(executions);
+
+            // save the accepted executions
+            for (int i = 0; i < submitted.length; i++) {
+                if (submitted[i] == null) {
+                    executionRepository.store(executions.get(i));
+                }
+            }
+            BatchResultFactory.mergeRejections(rejections, submitted);
+            results = BatchResultFactory.createBatchResults(firstId, rejections);
+        } catch (Exception ex) {
+            logger.warn("Exception raised add execution batch REST Call {0}", ex);
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        return new ResponseEntity<>(results, BatchResultFactory.statusOf(results));
+    }
+
+    @PostMapping(value = "/execution/stream", consumes = NdjsonIngest.APPLICATION_NDJSON_VALUE)
+    public void addStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.info("Execution service add stream");
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NdjsonIngest.APPLICATION_NDJSON_VALUE);
+        IngestProgressVO progress = ndjsonIngest.ingest(request.getInputStream(), response.getOutputStream(), executionRepository::nextExecutionIds,
+                (id, orderVO) -> ExecutionFactory.createExecution(id, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice()), orderEvents::newExecutions, executionRepository::store);
+
+        logger.info(String.format("Execution service add stream completed: %s", progress));
+    }
+
     @GetMapping(value = "/execution/all")
-    public ResponseEntity<List<Execution>> findAll() {
-        logger.info("Execution service get all");
+    public ResponseEntity<StreamingResponseBody> findAll(@RequestParam(value = "instrumentId", required = false) String instrumentId,
+                                                         @RequestParam(value = "fromId", defaultValue = "0") long fromId,
+                                                         @RequestParam(value = "toId", defaultValue = MAX_ID) long toId) {
+        logger.info(String.format("Execution service get all for instrumentId: %s, ids: %d-%d", instrumentId, fromId, toId));
+
+        // written while iterating the repository, the executions are never collected in memory, failures are handled by the body
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8)
+                .body(new JsonArrayBody(objectMapper, executionRepository.findByIdRange(instrumentId, fromId, toId)));
+    }
+
+    @GetMapping(value = "/execution/page")
+    public ResponseEntity<PageVO<Execution>> findPage(@RequestParam(value = "instrumentId", required = false) String instrumentId,
+                                                      @RequestParam(value = "fromId", defaultValue = "0") long fromId,
+                                                      @RequestParam(value = "toId", defaultValue = MAX_ID) long toId,
+                                                      @RequestParam(value = "after", required = false) Long after,
+                                                      @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        logger.info(String.format("Execution service get page for instrumentId: %s, ids: %d-%d, after: %s", instrumentId, fromId, toId, after));
+
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
 
         try {
-            return new ResponseEntity<>(executionRepository.findAll(), HttpStatus.OK);
+            if (after != null && after == Long.MAX_VALUE) {
+                return new ResponseEntity<>(new PageVO<>(Collections.emptyList(), null), HttpStatus.OK);
+            }
+            // the cursor is the last id returned, the page starts after it
+            long from = after != null && after >= fromId ? after + 1 : fromId;
+            List<Execution> items = new ArrayList<>(limit);
+            Long next = null;
+            for (Execution execution : executionRepository.findByIdRange(instrumentId, from, toId)) {
+                if (items.size() == limit) {
+                    next = items.get(limit - 1).getExecutionId();
+                    break;
+                }
+                items.add(execution);
+            }
+            return new ResponseEntity<>(new PageVO<>(items, next), HttpStatus.OK);
         } catch (Exception ex) {
-            logger.warn("Exception raised findAll REST Call {0}", ex);
+            logger.warn("Exception raised findPage REST Call {0}", ex);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
@@ -0,0 +1,55 @@
+package com.order.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Response body writing the items as a JSON array while iterating them, so the response is never held in memory. The
+ * status is sent before the items are read, so a failure while iterating or writing cannot become an error response:
+ * it is logged and the write fails without closing the array, and the servlet container aborts the connection, so
+ * the client never takes a truncated array for the complete response.
+ */
+class JsonArrayBody implements StreamingResponseBody {
+
+    private static final int FLUSH_EVERY = 1024;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final ObjectMapper objectMapper;
+
+    private final Iterable<?> items;
+
+    JsonArrayBody(ObjectMapper objectMapper, Iterable<?> items) {
+        this.objectMapper = objectMapper;
+        this.items = items;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // the servlet closes the stream
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        int count = 0;
+        try {
+            generator.writeStartArray();
+            for (Object item : items) {
+                generator.writeObject(item);
+                if (++count % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+            generator.close();
+        } catch (IOException | RuntimeException ex) {
+            logger.warn(String.format("Streaming JSON array failed after %d items, aborting the response", count), ex);
+            throw ex instanceof IOException ? (IOException) ex : new IOException("Streaming JSON array failed!", ex);
+        }
+    }
+}
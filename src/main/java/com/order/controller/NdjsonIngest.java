@@ -0,0 +1,164 @@
+package com.order.controller;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.order.common.BackpressureException;
+import com.order.common.OrderBookException;
+import com.order.valueobject.IngestProgressVO;
+import com.order.valueobject.OrderVO;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Streaming ingest of newline delimited JSON records. The records are parsed incrementally and submitted in chunks,
+ * the next chunk is only read from the request once the previous one has been accepted, so a client is read only as
+ * fast as the order books absorb its records. Records refused with backpressure are retried until the retry timeout.
+ * A progress line is written back to the client after every chunk and a final line when the stream ends.
+ */
+@Component
+public class NdjsonIngest {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final long MAX_BACKOFF_MILLIS = 100;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final ObjectReader reader;
+
+    private final ObjectWriter writer;
+
+    private final int chunkSize;
+
+    private final long retryTimeoutMillis;
+
+    @Autowired
+    public NdjsonIngest(ObjectMapper objectMapper, @Value("${order.stream.chunk-size:1000}") int chunkSize,
+                        @Value("${order.stream.retry-timeout:30000}") long retryTimeoutMillis) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException(String.format("Chunk size must be positive! chunkSize=%d", chunkSize));
+        }
+        this.reader = objectMapper.readerFor(OrderVO.class);
+        this.writer = objectMapper.writerFor(IngestProgressVO.class);
+        this.chunkSize = chunkSize;
+        this.retryTimeoutMillis = retryTimeoutMillis;
+    }
+
+    /**
+     * Ingests the records of the input stream.
+     * @param in newline delimited order value objects
+     * @param out receives a newline delimited progress object per chunk
+     * @param nextIds allocates a range of ids and returns the first one
+     * @param create creates an item from its id and value object, throws an OrderBookException to reject the record
+     * @param submit submits a chunk of items and returns the exception rejecting each item, null for accepted items
+     * @param store stores an accepted item
+     * @param <T>
+     * @return the final progress
+     * @throws IOException if the progress cannot be written
+     */
+    public <T> IngestProgressVO ingest(InputStream in, OutputStream out, IntToLongFunction nextIds, BiFunction<Long, OrderVO, T> create,
+                                       Function<List<T>, OrderBookException[]> submit, Consumer<T> store) throws IOException {
+        IngestProgressVO progress = new IngestProgressVO();
+        List<OrderVO> chunk = new ArrayList<>(chunkSize);
+
+        try (MappingIterator<OrderVO> records = reader.readValues(in)) {
+            boolean more = true;
+            while (more) {
+                chunk.clear();
+                try {
+                    while (chunk.size() < chunkSize && (more = records.hasNextValue())) {
+                        chunk.add(records.nextValue());
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    // a malformed record ends the stream, the records parsed before it are still applied
+                    logger.warn(String.format("Malformed record after %d records", progress.getRecords() + chunk.size()), ex);
+                    progress.setError(ex.getMessage());
+                    more = false;
+                }
+
+                if (!chunk.isEmpty()) {
+                    apply(chunk, progress, nextIds, create, submit, store);
+                    if (more) {
+                        write(out, progress);
+                    }
+                }
+            }
+        }
+
+        progress.setCompleted(true);
+        write(out, progress);
+        return progress;
+    }
+
+    private <T> void apply(List<OrderVO> chunk, IngestProgressVO progress, IntToLongFunction nextIds, BiFunction<Long, OrderVO, T> create,
+                           Function<List<T>, OrderBookException[]> submit, Consumer<T> store) {
+        final long firstId = nextIds.applyAsLong(chunk.size());
+        List<T> pending = new ArrayList<>(chunk.size());
+        progress.setRecords(progress.getRecords() + chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                pending.add(create.apply(firstId + i, chunk.get(i)));
+            } catch (OrderBookException ex) {
+                // a record with an invalid price is rejected, the stream goes on
+                progress.setRejected(progress.getRejected() + 1);
+            }
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryTimeoutMillis);
+        long backoff = 1;
+        while (!pending.isEmpty()) {
+            OrderBookException[] rejections = submit.apply(pending);
+
+            List<T> unavailable = new ArrayList<>();
+            for (int i = 0; i < rejections.length; i++) {
+                if (rejections[i] == null) {
+                    store.accept(pending.get(i));
+                    progress.setAccepted(progress.getAccepted() + 1);
+                } else if (rejections[i] instanceof BackpressureException) {
+                    unavailable.add(pending.get(i));
+                } else {
+                    progress.setRejected(progress.getRejected() + 1);
+                }
+            }
+            pending = unavailable;
+
+            if (!pending.isEmpty() && (System.nanoTime() > deadline || !sleep(backoff))) {
+                progress.setUnavailable(progress.getUnavailable() + pending.size());
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void write(OutputStream out, IngestProgressVO progress) throws IOException {
+        out.write(writer.writeValueAsBytes(progress));
+        out.write('\n');
+        out.flush();
+    }
+}
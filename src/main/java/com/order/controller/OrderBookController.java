@@ -1,17 +1,21 @@
 package com.order.controller;
 
+import com.order.enumeration.RequestMode;
 import com.order.model.OrderBook;
-import com.order.factory.OrderBookStatisticsFactory;
 import com.order.service.OrderBookService;
+import com.order.service.OrderBookStatisticsCache;
+import com.order.service.RoutingOrderBookService;
 import com.order.valueobject.OrderBookStatistics;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -24,27 +28,47 @@ public class OrderBookController {
 
     private OrderBookService orderBookService;
 
+    private OrderBookStatisticsCache statisticsCache;
+
+    private RoutingOrderBookService routingOrderBookService;
+
+    /**
+     *
+     * @param orderBookService
+     * @param statisticsCache
+     * @param routingOrderBookService gathers the statistics of the books held by the other nodes, null if there is
+     *                                no cluster
+     */
     @Autowired
-    public OrderBookController(OrderBookService orderBookService) {
+    public OrderBookController(OrderBookService orderBookService, OrderBookStatisticsCache statisticsCache,
+                               @Nullable RoutingOrderBookService routingOrderBookService) {
         this.orderBookService = orderBookService;
+        this.statisticsCache = statisticsCache;
+        this.routingOrderBookService = routingOrderBookService;
     }
 
     @GetMapping(value = "/orderbook/{instrument_id}")
     public ResponseEntity<OrderBookStatistics> findByInstrumentId(@PathVariable("instrument_id") String instrumentId) {
         logger.info(String.format("Order book service get for instrumentId: %s", instrumentId));
 
-        OrderBook orderBook;
+        OrderBookStatistics statistics;
         try {
-            orderBook = orderBookService.findByInstrumentId(instrumentId);
+            if (routingOrderBookService != null) {
+                statistics = routingOrderBookService.findStatistics(instrumentId);
+            } else {
+                OrderBook orderBook = orderBookService.findByInstrumentId(instrumentId);
+                statistics = orderBook != null ? statisticsCache.get(orderBook) : null;
+            }
         } catch (Exception ex) {
             logger.warn("Exception raised findByInstrumentId REST Call {0}", ex);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
 
-        return orderBook != null ? new ResponseEntity<>(OrderBookStatisticsFactory.createOrderBookStatistics(orderBook), HttpStatus.OK) : new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return statistics != null ? new ResponseEntity<>(statistics, HttpStatus.OK) : new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
     @PostMapping(value = "/orderbook/open/{instrument_id}")
+    @RequestModeMapping(RequestMode.BLOCKING)
     public ResponseEntity<Object> open(@PathVariable("instrument_id") String instrumentId) {
         logger.info(String.format("Order book service open book for instrumentId: %s", instrumentId));
 
@@ -58,6 +82,7 @@ public class OrderBookController {
     }
 
     @PostMapping(value = "/orderbook/close/{instrument_id}")
+    @RequestModeMapping(RequestMode.BLOCKING)
     public ResponseEntity<Object> close(@PathVariable("instrument_id") String instrumentId) {
         logger.info(String.format("Order book service close book for instrumentId: %s", instrumentId));
 
@@ -70,13 +95,31 @@ public class OrderBookController {
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/orderbook/open/{instrument_id}")
+    @RequestModeMapping(RequestMode.ASYNC)
+    public CompletableFuture<ResponseEntity<Object>> openAsync(@PathVariable("instrument_id") String instrumentId) {
+        logger.info(String.format("Order book service open book async for instrumentId: %s", instrumentId));
+
+        return AsyncResponses.created(() -> orderBookService.submitOpen(instrumentId), () -> { }, logger, "open order book");
+    }
+
+    @PostMapping(value = "/orderbook/close/{instrument_id}")
+    @RequestModeMapping(RequestMode.ASYNC)
+    public CompletableFuture<ResponseEntity<Object>> closeAsync(@PathVariable("instrument_id") String instrumentId) {
+        logger.info(String.format("Order book service close book async for instrumentId: %s", instrumentId));
+
+        return AsyncResponses.created(() -> orderBookService.submitClose(instrumentId), () -> { }, logger, "close order book");
+    }
+
     @GetMapping(value = "/orderbook/all")
     public ResponseEntity<List<OrderBookStatistics>> findAll() {
         logger.info("Order book service get all");
 
         List<OrderBookStatistics> orderBooks;
         try {
-            orderBooks = orderBookService.findAll().stream().map(o -> OrderBookStatisticsFactory.createOrderBookStatistics(o)).collect(Collectors.toList());
+            // the books of the other nodes are gathered from their nodes
+            orderBooks = routingOrderBookService != null ? routingOrderBookService.findAllStatistics()
+                    : orderBookService.findAll().stream().map(statisticsCache::get).collect(Collectors.toList());
             return new ResponseEntity<>(orderBooks, HttpStatus.OK);
         } catch (Exception ex) {
             logger.warn("Exception raised findByAll REST Call {0}", ex);
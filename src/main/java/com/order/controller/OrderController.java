@@ -1,18 +1,39 @@
 package com.order.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.common.BackpressureException;
+import com.order.common.OrderBookException;
+import com.order.enumeration.OrderStorage;
+import com.order.enumeration.RequestMode;
 import com.order.event.OrderEvents;
 import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.factory.BatchResultFactory;
 import com.order.factory.OrderFactory;
 import com.order.repository.OrderRepository;
+import com.order.service.OrderBookService;
+import com.order.valueobject.BatchResultVO;
+import com.order.valueobject.IngestProgressVO;
 import com.order.valueobject.OrderVO;
+import com.order.valueobject.PageVO;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.StreamSupport;
 
 /**
  * Controller for orders. Adds an order in the order repository and notifies other components.
@@ -20,16 +41,30 @@ import java.util.List;
 @RestController
 public class OrderController {
 
+    private static final String MAX_ID = "9223372036854775807";
+
+    private static final int MAX_PAGE_SIZE = 10000;
+
     private final Log logger = LogFactory.getLog(getClass());
 
     private OrderRepository orderRepository;
 
     private OrderEvents orderEvents;
 
+    private OrderBookService orderBookService;
+
+    private NdjsonIngest ndjsonIngest;
+
+    private ObjectMapper objectMapper;
+
     @Autowired
-    public OrderController(OrderRepository orderRepository, OrderEvents orderEvents) {
+    public OrderController(OrderRepository orderRepository, OrderEvents orderEvents, OrderBookService orderBookService, NdjsonIngest ndjsonIngest,
+                           ObjectMapper objectMapper) {
         this.orderRepository = orderRepository;
         this.orderEvents = orderEvents;
+        this.orderBookService = orderBookService;
+        this.ndjsonIngest = ndjsonIngest;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping(value = "/order/{order_id}")
@@ -38,7 +73,7 @@ public class OrderController {
 
         Order order;
         try {
-            order = orderRepository.findByOrderId(Long.parseLong(orderId));
+            order = current(orderRepository.findByOrderId(Long.parseLong(orderId)));
         } catch (Exception ex) {
             logger.warn("Exception raised findByOrderId REST Call {0}", ex);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -48,17 +83,22 @@ public class OrderController {
     }
 
     @PostMapping(value = "/order")
+    @RequestModeMapping(RequestMode.BLOCKING)
     public ResponseEntity<Order> add(@RequestBody OrderVO orderVO) {
         final long orderId = orderRepository.nextOrderId();
         logger.info(String.format("Order service add for orderId: %s", orderId));
 
-        Order order = OrderFactory.createOrder(orderId, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice());
         try {
-            // save the order
-            orderRepository.store(order);
+            final Order order = OrderFactory.createOrder(orderId, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice());
 
-            //notify other components
+            //notify other components first, an event refused by backpressure is not stored
             orderEvents.newOrder(order);
+
+            // save the order
+            orderRepository.store(order);
+        } catch (BackpressureException ex) {
+            logger.warn("Backpressure raised add order REST Call {0}", ex);
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception ex) {
             logger.warn("Exception raised add order REST Call {0}", ex);
             return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
@@ -66,15 +106,140 @@ public class OrderController {
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/order")
+    @RequestModeMapping(RequestMode.ASYNC)
+    public CompletableFuture<ResponseEntity<Order>> addAsync(@RequestBody OrderVO orderVO) {
+        final long orderId = orderRepository.nextOrderId();
+        logger.info(String.format("Order service add async for orderId: %s", orderId));
+
+        // the price is validated inside the command, so an invalid price is unprocessable
+        final AtomicReference<Order> created = new AtomicReference<>();
+        //notify other components first, an event refused by backpressure is not stored
+        return AsyncResponses.created(() -> {
+            created.set(OrderFactory.createOrder(orderId, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice()));
+            return orderEvents.submitOrder(created.get());
+        }, () -> orderRepository.store(created.get()), logger, "add order");
+    }
+
+    @PostMapping(value = "/order/batch")
+    public ResponseEntity<List<BatchResultVO>> addBatch(@RequestBody List<OrderVO> orderVOs) {
+        if (orderVOs.isEmpty()) {
+            return new ResponseEntity<>(Collections.emptyList(), HttpStatus.CREATED);
+        }
+        // the ids of a batch are allocated as one range
+        if (orderVOs.size() > orderRepository.getMaxOrderIdCount()) {
+            logger.warn(String.format("Order service batch of %d is larger than %d", orderVOs.size(), orderRepository.getMaxOrderIdCount()));
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        final long firstId = orderRepository.nextOrderIds(orderVOs.size());
+        logger.info(String.format("Order service add batch of %d from orderId: %s", orderVOs.size(), firstId));
+
+        // an item with an invalid price is rejected alone, the others are submitted
+        final OrderBookException[] rejections = new OrderBookException[orderVOs.size()];
+        final List<Order> orders = new ArrayList<>(orderVOs.size());
+        for (int i = 0; i < orderVOs.size(); i++) {
+            OrderVO orderVO = orderVOs.get(i);
+            try {
+                orders.add(OrderFactory.createOrder(firstId + i, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice()));
+            } catch (OrderBookException ex) {
+                rejections[i] = ex;
+            }
+        }
+
+        List<BatchResultVO> results;
+        try {
+            //notify other components first, the orders which are not accepted are not stored
+            OrderBookException[] submitted = orders.isEmpty() ? new OrderBookException[0] : orderEvents.newOrders(orders);
+
+            // save the accepted orders
+            for (int i = 0; i < submitted.length; i++) {
+                if (submitted[i] == null) {
+                    orderRepository.store(orders.get(i));
+                }
+            }
+            BatchResultFactory.mergeRejections(rejections, submitted);
+            results = BatchResultFactory.createBatchResults(firstId, rejections);
+        } catch (Exception ex) {
+            logger.warn("Exception raised add order batch REST Call {0}", ex);
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        return new ResponseEntity<>(results, BatchResultFactory.statusOf(results));
+    }
+
+    @PostMapping(value = "/order/stream", consumes = NdjsonIngest.APPLICATION_NDJSON_VALUE)
+    public void addStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.info("Order service add stream");
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NdjsonIngest.APPLICATION_NDJSON_VALUE);
+        IngestProgressVO progress = ndjsonIngest.ingest(request.getInputStream(), response.getOutputStream(), orderRepository::nextOrderIds,
+                (id, orderVO) -> OrderFactory.createOrder(id, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice()), orderEvents::newOrders, orderRepository::store);
+
+        logger.info(String.format("Order service add stream completed: %s", progress));
+    }
+
     @GetMapping(value = "/order/all")
-    public ResponseEntity<List<Order>> findAll() {
-        logger.info("Order service get all");
+    public ResponseEntity<StreamingResponseBody> findAll(@RequestParam(value = "instrumentId", required = false) String instrumentId,
+                                                         @RequestParam(value = "fromId", defaultValue = "0") long fromId,
+                                                         @RequestParam(value = "toId", defaultValue = MAX_ID) long toId) {
+        logger.info(String.format("Order service get all for instrumentId: %s, ids: %d-%d", instrumentId, fromId, toId));
+
+        // written while iterating the repository, the orders are never collected in memory, failures are handled by the body
+        Iterable<Order> orders = orderRepository.findByIdRange(instrumentId, fromId, toId);
+        Iterable<Order> current = () -> StreamSupport.stream(orders.spliterator(), false).map(this::current).iterator();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(new JsonArrayBody(objectMapper, current));
+    }
+
+    @GetMapping(value = "/order/page")
+    public ResponseEntity<PageVO<Order>> findPage(@RequestParam(value = "instrumentId", required = false) String instrumentId,
+                                                  @RequestParam(value = "fromId", defaultValue = "0") long fromId,
+                                                  @RequestParam(value = "toId", defaultValue = MAX_ID) long toId,
+                                                  @RequestParam(value = "after", required = false) Long after,
+                                                  @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        logger.info(String.format("Order service get page for instrumentId: %s, ids: %d-%d, after: %s", instrumentId, fromId, toId, after));
+
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
 
         try {
-            return new ResponseEntity<>(orderRepository.findAll(), HttpStatus.OK);
+            if (after != null && after == Long.MAX_VALUE) {
+                return new ResponseEntity<>(new PageVO<>(Collections.emptyList(), null), HttpStatus.OK);
+            }
+            // the cursor is the last id returned, the page starts after it
+            long from = after != null && after >= fromId ? after + 1 : fromId;
+            List<Order> items = new ArrayList<>(limit);
+            Long next = null;
+            for (Order order : orderRepository.findByIdRange(instrumentId, from, toId)) {
+                if (items.size() == limit) {
+                    next = items.get(limit - 1).getOrderId();
+                    break;
+                }
+                items.add(current(order));
+            }
+            return new ResponseEntity<>(new PageVO<>(items, next), HttpStatus.OK);
         } catch (Exception ex) {
-            logger.warn("Exception raised findAll REST Call {0}", ex);
+            logger.warn("Exception raised findPage REST Call {0}", ex);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    /**
+     * Returns an order as it is in its book. A book with off-heap storage copies the orders added to it, so the fills
+     * are not visible on the orders in the repository and the order is read from the book.
+     * @param order
+     * @return
+     */
+    private Order current(Order order) {
+        if (order == null) {
+            return null;
+        }
+        OrderBook orderBook = orderBookService.findByInstrumentId(order.getInstrumentId());
+        if (orderBook == null || orderBook.getStorage() == OrderStorage.HEAP) {
+            return order;
+        }
+        Order booked = orderBook.getOrder(order.getOrderId());
+        return booked != null ? booked : order;
+    }
 }
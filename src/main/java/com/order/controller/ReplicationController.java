@@ -0,0 +1,68 @@
+package com.order.controller;
+
+import com.order.enumeration.ReplicationRole;
+import com.order.replication.ReplicationPrimary;
+import com.order.replication.ReplicationStandby;
+import com.order.valueobject.ReplicationStatusVO;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for the replication state of this node, and the promotion of a standby when its primary failed.
+ */
+@RestController
+public class ReplicationController {
+
+    static final String PATH = "/replication";
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private ReplicationPrimary primary;
+
+    private ReplicationStandby standby;
+
+    @Autowired
+    public ReplicationController(@Nullable ReplicationPrimary primary, @Nullable ReplicationStandby standby) {
+        this.primary = primary;
+        this.standby = standby;
+    }
+
+    @GetMapping(value = PATH)
+    public ResponseEntity<ReplicationStatusVO> status() {
+        return new ResponseEntity<>(createStatus(), HttpStatus.OK);
+    }
+
+    @PostMapping(value = PATH + "/promote")
+    public ResponseEntity<ReplicationStatusVO> promote() {
+        if (standby == null) {
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        logger.info("Replication service promote standby");
+
+        try {
+            standby.promote();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        return new ResponseEntity<>(createStatus(), HttpStatus.OK);
+    }
+
+    private ReplicationStatusVO createStatus() {
+        if (primary != null) {
+            return new ReplicationStatusVO(ReplicationRole.PRIMARY.name(), primary.isConnected(), false, primary.getAcknowledged(), primary.getLag());
+        }
+        if (standby != null) {
+            return new ReplicationStatusVO(ReplicationRole.STANDBY.name(), standby.isConnected(), standby.isPromoted(),
+                    standby.getPosition().getSequence(), standby.getLag());
+        }
+        return new ReplicationStatusVO(ReplicationRole.NONE.name(), false, false, 0, 0);
+    }
+}
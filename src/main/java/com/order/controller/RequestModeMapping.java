@@ -0,0 +1,17 @@
+package com.order.controller;
+
+import com.order.enumeration.RequestMode;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a handler method as handling its route only in one request mode. A route has a handler for each mode, the
+ * handlers of the other modes are not mapped. Handlers without this annotation are mapped in every mode.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequestModeMapping {
+
+    RequestMode value();
+}
@@ -0,0 +1,9 @@
+package com.order.enumeration;
+
+/**
+ * Backpressure policy when an order event queue is full: block the caller until there is room (and signal
+ * unavailable after a timeout), reject the event, or signal that the service is unavailable.
+ */
+public enum BackpressurePolicy {
+    BLOCK, REJECT, UNAVAILABLE
+}
@@ -0,0 +1,9 @@
+package com.order.enumeration;
+
+/**
+ * Flush policy of the journal: force every event to disk before it is acknowledged, group the events appended
+ * meanwhile into one flush before they are acknowledged, or acknowledge events at once and flush them periodically.
+ */
+public enum FlushPolicy {
+    PER_EVENT, GROUP, ASYNC
+}
@@ -0,0 +1,9 @@
+package com.order.enumeration;
+
+/**
+ * Allocation of the order and execution ids: a counter starting at 1, which is unique within one instance, or
+ * Snowflake ids encoding the time and the node, which are unique across instances with distinct nodes.
+ */
+public enum IdMode {
+    SEQUENCE, SNOWFLAKE
+}
@@ -0,0 +1,11 @@
+package com.order.enumeration;
+
+/**
+ * Storage of the orders in an order book: order objects on the heap, or off-heap columns for very large books, where
+ * order objects are only created when they are read. The storage only applies to the books: the order repository keeps
+ * every order as an object in both cases, so off-heap books do not reduce the heap of the service, they copy the orders
+ * off the heap as well.
+ */
+public enum OrderStorage {
+    HEAP, OFF_HEAP
+}
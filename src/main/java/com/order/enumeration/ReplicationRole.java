@@ -0,0 +1,9 @@
+package com.order.enumeration;
+
+/**
+ * Role of a node in replication: no replication, a primary streaming its journal to a standby, or a standby applying
+ * the journal of a primary until it is promoted.
+ */
+public enum ReplicationRole {
+    NONE, PRIMARY, STANDBY
+}
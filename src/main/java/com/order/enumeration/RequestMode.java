@@ -0,0 +1,9 @@
+package com.order.enumeration;
+
+/**
+ * Handling of the order entry requests: blocking handlers holding a container thread until the event is accepted, or
+ * asynchronous handlers which release the container thread while the event waits for the order books.
+ */
+public enum RequestMode {
+    BLOCKING, ASYNC
+}
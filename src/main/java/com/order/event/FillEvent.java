@@ -0,0 +1,136 @@
+package com.order.event;
+
+import com.order.model.Prices;
+
+/**
+ * A fill of an order by an execution. Fill events are preallocated in the ring buffer and reused.
+ */
+public class FillEvent {
+
+    private volatile long sequence = -1;
+
+    private long timestamp;
+
+    private String instrumentId;
+
+    private long executionId;
+
+    private long orderId;
+
+    private int fillQuantity;
+
+    private int executionQuantity;
+
+    private int orderQuantity;
+
+    // in ticks
+    private long executionPrice;
+
+    void set(String instrumentId, long executionId, long orderId, int fillQuantity, int executionQuantity, int orderQuantity, long executionPrice) {
+        this.timestamp = System.currentTimeMillis();
+        this.instrumentId = instrumentId;
+        this.executionId = executionId;
+        this.orderId = orderId;
+        this.fillQuantity = fillQuantity;
+        this.executionQuantity = executionQuantity;
+        this.orderQuantity = orderQuantity;
+        this.executionPrice = executionPrice;
+    }
+
+    /**
+     * Makes the event visible to the consumer, the volatile write orders it after the field writes.
+     * @param sequence
+     */
+    void publish(long sequence) {
+        this.sequence = sequence;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getInstrumentId() {
+        return instrumentId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public long getExecutionId() {
+        return executionId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public long getOrderId() {
+        return orderId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int getFillQuantity() {
+        return fillQuantity;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int getExecutionQuantity() {
+        return executionQuantity;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int getOrderQuantity() {
+        return orderQuantity;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public double getExecutionPrice() {
+        return Prices.toPrice(executionPrice);
+    }
+
+    /**
+     *
+     * @return the execution price in ticks
+     */
+    public long getExecutionPriceTicks() {
+        return executionPrice;
+    }
+
+    @Override
+    public String toString() {
+        return "FillEvent{" +
+                "instrumentId='" + instrumentId + '\'' +
+                ", executionId=" + executionId +
+                ", orderId=" + orderId +
+                ", fillQuantity=" + fillQuantity +
+                ", executionQuantity=" + executionQuantity +
+                ", orderQuantity=" + orderQuantity +
+                ", executionPrice=" + getExecutionPrice() +
+                '}';
+    }
+}
@@ -0,0 +1,183 @@
+package com.order.event;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous fill events. Fills are written into preallocated events of a ring buffer by the matching threads and
+ * dispatched to the fill subscribers by a single background consumer thread. When the ring buffer is full the
+ * publisher waits for the consumer instead of dropping audit events. Fills published once the consumer is stopped or
+ * died are dropped, since the publisher holds the book lock and must not wait for a consumer which never comes.
+ */
+@Component
+public class FillEventRingBuffer implements FillEvents {
+
+    private static final int MAX_SPINS = 100;
+
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final FillEvent[] events;
+
+    private final int mask;
+
+    private final AtomicLong claimSequence = new AtomicLong(0);
+
+    // the next sequence to be consumed, all sequences below are free to be reused by publishers
+    private volatile long consumerSequence = 0;
+
+    private final AtomicLong waits = new AtomicLong(0);
+
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    private final List<FillSubscriber> subscribers;
+
+    private volatile boolean running;
+
+    private Thread consumer;
+
+    @Autowired
+    public FillEventRingBuffer(@Nullable List<FillSubscriber> subscribers, @Value("${order.audit.ring-size:65536}") int ringSize) {
+        if (ringSize <= 0 || Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException(String.format("Ring size must be a power of 2! ringSize=%d", ringSize));
+        }
+
+        this.subscribers = subscribers != null ? subscribers : Collections.emptyList();
+        this.events = new FillEvent[ringSize];
+        this.mask = ringSize - 1;
+        for (int i = 0; i < ringSize; i++) {
+            events[i] = new FillEvent();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        consumer = new Thread(this::consume, "fill-events");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(consumer);
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public void newFill(String instrumentId, long executionId, long orderId, int fillQuantity, int executionQuantity, int orderQuantity, long executionPrice) {
+        if (!running) {
+            drop();
+            return;
+        }
+        long sequence = claimSequence.getAndIncrement();
+
+        if (sequence - consumerSequence >= events.length) {
+            waits.incrementAndGet();
+            while (sequence - consumerSequence >= events.length) {
+                // a live consumer drains the claimed sequences even when stopped, so only a dead one is given up on
+                if (!consumer.isAlive()) {
+                    drop();
+                    return;
+                }
+                Thread.yield();
+            }
+        }
+
+        FillEvent event = events[(int) sequence & mask];
+        event.set(instrumentId, executionId, orderId, fillQuantity, executionQuantity, orderQuantity, executionPrice);
+        event.publish(sequence);
+    }
+
+    /**
+     * Returns the number of fill events waiting to be consumed.
+     * @return
+     */
+    public long getBacklog() {
+        return claimSequence.get() - consumerSequence;
+    }
+
+    /**
+     * Returns the number of fill events dropped because the consumer was stopped or died.
+     * @return
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of times a publisher had to wait for the consumer because the ring buffer was full.
+     * @return
+     */
+    public long getWaits() {
+        return waits.get();
+    }
+
+    private void consume() {
+        long next = consumerSequence;
+        int spins = 0;
+        boolean batch = false;
+
+        while (running || next < claimSequence.get()) {
+            FillEvent event = events[(int) next & mask];
+            if (event.getSequence() == next) {
+                dispatch(event);
+                consumerSequence = ++next;
+                batch = true;
+                spins = 0;
+            } else {
+                if (batch) {
+                    endOfBatch();
+                    batch = false;
+                }
+                if (++spins > MAX_SPINS) {
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+        }
+
+        if (batch) {
+            endOfBatch();
+        }
+    }
+
+    private void drop() {
+        if (dropped.getAndIncrement() == 0) {
+            logger.warn("Fill events are dropped, the fill event consumer is not running");
+        }
+    }
+
+    private void dispatch(FillEvent event) {
+        for (FillSubscriber subscriber : subscribers) {
+            try {
+                subscriber.onFill(event);
+            } catch (Exception ex) {
+                logger.warn(String.format("Fill subscriber failed for event: %s", event), ex);
+            }
+        }
+    }
+
+    private void endOfBatch() {
+        for (FillSubscriber subscriber : subscribers) {
+            try {
+                subscriber.endOfBatch();
+            } catch (Exception ex) {
+                logger.warn("Fill subscriber failed at end of batch", ex);
+            }
+        }
+    }
+}
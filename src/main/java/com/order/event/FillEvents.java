@@ -0,0 +1,25 @@
+package com.order.event;
+
+/**
+ * API for fill notifications. Called by the order book for every order filled by an execution, while the book is
+ * locked, so implementations must not block or do any I/O on the calling thread.
+ */
+public interface FillEvents {
+
+    /**
+     * Fill events which are discarded.
+     */
+    FillEvents NONE = (instrumentId, executionId, orderId, fillQuantity, executionQuantity, orderQuantity, executionPrice) -> { };
+
+    /**
+     *
+     * @param instrumentId
+     * @param executionId
+     * @param orderId
+     * @param fillQuantity the quantity filled by this execution
+     * @param executionQuantity the total executed quantity of the order
+     * @param orderQuantity
+     * @param executionPrice in ticks, see {@link com.order.model.Prices}
+     */
+    void newFill(String instrumentId, long executionId, long orderId, int fillQuantity, int executionQuantity, int orderQuantity, long executionPrice);
+}
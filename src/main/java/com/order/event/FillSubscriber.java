@@ -0,0 +1,20 @@
+package com.order.event;
+
+/**
+ * Subscriber of fill events published to the fill event ring buffer. Subscribers are called on the consumer thread of
+ * the ring buffer and must not keep a reference to the event, since the event is reused for later fills.
+ */
+public interface FillSubscriber {
+
+    /**
+     *
+     * @param event
+     */
+    void onFill(FillEvent event);
+
+    /**
+     * Called when the consumer has no more events available, e.g. to flush buffered output.
+     */
+    default void endOfBatch() {
+    }
+}
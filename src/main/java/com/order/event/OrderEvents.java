@@ -1,8 +1,12 @@
 package com.order.event;
 
+import com.order.common.OrderBookException;
 import com.order.model.Execution;
 import com.order.model.Order;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * API for order event notifications. Can be implemented either synchronous or asynchronous.
  * Used to notify other components about incoming order events.
@@ -12,4 +16,59 @@ public interface OrderEvents {
     void newOrder(Order order);
 
     void newExecution(Execution execution);
+
+    /**
+     * Notifies an order without waiting for it to be accepted, so the caller does not hold a thread while the order
+     * waits for room or for its book. The order is notified by the caller unless the implementation can accept it
+     * without blocking.
+     * @param order
+     * @return completed when the order is accepted, or with the exception rejecting it
+     */
+    default CompletableFuture<Void> submitOrder(Order order) {
+        return CompletableFuture.runAsync(() -> newOrder(order), Runnable::run);
+    }
+
+    /**
+     * Notifies an execution without waiting for it to be accepted.
+     * @param execution
+     * @return completed when the execution is accepted, or with the exception rejecting it
+     * @see #submitOrder(Order)
+     */
+    default CompletableFuture<Void> submitExecution(Execution execution) {
+        return CompletableFuture.runAsync(() -> newExecution(execution), Runnable::run);
+    }
+
+    /**
+     * Notifies a batch of orders. An order which is not accepted does not stop the batch.
+     * @param orders
+     * @return the exception rejecting each order, null for the orders accepted
+     */
+    default OrderBookException[] newOrders(List<Order> orders) {
+        OrderBookException[] rejections = new OrderBookException[orders.size()];
+        for (int i = 0; i < rejections.length; i++) {
+            try {
+                newOrder(orders.get(i));
+            } catch (OrderBookException ex) {
+                rejections[i] = ex;
+            }
+        }
+        return rejections;
+    }
+
+    /**
+     * Notifies a batch of executions. An execution which is not accepted does not stop the batch.
+     * @param executions
+     * @return the exception rejecting each execution, null for the executions accepted
+     */
+    default OrderBookException[] newExecutions(List<Execution> executions) {
+        OrderBookException[] rejections = new OrderBookException[executions.size()];
+        for (int i = 0; i < rejections.length; i++) {
+            try {
+                newExecution(executions.get(i));
+            } catch (OrderBookException ex) {
+                rejections[i] = ex;
+            }
+        }
+        return rejections;
+    }
 }
@@ -0,0 +1,363 @@
+package com.order.event;
+
+import com.order.common.BackpressureException;
+import com.order.common.OrderBookException;
+import com.order.enumeration.BackpressurePolicy;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.service.OrderBookService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An asynchronous order event implementation. Events are queued in a bounded queue per instrument and drained in
+ * batches into the order book service by a pool of worker threads. A queue is drained by at most one worker at a
+ * time, so the events of an instrument are applied in the order they were accepted. When a queue is full the
+ * configured backpressure policy is applied to the caller. Events submitted without blocking wait for room without
+ * holding a thread, they are admitted in order after each drain of their queue and expire after the block timeout.
+ */
+@Component
+@ConditionalOnProperty(name = "order.events.mode", havingValue = "async")
+public class OrderEventsAsync implements OrderEvents {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private OrderBookService orderBookService;
+
+    private final ConcurrentHashMap<String, InstrumentQueue> queues = new ConcurrentHashMap<>();
+
+    private final ExecutorService workers;
+
+    private final ScheduledExecutorService timeouts;
+
+    private final int queueCapacity;
+
+    private final int batchSize;
+
+    private final BackpressurePolicy backpressurePolicy;
+
+    private final long blockTimeoutMillis;
+
+    private final AtomicInteger depth = new AtomicInteger(0);
+
+    private final Timer lag;
+
+    private final Counter rejected;
+
+    @Autowired
+    public OrderEventsAsync(OrderBookService orderBookService, MeterRegistry meterRegistry,
+                            @Value("${order.events.async.queue-capacity:10000}") int queueCapacity,
+                            @Value("${order.events.async.batch-size:256}") int batchSize,
+                            @Value("${order.events.async.workers:0}") int workers,
+                            @Value("${order.events.async.backpressure:BLOCK}") BackpressurePolicy backpressurePolicy,
+                            @Value("${order.events.async.block-timeout:1000}") long blockTimeoutMillis) {
+        this.orderBookService = orderBookService;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.backpressurePolicy = backpressurePolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        this.workers = Executors.newFixedThreadPool(workers > 0 ? workers : Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "order-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timeouts = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-events-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("order.events.queue.depth", depth, AtomicInteger::get)
+                .description("Order events waiting to be applied to the order books")
+                .register(meterRegistry);
+        lag = Timer.builder("order.events.lag")
+                .description("Time from accepting an order event until it is applied to the order book")
+                .register(meterRegistry);
+        rejected = Counter.builder("order.events.rejected")
+                .description("Order events rejected because the instrument queue was full")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        timeouts.shutdownNow();
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            logger.warn(String.format("Order events not applied at shutdown: %d", depth.get()));
+        }
+    }
+
+    @Override
+    public void newOrder(Order order) {
+        Objects.requireNonNull(order, "Order cannot not be null!");
+        enqueue(order.getInstrumentId(), order);
+    }
+
+    @Override
+    public void newExecution(Execution execution) {
+        Objects.requireNonNull(execution, "Execution cannot not be null!");
+        enqueue(execution.getInstrumentId(), execution);
+    }
+
+    @Override
+    public CompletableFuture<Void> submitOrder(Order order) {
+        Objects.requireNonNull(order, "Order cannot not be null!");
+        return submit(order.getInstrumentId(), order);
+    }
+
+    @Override
+    public CompletableFuture<Void> submitExecution(Execution execution) {
+        Objects.requireNonNull(execution, "Execution cannot not be null!");
+        return submit(execution.getInstrumentId(), execution);
+    }
+
+    /**
+     * Returns the number of events waiting to be applied.
+     * @return
+     */
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    private void enqueue(String instrumentId, Object event) {
+        InstrumentQueue queue = queues.computeIfAbsent(instrumentId, i -> new InstrumentQueue(queueCapacity));
+        QueuedEvent queued = new QueuedEvent(event);
+
+        if (!offer(queue, queued)) {
+            rejected.increment();
+            String msg = String.format("Order event queue is full for instrumentId=%s", instrumentId);
+            if (backpressurePolicy == BackpressurePolicy.REJECT) {
+                throw new OrderBookException(msg);
+            }
+            throw new BackpressureException(msg);
+        }
+
+        depth.incrementAndGet();
+        schedule(queue);
+    }
+
+    /**
+     * Accepts an event without blocking. When the queue is full the event waits for room under the block policy and
+     * fails under the other policies. An event is not accepted before the events already waiting for its queue.
+     * @param instrumentId
+     * @param event
+     * @return
+     */
+    private CompletableFuture<Void> submit(String instrumentId, Object event) {
+        InstrumentQueue queue = queues.computeIfAbsent(instrumentId, i -> new InstrumentQueue(queueCapacity));
+        QueuedEvent queued = new QueuedEvent(event);
+
+        boolean accepted = false;
+        WaitingEvent waiting = null;
+        synchronized (queue.waiting) {
+            if (queue.waiting.isEmpty() && queue.events.offer(queued)) {
+                accepted = true;
+            } else if (backpressurePolicy == BackpressurePolicy.BLOCK) {
+                waiting = new WaitingEvent(queued);
+                queue.waiting.add(waiting);
+            }
+        }
+
+        if (accepted) {
+            depth.incrementAndGet();
+            schedule(queue);
+            return CompletableFuture.completedFuture(null);
+        }
+        return waiting != null ? park(instrumentId, queue, waiting) : failed(instrumentId);
+    }
+
+    private CompletableFuture<Void> park(String instrumentId, InstrumentQueue queue, WaitingEvent waiting) {
+        try {
+            waiting.timeout = timeouts.schedule(() -> expire(instrumentId, queue, waiting), blockTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            expire(instrumentId, queue, waiting);
+        }
+        // the queue may have been drained before the event was added to the waiting events
+        admit(queue);
+        return waiting.future;
+    }
+
+    private CompletableFuture<Void> failed(String instrumentId) {
+        rejected.increment();
+        String msg = String.format("Order event queue is full for instrumentId=%s", instrumentId);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(backpressurePolicy == BackpressurePolicy.REJECT ? new OrderBookException(msg) : new BackpressureException(msg));
+        return future;
+    }
+
+    private void expire(String instrumentId, InstrumentQueue queue, WaitingEvent waiting) {
+        synchronized (queue.waiting) {
+            if (!queue.waiting.remove(waiting)) {
+                return;
+            }
+        }
+        rejected.increment();
+        waiting.future.completeExceptionally(new BackpressureException(String.format("Order event queue is full for instrumentId=%s", instrumentId)));
+    }
+
+    /**
+     * Moves the waiting events into the queue while there is room and completes them.
+     * @param queue
+     */
+    private void admit(InstrumentQueue queue) {
+        List<WaitingEvent> admitted = new ArrayList<>();
+        synchronized (queue.waiting) {
+            while (!queue.waiting.isEmpty() && queue.events.offer(queue.waiting.peek().queued)) {
+                admitted.add(queue.waiting.poll());
+            }
+        }
+        if (admitted.isEmpty()) {
+            return;
+        }
+
+        depth.addAndGet(admitted.size());
+        schedule(queue);
+        for (WaitingEvent waiting : admitted) {
+            if (waiting.timeout != null) {
+                waiting.timeout.cancel(false);
+            }
+            waiting.future.complete(null);
+        }
+    }
+
+    private boolean offer(InstrumentQueue queue, QueuedEvent queued) {
+        if (backpressurePolicy != BackpressurePolicy.BLOCK) {
+            return queue.events.offer(queued);
+        }
+
+        try {
+            return queue.events.offer(queued, blockTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void schedule(InstrumentQueue queue) {
+        if (queue.scheduled.compareAndSet(false, true)) {
+            try {
+                workers.execute(() -> drain(queue));
+            } catch (RejectedExecutionException ex) {
+                queue.scheduled.set(false);
+                logger.warn("Order events worker pool is shut down");
+            }
+        }
+    }
+
+    private void drain(InstrumentQueue queue) {
+        try {
+            List<QueuedEvent> batch = new ArrayList<>(Math.min(batchSize, queue.events.size()));
+            queue.events.drainTo(batch, batchSize);
+            depth.addAndGet(-batch.size());
+            apply(batch);
+        } finally {
+            queue.scheduled.set(false);
+            admit(queue);
+            // events offered while the batch was applied were not scheduled
+            if (!queue.events.isEmpty()) {
+                schedule(queue);
+            }
+        }
+    }
+
+    /**
+     * Applies a batch in order, each run of consecutive orders or executions is added to the book in one call.
+     * @param batch
+     */
+    private void apply(List<QueuedEvent> batch) {
+        int start = 0;
+        while (start < batch.size()) {
+            boolean orders = batch.get(start).event instanceof Order;
+            int end = start + 1;
+            while (end < batch.size() && (batch.get(end).event instanceof Order) == orders) {
+                end++;
+            }
+            applyRun(batch.subList(start, end), orders);
+            start = end;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyRun(List<QueuedEvent> run, boolean orders) {
+        List<Object> events = new ArrayList<>(run.size());
+        for (QueuedEvent queued : run) {
+            events.add(queued.event);
+        }
+
+        OrderBookException[] rejections;
+        try {
+            rejections = orders ? orderBookService.addOrders((List<Order>) (List<?>) events)
+                    : orderBookService.addExecutions((List<Execution>) (List<?>) events);
+        } catch (Exception ex) {
+            logger.warn(String.format("Exception raised applying %d order events", events.size()), ex);
+            rejections = new OrderBookException[0];
+        }
+
+        long now = System.nanoTime();
+        for (int i = 0; i < run.size(); i++) {
+            if (i < rejections.length && rejections[i] != null) {
+                logger.warn(String.format("Order event rejected %s: %s", events.get(i), rejections[i].getMessage()));
+            }
+            lag.record(now - run.get(i).enqueued, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static class InstrumentQueue {
+
+        final BlockingQueue<QueuedEvent> events;
+
+        final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        /**
+         * Submitted events waiting for room in the queue, guarded by itself.
+         */
+        final ArrayDeque<WaitingEvent> waiting = new ArrayDeque<>();
+
+        InstrumentQueue(int capacity) {
+            events = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    private static class WaitingEvent {
+
+        final QueuedEvent queued;
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        volatile ScheduledFuture<?> timeout;
+
+        WaitingEvent(QueuedEvent queued) {
+            this.queued = queued;
+        }
+    }
+
+    private static class QueuedEvent {
+
+        final Object event;
+
+        final long enqueued = System.nanoTime();
+
+        QueuedEvent(Object event) {
+            this.event = event;
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package com.order.event;
 
+import com.order.common.OrderBookException;
 import com.order.model.Execution;
 import com.order.model.Order;
 import com.order.service.OrderBookService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * A synchronous order event stub to enable testing.
  */
 @Component
+@ConditionalOnProperty(name = "order.events.mode", havingValue = "sync", matchIfMissing = true)
 public class OrderEventsStub implements OrderEvents {
 
     private OrderBookService orderBookService;
@@ -28,4 +34,24 @@ public class OrderEventsStub implements OrderEvents {
     public void newExecution(Execution execution) {
         orderBookService.addExecution(execution);
     }
+
+    @Override
+    public CompletableFuture<Void> submitOrder(Order order) {
+        return orderBookService.submitOrder(order);
+    }
+
+    @Override
+    public CompletableFuture<Void> submitExecution(Execution execution) {
+        return orderBookService.submitExecution(execution);
+    }
+
+    @Override
+    public OrderBookException[] newOrders(List<Order> orders) {
+        return orderBookService.addOrders(orders);
+    }
+
+    @Override
+    public OrderBookException[] newExecutions(List<Execution> executions) {
+        return orderBookService.addExecutions(executions);
+    }
 }
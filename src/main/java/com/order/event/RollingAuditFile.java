@@ -0,0 +1,100 @@
+package com.order.event;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Fill subscriber writing an audit line per fill to a file. A new file is started when the current file reaches the
+ * maximum file size. Only called from the fill event consumer thread.
+ */
+@Component
+@ConditionalOnProperty(name = "order.audit.file.enabled", havingValue = "true")
+public class RollingAuditFile implements FillSubscriber {
+
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final Path directory;
+
+    private final long maxFileSize;
+
+    private final StringBuilder line = new StringBuilder(128);
+
+    private Writer writer;
+
+    private long fileSize;
+
+    private int fileCount;
+
+    @Autowired
+    public RollingAuditFile(@Value("${order.audit.file.directory:${java.io.tmpdir}/order-audit}") String directory,
+                            @Value("${order.audit.file.max-size:67108864}") long maxFileSize) {
+        this.directory = Paths.get(directory);
+        this.maxFileSize = maxFileSize;
+    }
+
+    @Override
+    public void onFill(FillEvent event) {
+        line.setLength(0);
+        line.append(event.getTimestamp()).append(' ')
+                .append(event.getInstrumentId()).append(' ')
+                .append(event.getExecutionId()).append(' ')
+                .append(event.getOrderId()).append(' ')
+                .append(event.getFillQuantity()).append(' ')
+                .append(event.getExecutionQuantity()).append('/').append(event.getOrderQuantity()).append(' ')
+                .append(event.getExecutionPrice()).append('\n');
+
+        try {
+            if (writer == null || fileSize >= maxFileSize) {
+                roll();
+            }
+            writer.append(line);
+            fileSize += line.length();
+        } catch (IOException ex) {
+            logger.warn(String.format("Failed to write audit for fill: %s", event), ex);
+        }
+    }
+
+    @Override
+    public void endOfBatch() {
+        if (writer != null) {
+            try {
+                writer.flush();
+            } catch (IOException ex) {
+                logger.warn("Failed to flush audit file", ex);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format("fills-%s-%d.log", LocalDateTime.now().format(FILE_DATE_FORMAT), fileCount++));
+        logger.info(String.format("Writing fill audit to %s", file));
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        fileSize = 0;
+    }
+}
@@ -0,0 +1,70 @@
+package com.order.factory;
+
+import com.order.common.BackpressureException;
+import com.order.common.OrderBookException;
+import com.order.valueobject.BatchResultVO;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A factory object to create the outcomes of a batch submission.
+ */
+public class BatchResultFactory {
+
+    /**
+     * Creates the outcome of each item of a batch with consecutive ids.
+     * @param firstId the id of the first item
+     * @param rejections the exception rejecting each item, null for the items accepted
+     * @return
+     */
+    public static List<BatchResultVO> createBatchResults(long firstId, OrderBookException[] rejections) {
+        Objects.requireNonNull(rejections, "Rejections cannot not be null!");
+
+        List<BatchResultVO> results = new ArrayList<>(rejections.length);
+        for (int i = 0; i < rejections.length; i++) {
+            OrderBookException rejection = rejections[i];
+            if (rejection == null) {
+                results.add(new BatchResultVO(firstId + i, HttpStatus.CREATED.value(), null));
+            } else if (rejection instanceof BackpressureException) {
+                results.add(new BatchResultVO(firstId + i, HttpStatus.SERVICE_UNAVAILABLE.value(), rejection.getMessage()));
+            } else {
+                results.add(new BatchResultVO(firstId + i, HttpStatus.UNPROCESSABLE_ENTITY.value(), rejection.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Fills the outcomes of the submitted items into the rejections of a batch whose invalid items were not submitted.
+     * @param rejections the exception rejecting each item which was not submitted, null for the submitted items
+     * @param submitted the exception rejecting each submitted item, in the order of the batch
+     */
+    public static void mergeRejections(OrderBookException[] rejections, OrderBookException[] submitted) {
+        Objects.requireNonNull(rejections, "Rejections cannot not be null!");
+        Objects.requireNonNull(submitted, "Submitted rejections cannot not be null!");
+
+        int j = 0;
+        for (int i = 0; i < rejections.length; i++) {
+            if (rejections[i] == null) {
+                rejections[i] = submitted[j++];
+            }
+        }
+    }
+
+    /**
+     * Returns the status of the whole batch: created if all items were accepted, multi status otherwise.
+     * @param results
+     * @return
+     */
+    public static HttpStatus statusOf(List<BatchResultVO> results) {
+        for (BatchResultVO result : results) {
+            if (result.getStatus() != HttpStatus.CREATED.value()) {
+                return HttpStatus.MULTI_STATUS;
+            }
+        }
+        return HttpStatus.CREATED;
+    }
+}
@@ -0,0 +1,30 @@
+package com.order.factory;
+
+import com.order.common.OrderBookException;
+import com.order.model.Execution;
+import com.order.model.Prices;
+
+import java.time.LocalDateTime;
+
+/**
+ * A factory object for creating executions.
+ */
+public class ExecutionFactory {
+
+    /**
+     *
+     * @param executionId
+     * @param executionQuantity
+     * @param instrumentId
+     * @param executionPrice
+     * @return the execution
+     * @throws OrderBookException if the price is missing or not an exact tick, see {@link Prices#toExactTicks(Double)}
+     */
+    public static Execution createExecution(long executionId, int executionQuantity, String instrumentId, Double executionPrice) {
+        if (executionPrice == null) {
+            throw new OrderBookException("Execution price cannot not be null!");
+        }
+        return new Execution(executionId, executionQuantity, instrumentId, Prices.toExactTicks(executionPrice), LocalDateTime.now());
+    }
+
+}
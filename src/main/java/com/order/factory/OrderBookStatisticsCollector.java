@@ -0,0 +1,61 @@
+package com.order.factory;
+
+import com.order.common.LongIntHashMap;
+import com.order.model.OrderRowVisitor;
+import com.order.model.Prices;
+
+/**
+ * Collects the breakdowns of an order book in a single pass over its orders, the totals are read from the aggregates
+ * of the book. Ties in the breakdown orders are won by the order visited first, as with a stream min or max. Only the
+ * ids of the breakdown orders are kept, which are read from the book afterwards. The limit breakdown is collected by
+ * price in ticks.
+ */
+class OrderBookStatisticsCollector implements OrderRowVisitor {
+
+    int rowCount;
+
+    final LongIntHashMap limitBreakdown = new LongIntHashMap();
+
+    long smallestId;
+    long largestId;
+    long earliestId;
+    long latestId;
+
+    private int smallestQuantity;
+    private int largestQuantity;
+    private long earliestNanos;
+    private long latestNanos;
+
+    @Override
+    public void visit(long orderId, int orderQuantity, int executionQuantity, long orderPrice, long entryNanos, boolean invalid) {
+        rowCount++;
+
+        // market orders have no limit price
+        if (orderPrice != Prices.NONE) {
+            limitBreakdown.add(orderPrice, orderQuantity);
+        }
+
+        if (rowCount == 1) {
+            smallestId = largestId = earliestId = latestId = orderId;
+            smallestQuantity = largestQuantity = orderQuantity;
+            earliestNanos = latestNanos = entryNanos;
+            return;
+        }
+        if (orderQuantity < smallestQuantity) {
+            smallestId = orderId;
+            smallestQuantity = orderQuantity;
+        }
+        if (orderQuantity > largestQuantity) {
+            largestId = orderId;
+            largestQuantity = orderQuantity;
+        }
+        if (entryNanos < earliestNanos) {
+            earliestId = orderId;
+            earliestNanos = entryNanos;
+        }
+        if (entryNanos > latestNanos) {
+            latestId = orderId;
+            latestNanos = entryNanos;
+        }
+    }
+}
@@ -1,39 +1,47 @@
 package com.order.factory;
 
-import com.order.model.Order;
 import com.order.model.OrderBook;
+import com.order.model.Prices;
 import com.order.valueobject.OrderBookStatistics;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 /**
  * A factory object to create order book statistics.
  */
 public class OrderBookStatisticsFactory {
 
+    /**
+     * Creates the statistics of an order book. The totals are read from the aggregates of the book under the book lock,
+     * the breakdowns are collected in a single scan over the orders which does not hold the lock for the whole pass,
+     * so they can already include changes made after the totals were read.
+     * @param orderBook
+     * @return
+     */
     public static OrderBookStatistics createOrderBookStatistics(OrderBook orderBook) {
         Objects.requireNonNull(orderBook, "OrderBook cannot not be null!");
 
-        int totalDemand = orderBook.getTotalDemand();
-        int invalidDemand = orderBook.getInvalidDemand();
-        int validDemand = orderBook.getValidDemand();
-        int executionAmount = orderBook.getExecutionAmount();
-
-        long invalidOrders = orderBook.getInvalidOrderCount();
-        long validOrders = orderBook.getValidOrderCount();
+        OrderBookStatistics stats;
+        synchronized (orderBook) {
+            int validDemand = orderBook.getValidDemand();
+            stats = new OrderBookStatistics(orderBook.getInstrumentId(), orderBook.getState().name(),
+                    orderBook.getOrderCount(), orderBook.getTotalDemand(), orderBook.getInvalidDemand(), validDemand,
+                    orderBook.getInvalidOrderCount(), orderBook.getValidOrderCount(), orderBook.getExecutionAmount(),
+                    orderBook.getExecutionPrice(), orderBook.getExecutionAmount() == validDemand);
+        }
 
-        OrderBookStatistics stats = new OrderBookStatistics(orderBook.getInstrumentId(), orderBook.getState().name(),
-                orderBook.getOrders().size(), totalDemand, invalidDemand, validDemand, invalidOrders, validOrders, executionAmount, orderBook.getExecutionPrice(), orderBook.isExecuted());
+        OrderBookStatisticsCollector collector = new OrderBookStatisticsCollector();
+        orderBook.forEachRow(collector);
 
-        Map<Double, Integer> limitBreakdown = orderBook.getOrders().stream().collect(Collectors.groupingBy(Order::getOrderPrice, Collectors.summingInt(Order::getOrderQuantity)));
-        stats.setLimitBreakdown(limitBreakdown);
+        // prices are only converted for the limit breakdown of the statistics
+        collector.limitBreakdown.forEach((price, demand) -> stats.addLimitBreakdown(Prices.toPrice(price), demand));
 
-        if (orderBook.getOrders().size() > 0) {
-            stats.addOrderBreakdown("smallest", orderBook.getMinOrder());
-            stats.addOrderBreakdown("largest", orderBook.getMaxOrder());
-            stats.addOrderBreakdown("earliest", orderBook.getFirstOrder());
-            stats.addOrderBreakdown("latest", orderBook.getLastOrder());
+        if (collector.rowCount > 0) {
+            // an order replaced after the scan is read as it is now
+            stats.addOrderBreakdown("smallest", orderBook.getOrder(collector.smallestId));
+            stats.addOrderBreakdown("largest", orderBook.getOrder(collector.largestId));
+            stats.addOrderBreakdown("earliest", orderBook.getOrder(collector.earliestId));
+            stats.addOrderBreakdown("latest", orderBook.getOrder(collector.latestId));
         }
         return stats;
     }
@@ -1,18 +1,26 @@
 package com.order.factory;
 
 import com.order.model.Order;
+import com.order.model.Prices;
+
+import java.time.LocalDateTime;
 
 /**
  * A factory object for creating orders.
  */
 public class OrderFactory {
 
+    /**
+     *
+     * @param orderId
+     * @param orderQuantity
+     * @param instrumentId
+     * @param orderPrice null for a market order
+     * @return the order
+     * @throws com.order.common.OrderBookException if the price is not an exact tick, see {@link Prices#toExactTicks(Double)}
+     */
     public static Order createOrder(long orderId, int orderQuantity, String instrumentId, Double orderPrice) {
-        if (orderPrice == null) {
-            return new Order(orderId, orderQuantity, instrumentId);
-        } else {
-            return new Order(orderId, orderQuantity, instrumentId, orderPrice);
-        }
+        return new Order(orderId, orderQuantity, instrumentId, Prices.toExactTicks(orderPrice), LocalDateTime.now());
     }
 
 }
\ No newline at end of file
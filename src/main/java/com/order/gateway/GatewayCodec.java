@@ -0,0 +1,118 @@
+package com.order.gateway;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed layout binary messages of the order entry gateway, big endian. Every request starts with its type and a
+ * request id chosen by the client, which is echoed in its ack; requests may be pipelined and are acked in order.
+ * <pre>
+ * NEW_ORDER   type(1) requestId(8) quantity(4) price(8, NaN for market orders) instrument(16)
+ * EXECUTION   type(1) requestId(8) quantity(4) price(8) instrument(16)
+ * OPEN_BOOK   type(1) requestId(8) instrument(16)
+ * CLOSE_BOOK  type(1) requestId(8) instrument(16)
+ * ACK         type(1) requestId(8) id(8, the order or execution id, 0 for books) status(1)
+ * </pre>
+ * The instrument is US-ASCII, padded with zero bytes.
+ */
+public final class GatewayCodec {
+
+    public static final byte NEW_ORDER = 'O';
+    public static final byte EXECUTION = 'E';
+    public static final byte OPEN_BOOK = 'B';
+    public static final byte CLOSE_BOOK = 'C';
+    public static final byte ACK = 'A';
+
+    public static final byte ACCEPTED = 0;
+    public static final byte REJECTED = 1;
+    public static final byte BUSY = 2;
+
+    public static final int INSTRUMENT_SIZE = 16;
+
+    public static final int ORDER_SIZE = 1 + 8 + 4 + 8 + INSTRUMENT_SIZE;
+    public static final int EXECUTION_SIZE = ORDER_SIZE;
+    public static final int BOOK_SIZE = 1 + 8 + INSTRUMENT_SIZE;
+    public static final int ACK_SIZE = 1 + 8 + 8 + 1;
+
+    private GatewayCodec() {
+    }
+
+    /**
+     * Returns the size of a request of the type.
+     * @param type
+     * @return the size, -1 for an unknown type
+     */
+    public static int sizeOf(byte type) {
+        switch (type) {
+            case NEW_ORDER:
+                return ORDER_SIZE;
+            case EXECUTION:
+                return EXECUTION_SIZE;
+            case OPEN_BOOK:
+            case CLOSE_BOOK:
+                return BOOK_SIZE;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     *
+     * @param buffer
+     * @param requestId
+     * @param quantity
+     * @param price null for a market order
+     * @param instrumentId
+     */
+    public static void putNewOrder(ByteBuffer buffer, long requestId, int quantity, Double price, String instrumentId) {
+        buffer.put(NEW_ORDER).putLong(requestId).putInt(quantity).putDouble(price != null ? price : Double.NaN);
+        putInstrument(buffer, instrumentId);
+    }
+
+    /**
+     *
+     * @param buffer
+     * @param requestId
+     * @param quantity
+     * @param price
+     * @param instrumentId
+     */
+    public static void putExecution(ByteBuffer buffer, long requestId, int quantity, double price, String instrumentId) {
+        buffer.put(EXECUTION).putLong(requestId).putInt(quantity).putDouble(price);
+        putInstrument(buffer, instrumentId);
+    }
+
+    /**
+     *
+     * @param buffer
+     * @param type {@link #OPEN_BOOK} or {@link #CLOSE_BOOK}
+     * @param requestId
+     * @param instrumentId
+     */
+    public static void putBook(ByteBuffer buffer, byte type, long requestId, String instrumentId) {
+        buffer.put(type).putLong(requestId);
+        putInstrument(buffer, instrumentId);
+    }
+
+    /**
+     *
+     * @param buffer
+     * @param requestId
+     * @param id
+     * @param status
+     */
+    public static void putAck(ByteBuffer buffer, long requestId, long id, byte status) {
+        buffer.put(ACK).putLong(requestId).putLong(id).put(status);
+    }
+
+    private static void putInstrument(ByteBuffer buffer, String instrumentId) {
+        byte[] instrument = instrumentId.getBytes(StandardCharsets.US_ASCII);
+        if (instrument.length > INSTRUMENT_SIZE) {
+            throw new IllegalArgumentException(String.format("Instrument id is too long! instrumentId=%s", instrumentId));
+        }
+        buffer.put(instrument);
+        for (int i = instrument.length; i < INSTRUMENT_SIZE; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+}
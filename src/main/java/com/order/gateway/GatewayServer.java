@@ -0,0 +1,450 @@
+package com.order.gateway;
+
+import com.order.common.BackpressureException;
+import com.order.event.OrderEvents;
+import com.order.factory.ExecutionFactory;
+import com.order.factory.OrderFactory;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.repository.ExecutionRepository;
+import com.order.replication.ReplicationStandby;
+import com.order.repository.OrderRepository;
+import com.order.service.OrderBookService;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP order entry gateway for the binary messages of {@link GatewayCodec}, next to the REST controllers. A single
+ * selector thread reads the messages of all connections into a direct buffer per connection and decodes them in place.
+ * The selector thread never runs a command: the requests decoded from a read are handed to a pool of worker threads,
+ * which submit them the way the asynchronous controllers do, orders and executions to the order events and the
+ * repositories, open and close to the order book service. The requests of a connection are submitted in order, one
+ * batch after the other. A request is acked when its command completes, the acks are put in request order into a
+ * direct output buffer by the selector thread, so pipelined requests share their writes.
+ * <p>
+ * On a replication standby which is not promoted, every request is refused as busy, as the REST commands are.
+ * <p>
+ * A connection has at most as many requests in flight as acks fit into its output buffer. When a client does not read
+ * its acks, or its requests are not completed, the gateway stops reading its requests until the acks are written.
+ */
+@Component
+@ConditionalOnProperty(name = "order.gateway.enabled", havingValue = "true")
+public class GatewayServer {
+
+    // offsets of the fields within a message
+    private static final int REQUEST_ID = 1;
+    private static final int QUANTITY = 9;
+    private static final int PRICE = 13;
+    private static final int INSTRUMENT = 21;
+    private static final int BOOK_INSTRUMENT = 9;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final OrderEvents orderEvents;
+
+    private final OrderBookService orderBookService;
+
+    private final OrderRepository orderRepository;
+
+    private final ExecutionRepository executionRepository;
+
+    private final ReplicationStandby standby;
+
+    private final int port;
+
+    private final int bufferSize;
+
+    private final InstrumentCache instruments = new InstrumentCache(1024);
+
+    private final ExecutorService workers;
+
+    // connections with completed requests, acked by the selector thread
+    private final Queue<SelectionKey> completed = new ConcurrentLinkedQueue<>();
+
+    private Selector selector;
+
+    private ServerSocketChannel server;
+
+    private Thread thread;
+
+    private volatile boolean running;
+
+    @Autowired
+    public GatewayServer(OrderEvents orderEvents, OrderBookService orderBookService, OrderRepository orderRepository, ExecutionRepository executionRepository,
+                         @Nullable ReplicationStandby standby,
+                         @Value("${order.gateway.port:9100}") int port,
+                         @Value("${order.gateway.buffer-size:65536}") int bufferSize,
+                         @Value("${order.gateway.workers:0}") int workers) {
+        if (bufferSize < GatewayCodec.ORDER_SIZE) {
+            throw new IllegalArgumentException(String.format("Buffer size is too small! bufferSize=%d", bufferSize));
+        }
+        this.orderEvents = orderEvents;
+        this.orderBookService = orderBookService;
+        this.orderRepository = orderRepository;
+        this.executionRepository = executionRepository;
+        this.standby = standby;
+        this.port = port;
+        this.bufferSize = bufferSize;
+
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        this.workers = Executors.newFixedThreadPool(workers > 0 ? workers : Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "order-gateway-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        thread = new Thread(this::run, "order-gateway");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info(String.format("Order gateway listening on port %d", getPort()));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        selector.wakeup();
+        thread.join(5000);
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            logger.warn("Order gateway requests not submitted at shutdown");
+        }
+    }
+
+    /**
+     *
+     * @return the port the gateway listens on
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                ack();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isWritable()) {
+                                write(key);
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                read(key);
+                            }
+                        }
+                    } catch (IOException | RuntimeException ex) {
+                        close(key, ex);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            logger.error("Order gateway failed", ex);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection(channel, bufferSize));
+        logger.info(String.format("Order gateway connection from %s", channel.getRemoteAddress()));
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        if (connection.channel.read(connection.in) < 0) {
+            close(key, null);
+            return;
+        }
+        handle(key, connection);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        if (flush(connection)) {
+            // handle the requests left while the acks could not be written
+            handle(key, connection);
+        }
+    }
+
+    /**
+     * Writes the acks of the requests completed since the last select, and handles the requests left meanwhile.
+     */
+    private void ack() {
+        SelectionKey key;
+        while ((key = completed.poll()) != null) {
+            if (!key.isValid()) {
+                continue;
+            }
+            try {
+                handle(key, (Connection) key.attachment());
+            } catch (IOException | RuntimeException ex) {
+                close(key, ex);
+            }
+        }
+    }
+
+    /**
+     * Hands the complete messages in the input buffer to the workers and writes the acks of the completed requests.
+     * Reading is suspended while acks are left unwritten or too many requests are in flight.
+     * @param key
+     * @param connection
+     * @throws IOException
+     */
+    private void handle(SelectionKey key, Connection connection) throws IOException {
+        putAcks(connection);
+
+        ByteBuffer in = connection.in;
+        List<Request> batch = new ArrayList<>();
+        in.flip();
+        while (in.hasRemaining() && connection.inFlight.size() < connection.maxInFlight) {
+            int position = in.position();
+            byte type = in.get(position);
+            int size = GatewayCodec.sizeOf(type);
+            if (size < 0) {
+                // the framing is lost
+                throw new IOException(String.format("Unknown message type %d", type));
+            }
+            if (in.remaining() < size) {
+                break;
+            }
+            Request request = decode(in, position, type);
+            connection.inFlight.add(request);
+            if (request.status < 0) {
+                batch.add(request);
+            }
+            in.position(position + size);
+        }
+        in.compact();
+
+        if (!batch.isEmpty()) {
+            // the batches of a connection are submitted one after the other
+            connection.submitted = connection.submitted.thenRunAsync(() -> submit(key, batch), workers);
+        }
+        putAcks(connection);
+
+        boolean flushed = flush(connection);
+        key.interestOps(!flushed ? SelectionKey.OP_WRITE : connection.inFlight.size() < connection.maxInFlight ? SelectionKey.OP_READ : 0);
+    }
+
+    /**
+     * Puts the acks of the completed requests into the output buffer, in request order.
+     * @param connection
+     * @throws IOException
+     */
+    private void putAcks(Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        Request request;
+        while ((request = connection.inFlight.peek()) != null && request.status >= 0) {
+            if (out.remaining() < GatewayCodec.ACK_SIZE && !flush(connection)) {
+                return;
+            }
+            GatewayCodec.putAck(out, request.requestId, request.id, request.status);
+            connection.inFlight.poll();
+        }
+    }
+
+    private Request decode(ByteBuffer in, int position, byte type) {
+        Request request = new Request(type, in.getLong(position + REQUEST_ID));
+        request.instrumentId = instruments.get(in, position + (type == GatewayCodec.NEW_ORDER || type == GatewayCodec.EXECUTION ? INSTRUMENT : BOOK_INSTRUMENT));
+        if (standby != null && !standby.isPromoted()) {
+            // the books of a standby only change by replication
+            request.status = GatewayCodec.BUSY;
+        } else if (request.instrumentId == null) {
+            request.status = GatewayCodec.REJECTED;
+        } else if (type == GatewayCodec.NEW_ORDER || type == GatewayCodec.EXECUTION) {
+            request.quantity = in.getInt(position + QUANTITY);
+            request.price = in.getDouble(position + PRICE);
+        }
+        return request;
+    }
+
+    /**
+     * Submits the requests of a batch in order, on a worker thread.
+     * @param key
+     * @param batch
+     */
+    private void submit(SelectionKey key, List<Request> batch) {
+        for (Request request : batch) {
+            CompletableFuture<Void> submitted;
+            try {
+                submitted = submit(request);
+            } catch (RuntimeException ex) {
+                submitted = new CompletableFuture<>();
+                submitted.completeExceptionally(ex);
+            }
+            submitted.whenComplete((ignored, failure) -> {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                request.status = cause == null ? GatewayCodec.ACCEPTED : cause instanceof BackpressureException ? GatewayCodec.BUSY : GatewayCodec.REJECTED;
+                completed.add(key);
+                selector.wakeup();
+            });
+        }
+    }
+
+    private CompletableFuture<Void> submit(Request request) {
+        switch (request.type) {
+            case GatewayCodec.NEW_ORDER:
+                Order order = OrderFactory.createOrder(orderRepository.nextOrderId(), request.quantity, request.instrumentId,
+                        Double.isNaN(request.price) ? null : request.price);
+                //notify other components first, an event refused by backpressure is not stored
+                return orderEvents.submitOrder(order).thenRun(() -> {
+                    orderRepository.store(order);
+                    request.id = order.getOrderId();
+                });
+            case GatewayCodec.EXECUTION:
+                Execution execution = ExecutionFactory.createExecution(executionRepository.nextExecutionId(), request.quantity, request.instrumentId,
+                        Double.isNaN(request.price) ? null : request.price);
+                return orderEvents.submitExecution(execution).thenRun(() -> {
+                    executionRepository.store(execution);
+                    request.id = execution.getExecutionId();
+                });
+            case GatewayCodec.OPEN_BOOK:
+                return orderBookService.submitOpen(request.instrumentId);
+            default:
+                return orderBookService.submitClose(request.instrumentId);
+        }
+    }
+
+    /**
+     * Writes the acks in the output buffer.
+     * @param connection
+     * @return true if all the acks are written
+     * @throws IOException
+     */
+    private boolean flush(Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        if (out.position() == 0) {
+            return true;
+        }
+        out.flip();
+        connection.channel.write(out);
+        out.compact();
+        return out.position() == 0;
+    }
+
+    private void close(SelectionKey key, Exception ex) {
+        key.cancel();
+        closeQuietly(key.channel());
+        if (ex != null) {
+            logger.warn(String.format("Order gateway connection closed: %s", ex.getMessage()));
+        } else {
+            logger.info("Order gateway connection closed by the client");
+        }
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ex) {
+            logger.debug("Order gateway close failed", ex);
+        }
+    }
+
+    /**
+     * The buffers of a connection, allocated once when it is accepted, and its requests in flight.
+     */
+    private static final class Connection {
+
+        final SocketChannel channel;
+
+        final ByteBuffer in;
+
+        final ByteBuffer out;
+
+        // the requests not yet acked in request order, only used by the selector thread
+        final Queue<Request> inFlight = new ArrayDeque<>();
+
+        final int maxInFlight;
+
+        // completed when the last batch is submitted, only used by the selector thread
+        CompletableFuture<Void> submitted = CompletableFuture.completedFuture(null);
+
+        Connection(SocketChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.in = ByteBuffer.allocateDirect(bufferSize);
+            this.out = ByteBuffer.allocateDirect(bufferSize);
+            this.maxInFlight = bufferSize / GatewayCodec.ACK_SIZE;
+        }
+    }
+
+    /**
+     * A decoded request. The id and the status are set by the thread completing the request and read by the selector
+     * thread once the status is set.
+     */
+    private static final class Request {
+
+        final byte type;
+
+        final long requestId;
+
+        String instrumentId;
+
+        int quantity;
+
+        double price;
+
+        long id;
+
+        // negative until the request is completed
+        volatile byte status = -1;
+
+        Request(byte type, long requestId) {
+            this.type = type;
+            this.requestId = requestId;
+        }
+    }
+}
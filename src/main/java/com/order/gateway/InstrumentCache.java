@@ -0,0 +1,84 @@
+package com.order.gateway;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Resolves the fixed size instrument field of a message to its instrument id string. The 16 bytes are read as two
+ * longs and looked up in an open addressing table, so a known instrument is resolved without allocation. The table is
+ * bounded, instruments seen after it is half full are decoded on every message. Not thread safe.
+ */
+class InstrumentCache {
+
+    private final long[] highs;
+
+    private final long[] lows;
+
+    private final String[] instrumentIds;
+
+    private final int mask;
+
+    private final byte[] scratch = new byte[GatewayCodec.INSTRUMENT_SIZE];
+
+    private int size;
+
+    /**
+     *
+     * @param capacity a power of two
+     */
+    InstrumentCache(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException(String.format("Capacity must be a power of two! capacity=%d", capacity));
+        }
+        highs = new long[capacity];
+        lows = new long[capacity];
+        instrumentIds = new String[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the instrument id of the field at the index of the buffer.
+     * @param buffer
+     * @param index
+     * @return the instrument id, null if the field is empty
+     */
+    String get(ByteBuffer buffer, int index) {
+        long high = buffer.getLong(index);
+        long low = buffer.getLong(index + 8);
+        if (high == 0 && low == 0) {
+            return null;
+        }
+
+        int slot = hash(high, low) & mask;
+        String instrumentId;
+        while ((instrumentId = instrumentIds[slot]) != null) {
+            if (highs[slot] == high && lows[slot] == low) {
+                return instrumentId;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        instrumentId = decode(buffer, index);
+        if (size < (mask + 1) >> 1) {
+            highs[slot] = high;
+            lows[slot] = low;
+            instrumentIds[slot] = instrumentId;
+            size++;
+        }
+        return instrumentId;
+    }
+
+    private String decode(ByteBuffer buffer, int index) {
+        int length = 0;
+        while (length < scratch.length && (scratch[length] = buffer.get(index + length)) != 0) {
+            length++;
+        }
+        return new String(scratch, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private static int hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low;
+        h *= 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,66 @@
+package com.order.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates ids from blocks taken by each thread from a shared allocator, so threads only contend once per block.
+ * Ids are unique but not allocated in order across threads, and the rest of the blocks of idle threads is never
+ * allocated. Ranges which do not fit in the block of the thread are taken from the shared allocator.
+ */
+public class BlockIdAllocator implements IdAllocator {
+
+    private final IdAllocator shared;
+
+    private final int blockSize;
+
+    private final ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[]{1, 0});
+
+    /**
+     * Ids reserved after blocks were taken, the blocks at or below it are dropped.
+     */
+    private final AtomicLong reserved = new AtomicLong(0);
+
+    public BlockIdAllocator(IdAllocator shared, int blockSize) {
+        if (blockSize <= 0 || blockSize > shared.getMaxCount()) {
+            throw new IllegalArgumentException(String.format("Block size must be between 1 and %d! blockSize=%d", shared.getMaxCount(), blockSize));
+        }
+        this.shared = shared;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long next() {
+        // the next id and the last id of the block
+        long[] block = blocks.get();
+        if (block[0] > block[1] || block[0] <= reserved.get()) {
+            block[0] = shared.next(blockSize);
+            block[1] = block[0] + blockSize - 1;
+        }
+        return block[0]++;
+    }
+
+    @Override
+    public long next(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException(String.format("Count must be positive! count=%d", count));
+        }
+        long[] block = blocks.get();
+        if (block[1] - block[0] + 1 >= count && block[0] > reserved.get()) {
+            long first = block[0];
+            block[0] += count;
+            return first;
+        }
+        return shared.next(count);
+    }
+
+    @Override
+    public int getMaxCount() {
+        return shared.getMaxCount();
+    }
+
+    @Override
+    public void reserve(long id) {
+        shared.reserve(id);
+        reserved.accumulateAndGet(id, Math::max);
+    }
+}
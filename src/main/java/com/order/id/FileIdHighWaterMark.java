@@ -0,0 +1,79 @@
+package com.order.id;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * High-water mark kept in a file. The mark is raised by a lease of ids at a time, the file is written to a temporary
+ * file, forced and moved over the previous one, so a crash leaves either mark. The ids of a lease which are not
+ * allocated before a restart are skipped.
+ */
+public class FileIdHighWaterMark implements IdHighWaterMark {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final Path file;
+
+    private final long lease;
+
+    private volatile long mark;
+
+    public FileIdHighWaterMark(Path file, long lease) throws IOException {
+        if (lease <= 0) {
+            throw new IllegalArgumentException(String.format("Lease must be positive! lease=%d", lease));
+        }
+        this.file = file;
+        this.lease = lease;
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+                mark = in.readLong();
+            }
+            logger.info(String.format("Id high-water mark %d loaded from %s", mark, file));
+        }
+    }
+
+    @Override
+    public long get() {
+        return mark;
+    }
+
+    @Override
+    public void ensure(long id) {
+        if (id > mark) {
+            raise(id);
+        }
+    }
+
+    private synchronized void raise(long id) {
+        if (id <= mark) {
+            return;
+        }
+        long raised = id + lease;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel))) {
+                out.writeLong(raised);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        mark = raised;
+    }
+}
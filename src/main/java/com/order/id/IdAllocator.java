@@ -0,0 +1,34 @@
+package com.order.id;
+
+/**
+ * Allocates ids, every id is allocated at most once.
+ */
+public interface IdAllocator {
+
+    /**
+     *
+     * @return
+     */
+    long next();
+
+    /**
+     * Allocates a range of consecutive ids in one step.
+     * @param count
+     * @return the first id of the range
+     */
+    long next(int count);
+
+    /**
+     * Returns the largest range allocated in one step.
+     * @return
+     */
+    default int getMaxCount() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Makes sure ids up to the given id are never allocated again, used when ids are restored.
+     * @param id
+     */
+    void reserve(long id);
+}
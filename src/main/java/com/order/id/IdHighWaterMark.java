@@ -0,0 +1,34 @@
+package com.order.id;
+
+/**
+ * Durable high-water mark of an id allocator, so the ids allocated before a restart are not allocated again. The
+ * mark is raised ahead of the ids in leases, so most allocations do not write it.
+ */
+public interface IdHighWaterMark {
+
+    /**
+     * A mark which is not kept, the ids start over at every start.
+     */
+    IdHighWaterMark NONE = new IdHighWaterMark() {
+        @Override
+        public long get() {
+            return 0;
+        }
+
+        @Override
+        public void ensure(long id) {
+        }
+    };
+
+    /**
+     * Returns the mark, the allocator has not allocated beyond it.
+     * @return
+     */
+    long get();
+
+    /**
+     * Raises the mark to at least the given value before the allocator hands it out.
+     * @param id
+     */
+    void ensure(long id);
+}
@@ -0,0 +1,45 @@
+package com.order.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates ids from a counter starting at 1, or after the high-water mark of the previous run.
+ */
+public class SequenceIdAllocator implements IdAllocator {
+
+    private final AtomicLong current;
+
+    private final IdHighWaterMark highWaterMark;
+
+    public SequenceIdAllocator() {
+        this(IdHighWaterMark.NONE);
+    }
+
+    public SequenceIdAllocator(IdHighWaterMark highWaterMark) {
+        this.highWaterMark = highWaterMark;
+        this.current = new AtomicLong(highWaterMark.get());
+    }
+
+    @Override
+    public long next() {
+        long id = current.incrementAndGet();
+        highWaterMark.ensure(id);
+        return id;
+    }
+
+    @Override
+    public long next(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException(String.format("Count must be positive! count=%d", count));
+        }
+        long first = current.getAndAdd(count) + 1;
+        highWaterMark.ensure(first + count - 1);
+        return first;
+    }
+
+    @Override
+    public void reserve(long id) {
+        current.accumulateAndGet(id, Math::max);
+        highWaterMark.ensure(id);
+    }
+}
@@ -0,0 +1,128 @@
+package com.order.id;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates Snowflake ids: 41 bits of milliseconds since 2018-01-01, 10 bits of node and a 12 bit sequence within the
+ * millisecond. Ids are unique across instances with distinct nodes and increase over time on each node. When more
+ * than 4096 ids are allocated within a millisecond, or the clock goes backwards, the ids continue in the following
+ * milliseconds ahead of the clock instead of waiting for it.
+ */
+public class SnowflakeIdAllocator implements IdAllocator {
+
+    public static final long EPOCH = 1514764800000L;
+
+    public static final int NODE_BITS = 10;
+
+    public static final int SEQUENCE_BITS = 12;
+
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    public static final int MAX_COUNT = 1 << SEQUENCE_BITS;
+
+    private static final long SEQUENCE_MASK = MAX_COUNT - 1;
+
+    private final long node;
+
+    private final Clock clock;
+
+    private final IdHighWaterMark highWaterMark;
+
+    /**
+     * The last millisecond and sequence allocated, as millis << SEQUENCE_BITS | sequence.
+     */
+    private final AtomicLong last;
+
+    public SnowflakeIdAllocator(int node) {
+        this(node, Clock.systemUTC(), IdHighWaterMark.NONE);
+    }
+
+    /**
+     *
+     * @param node
+     * @param clock
+     * @param highWaterMark keeps the last millisecond and sequence, so a restart on a clock set back does not allocate
+     *                      the ids again
+     */
+    public SnowflakeIdAllocator(int node, Clock clock, IdHighWaterMark highWaterMark) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException(String.format("Node must be between 0 and %d! node=%d", MAX_NODE, node));
+        }
+        this.node = node;
+        this.clock = clock;
+        this.highWaterMark = highWaterMark;
+        this.last = new AtomicLong(highWaterMark.get());
+    }
+
+    @Override
+    public long next() {
+        return next(1);
+    }
+
+    /**
+     * Allocates a range within one millisecond, since only those ids are consecutive.
+     * @param count at most 4096
+     * @return the first id of the range
+     */
+    @Override
+    public long next(int count) {
+        if (count <= 0 || count > MAX_COUNT) {
+            throw new IllegalArgumentException(String.format("Count must be between 1 and %d! count=%d", MAX_COUNT, count));
+        }
+        long current;
+        long first;
+        do {
+            current = last.get();
+            first = Math.max(current + 1, (clock.millis() - EPOCH) << SEQUENCE_BITS);
+            if ((first & SEQUENCE_MASK) + count > MAX_COUNT) {
+                first = ((first >>> SEQUENCE_BITS) + 1) << SEQUENCE_BITS;
+            }
+        } while (!last.compareAndSet(current, first + count - 1));
+
+        highWaterMark.ensure(first + count - 1);
+        return toId(first);
+    }
+
+    /**
+     * Only the ids within one millisecond are consecutive.
+     * @return 4096
+     */
+    @Override
+    public int getMaxCount() {
+        return MAX_COUNT;
+    }
+
+    /**
+     * Makes sure the ids of this node up to the given id are never allocated again.
+     * @param id
+     */
+    @Override
+    public void reserve(long id) {
+        long reserved = (id >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS | (id & SEQUENCE_MASK);
+        last.accumulateAndGet(reserved, Math::max);
+        highWaterMark.ensure(reserved);
+    }
+
+    private long toId(long millisAndSequence) {
+        return (millisAndSequence >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | (millisAndSequence & SEQUENCE_MASK);
+    }
+
+    /**
+     *
+     * @param id
+     * @return the time the id was allocated, in millis since the epoch
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    /**
+     *
+     * @param id
+     * @return the node which allocated the id
+     */
+    public static int nodeOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE;
+    }
+}
@@ -0,0 +1,76 @@
+package com.order.journal;
+
+import com.order.model.Execution;
+import com.order.model.Order;
+
+/**
+ * API for the event journal. The order book service appends every accepted command while it holds the lock of the
+ * book, so the journal holds the commands of a book in the order they were applied, and then syncs the returned
+ * sequence after releasing the lock, so the book is never locked while waiting for the disk.
+ */
+public interface Journal {
+
+    /**
+     * A journal which keeps nothing.
+     */
+    Journal NONE = new Journal() {
+
+        @Override
+        public long appendOpen(String instrumentId) {
+            return 0;
+        }
+
+        @Override
+        public long appendClose(String instrumentId) {
+            return 0;
+        }
+
+        @Override
+        public long appendOrder(Order order) {
+            return 0;
+        }
+
+        @Override
+        public long appendExecution(Execution execution) {
+            return 0;
+        }
+
+        @Override
+        public void sync(long sequence) {
+        }
+    };
+
+    /**
+     *
+     * @param instrumentId
+     * @return the sequence of the event
+     */
+    long appendOpen(String instrumentId);
+
+    /**
+     *
+     * @param instrumentId
+     * @return the sequence of the event
+     */
+    long appendClose(String instrumentId);
+
+    /**
+     *
+     * @param order
+     * @return the sequence of the event
+     */
+    long appendOrder(Order order);
+
+    /**
+     *
+     * @param execution
+     * @return the sequence of the event
+     */
+    long appendExecution(Execution execution);
+
+    /**
+     * Waits until the events up to the sequence are as durable as the flush policy requires.
+     * @param sequence
+     */
+    void sync(long sequence);
+}
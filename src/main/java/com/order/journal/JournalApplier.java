@@ -0,0 +1,166 @@
+package com.order.journal;
+
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.repository.ExecutionRepository;
+import com.order.repository.OrderBookRepository;
+import com.order.repository.OrderRepository;
+import com.order.service.OrderBookService;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Applies journal events to the order book service implementation and the repositories, as they were applied when
+ * they were journaled. The ids of the orders and executions applied are reserved, and the events of a book which the
+ * snapshot the events follow already holds are skipped. Used on a single thread, by the recovery at startup and by a
+ * replication standby.
+ */
+public class JournalApplier implements JournalHandler {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final OrderBookService orderBookService;
+
+    private final OrderRepository orderRepository;
+
+    private final ExecutionRepository executionRepository;
+
+    private Snapshot snapshot;
+
+    // the sequence of the event applied
+    private long sequence;
+
+    private long failed;
+
+    public JournalApplier(OrderBookService orderBookService, OrderRepository orderRepository, ExecutionRepository executionRepository) {
+        this.orderBookService = orderBookService;
+        this.orderRepository = orderRepository;
+        this.executionRepository = executionRepository;
+    }
+
+    /**
+     * Loads a snapshot file into the repositories, the events applied next are the events after the snapshot.
+     * @param file
+     * @param orderBookRepository
+     * @param fillEvents
+     * @param orderStorage
+     * @return the journal position of the snapshot
+     * @throws IOException
+     */
+    public JournalPosition load(Path file, OrderBookRepository orderBookRepository, FillEvents fillEvents, OrderStorage orderStorage) throws IOException {
+        Snapshot loaded = SnapshotStore.read(file, fillEvents, orderStorage);
+        SnapshotStore.restore(loaded, orderBookRepository, orderRepository, executionRepository);
+        follow(loaded);
+        logger.info(String.format("Loaded snapshot %s: %s", file, loaded));
+        return loaded.getPosition();
+    }
+
+    /**
+     * The events applied next are the events after the snapshot, which is loaded already.
+     * @param snapshot
+     */
+    void follow(Snapshot snapshot) {
+        this.snapshot = snapshot;
+        this.sequence = snapshot.getPosition().getSequence();
+    }
+
+    /**
+     *
+     * @return the sequence of the last event applied
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     *
+     * @return the number of events which failed
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    @Override
+    public void onOpen(String instrumentId) {
+        if (!next(instrumentId)) {
+            return;
+        }
+        try {
+            orderBookService.open(instrumentId);
+        } catch (RuntimeException ex) {
+            failed(instrumentId, ex);
+        }
+    }
+
+    @Override
+    public void onClose(String instrumentId) {
+        if (!next(instrumentId)) {
+            return;
+        }
+        try {
+            orderBookService.close(instrumentId);
+        } catch (RuntimeException ex) {
+            failed(instrumentId, ex);
+        }
+    }
+
+    @Override
+    public void onOrder(Order order) {
+        boolean apply = next(order.getInstrumentId());
+        // an order in the snapshot is restored already, the book must get the same instance as the repository
+        Order stored = orderRepository.findByOrderId(order.getOrderId());
+        if (stored == null) {
+            orderRepository.reserveOrderId(order.getOrderId());
+            orderRepository.store(order);
+            stored = order;
+        }
+        if (!apply) {
+            return;
+        }
+        try {
+            orderBookService.addOrder(stored);
+        } catch (RuntimeException ex) {
+            failed(order, ex);
+        }
+    }
+
+    @Override
+    public void onExecution(Execution execution) {
+        boolean apply = next(execution.getInstrumentId());
+        Execution stored = executionRepository.findByExecutionId(execution.getExecutionId());
+        if (stored == null) {
+            executionRepository.reserveExecutionId(execution.getExecutionId());
+            executionRepository.store(execution);
+            stored = execution;
+        }
+        if (!apply) {
+            return;
+        }
+        try {
+            orderBookService.addExecution(stored);
+        } catch (RuntimeException ex) {
+            failed(execution, ex);
+        }
+    }
+
+    /**
+     * Moves to the next event.
+     * @param instrumentId
+     * @return false if the snapshot of the book already holds the event
+     */
+    private boolean next(String instrumentId) {
+        sequence++;
+        return snapshot == null || sequence > snapshot.getSequence(instrumentId);
+    }
+
+    private void failed(Object event, RuntimeException ex) {
+        // only events which were applied are journaled, so a failure means the journal and the code disagree
+        failed++;
+        logger.warn(String.format("Journal event %s failed to apply: %s", event, ex.getMessage()));
+    }
+}
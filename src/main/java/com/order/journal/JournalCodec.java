@@ -0,0 +1,256 @@
+package com.order.journal;
+
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.Prices;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary encoding of journal records. A record is framed as its payload length and the CRC32 of the payload followed
+ * by the payload, the first byte of the payload is the record type. The length is written last, so a zero length marks
+ * the end of the records and a torn record fails its checksum.
+ * <p>
+ * A codec caches the encoded and decoded instrument ids and is not thread safe.
+ */
+public class JournalCodec {
+
+    static final int HEADER_SIZE = 8;
+
+    static final byte OPEN = 1;
+    static final byte CLOSE = 2;
+    static final byte ORDER = 3;
+    static final byte EXECUTION = 4;
+
+    /**
+     * Result of {@link #read(ByteBuffer, JournalHandler)} when there is no further record.
+     */
+    public static final int END = 0;
+
+    /**
+     * Result of {@link #read(ByteBuffer, JournalHandler)} when the record is torn or corrupt.
+     */
+    public static final int CORRUPT = -1;
+
+    private final Map<String, byte[]> encodedInstruments = new HashMap<>();
+
+    private final Map<String, String> decodedInstruments = new HashMap<>();
+
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Writes an open record at the position of the buffer.
+     * @param buffer
+     * @param instrumentId
+     * @return false if the record does not fit into the remaining buffer, which is left unchanged
+     */
+    public boolean writeOpen(ByteBuffer buffer, String instrumentId) {
+        return writeCommand(buffer, OPEN, instrumentId);
+    }
+
+    /**
+     * Writes a close record at the position of the buffer.
+     * @param buffer
+     * @param instrumentId
+     * @return false if the record does not fit into the remaining buffer, which is left unchanged
+     */
+    public boolean writeClose(ByteBuffer buffer, String instrumentId) {
+        return writeCommand(buffer, CLOSE, instrumentId);
+    }
+
+    /**
+     * Writes an order record at the position of the buffer.
+     * @param buffer
+     * @param order
+     * @return false if the record does not fit into the remaining buffer, which is left unchanged
+     */
+    public boolean writeOrder(ByteBuffer buffer, Order order) {
+        byte[] instrument = encode(order.getInstrumentId());
+        if (buffer.remaining() < HEADER_SIZE + 35 + instrument.length) {
+            return false;
+        }
+
+        int start = begin(buffer, ORDER);
+        buffer.putLong(order.getOrderId());
+        buffer.putInt(order.getOrderQuantity());
+        buffer.putDouble(Prices.toPrice(order.getOrderPriceTicks()));
+        putDate(buffer, order.getEntryDate());
+        putInstrument(buffer, instrument);
+        end(buffer, start);
+        return true;
+    }
+
+    /**
+     * Writes an execution record at the position of the buffer.
+     * @param buffer
+     * @param execution
+     * @return false if the record does not fit into the remaining buffer, which is left unchanged
+     */
+    public boolean writeExecution(ByteBuffer buffer, Execution execution) {
+        byte[] instrument = encode(execution.getInstrumentId());
+        if (buffer.remaining() < HEADER_SIZE + 35 + instrument.length) {
+            return false;
+        }
+
+        int start = begin(buffer, EXECUTION);
+        buffer.putLong(execution.getExecutionId());
+        buffer.putInt(execution.getExecutionQuantity());
+        buffer.putDouble(Prices.toPrice(execution.getExecutionPriceTicks()));
+        putDate(buffer, execution.getExecutionDate());
+        putInstrument(buffer, instrument);
+        end(buffer, start);
+        return true;
+    }
+
+    /**
+     * Reads the record at the position of the buffer and passes it to the handler. The position is moved past the
+     * record only if it was read.
+     * @param buffer
+     * @param handler
+     * @return the size of the record, {@link #END} or {@link #CORRUPT}
+     */
+    public int read(ByteBuffer buffer, JournalHandler handler) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE) {
+            return END;
+        }
+
+        int length = buffer.getInt(start);
+        if (length == 0) {
+            return END;
+        }
+        if (length < 0 || length > buffer.remaining() - HEADER_SIZE) {
+            return CORRUPT;
+        }
+
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start + HEADER_SIZE).limit(start + HEADER_SIZE + length);
+        crc.reset();
+        crc.update(payload);
+        if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+            return CORRUPT;
+        }
+
+        payload.position(start + HEADER_SIZE);
+        switch (payload.get()) {
+            case OPEN:
+                handler.onOpen(getInstrument(payload));
+                break;
+            case CLOSE:
+                handler.onClose(getInstrument(payload));
+                break;
+            case ORDER: {
+                long orderId = payload.getLong();
+                int quantity = payload.getInt();
+                double price = payload.getDouble();
+                LocalDateTime entryDate = getDate(payload);
+                handler.onOrder(new Order(orderId, quantity, getInstrument(payload), Double.isNaN(price) ? Prices.NONE : Prices.toTicks(price), entryDate));
+                break;
+            }
+            case EXECUTION: {
+                long executionId = payload.getLong();
+                int quantity = payload.getInt();
+                double price = payload.getDouble();
+                LocalDateTime executionDate = getDate(payload);
+                handler.onExecution(new Execution(executionId, quantity, getInstrument(payload), Prices.toTicks(price), executionDate));
+                break;
+            }
+            default:
+                return CORRUPT;
+        }
+
+        buffer.position(start + HEADER_SIZE + length);
+        return HEADER_SIZE + length;
+    }
+
+    /**
+     * Returns the size of the record at the position of the buffer without reading it, its checksum is not verified.
+     * @param buffer
+     * @return the size of the record, {@link #END} or {@link #CORRUPT}
+     */
+    public static int sizeOf(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return END;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length == 0) {
+            return END;
+        }
+        if (length < 0 || length > buffer.remaining() - HEADER_SIZE) {
+            return CORRUPT;
+        }
+        return HEADER_SIZE + length;
+    }
+
+    private boolean writeCommand(ByteBuffer buffer, byte type, String instrumentId) {
+        byte[] instrument = encode(instrumentId);
+        if (buffer.remaining() < HEADER_SIZE + 3 + instrument.length) {
+            return false;
+        }
+
+        int start = begin(buffer, type);
+        putInstrument(buffer, instrument);
+        end(buffer, start);
+        return true;
+    }
+
+    private static int begin(ByteBuffer buffer, byte type) {
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        buffer.put(type);
+        return start;
+    }
+
+    private void end(ByteBuffer buffer, int start) {
+        int length = buffer.position() - start - HEADER_SIZE;
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start + HEADER_SIZE).limit(buffer.position());
+        crc.reset();
+        crc.update(payload);
+        buffer.putInt(start + 4, (int) crc.getValue());
+        // the length is written last, it makes the record visible to readers
+        buffer.putInt(start, length);
+    }
+
+    private byte[] encode(String instrumentId) {
+        byte[] instrument = encodedInstruments.get(instrumentId);
+        if (instrument == null) {
+            instrument = instrumentId.getBytes(StandardCharsets.UTF_8);
+            if (instrument.length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException(String.format("Instrument id is too long! length=%d", instrument.length));
+            }
+            encodedInstruments.put(instrumentId, instrument);
+        }
+        return instrument;
+    }
+
+    private static void putInstrument(ByteBuffer buffer, byte[] instrument) {
+        buffer.putShort((short) instrument.length);
+        buffer.put(instrument);
+    }
+
+    private String getInstrument(ByteBuffer buffer) {
+        byte[] instrument = new byte[buffer.getShort()];
+        buffer.get(instrument);
+        // share one string per instrument between all the restored orders
+        String instrumentId = new String(instrument, StandardCharsets.UTF_8);
+        String decoded = decodedInstruments.putIfAbsent(instrumentId, instrumentId);
+        return decoded != null ? decoded : instrumentId;
+    }
+
+    private static void putDate(ByteBuffer buffer, LocalDateTime date) {
+        buffer.putLong(date.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(date.getNano());
+    }
+
+    private static LocalDateTime getDate(ByteBuffer buffer) {
+        long seconds = buffer.getLong();
+        return LocalDateTime.ofEpochSecond(seconds, buffer.getInt(), ZoneOffset.UTC);
+    }
+}
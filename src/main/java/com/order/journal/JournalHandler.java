@@ -0,0 +1,18 @@
+package com.order.journal;
+
+import com.order.model.Execution;
+import com.order.model.Order;
+
+/**
+ * Receives the events of the journal in the order they were appended when the journal is replayed.
+ */
+public interface JournalHandler {
+
+    void onOpen(String instrumentId);
+
+    void onClose(String instrumentId);
+
+    void onOrder(Order order);
+
+    void onExecution(Execution execution);
+}
@@ -0,0 +1,79 @@
+package com.order.journal;
+
+import java.util.Objects;
+
+/**
+ * A position in the journal: the segment and the offset within the segment of the next event, and the sequence of the
+ * last event before the position.
+ */
+public final class JournalPosition {
+
+    /**
+     * The position before the first event of a journal.
+     */
+    public static final JournalPosition START = new JournalPosition(0, 0, 0);
+
+    private final long segment;
+
+    private final int offset;
+
+    private final long sequence;
+
+    /**
+     *
+     * @param segment
+     * @param offset
+     * @param sequence
+     */
+    public JournalPosition(long segment, int offset, long sequence) {
+        this.segment = segment;
+        this.offset = offset;
+        this.sequence = sequence;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public long getSegment() {
+        return segment;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JournalPosition that = (JournalPosition) o;
+        return segment == that.segment && offset == that.offset && sequence == that.sequence;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(segment, offset, sequence);
+    }
+
+    @Override
+    public String toString() {
+        return "JournalPosition{" +
+                "segment=" + segment +
+                ", offset=" + offset +
+                ", sequence=" + sequence +
+                '}';
+    }
+}
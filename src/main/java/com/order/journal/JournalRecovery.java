@@ -0,0 +1,87 @@
+package com.order.journal;
+
+import com.order.repository.ExecutionRepository;
+import com.order.repository.OrderRepository;
+import com.order.service.OrderBookServiceImpl;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds the repositories and order books at startup from the latest snapshot and the journal after it, before any
+ * request is served. The events are applied directly to the order book service implementation on the starting thread,
+ * as they were applied when they were journaled; the ids of the restored orders and executions are reserved. Periodic
+ * snapshots start once the recovery is done.
+ */
+@Component
+@ConditionalOnProperty(name = "order.journal.enabled", havingValue = "true")
+public class JournalRecovery {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private MappedJournal journal;
+
+    private SnapshotStore snapshotStore;
+
+    private JournalApplier applier;
+
+    private volatile long events;
+
+    private volatile long recoveryMillis;
+
+    @Autowired
+    public JournalRecovery(MappedJournal journal, SnapshotStore snapshotStore, OrderBookServiceImpl orderBookService, OrderRepository orderRepository,
+                           ExecutionRepository executionRepository, MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.snapshotStore = snapshotStore;
+        this.applier = new JournalApplier(orderBookService, orderRepository, executionRepository);
+
+        TimeGauge.builder("order.recovery.time", this, TimeUnit.MILLISECONDS, JournalRecovery::getRecoveryMillis)
+                .description("Time taken at startup to load the snapshot and replay the journal")
+                .register(meterRegistry);
+        Gauge.builder("order.recovery.events", this, JournalRecovery::getEvents)
+                .description("Journal events replayed at startup")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void recover() throws IOException {
+        long start = System.nanoTime();
+        Snapshot snapshot = snapshotStore.load();
+        JournalPosition from = JournalPosition.START;
+        if (snapshot != null) {
+            applier.follow(snapshot);
+            from = snapshot.getPosition();
+        }
+        events = journal.replay(from, applier);
+        recoveryMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info(String.format("Journal replayed from %s: %d events in %d ms, %d failed", from, events, recoveryMillis, applier.getFailed()));
+
+        snapshotStore.schedule();
+    }
+
+    /**
+     *
+     * @return the time taken by the recovery
+     */
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    /**
+     *
+     * @return the number of journal events replayed
+     */
+    public long getEvents() {
+        return events;
+    }
+}
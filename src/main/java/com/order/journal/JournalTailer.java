@@ -0,0 +1,95 @@
+package com.order.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Reads the records of a mapped journal after a position while they are appended, without decoding them. The records
+ * are copied as they were encoded, so a reader of the copies decodes them with a {@link JournalCodec}. A tailer never
+ * takes the lock of the journal and is used by a single thread.
+ */
+public class JournalTailer {
+
+    private final MappedJournal journal;
+
+    private long segment;
+
+    private MappedByteBuffer buffer;
+
+    // the sequence of the last record copied and of the last record appended when copying
+    private long sequence;
+
+    private long appended;
+
+    /**
+     *
+     * @param journal must be replayed
+     * @param from
+     * @throws IOException
+     * @throws java.nio.file.NoSuchFileException if the segment of the position was deleted
+     */
+    public JournalTailer(MappedJournal journal, JournalPosition from) throws IOException {
+        this.journal = journal;
+        this.segment = from.getSegment();
+        this.buffer = journal.mapForReading(segment);
+        this.buffer.position(from.getOffset());
+        this.sequence = from.getSequence();
+        this.appended = sequence;
+    }
+
+    /**
+     * Copies the whole records appended after the position of this tailer into the target, as many as fit, and moves
+     * the position past them.
+     * @param target
+     * @return the number of records copied, 0 if there is no record appended after the position
+     * @throws IOException if a segment is missing or corrupt
+     */
+    public int copy(ByteBuffer target) throws IOException {
+        appended = journal.peekAppended();
+        int records = 0;
+        while (sequence < appended) {
+            int size = JournalCodec.sizeOf(buffer);
+            if (size == JournalCodec.END) {
+                // the record did not fit into the segment and starts the next one
+                segment++;
+                buffer = journal.mapForReading(segment);
+                continue;
+            }
+            if (size == JournalCodec.CORRUPT) {
+                throw new IOException(String.format("Corrupt journal segment %d at %d", segment, buffer.position()));
+            }
+            if (size > target.remaining()) {
+                if (records == 0 && size > target.capacity()) {
+                    throw new IllegalArgumentException(String.format("Journal record does not fit into the target! size=%d", size));
+                }
+                break;
+            }
+
+            ByteBuffer record = buffer.duplicate();
+            record.limit(buffer.position() + size);
+            target.put(record);
+            buffer.position(buffer.position() + size);
+            sequence++;
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * Returns the sequence of the last record appended to the journal when records were last copied, the records after
+     * the position of this tailer up to it are not copied yet.
+     * @return
+     */
+    public long getAppended() {
+        return appended;
+    }
+
+    /**
+     * Returns the position after the last record copied.
+     * @return
+     */
+    public JournalPosition position() {
+        return new JournalPosition(segment, buffer.position(), sequence);
+    }
+}
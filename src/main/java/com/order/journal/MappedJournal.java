@@ -0,0 +1,404 @@
+package com.order.journal;
+
+import com.order.enumeration.FlushPolicy;
+import com.order.model.Execution;
+import com.order.model.Order;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Append only journal in memory mapped segment files of a fixed size. A record which does not fit into the current
+ * segment starts the next one, the unused tail of a segment stays zero and ends its records.
+ * <p>
+ * Appends are synchronized and only copy the record into the mapped segment. Durability is given by the flush policy:
+ * with PER_EVENT {@link #sync(long)} forces the segment itself, with GROUP it waits for the flusher thread, which
+ * forces once for all the events appended while the previous flush ran, and with ASYNC it does not wait and the flusher
+ * forces periodically.
+ * <p>
+ * The journal must be replayed before events are appended, events appended while it is replayed are ignored.
+ */
+@Component
+@ConditionalOnProperty(name = "order.journal.enabled", havingValue = "true")
+public class MappedJournal implements Journal {
+
+    private static final String PREFIX = "journal-";
+
+    private static final String SUFFIX = ".dat";
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final FlushPolicy flushPolicy;
+
+    private final long flushIntervalMillis;
+
+    private final JournalCodec codec = new JournalCodec();
+
+    private final Object flushLock = new Object();
+
+    private long segment;
+
+    private MappedByteBuffer buffer;
+
+    // the sequence of the last appended event and the last event forced to disk
+    private volatile long appended;
+
+    private long requested;
+
+    private volatile long flushed;
+
+    private volatile boolean replaying;
+
+    private boolean open;
+
+    private volatile boolean stopped;
+
+    private Thread flusher;
+
+    @Autowired
+    public MappedJournal(@Value("${order.journal.directory:${java.io.tmpdir}/order-journal}") String directory,
+                         @Value("${order.journal.segment-size:67108864}") int segmentSize,
+                         @Value("${order.journal.flush:GROUP}") FlushPolicy flushPolicy,
+                         @Value("${order.journal.flush-interval:1}") long flushIntervalMillis) {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException(String.format("Segment size is too small! segmentSize=%d", segmentSize));
+        }
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.flushPolicy = flushPolicy;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Replays all events of the journal in the order they were appended and opens the journal for appends after the
+     * last complete event. A torn event at the end of the journal is discarded.
+     * @param handler
+     * @return the number of events replayed
+     * @throws IOException
+     */
+    public long replay(JournalHandler handler) throws IOException {
+        return replay(JournalPosition.START, handler);
+    }
+
+    /**
+     * Replays the events of the journal after a position, as taken by a snapshot, and opens the journal for appends
+     * after the last complete event. A torn event at the end of the journal is discarded.
+     * @param from
+     * @param handler
+     * @return the number of events replayed
+     * @throws IOException
+     */
+    public synchronized long replay(JournalPosition from, JournalHandler handler) throws IOException {
+        if (open) {
+            throw new IllegalStateException("Journal is already open!");
+        }
+
+        Files.createDirectories(directory);
+        List<Long> segments = segments();
+        segments.removeIf(s -> s < from.getSegment());
+        if (!segments.isEmpty() && segments.get(0) != from.getSegment()) {
+            throw new IOException(String.format("Journal segment %s is missing", fileOf(from.getSegment())));
+        }
+
+        long events = 0;
+        int position = 0;
+
+        replaying = true;
+        try {
+            for (int i = 0; i < segments.size(); i++) {
+                MappedByteBuffer mapped = map(segments.get(i));
+                if (segments.get(i) == from.getSegment()) {
+                    mapped.position(from.getOffset());
+                }
+                int size;
+                while ((size = codec.read(mapped, handler)) > 0) {
+                    events++;
+                }
+                if (size == JournalCodec.CORRUPT) {
+                    if (i < segments.size() - 1) {
+                        throw new IOException(String.format("Corrupt journal segment %s at %d", fileOf(segments.get(i)), mapped.position()));
+                    }
+                    logger.warn(String.format("Discarding torn journal event in %s at %d", fileOf(segments.get(i)), mapped.position()));
+                    clear(mapped);
+                }
+                position = mapped.position();
+                buffer = mapped;
+            }
+        } finally {
+            replaying = false;
+        }
+
+        if (buffer == null) {
+            segment = from.getSegment();
+            buffer = map(segment);
+            buffer.position(from.getOffset());
+        } else {
+            segment = segments.get(segments.size() - 1);
+            buffer.position(position);
+        }
+        appended = from.getSequence() + events;
+        requested = appended;
+        flushed = appended;
+        open = true;
+
+        if (flushPolicy != FlushPolicy.PER_EVENT) {
+            flusher = new Thread(this::flushLoop, "order-journal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+        return events;
+    }
+
+    /**
+     * Returns the position after the last appended event.
+     * @return
+     */
+    public synchronized JournalPosition position() {
+        if (!open) {
+            throw new IllegalStateException("Journal must be replayed before taking its position!");
+        }
+        return new JournalPosition(segment, buffer.position(), appended);
+    }
+
+    /**
+     * Returns the sequence of the last appended event. Read under the lock of a book, it separates the events of the
+     * book which were applied from those which were not.
+     * @return
+     */
+    public synchronized long getAppended() {
+        return appended;
+    }
+
+    /**
+     * Returns the sequence of the last appended event without taking the lock of the journal, the events up to it are
+     * visible to the caller.
+     * @return
+     */
+    long peekAppended() {
+        return appended;
+    }
+
+    /**
+     * Deletes the segments before the segment of the position, they are not needed to replay from the position.
+     * @param before
+     * @return the number of segments deleted
+     * @throws IOException
+     */
+    public int truncate(JournalPosition before) throws IOException {
+        int deleted = 0;
+        for (long s : segments()) {
+            if (s < before.getSegment() && Files.deleteIfExists(fileOf(s))) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        stopped = true;
+        if (flusher != null) {
+            synchronized (flushLock) {
+                flushLock.notifyAll();
+            }
+            flusher.join(5000);
+        }
+        flush();
+    }
+
+    @Override
+    public long appendOpen(String instrumentId) {
+        return append(b -> codec.writeOpen(b, instrumentId));
+    }
+
+    @Override
+    public long appendClose(String instrumentId) {
+        return append(b -> codec.writeClose(b, instrumentId));
+    }
+
+    @Override
+    public long appendOrder(Order order) {
+        return append(b -> codec.writeOrder(b, order));
+    }
+
+    @Override
+    public long appendExecution(Execution execution) {
+        return append(b -> codec.writeExecution(b, execution));
+    }
+
+    @Override
+    public void sync(long sequence) {
+        if (sequence <= flushed) {
+            return;
+        }
+
+        switch (flushPolicy) {
+            case PER_EVENT:
+                flush();
+                break;
+            case GROUP:
+                synchronized (flushLock) {
+                    requested = Math.max(requested, sequence);
+                    flushLock.notifyAll();
+                    while (flushed < sequence && !stopped) {
+                        try {
+                            flushLock.wait();
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     *
+     * @return the sequence of the last event forced to disk
+     */
+    public long getFlushed() {
+        return flushed;
+    }
+
+    private synchronized long append(Predicate<ByteBuffer> writer) {
+        if (replaying) {
+            return 0;
+        }
+        if (!open) {
+            throw new IllegalStateException("Journal must be replayed before appending!");
+        }
+
+        if (!writer.test(buffer)) {
+            rotate();
+            if (!writer.test(buffer)) {
+                throw new IllegalArgumentException(String.format("Journal event does not fit into a segment! segmentSize=%d", segmentSize));
+            }
+        }
+        return ++appended;
+    }
+
+    private void rotate() {
+        try {
+            // the events in the previous segments are durable before the flushed sequence can cover later ones
+            buffer.force();
+            segment++;
+            buffer = map(segment);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Forces the events appended so far to disk.
+     */
+    private void flush() {
+        MappedByteBuffer target;
+        long sequence;
+        synchronized (this) {
+            target = buffer;
+            sequence = appended;
+        }
+        if (target == null || sequence <= flushed) {
+            return;
+        }
+
+        synchronized (flushLock) {
+            if (sequence <= flushed) {
+                return;
+            }
+            target.force();
+            flushed = sequence;
+            flushLock.notifyAll();
+        }
+    }
+
+    private void flushLoop() {
+        while (!stopped) {
+            synchronized (flushLock) {
+                try {
+                    if (flushPolicy == FlushPolicy.GROUP) {
+                        while (!stopped && requested <= flushed) {
+                            flushLock.wait();
+                        }
+                    } else {
+                        flushLock.wait(flushIntervalMillis);
+                    }
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+            flush();
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private Path fileOf(long segment) {
+        return directory.resolve(String.format("%s%010d%s", PREFIX, segment, SUFFIX));
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(fileOf(segment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    /**
+     * Maps an existing segment read only, to read the events appended to it.
+     * @param segment
+     * @return
+     * @throws java.nio.file.NoSuchFileException if the segment does not exist
+     */
+    MappedByteBuffer mapForReading(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(fileOf(segment), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, segmentSize);
+        }
+    }
+
+    private static void clear(MappedByteBuffer mapped) {
+        ByteBuffer tail = mapped.duplicate();
+        while (tail.remaining() >= 8) {
+            tail.putLong(0);
+        }
+        while (tail.hasRemaining()) {
+            tail.put((byte) 0);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.order.journal;
+
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The content of a snapshot read back. The journal is replayed from the position of the snapshot, an event of a book
+ * with a sequence up to the sequence the book was captured at is already applied to the book.
+ */
+class Snapshot {
+
+    private final JournalPosition position;
+
+    final List<OrderBook> orderBooks = new ArrayList<>();
+
+    final List<Order> orders = new ArrayList<>();
+
+    final List<Execution> executions = new ArrayList<>();
+
+    private final Map<String, Long> sequences = new HashMap<>();
+
+    Snapshot(JournalPosition position) {
+        this.position = position;
+    }
+
+    void add(SnapshotCodec.OrderBookEntry entry) {
+        orderBooks.add(entry.orderBook);
+        sequences.put(entry.orderBook.getInstrumentId(), entry.sequence);
+    }
+
+    JournalPosition getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the sequence of the last journal event applied to the book of the instrument.
+     * @param instrumentId
+     * @return the sequence, the position of the snapshot if the book was not captured
+     */
+    long getSequence(String instrumentId) {
+        Long sequence = sequences.get(instrumentId);
+        return sequence != null ? sequence : position.getSequence();
+    }
+
+    @Override
+    public String toString() {
+        return "Snapshot{" +
+                "position=" + position +
+                ", orderBooks=" + orderBooks.size() +
+                ", orders=" + orders.size() +
+                ", executions=" + executions.size() +
+                '}';
+    }
+}
@@ -0,0 +1,185 @@
+package com.order.journal;
+
+import com.order.enumeration.OrderBookState;
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.model.Prices;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of snapshots. A snapshot holds the journal position it was taken at, the order books with the journal
+ * sequence each book was captured at, and the stored orders and executions which are not in a book. Lists are written
+ * item by item, each item preceded by {@link #MORE} and the list ended by {@link #END}, so they can be written while
+ * iterating. Market prices and missing execution prices are written as NaN.
+ */
+final class SnapshotCodec {
+
+    static final int MAGIC = 0x4F42534E;
+
+    static final byte VERSION = 1;
+
+    static final byte MORE = 1;
+
+    static final byte END = 0;
+
+    private SnapshotCodec() {
+    }
+
+    static void writeHeader(DataOutput out, JournalPosition position) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(position.getSegment());
+        out.writeInt(position.getOffset());
+        out.writeLong(position.getSequence());
+    }
+
+    static JournalPosition readHeader(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+            throw new IOException("Not a snapshot of this version");
+        }
+        long segment = in.readLong();
+        int offset = in.readInt();
+        return new JournalPosition(segment, offset, in.readLong());
+    }
+
+    /**
+     * Writes a book, must be called under the lock of the book.
+     * @param out
+     * @param orderBook
+     * @param sequence the sequence of the last journal event applied to the book
+     * @throws IOException
+     */
+    static void writeOrderBook(DataOutput out, OrderBook orderBook, long sequence) throws IOException {
+        out.writeUTF(orderBook.getInstrumentId());
+        out.writeByte(orderBook.getState().ordinal());
+        out.writeDouble(Prices.toPrice(orderBook.getExecutionPriceTicks()));
+        out.writeLong(sequence);
+        try {
+            orderBook.forEachOrder(order -> {
+                try {
+                    out.writeByte(MORE);
+                    writeOrder(out, order);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            out.writeByte(END);
+            orderBook.forEachExecution(execution -> {
+                try {
+                    out.writeByte(MORE);
+                    writeExecution(out, execution);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            out.writeByte(END);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Reads a book, the orders and executions of the book are added to the lists.
+     * @param in
+     * @param fillEvents
+     * @param orderStorage of the book
+     * @param orders
+     * @param executions
+     * @return
+     * @throws IOException
+     */
+    static OrderBookEntry readOrderBook(DataInput in, FillEvents fillEvents, OrderStorage orderStorage, List<Order> orders,
+                                        List<Execution> executions) throws IOException {
+        String instrumentId = in.readUTF();
+        OrderBookState state = OrderBookState.values()[in.readByte()];
+        double executionPrice = in.readDouble();
+        long sequence = in.readLong();
+
+        List<Order> bookOrders = new ArrayList<>();
+        while (in.readByte() == MORE) {
+            bookOrders.add(readOrder(in, instrumentId));
+        }
+        List<Execution> bookExecutions = new ArrayList<>();
+        while (in.readByte() == MORE) {
+            bookExecutions.add(readExecution(in, instrumentId));
+        }
+
+        OrderBook orderBook = new OrderBook(instrumentId, fillEvents, orderStorage);
+        orderBook.restore(state, Double.isNaN(executionPrice) ? Prices.NONE : Prices.toTicks(executionPrice), bookOrders, bookExecutions);
+        orders.addAll(bookOrders);
+        executions.addAll(bookExecutions);
+        return new OrderBookEntry(orderBook, sequence);
+    }
+
+    static void writeOrder(DataOutput out, Order order) throws IOException {
+        out.writeLong(order.getOrderId());
+        out.writeInt(order.getOrderQuantity());
+        out.writeDouble(Prices.toPrice(order.getOrderPriceTicks()));
+        writeDate(out, order.getEntryDate());
+        out.writeInt(order.getExecutionQuantity());
+        out.writeDouble(Prices.toPrice(order.getExecutionPriceTicks()));
+        out.writeBoolean(order.isInvalid());
+    }
+
+    static Order readOrder(DataInput in, String instrumentId) throws IOException {
+        long orderId = in.readLong();
+        int quantity = in.readInt();
+        double price = in.readDouble();
+        Order order = new Order(orderId, quantity, instrumentId, Double.isNaN(price) ? Prices.NONE : Prices.toTicks(price), readDate(in));
+        order.setExecutionQuantity(in.readInt());
+        double executionPrice = in.readDouble();
+        order.setExecutionPriceTicks(Double.isNaN(executionPrice) ? Prices.NONE : Prices.toTicks(executionPrice));
+        order.setInvalid(in.readBoolean());
+        return order;
+    }
+
+    static void writeExecution(DataOutput out, Execution execution) throws IOException {
+        out.writeLong(execution.getExecutionId());
+        out.writeInt(execution.getExecutionQuantity());
+        out.writeDouble(Prices.toPrice(execution.getExecutionPriceTicks()));
+        writeDate(out, execution.getExecutionDate());
+    }
+
+    static Execution readExecution(DataInput in, String instrumentId) throws IOException {
+        long executionId = in.readLong();
+        int quantity = in.readInt();
+        double price = in.readDouble();
+        return new Execution(executionId, quantity, instrumentId, Prices.toTicks(price), readDate(in));
+    }
+
+    private static void writeDate(DataOutput out, LocalDateTime date) throws IOException {
+        out.writeLong(date.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(date.getNano());
+    }
+
+    private static LocalDateTime readDate(DataInput in) throws IOException {
+        long seconds = in.readLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+
+    /**
+     * A restored book and the sequence of the last journal event applied to it.
+     */
+    static final class OrderBookEntry {
+
+        final OrderBook orderBook;
+
+        final long sequence;
+
+        OrderBookEntry(OrderBook orderBook, long sequence) {
+            this.orderBook = orderBook;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.order.journal;
+
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.repository.ExecutionRepository;
+import com.order.repository.OrderBookRepository;
+import com.order.repository.OrderRepository;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Takes snapshots of the order books and repositories into the journal directory and loads the latest one at startup,
+ * so only the journal after the snapshot is replayed.
+ * <p>
+ * A snapshot is taken while the books keep changing. The journal position is taken first, then each book is encoded
+ * under its lock together with the journal sequence at that moment, which is the last event applied to the book since
+ * events are journaled under the book lock. Events after the position of a book which is already captured are skipped
+ * on replay. Only one book is locked at a time, and only while it is encoded into memory.
+ * <p>
+ * The newest snapshots are kept, the journal segments before the oldest one kept are deleted.
+ */
+@Component
+@ConditionalOnProperty(name = "order.journal.enabled", havingValue = "true")
+public class SnapshotStore {
+
+    private static final String PREFIX = "snapshot-";
+
+    private static final String SUFFIX = ".dat";
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final MappedJournal journal;
+
+    private final OrderBookRepository orderBookRepository;
+
+    private final OrderRepository orderRepository;
+
+    private final ExecutionRepository executionRepository;
+
+    private final FillEvents fillEvents;
+
+    private final OrderStorage orderStorage;
+
+    private final Path directory;
+
+    private final long intervalMillis;
+
+    private final int retain;
+
+    private ScheduledExecutorService scheduler;
+
+    public SnapshotStore(MappedJournal journal, OrderBookRepository orderBookRepository, OrderRepository orderRepository,
+                         ExecutionRepository executionRepository, FillEvents fillEvents, String directory, long intervalMillis, int retain) {
+        this(journal, orderBookRepository, orderRepository, executionRepository, fillEvents, OrderStorage.HEAP, directory, intervalMillis, retain);
+    }
+
+    @Autowired
+    public SnapshotStore(MappedJournal journal, OrderBookRepository orderBookRepository, OrderRepository orderRepository,
+                         ExecutionRepository executionRepository, FillEvents fillEvents,
+                         @Value("${order.book.storage:HEAP}") OrderStorage orderStorage,
+                         @Value("${order.journal.directory:${java.io.tmpdir}/order-journal}") String directory,
+                         @Value("${order.snapshot.interval:300000}") long intervalMillis,
+                         @Value("${order.snapshot.retain:2}") int retain) {
+        if (retain < 1) {
+            throw new IllegalArgumentException(String.format("At least one snapshot must be retained! retain=%d", retain));
+        }
+        this.journal = journal;
+        this.orderBookRepository = orderBookRepository;
+        this.orderRepository = orderRepository;
+        this.executionRepository = executionRepository;
+        this.fillEvents = fillEvents;
+        this.orderStorage = orderStorage;
+        this.directory = Paths.get(directory);
+        this.intervalMillis = intervalMillis;
+        this.retain = retain;
+    }
+
+    /**
+     * Starts taking snapshots periodically, must be called once the journal is replayed.
+     */
+    public synchronized void schedule() {
+        if (intervalMillis <= 0 || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::takeLogged, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Takes a snapshot, keeps the newest snapshots and deletes the journal segments which are not needed anymore.
+     * @return the journal position of the snapshot
+     * @throws IOException
+     */
+    public synchronized JournalPosition take() throws IOException {
+        JournalPosition position = journal.position();
+        Path file = fileOf(position.getSequence());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fileOut = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileOut, 1 << 16), crc))) {
+            SnapshotCodec.writeHeader(out, position);
+
+            ByteArrayOutputStream bookBytes = new ByteArrayOutputStream(1 << 16);
+            DataOutputStream book = new DataOutputStream(bookBytes);
+            for (OrderBook orderBook : orderBookRepository.findAll()) {
+                bookBytes.reset();
+                synchronized (orderBook) {
+                    SnapshotCodec.writeOrderBook(book, orderBook, journal.getAppended());
+                }
+                out.writeByte(SnapshotCodec.MORE);
+                bookBytes.writeTo(out);
+            }
+            out.writeByte(SnapshotCodec.END);
+
+            for (Order order : orderRepository.findAll()) {
+                if (!inOrderBook(order)) {
+                    out.writeByte(SnapshotCodec.MORE);
+                    out.writeUTF(order.getInstrumentId());
+                    SnapshotCodec.writeOrder(out, order);
+                }
+            }
+            out.writeByte(SnapshotCodec.END);
+
+            for (Execution execution : executionRepository.findAll()) {
+                if (!inOrderBook(execution)) {
+                    out.writeByte(SnapshotCodec.MORE);
+                    out.writeUTF(execution.getInstrumentId());
+                    SnapshotCodec.writeExecution(out, execution);
+                }
+            }
+            out.writeByte(SnapshotCodec.END);
+
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+
+        retain();
+        return position;
+    }
+
+    /**
+     * Loads the latest readable snapshot into the repositories, older snapshots are tried if the latest is corrupt.
+     * @return the snapshot, null if there is none
+     * @throws IOException
+     */
+    public Snapshot load() throws IOException {
+        List<Long> snapshots = snapshots();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path file = fileOf(snapshots.get(i));
+            Snapshot snapshot;
+            try {
+                snapshot = read(file, fillEvents, orderStorage);
+            } catch (IOException ex) {
+                logger.warn(String.format("Skipping unreadable snapshot %s: %s", file, ex.getMessage()));
+                continue;
+            }
+
+            restore(snapshot, orderBookRepository, orderRepository, executionRepository);
+            logger.info(String.format("Loaded snapshot %s: %s", file, snapshot));
+            return snapshot;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the file of the snapshot taken at a position.
+     * @param position
+     * @return
+     */
+    public Path fileOf(JournalPosition position) {
+        return fileOf(position.getSequence());
+    }
+
+    /**
+     * Stores the books, orders and executions of a snapshot into the repositories and reserves their ids.
+     * @param snapshot
+     * @param orderBookRepository
+     * @param orderRepository
+     * @param executionRepository
+     */
+    static void restore(Snapshot snapshot, OrderBookRepository orderBookRepository, OrderRepository orderRepository,
+                        ExecutionRepository executionRepository) {
+        for (OrderBook orderBook : snapshot.orderBooks) {
+            orderBookRepository.store(orderBook);
+        }
+        for (Order order : snapshot.orders) {
+            orderRepository.reserveOrderId(order.getOrderId());
+            orderRepository.store(order);
+        }
+        for (Execution execution : snapshot.executions) {
+            executionRepository.reserveExecutionId(execution.getExecutionId());
+            executionRepository.store(execution);
+        }
+    }
+
+    static Snapshot read(Path file, FillEvents fillEvents, OrderStorage orderStorage) throws IOException {
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16), crc))) {
+            Snapshot snapshot = new Snapshot(SnapshotCodec.readHeader(in));
+            while (in.readByte() == SnapshotCodec.MORE) {
+                snapshot.add(SnapshotCodec.readOrderBook(in, fillEvents, orderStorage, snapshot.orders, snapshot.executions));
+            }
+            while (in.readByte() == SnapshotCodec.MORE) {
+                String instrumentId = in.readUTF();
+                snapshot.orders.add(SnapshotCodec.readOrder(in, instrumentId));
+            }
+            while (in.readByte() == SnapshotCodec.MORE) {
+                String instrumentId = in.readUTF();
+                snapshot.executions.add(SnapshotCodec.readExecution(in, instrumentId));
+            }
+
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Checksum mismatch");
+            }
+            return snapshot;
+        } catch (EOFException | RuntimeException ex) {
+            throw new IOException("Truncated or corrupt snapshot", ex);
+        }
+    }
+
+    /**
+     * Deletes the snapshots older than the retained ones and the journal segments before the oldest retained one.
+     * @throws IOException
+     */
+    private void retain() throws IOException {
+        List<Long> snapshots = snapshots();
+        int oldest = Math.max(0, snapshots.size() - retain);
+        for (int i = 0; i < oldest; i++) {
+            Files.deleteIfExists(fileOf(snapshots.get(i)));
+        }
+
+        JournalPosition position;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fileOf(snapshots.get(oldest)))))) {
+            position = SnapshotCodec.readHeader(in);
+        }
+        int deleted = journal.truncate(position);
+        if (deleted > 0) {
+            logger.info(String.format("Deleted %d journal segments before %s", deleted, position));
+        }
+    }
+
+    private void takeLogged() {
+        try {
+            long start = System.nanoTime();
+            JournalPosition position = take();
+            logger.info(String.format("Snapshot taken at %s in %d ms", position, (System.nanoTime() - start) / 1_000_000));
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Snapshot failed", ex);
+        }
+    }
+
+    /**
+     * An order is written with its book if it was added to the book.
+     * @param order
+     * @return
+     */
+    private boolean inOrderBook(Order order) {
+        OrderBook orderBook = orderBookRepository.findByInstrumentId(order.getInstrumentId());
+        if (orderBook == null) {
+            return false;
+        }
+        synchronized (orderBook) {
+            return orderBook.holdsOrder(order);
+        }
+    }
+
+    private boolean inOrderBook(Execution execution) {
+        OrderBook orderBook = orderBookRepository.findByInstrumentId(execution.getInstrumentId());
+        if (orderBook == null) {
+            return false;
+        }
+        synchronized (orderBook) {
+            return orderBook.getExecution(execution.getExecutionId()) == execution;
+        }
+    }
+
+    private List<Long> snapshots() throws IOException {
+        List<Long> snapshots = new ArrayList<>();
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                snapshots.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        Collections.sort(snapshots);
+        return snapshots;
+    }
+
+    private Path fileOf(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+    }
+}
@@ -0,0 +1,139 @@
+package com.order.metrics;
+
+import com.order.model.OrderBook;
+import com.order.repository.OrderBookRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the order books, tagged by instrument. The order intake, fills, depth and demand of a book are
+ * function counters and gauges reading the running aggregates of the book when the registry is scraped, so they add
+ * nothing to the hot path. Only the executions are timed on the hot path, and the lock wait is timed for a random
+ * sample of the lock acquisitions.
+ */
+@Component
+public class MicrometerOrderBookMetrics implements OrderBookMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final ConcurrentHashMap<String, Timer> executeTimers = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    private final OrderBookRepository orderBookRepository;
+
+    private final Timer lockWait;
+
+    private final int lockSampleMask;
+
+    /**
+     *
+     * @param meterRegistry
+     * @param orderBookRepository
+     * @param lockSampling one lock acquisition in this many is timed, rounded down to a power of two
+     */
+    @Autowired
+    public MicrometerOrderBookMetrics(MeterRegistry meterRegistry, OrderBookRepository orderBookRepository,
+                                      @Value("${order.metrics.lock-sampling:64}") int lockSampling) {
+        if (lockSampling < 1) {
+            throw new IllegalArgumentException("Lock sampling must be positive!");
+        }
+        this.meterRegistry = meterRegistry;
+        this.orderBookRepository = orderBookRepository;
+        this.lockSampleMask = Integer.highestOneBit(lockSampling) - 1;
+        lockWait = Timer.builder("order.book.lock.wait")
+                .description("Time waited for the lock of an order book, sampled")
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Binds the books which exist once the application is started, the books restored from a snapshot are not opened
+     * through the service.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bindAll() {
+        for (OrderBook orderBook : orderBookRepository.findAll()) {
+            bind(orderBook);
+        }
+    }
+
+    @Override
+    public void bind(OrderBook orderBook) {
+        Objects.requireNonNull(orderBook, "OrderBook cannot not be null!");
+        executeTimer(orderBook);
+    }
+
+    @Override
+    public long lockRequested() {
+        // a thread local random, a shared sample counter would be contended by every thread adding orders
+        return (ThreadLocalRandom.current().nextInt() & lockSampleMask) == 0 ? System.nanoTime() : 0;
+    }
+
+    @Override
+    public void lockAcquired(long requested) {
+        if (requested != 0) {
+            lockWait.record(System.nanoTime() - requested, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void executed(OrderBook orderBook, long nanos) {
+        executeTimer(orderBook).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer executeTimer(OrderBook orderBook) {
+        Timer timer = executeTimers.get(orderBook.getInstrumentId());
+        return timer != null ? timer : executeTimers.computeIfAbsent(orderBook.getInstrumentId(), id -> register(orderBook));
+    }
+
+    /**
+     * Registers the meters of a book.
+     * @param orderBook
+     * @return the execution timer of the book
+     */
+    private Timer register(OrderBook orderBook) {
+        String instrumentId = orderBook.getInstrumentId();
+        FunctionCounter.builder("order.book.orders", orderBook, OrderBook::getOrderIntake)
+                .tag("instrument", instrumentId)
+                .description("Orders added to the order book")
+                .register(meterRegistry);
+        FunctionCounter.builder("order.book.fills", orderBook, OrderBook::getFillCount)
+                .tag("instrument", instrumentId)
+                .description("Orders filled by the executions of the order book")
+                .register(meterRegistry);
+        Gauge.builder("order.book.depth", orderBook, OrderBook::getValidOrderCount)
+                .tag("instrument", instrumentId)
+                .description("Valid orders in the order book")
+                .register(meterRegistry);
+        Gauge.builder("order.book.price.levels", orderBook, OrderBook::getPriceLevelCount)
+                .tag("instrument", instrumentId)
+                .description("Limit price levels holding valid orders in the order book")
+                .register(meterRegistry);
+        Gauge.builder("order.book.demand", orderBook, OrderBook::getValidDemand)
+                .tags("instrument", instrumentId, "validity", "valid")
+                .description("Order quantity in the order book")
+                .register(meterRegistry);
+        Gauge.builder("order.book.demand", orderBook, OrderBook::getInvalidDemand)
+                .tags("instrument", instrumentId, "validity", "invalid")
+                .description("Order quantity in the order book")
+                .register(meterRegistry);
+        return Timer.builder("order.book.execute")
+                .tag("instrument", instrumentId)
+                .description("Time taken to apply executions to the order book")
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry);
+    }
+}
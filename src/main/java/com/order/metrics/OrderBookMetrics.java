@@ -0,0 +1,58 @@
+package com.order.metrics;
+
+import com.order.model.OrderBook;
+
+/**
+ * API for the metrics of the order book service. The service calls it on the hot path, around the book lock and the
+ * executions, so implementations must be cheap and must not block.
+ */
+public interface OrderBookMetrics {
+
+    /**
+     * Metrics which record nothing.
+     */
+    OrderBookMetrics NONE = new OrderBookMetrics() {
+
+        @Override
+        public void bind(OrderBook orderBook) {
+        }
+
+        @Override
+        public long lockRequested() {
+            return 0;
+        }
+
+        @Override
+        public void lockAcquired(long requested) {
+        }
+
+        @Override
+        public void executed(OrderBook orderBook, long nanos) {
+        }
+    };
+
+    /**
+     * Registers the meters of a book, a book already bound is ignored.
+     * @param orderBook
+     */
+    void bind(OrderBook orderBook);
+
+    /**
+     * Called before waiting for the lock of a book.
+     * @return the time the lock was requested at in nanos, 0 if this wait is not measured
+     */
+    long lockRequested();
+
+    /**
+     * Called once the lock of a book is held.
+     * @param requested as returned by {@link #lockRequested()}
+     */
+    void lockAcquired(long requested);
+
+    /**
+     * Records the time taken to apply executions to a book.
+     * @param orderBook
+     * @param nanos
+     */
+    void executed(OrderBook orderBook, long nanos);
+}
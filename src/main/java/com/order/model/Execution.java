@@ -1,10 +1,13 @@
 package com.order.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 /**
- * An execution defined in terms of execution quantity, price and instrument id.
+ * An execution defined in terms of execution quantity, price and instrument id. The price is kept in ticks, see
+ * {@link Prices}.
  */
 public class Execution {
 
@@ -12,17 +15,42 @@ public class Execution {
 
     private final String instrumentId;
 
-    private double executionPrice;
+    private final long executionPrice;
 
-    private final LocalDateTime executionDate = LocalDateTime.now();
+    private final LocalDateTime executionDate;
 
     private int executionQuantity;
 
     public Execution(long executionId, int executionQuantity, String instrumentId, double executionPrice) {
+        this(executionId, executionQuantity, instrumentId, executionPrice, LocalDateTime.now());
+    }
+
+    /**
+     * Creates an execution executed at the given date, used when executions are restored.
+     * @param executionId
+     * @param executionQuantity
+     * @param instrumentId
+     * @param executionPrice
+     * @param executionDate
+     */
+    public Execution(long executionId, int executionQuantity, String instrumentId, double executionPrice, LocalDateTime executionDate) {
+        this(executionId, executionQuantity, instrumentId, Prices.toTicks(executionPrice), executionDate);
+    }
+
+    /**
+     * Creates an execution priced in ticks.
+     * @param executionId
+     * @param executionQuantity
+     * @param instrumentId
+     * @param executionPrice in ticks
+     * @param executionDate
+     */
+    public Execution(long executionId, int executionQuantity, String instrumentId, long executionPrice, LocalDateTime executionDate) {
         this.executionId = executionId;
         this.executionQuantity = executionQuantity;
         this.instrumentId = instrumentId;
         this.executionPrice = executionPrice;
+        this.executionDate = executionDate;
     }
 
     /**
@@ -54,6 +82,15 @@ public class Execution {
      * @return
      */
     public double getExecutionPrice() {
+        return Prices.toPrice(executionPrice);
+    }
+
+    /**
+     *
+     * @return the execution price in ticks
+     */
+    @JsonIgnore
+    public long getExecutionPriceTicks() {
         return executionPrice;
     }
 
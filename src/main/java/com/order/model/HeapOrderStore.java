@@ -0,0 +1,189 @@
+package com.order.model;
+
+import com.order.common.LongObjectHashMap;
+import com.order.enumeration.OrderType;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Orders kept as order objects on the heap. The orders are shared with the order repository, so fills are visible on
+ * the orders stored there. Limit orders which are not yet invalid are kept in a price ladder, market orders are kept
+ * apart and never invalidated.
+ */
+class HeapOrderStore implements OrderStore {
+
+    private final LongObjectHashMap<Order> orders = new LongObjectHashMap<>();
+
+    private final NavigableMap<Long, List<Order>> priceLevels = new TreeMap<>();
+    private final List<Order> marketOrders = new ArrayList<>();
+
+    @Override
+    public Order put(Order order) {
+        Order previous = orders.put(order.getOrderId(), order);
+        if (previous != null) {
+            removeFromLadder(previous);
+        }
+        addToLadder(order);
+        return previous;
+    }
+
+    /**
+     * Adds a valid order to the price ladder, limit orders at their price level and market orders in the market bucket.
+     * @param order
+     */
+    private void addToLadder(Order order) {
+        if (order.isInvalid()) {
+            return;
+        }
+        if (order.getOrderType() == OrderType.MARKET) {
+            marketOrders.add(order);
+        } else {
+            priceLevels.computeIfAbsent(order.getOrderPriceTicks(), p -> new ArrayList<>()).add(order);
+        }
+    }
+
+    /**
+     * Removes an order from the price ladder, used when an order is replaced.
+     * @param order
+     */
+    private void removeFromLadder(Order order) {
+        if (order.getOrderType() == OrderType.MARKET) {
+            marketOrders.remove(order);
+        } else {
+            List<Order> level = priceLevels.get(order.getOrderPriceTicks());
+            if (level != null) {
+                level.remove(order);
+                if (level.isEmpty()) {
+                    priceLevels.remove(order.getOrderPriceTicks());
+                }
+            }
+        }
+    }
+
+    @Override
+    public Order get(long orderId) {
+        return orders.get(orderId);
+    }
+
+    @Override
+    public boolean contains(long orderId) {
+        return orders.containsKey(orderId);
+    }
+
+    @Override
+    public boolean holds(Order order) {
+        return orders.get(order.getOrderId()) == order;
+    }
+
+    @Override
+    public int size() {
+        return orders.size();
+    }
+
+    @Override
+    public void forEach(Consumer<Order> consumer) {
+        for (Order order : orders.values()) {
+            consumer.accept(order);
+        }
+    }
+
+    /**
+     * The orders are visited from the weakly consistent values of the order map without the lock, an order is read
+     * through its own synchronized getters.
+     * @param visitor
+     * @param lock
+     */
+    @Override
+    public void forEachRow(OrderRowVisitor visitor, Object lock) {
+        for (Order order : orders.values()) {
+            visitor.visit(order.getOrderId(), order.getOrderQuantity(), order.getExecutionQuantity(),
+                    order.getOrderPriceTicks(), OffHeapOrderStore.toNanos(order.getEntryDate()),
+                    order.isInvalid());
+        }
+    }
+
+    @Override
+    public int getPriceLevelCount() {
+        return priceLevels.size();
+    }
+
+    @Override
+    public Order getSmallest() {
+        return orders.values().stream().min(Comparator.comparing(Order::getOrderQuantity)).orElse(null);
+    }
+
+    @Override
+    public Order getLargest() {
+        return orders.values().stream().max(Comparator.comparing(Order::getOrderQuantity)).orElse(null);
+    }
+
+    @Override
+    public Order getEarliest() {
+        return orders.values().stream().min(Comparator.comparing(Order::getEntryDate)).orElse(null);
+    }
+
+    @Override
+    public Order getLatest() {
+        return orders.values().stream().max(Comparator.comparing(Order::getEntryDate)).orElse(null);
+    }
+
+    /**
+     * Only the price levels below the execution price are visited for the invalidation and they are dropped from the
+     * ladder.
+     * @param executionPrice
+     * @param fillEngine
+     * @param invalidated
+     */
+    @Override
+    public void prepareFills(long executionPrice, ProRataFillEngine fillEngine, IntConsumer invalidated) {
+        NavigableMap<Long, List<Order>> invalidLevels = priceLevels.headMap(executionPrice, false);
+        for (List<Order> level : invalidLevels.values()) {
+            for (Order order : level) {
+                if (!order.isInvalid()) {
+                    order.setInvalid(true);
+                    invalidated.accept(order.getOrderQuantity());
+                }
+            }
+        }
+        invalidLevels.clear();
+
+        for (List<Order> level : priceLevels.values()) {
+            addValidOrders(level, fillEngine);
+        }
+        addValidOrders(marketOrders, fillEngine);
+    }
+
+    /**
+     * Adds the valid orders which are not yet executed to the fill engine.
+     * @param orders
+     * @param fillEngine
+     */
+    private static void addValidOrders(List<Order> orders, ProRataFillEngine fillEngine) {
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            if (!order.isInvalid() && !order.isExecuted()) {
+                fillEngine.add(order);
+            }
+        }
+    }
+
+    @Override
+    public void applyFills(ProRataFillEngine fillEngine, long executionPrice, FillConsumer filled) {
+        for (int i = 0; i < fillEngine.size(); i++) {
+            Order order = fillEngine.getOrder(i);
+            int newQty = fillEngine.getFill(i);
+            order.setExecutionQuantity(newQty + order.getExecutionQuantity());
+            order.setExecutionPriceTicks(executionPrice);
+            filled.accept(order.getOrderId(), newQty, order.getExecutionQuantity(), order.getOrderQuantity());
+        }
+    }
+
+    /**
+     * The orders are on the heap and are collected with the store.
+     */
+    @Override
+    public void release() {
+    }
+}
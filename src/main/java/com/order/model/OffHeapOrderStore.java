@@ -0,0 +1,378 @@
+package com.order.model;
+
+import com.order.common.LongIntHashMap;
+import com.order.enumeration.OrderType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Orders kept in off-heap columns, so a very large book holds no order objects and adds nothing to the GC marking.
+ * Within the service the order repository still holds the order objects, see {@link com.order.enumeration.OrderStorage}.
+ * The rows are stored in chunks of direct buffers and every column of a chunk is contiguous, so the executions scan
+ * the rows sequentially. Order objects are only created when orders are read, as copies which do not follow later
+ * fills.
+ * <p>
+ * The first chunk starts small and doubles until it holds a full chunk of rows, so a small book does not take a full
+ * chunk of direct memory. Replaced and released buffers are dropped and their memory is freed when they are collected.
+ */
+class OffHeapOrderStore implements OrderStore {
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+    private static final int ROW_MASK = CHUNK_ROWS - 1;
+
+    // rows of the first chunk of a new store
+    private static final int INITIAL_ROWS = 1 << 10;
+
+    // offsets of the columns in a row, the offset of a column in a chunk is its offset in a row times the chunk rows
+    private static final int ORDER_ID = 0;
+    private static final int ORDER_QUANTITY = ORDER_ID + 8;
+    private static final int EXECUTION_QUANTITY = ORDER_QUANTITY + 4;
+    private static final int PRICE_TICKS = EXECUTION_QUANTITY + 4;
+    private static final int ENTRY_NANOS = PRICE_TICKS + 8;
+    private static final int EXECUTION_PRICE = ENTRY_NANOS + 8;
+    private static final int FLAGS = EXECUTION_PRICE + 8;
+    private static final int ROW_SIZE = FLAGS + 1;
+
+    private static final int[] COLUMNS = {ORDER_ID, ORDER_QUANTITY, EXECUTION_QUANTITY, PRICE_TICKS, ENTRY_NANOS, EXECUTION_PRICE, FLAGS, ROW_SIZE};
+
+    // rows scanned per acquisition of the book lock
+    private static final int SCAN_ROWS = 4096;
+
+    private static final byte MARKET = 1;
+    private static final byte INVALID = 2;
+
+    private final String instrumentId;
+
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+
+    // rows of every chunk, only the first chunk holds less than a full chunk of rows
+    private int chunkRows;
+
+    private int size;
+
+    // row of every order id
+    private LongIntHashMap rows = new LongIntHashMap();
+
+    // number of valid limit orders at every price in ticks
+    private LongIntHashMap priceLevels = new LongIntHashMap();
+    private int priceLevelCount;
+
+    /**
+     *
+     * @param instrumentId of the orders created when they are read
+     */
+    OffHeapOrderStore(String instrumentId) {
+        this(instrumentId, 0);
+    }
+
+    /**
+     *
+     * @param instrumentId of the orders created when they are read
+     * @param expectedSize the number of orders expected, to size the first chunk
+     */
+    OffHeapOrderStore(String instrumentId, int expectedSize) {
+        this.instrumentId = instrumentId;
+        this.chunkRows = expectedSize >= CHUNK_ROWS ? CHUNK_ROWS : expectedSize > INITIAL_ROWS ? Integer.highestOneBit(expectedSize - 1) << 1 : INITIAL_ROWS;
+    }
+
+    @Override
+    public Order put(Order order) {
+        int row = rows.get(order.getOrderId());
+        Order previous = null;
+        if (row < 0) {
+            row = size++;
+            if (row >> CHUNK_SHIFT == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunks.length + 1);
+                chunks[chunks.length - 1] = allocate(chunkRows);
+            } else if (row == chunkRows) {
+                growFirstChunk();
+            }
+            rows.put(order.getOrderId(), row);
+        } else {
+            previous = read(row);
+            removeFromLadder(row);
+        }
+
+        ByteBuffer chunk = chunks[row >> CHUNK_SHIFT];
+        int i = row & ROW_MASK;
+        chunk.putLong(ORDER_ID * chunkRows + 8 * i, order.getOrderId());
+        chunk.putInt(ORDER_QUANTITY * chunkRows + 4 * i, order.getOrderQuantity());
+        chunk.putInt(EXECUTION_QUANTITY * chunkRows + 4 * i, order.getExecutionQuantity());
+        chunk.putLong(PRICE_TICKS * chunkRows + 8 * i, order.getOrderType() == OrderType.LIMIT ? order.getOrderPriceTicks() : 0);
+        chunk.putLong(ENTRY_NANOS * chunkRows + 8 * i, toNanos(order.getEntryDate()));
+        chunk.putLong(EXECUTION_PRICE * chunkRows + 8 * i, order.getExecutionPriceTicks());
+        chunk.put(FLAGS * chunkRows + i, (byte) ((order.getOrderType() == OrderType.MARKET ? MARKET : 0) | (order.isInvalid() ? INVALID : 0)));
+        addToLadder(row);
+        return previous;
+    }
+
+    /**
+     * Counts a valid limit order at its price level.
+     * @param row
+     */
+    private void addToLadder(int row) {
+        ByteBuffer chunk = chunks[row >> CHUNK_SHIFT];
+        int i = row & ROW_MASK;
+        if (chunk.get(FLAGS * chunkRows + i) == 0) {
+            long ticks = chunk.getLong(PRICE_TICKS * chunkRows + 8 * i);
+            int count = priceLevels.get(ticks);
+            if (count <= 0) {
+                priceLevelCount++;
+                count = 0;
+            }
+            priceLevels.put(ticks, count + 1);
+        }
+    }
+
+    /**
+     * Removes a valid limit order from the count of its price level.
+     * @param row
+     */
+    private void removeFromLadder(int row) {
+        ByteBuffer chunk = chunks[row >> CHUNK_SHIFT];
+        int i = row & ROW_MASK;
+        if (chunk.get(FLAGS * chunkRows + i) == 0) {
+            long ticks = chunk.getLong(PRICE_TICKS * chunkRows + 8 * i);
+            int count = priceLevels.get(ticks) - 1;
+            if (count == 0) {
+                priceLevelCount--;
+            }
+            priceLevels.put(ticks, count);
+        }
+    }
+
+    /**
+     * Creates an order from a row.
+     * @param row
+     * @return
+     */
+    private Order read(int row) {
+        ByteBuffer chunk = chunks[row >> CHUNK_SHIFT];
+        int i = row & ROW_MASK;
+        byte flags = chunk.get(FLAGS * chunkRows + i);
+        Order order = new Order(chunk.getLong(ORDER_ID * chunkRows + 8 * i), chunk.getInt(ORDER_QUANTITY * chunkRows + 4 * i), instrumentId,
+                (flags & MARKET) != 0 ? Prices.NONE : chunk.getLong(PRICE_TICKS * chunkRows + 8 * i),
+                toDate(chunk.getLong(ENTRY_NANOS * chunkRows + 8 * i)));
+        order.setExecutionQuantity(chunk.getInt(EXECUTION_QUANTITY * chunkRows + 4 * i));
+        order.setExecutionPriceTicks(chunk.getLong(EXECUTION_PRICE * chunkRows + 8 * i));
+        order.setInvalid((flags & INVALID) != 0);
+        return order;
+    }
+
+    @Override
+    public Order get(long orderId) {
+        int row = rows.get(orderId);
+        return row >= 0 ? read(row) : null;
+    }
+
+    @Override
+    public boolean contains(long orderId) {
+        return rows.get(orderId) >= 0;
+    }
+
+    /**
+     * Orders are copied into the columns, so any order with the id of an order in the store is held by it.
+     * @param order
+     * @return
+     */
+    @Override
+    public boolean holds(Order order) {
+        return contains(order.getOrderId());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(Consumer<Order> consumer) {
+        for (int row = 0; row < size; row++) {
+            consumer.accept(read(row));
+        }
+    }
+
+    /**
+     * The rows are scanned in runs of {@link #SCAN_ROWS} under the lock, so the book is only locked for a run. Rows are
+     * never removed, a run starts where the previous one ended.
+     * @param visitor
+     * @param lock
+     */
+    @Override
+    public void forEachRow(OrderRowVisitor visitor, Object lock) {
+        for (int from = 0; ; from += SCAN_ROWS) {
+            synchronized (lock) {
+                int to = Math.min(size, from + SCAN_ROWS);
+                for (int row = from; row < to; row++) {
+                    ByteBuffer chunk = chunks[row >> CHUNK_SHIFT];
+                    int i = row & ROW_MASK;
+                    byte flags = chunk.get(FLAGS * chunkRows + i);
+                    visitor.visit(chunk.getLong(ORDER_ID * chunkRows + 8 * i), chunk.getInt(ORDER_QUANTITY * chunkRows + 4 * i), chunk.getInt(EXECUTION_QUANTITY * chunkRows + 4 * i),
+                            (flags & MARKET) != 0 ? Prices.NONE : chunk.getLong(PRICE_TICKS * chunkRows + 8 * i),
+                            chunk.getLong(ENTRY_NANOS * chunkRows + 8 * i), (flags & INVALID) != 0);
+                }
+                if (to < from + SCAN_ROWS) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getPriceLevelCount() {
+        return priceLevelCount;
+    }
+
+    @Override
+    public Order getSmallest() {
+        return scan(ORDER_QUANTITY, false, false);
+    }
+
+    @Override
+    public Order getLargest() {
+        return scan(ORDER_QUANTITY, true, false);
+    }
+
+    @Override
+    public Order getEarliest() {
+        return scan(ENTRY_NANOS, false, true);
+    }
+
+    @Override
+    public Order getLatest() {
+        return scan(ENTRY_NANOS, true, true);
+    }
+
+    /**
+     * Finds the row with the smallest or largest value of a column, the first one visited on ties.
+     * @param column
+     * @param largest
+     * @param longs true for a column of longs, false for a column of ints
+     * @return null if there are no orders
+     */
+    private Order scan(int column, boolean largest, boolean longs) {
+        int found = -1;
+        long best = 0;
+        for (int c = 0; c < chunks.length; c++) {
+            ByteBuffer chunk = chunks[c];
+            int rowCount = Math.min(CHUNK_ROWS, size - (c << CHUNK_SHIFT));
+            for (int i = 0; i < rowCount; i++) {
+                long value = longs ? chunk.getLong(column * chunkRows + 8 * i) : chunk.getInt(column * chunkRows + 4 * i);
+                if (found < 0 || (largest ? value > best : value < best)) {
+                    found = (c << CHUNK_SHIFT) | i;
+                    best = value;
+                }
+            }
+        }
+        return found >= 0 ? read(found) : null;
+    }
+
+    /**
+     * Invalidates and collects the orders in a single sequential pass over the rows.
+     * @param executionPrice
+     * @param fillEngine
+     * @param invalidated
+     */
+    @Override
+    public void prepareFills(long executionPrice, ProRataFillEngine fillEngine, IntConsumer invalidated) {
+        for (int c = 0; c < chunks.length; c++) {
+            ByteBuffer chunk = chunks[c];
+            int rowCount = Math.min(CHUNK_ROWS, size - (c << CHUNK_SHIFT));
+            for (int i = 0; i < rowCount; i++) {
+                byte flags = chunk.get(FLAGS * chunkRows + i);
+                if ((flags & INVALID) != 0) {
+                    continue;
+                }
+                int quantity = chunk.getInt(ORDER_QUANTITY * chunkRows + 4 * i);
+                if ((flags & MARKET) == 0 && chunk.getLong(PRICE_TICKS * chunkRows + 8 * i) < executionPrice) {
+                    removeFromLadder((c << CHUNK_SHIFT) | i);
+                    chunk.put(FLAGS * chunkRows + i, (byte) (flags | INVALID));
+                    invalidated.accept(quantity);
+                    continue;
+                }
+                int executionQuantity = chunk.getInt(EXECUTION_QUANTITY * chunkRows + 4 * i);
+                if (executionQuantity != quantity) {
+                    fillEngine.add((c << CHUNK_SHIFT) | i, quantity, executionQuantity);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void applyFills(ProRataFillEngine fillEngine, long executionPrice, FillConsumer filled) {
+        for (int f = 0; f < fillEngine.size(); f++) {
+            int row = fillEngine.getRow(f);
+            ByteBuffer chunk = chunks[row >> CHUNK_SHIFT];
+            int i = row & ROW_MASK;
+            int newQty = fillEngine.getFill(f);
+            int executionQuantity = chunk.getInt(EXECUTION_QUANTITY * chunkRows + 4 * i) + newQty;
+            chunk.putInt(EXECUTION_QUANTITY * chunkRows + 4 * i, executionQuantity);
+            chunk.putLong(EXECUTION_PRICE * chunkRows + 8 * i, executionPrice);
+            filled.accept(chunk.getLong(ORDER_ID * chunkRows + 8 * i), newQty, executionQuantity, chunk.getInt(ORDER_QUANTITY * chunkRows + 4 * i));
+        }
+    }
+
+    /**
+     * Drops the buffers, the store holds no orders afterwards.
+     */
+    @Override
+    public void release() {
+        chunks = new ByteBuffer[0];
+        chunkRows = INITIAL_ROWS;
+        size = 0;
+        rows = new LongIntHashMap();
+        priceLevels = new LongIntHashMap();
+        priceLevelCount = 0;
+    }
+
+    private static ByteBuffer allocate(int chunkRows) {
+        return ByteBuffer.allocateDirect(ROW_SIZE * chunkRows).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Doubles the rows of the first chunk, the only chunk while it is not full. The columns are copied into a new
+     * buffer at their offsets for the new rows.
+     */
+    private void growFirstChunk() {
+        int grownRows = chunkRows << 1;
+        ByteBuffer chunk = chunks[0];
+        ByteBuffer grown = allocate(grownRows);
+        for (int c = 0; c < COLUMNS.length - 1; c++) {
+            ByteBuffer column = chunk.duplicate();
+            column.limit(COLUMNS[c + 1] * chunkRows);
+            column.position(COLUMNS[c] * chunkRows);
+            grown.position(COLUMNS[c] * grownRows);
+            grown.put(column);
+        }
+        grown.clear();
+        chunks[0] = grown;
+        chunkRows = grownRows;
+    }
+
+    /**
+     *
+     * @param date
+     * @return the date in nanos since the epoch, as UTC
+     */
+    static long toNanos(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + date.getNano();
+    }
+
+    /**
+     *
+     * @param nanos since the epoch, as UTC
+     * @return
+     */
+    static LocalDateTime toDate(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+}
@@ -1,12 +1,16 @@
 package com.order.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.order.enumeration.OrderType;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 /**
- * An order is defined in terms of an order id, quantity, entry date, price and instrument id.
+ * An order is defined in terms of an order id, quantity, entry date, price and instrument id. Prices are kept in ticks,
+ * see {@link Prices}.
  */
 public class Order {
 
@@ -18,13 +22,13 @@ public class Order {
 
     private int executionQuantity;
 
-    private final LocalDateTime entryDate = LocalDateTime.now();
+    private final LocalDateTime entryDate;
 
     private final String instrumentId;
 
-    private Double orderPrice;
+    private final long orderPrice;
 
-    private double executionPrice;
+    private long executionPrice;
 
     private boolean invalid = false;
 
@@ -35,10 +39,7 @@ public class Order {
      * @param instrumentId
      */
     public Order(long orderId, int orderQuantity, String instrumentId) {
-        this.orderId = orderId;
-        this.orderQuantity = orderQuantity;
-        this.instrumentId = instrumentId;
-        this.orderType = OrderType.MARKET;
+        this(orderId, orderQuantity, instrumentId, null, LocalDateTime.now());
     }
 
     /**
@@ -49,11 +50,39 @@ public class Order {
      * @param orderPrice
      */
     public Order(long orderId, int orderQuantity, String instrumentId, Double orderPrice) {
+        this(orderId, orderQuantity, instrumentId, orderPrice, LocalDateTime.now());
+    }
+
+    /**
+     * Creates an order entered at the given date, used when orders are restored.
+     * @param orderId
+     * @param orderQuantity
+     * @param instrumentId
+     * @param orderPrice null for market orders
+     * @param entryDate
+     */
+    @JsonCreator
+    public Order(@JsonProperty("orderId") long orderId, @JsonProperty("orderQuantity") int orderQuantity,
+                 @JsonProperty("instrumentId") String instrumentId, @JsonProperty("orderPrice") Double orderPrice,
+                 @JsonProperty("entryDate") LocalDateTime entryDate) {
+        this(orderId, orderQuantity, instrumentId, Prices.toTicks(orderPrice), entryDate);
+    }
+
+    /**
+     * Creates an order priced in ticks.
+     * @param orderId
+     * @param orderQuantity
+     * @param instrumentId
+     * @param orderPrice in ticks, {@link Prices#NONE} for market orders
+     * @param entryDate
+     */
+    public Order(long orderId, int orderQuantity, String instrumentId, long orderPrice, LocalDateTime entryDate) {
         this.orderId = orderId;
         this.orderQuantity = orderQuantity;
         this.instrumentId = instrumentId;
         this.orderPrice = orderPrice;
-        this.orderType = orderPrice != null ? OrderType.LIMIT : OrderType.MARKET;
+        this.orderType = orderPrice != Prices.NONE ? OrderType.LIMIT : OrderType.MARKET;
+        this.entryDate = entryDate;
     }
 
     /**
@@ -97,6 +126,14 @@ public class Order {
      * @param executionPrice
      */
     public synchronized void setExecutionPrice(double executionPrice) {
+        this.executionPrice = Prices.toTicks(executionPrice);
+    }
+
+    /**
+     *
+     * @param executionPrice in ticks
+     */
+    public synchronized void setExecutionPriceTicks(long executionPrice) {
         this.executionPrice = executionPrice;
     }
 
@@ -105,6 +142,15 @@ public class Order {
      * @return
      */
     public synchronized double getExecutionPrice() {
+        return Prices.toPrice(executionPrice);
+    }
+
+    /**
+     *
+     * @return the execution price in ticks
+     */
+    @JsonIgnore
+    public synchronized long getExecutionPriceTicks() {
         return executionPrice;
     }
 
@@ -129,6 +175,15 @@ public class Order {
      * @return
      */
     public Double getOrderPrice() {
+        return Prices.toBoxedPrice(orderPrice);
+    }
+
+    /**
+     *
+     * @return the order price in ticks, {@link Prices#NONE} for market orders
+     */
+    @JsonIgnore
+    public long getOrderPriceTicks() {
         return orderPrice;
     }
 
@@ -1,11 +1,13 @@
 package com.order.model;
 
+import com.order.common.LongObjectHashMap;
 import com.order.common.OrderBookException;
 import com.order.enumeration.OrderBookState;
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * An order book is a list of orders for a specific instrument id. When book is open it accepts orders and then closed
@@ -13,23 +15,72 @@ import java.util.stream.Collectors;
  */
 public class OrderBook {
 
-    private final double THRESHOLD = .0001;
-
     private final String instrumentId;
 
     private OrderBookState state = OrderBookState.CLOSED;
 
-    private Map<Long, Order> orders = new ConcurrentHashMap<>();
-    private Map<Long, Execution> executions = new ConcurrentHashMap<>();
+    private final OrderStorage storage;
+
+    private OrderStore orders;
+    private LongObjectHashMap<Execution> executions = new LongObjectHashMap<>();
+
+    private final ProRataFillEngine fillEngine = new ProRataFillEngine();
+
+    private final FillEvents fillEvents;
+
+    // in ticks, NONE until the first execution
+    private long executionPrice = Prices.NONE;
 
-    private Double executionPrice;
+    // running aggregates, maintained on addOrder, invalidation and fills
+    private int orderCount;
+    private int totalDemand;
+    private int invalidDemand;
+    private int executionAmount;
+    private long invalidOrderCount;
+
+    // running counters since this book was created, not reset by a restore
+    private long orderIntake;
+    private long fillCount;
+
+    // bumped on every mutation under the book lock, read without it
+    private volatile long version;
 
     /**
      *
      * @param instrumentId
      */
     public OrderBook(String instrumentId) {
+        this(instrumentId, FillEvents.NONE);
+    }
+
+    /**
+     *
+     * @param instrumentId
+     * @param fillEvents notified about every order filled in this book
+     */
+    public OrderBook(String instrumentId, FillEvents fillEvents) {
+        this(instrumentId, fillEvents, OrderStorage.HEAP);
+    }
+
+    /**
+     *
+     * @param instrumentId
+     * @param fillEvents notified about every order filled in this book
+     * @param storage of the orders in this book
+     */
+    public OrderBook(String instrumentId, FillEvents fillEvents, OrderStorage storage) {
         this.instrumentId = instrumentId;
+        this.fillEvents = Objects.requireNonNull(fillEvents, "FillEvents cannot not be null!");
+        this.storage = Objects.requireNonNull(storage, "Storage cannot not be null!");
+        this.orders = createStore();
+    }
+
+    private OrderStore createStore() {
+        return createStore(0);
+    }
+
+    private OrderStore createStore(int expectedSize) {
+        return storage == OrderStorage.OFF_HEAP ? new OffHeapOrderStore(instrumentId, expectedSize) : new HeapOrderStore();
     }
 
     /**
@@ -37,6 +88,7 @@ public class OrderBook {
      */
     public synchronized void open() {
         state = OrderBookState.OPEN;
+        version++;
     }
 
     /**
@@ -44,6 +96,7 @@ public class OrderBook {
      */
     public synchronized void close() {
         state = OrderBookState.CLOSED;
+        version++;
     }
 
     /**
@@ -51,15 +104,15 @@ public class OrderBook {
      * @param orderId
      * @return
      */
-    public boolean containsOrder(Long orderId) {
-        return orders.containsKey(orderId);
+    public synchronized boolean containsOrder(long orderId) {
+        return orders.contains(orderId);
     }
 
     /**
      * Adds an order to this book if the book is open.
      * @param order
      */
-    public void addOrder(Order order) {
+    public synchronized void addOrder(Order order) {
         Objects.requireNonNull(order, "Order cannot not be null!");
 
         if (state == OrderBookState.CLOSED) {
@@ -70,33 +123,197 @@ public class OrderBook {
             throw new OrderBookException(String.format("Cannot accept orders with different instrumentId! instrumentId=%s", order.getInstrumentId()));
         }
 
-        orders.put(order.getOrderId(), order);
+        Order previous = orders.put(order);
+        if (previous != null) {
+            removeAggregates(previous);
+        }
+        addAggregates(order);
+        orderIntake++;
+        version++;
+    }
 
+    /**
+     * Adds a batch of orders for the instrument of this book under a single acquisition of the book lock. The book
+     * must be open, an order which cannot be added does not stop the batch.
+     * @param orders
+     * @return the exception rejecting each order, null for the orders added
+     */
+    public synchronized OrderBookException[] addOrders(List<Order> orders) {
+        Objects.requireNonNull(orders, "Orders cannot not be null!");
+
+        if (state == OrderBookState.CLOSED) {
+            throw new OrderBookException("Cannot accept orders if the order book is closed!");
+        }
+
+        OrderBookException[] rejections = new OrderBookException[orders.size()];
+        for (int i = 0; i < rejections.length; i++) {
+            try {
+                addOrder(orders.get(i));
+            } catch (OrderBookException ex) {
+                rejections[i] = ex;
+            }
+        }
+        return rejections;
+    }
+
+    /**
+     * Adds the order to the running aggregates of this book.
+     * @param order
+     */
+    private void addAggregates(Order order) {
+        orderCount++;
+        totalDemand += order.getOrderQuantity();
+        executionAmount += order.getExecutionQuantity();
+        if (order.isInvalid()) {
+            invalidDemand += order.getOrderQuantity();
+            invalidOrderCount++;
+        }
+    }
+
+    /**
+     * Removes the order from the running aggregates of this book, used when an order is replaced.
+     * @param order
+     */
+    private void removeAggregates(Order order) {
+        orderCount--;
+        totalDemand -= order.getOrderQuantity();
+        executionAmount -= order.getExecutionQuantity();
+        if (order.isInvalid()) {
+            invalidDemand -= order.getOrderQuantity();
+            invalidOrderCount--;
+        }
     }
 
     /**
      * Returns all orders in this book.
      * @return
      */
-    public List<Order> getOrders() {
-        return Collections.unmodifiableList(orders.values().stream().collect(Collectors.toList()));
+    public synchronized List<Order> getOrders() {
+        List<Order> list = new ArrayList<>(orders.size());
+        orders.forEach(list::add);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Passes every order in this book to the consumer without copying the orders, off-heap orders are created for the
+     * consumer. The orders are visited under the book lock, so the book does not change during the iteration.
+     * @param consumer
+     */
+    public synchronized void forEachOrder(Consumer<Order> consumer) {
+        orders.forEach(consumer);
+    }
+
+    /**
+     * Passes every order in this book to the visitor as primitive values, without holding the book lock for the whole
+     * scan: heap orders are visited without the lock and off-heap orders in short runs under the lock. Orders changed
+     * during the scan are visited as they were before or after the change, so the scan is not consistent with the
+     * aggregates of the book.
+     * @param visitor
+     */
+    public void forEachRow(OrderRowVisitor visitor) {
+        OrderStore store;
+        synchronized (this) {
+            store = orders;
+        }
+        store.forEachRow(visitor, this);
+    }
+
+    /**
+     * Passes every execution in this book to the consumer without copying the executions, under the book lock.
+     * @param consumer
+     */
+    public synchronized void forEachExecution(Consumer<Execution> consumer) {
+        for (Execution execution : executions.values()) {
+            consumer.accept(execution);
+        }
+    }
+
+    /**
+     * Replaces the content of this book by restored state. The orders keep their execution quantities, execution prices
+     * and invalid flags, the aggregates and the price ladder are rebuilt from them.
+     * @param state
+     * @param executionPrice null if the book has no execution
+     * @param orders
+     * @param executions
+     */
+    public void restore(OrderBookState state, Double executionPrice, Collection<Order> orders, Collection<Execution> executions) {
+        restore(state, Prices.toTicks(executionPrice), orders, executions);
+    }
+
+    /**
+     * Replaces the content of this book by restored state, see {@link #restore(OrderBookState, Double, Collection, Collection)}.
+     * @param state
+     * @param executionPrice in ticks, {@link Prices#NONE} if the book has no execution
+     * @param orders
+     * @param executions
+     */
+    public synchronized void restore(OrderBookState state, long executionPrice, Collection<Order> orders, Collection<Execution> executions) {
+        Objects.requireNonNull(state, "State cannot not be null!");
+
+        // off-heap orders of the replaced store are freed now, not when the store is collected
+        this.orders.release();
+        this.orders = createStore(orders.size());
+        this.executions = new LongObjectHashMap<>();
+        orderCount = 0;
+        totalDemand = 0;
+        invalidDemand = 0;
+        executionAmount = 0;
+        invalidOrderCount = 0;
+
+        for (Order order : orders) {
+            this.orders.put(order);
+            addAggregates(order);
+        }
+        for (Execution execution : executions) {
+            this.executions.put(execution.getExecutionId(), execution);
+        }
+        this.state = state;
+        this.executionPrice = executionPrice;
+        version++;
+    }
+
+    /**
+     * Drops the off-heap orders of a book replaced by another book, this book holds no orders afterwards. Its aggregates
+     * are kept.
+     */
+    public synchronized void release() {
+        orders.release();
+        version++;
     }
 
     /**
-     * Returns an order in this book by order id.
+     * Returns an order in this book by order id, off-heap orders are created by every call.
      * @param orderId
      * @return
      */
-    public Order getOrder(long orderId) {
+    public synchronized Order getOrder(long orderId) {
         return orders.get(orderId);
     }
 
+    /**
+     * Returns true if this order was added to this book, as opposed to another order with the same order id. Off-heap
+     * orders are copied into the book, so any order with the id of an order in the book was added to it.
+     * @param order
+     * @return
+     */
+    public synchronized boolean holdsOrder(Order order) {
+        return orders.holds(order);
+    }
+
+    /**
+     * Returns the storage of the orders in this book.
+     * @return
+     */
+    public OrderStorage getStorage() {
+        return storage;
+    }
+
     /**
      * Returns an execution in this book by execution id.
      * @param executionId
      * @return
      */
-    public Execution getExecution(String executionId) {
+    public Execution getExecution(long executionId) {
         return executions.get(executionId);
     }
 
@@ -104,8 +321,16 @@ public class OrderBook {
      * An order book is executed if the execution amount = valid order demand.
      * @return
      */
-    public boolean isExecuted() {
-        return getExecutionAmount() == getValidDemand();
+    public synchronized boolean isExecuted() {
+        return executionAmount == totalDemand - invalidDemand;
+    }
+
+    /**
+     * Returns the version of this book, which increases with every change of the book.
+     * @return
+     */
+    public long getVersion() {
+        return version;
     }
 
     /**
@@ -116,9 +341,9 @@ public class OrderBook {
 
     /**
      *
-     * @param executionPrice
+     * @param executionPrice in ticks
      */
-    private synchronized void setExecutionPrice(Double executionPrice) {
+    private synchronized void setExecutionPrice(long executionPrice) {
         this.executionPrice = executionPrice;
     }
 
@@ -127,15 +352,15 @@ public class OrderBook {
      * @param executionId
      * @return
      */
-    public boolean containsExecution(Long executionId) {
-        return orders.containsKey(executionId);
+    public boolean containsExecution(long executionId) {
+        return executions.containsKey(executionId);
     }
 
     /**
      * Adds an execution to this book if the book is closed. It only accepts execution for the same instrument and price.
      * @param execution
      */
-    public void addExecution(Execution execution) {
+    public synchronized void addExecution(Execution execution) {
         Objects.requireNonNull(execution, "Execution cannot not be null!");
 
         if (state == OrderBookState.OPEN) {
@@ -150,11 +375,11 @@ public class OrderBook {
             throw new OrderBookException("Cannot accept executions if the order book is already executed!");
         }
 
-        if (executionPrice == null) {
-            setExecutionPrice(execution.getExecutionPrice());
+        if (executionPrice == Prices.NONE) {
+            setExecutionPrice(execution.getExecutionPriceTicks());
         }
 
-        if (Math.abs(executionPrice - execution.getExecutionPrice()) >= THRESHOLD) {
+        if (executionPrice != execution.getExecutionPriceTicks()) {
             throw new OrderBookException(String.format("Cannot accept executions with different price! price=%s", execution.getExecutionPrice()));
         }
 
@@ -162,9 +387,30 @@ public class OrderBook {
 
         // try to execute
         execute(execution);
+        version++;
 
     }
 
+    /**
+     * Adds a batch of executions for the instrument of this book under a single acquisition of the book lock. An
+     * execution which cannot be added does not stop the batch.
+     * @param executions
+     * @return the exception rejecting each execution, null for the executions added
+     */
+    public synchronized OrderBookException[] addExecutions(List<Execution> executions) {
+        Objects.requireNonNull(executions, "Executions cannot not be null!");
+
+        OrderBookException[] rejections = new OrderBookException[executions.size()];
+        for (int i = 0; i < rejections.length; i++) {
+            try {
+                addExecution(executions.get(i));
+            } catch (OrderBookException ex) {
+                rejections[i] = ex;
+            }
+        }
+        return rejections;
+    }
+
     /**
      * Tries to match en execution against orders in this book.
      * Orders are invalid if it has a price and price is lower than the execution price.
@@ -173,148 +419,146 @@ public class OrderBook {
      */
     private synchronized void execute(Execution execution) {
 
-        // handle invalid orders -> invalid if limit price lower than execution price
-        getInvalidOrders(execution.getExecutionPrice()).forEach(o -> o.setInvalid(true));
+        // handle invalid orders -> invalid if limit price lower than execution price, then collect the valid orders
+        fillEngine.reset();
+        orders.prepareFills(execution.getExecutionPriceTicks(), fillEngine, this::invalidate);
 
         // distribute the execution linearly over all valid orders
-        List<Order> validOrders = getValidOrders();
-
-        Map<Long, Double> weights = calculateWeights(validOrders);
-
-        for (Order order : validOrders) {
-            if (!order.isExecuted()) {
-                int weightedQty = Math.toIntExact((Math.round(weights.get(order.getOrderId()) * execution.getExecutionQuantity())));
-                int requiredQty = order.getOrderQuantity() - order.getExecutionQuantity();
-                int newQty = Math.min(requiredQty, weightedQty);
-                order.setExecutionQuantity(newQty + order.getExecutionQuantity());
-                order.setExecutionPrice(execution.getExecutionPrice());
-                System.out.println(String.format("Execution order %s: %d of %d", order.getOrderId(), order.getExecutionQuantity(), order.getOrderQuantity()));
-            }
-        }
-    }
+        fillEngine.allocate(execution.getExecutionQuantity());
 
-    /**
-     *
-     * @param order
-     * @param executionPrice
-     * @return
-     */
-    private boolean isInvalid(Order order, double executionPrice) {
-        return order.getOrderPrice() != null && order.getOrderPrice() < executionPrice;
+        orders.applyFills(fillEngine, execution.getExecutionPriceTicks(), (orderId, fillQuantity, executionQuantity, orderQuantity) -> {
+            executionAmount += fillQuantity;
+            fillEvents.newFill(instrumentId, execution.getExecutionId(), orderId, fillQuantity, executionQuantity, orderQuantity, execution.getExecutionPriceTicks());
+        });
+        fillCount += fillEngine.size();
     }
 
     /**
-     * Returns all the invalid orders in this book.
-     * @param executionPrice
-     * @return
+     * Moves the demand of an invalidated order to the invalid aggregates.
+     * @param orderQuantity
      */
-    private List<Order> getInvalidOrders(double executionPrice) {
-        return orders.values().stream().filter(o -> !o.isInvalid() && isInvalid(o, executionPrice)).collect(Collectors.toList());
+    private void invalidate(int orderQuantity) {
+        invalidDemand += orderQuantity;
+        invalidOrderCount++;
     }
 
     /**
-     * Returns all valid orders in this book.
+     * Returns the count of all orders in this book.
      * @return
      */
-    private List<Order> getValidOrders() {
-        return orders.values().stream().filter(o -> !o.isInvalid() && !o.isExecuted()).collect(Collectors.toList());
+    public synchronized int getOrderCount() {
+        return orderCount;
     }
 
     /**
      * Returns the total demand in this book = the aggregated order quantity in this book.
      * @return
      */
-    public int getTotalDemand() {
-        return orders.values().stream().mapToInt(Order::getOrderQuantity).sum();
+    public synchronized int getTotalDemand() {
+        return totalDemand;
     }
 
     /**
      * Returns the total invalid demand in this book = the aggregated order quantity in this book for all invalid orders.
      * @return
      */
-    public int getInvalidDemand() {
-        return orders.values().stream().filter(o -> o.isInvalid()).mapToInt(Order::getOrderQuantity).sum();
+    public synchronized int getInvalidDemand() {
+        return invalidDemand;
     }
 
     /**
      * Returns the total valid demand in this book = the aggregated order quantity in this book for all valid orders.
      * @return
      */
-    public int getValidDemand() {
-        return orders.values().stream().filter(o -> !o.isInvalid()).mapToInt(Order::getOrderQuantity).sum();
+    public synchronized int getValidDemand() {
+        return totalDemand - invalidDemand;
     }
 
     /**
      * Returns the execution amount in this book = the aggregated executed order quantity in this book.
      * @return
      */
-    public int getExecutionAmount() {
-        return orders.values().stream().mapToInt(Order::getExecutionQuantity).sum();
+    public synchronized int getExecutionAmount() {
+        return executionAmount;
     }
 
     /**
      * Returns the count of all invalid orders in this book.
      * @return
      */
-    public long getInvalidOrderCount() {
-        return orders.values().stream().filter(o -> o.isInvalid()).count();
+    public synchronized long getInvalidOrderCount() {
+        return invalidOrderCount;
     }
 
     /**
      * Returns the count of all valid orders in this book.
      * @return
      */
-    public long getValidOrderCount() {
-        return orders.values().stream().filter(o -> !o.isInvalid()).count();
+    public synchronized long getValidOrderCount() {
+        return orderCount - invalidOrderCount;
     }
 
     /**
-     * Returns the smallest order in this book = the order with smallest order quantity.
+     * Returns the number of limit price levels holding valid orders in this book.
      * @return
      */
-    public Order getMinOrder() {
-        return orders.values().stream().min(Comparator.comparing(Order::getOrderQuantity)).orElseThrow(NoSuchElementException::new);
+    public synchronized int getPriceLevelCount() {
+        return orders.getPriceLevelCount();
     }
 
     /**
-     * Returns the biggest order in this book = the order with largest order quantity.
+     * Returns the number of orders added to this book, replaced orders included.
      * @return
      */
-    public Order getMaxOrder() {
-        return orders.values().stream().max(Comparator.comparing(Order::getOrderQuantity)).orElseThrow(NoSuchElementException::new);
+    public synchronized long getOrderIntake() {
+        return orderIntake;
     }
 
     /**
-     * Returns the order added first to this book.
+     * Returns the number of order fills made by the executions of this book.
      * @return
      */
-    public Order getFirstOrder() {
-        return orders.values().stream().min(Comparator.comparing(Order::getEntryDate)).orElseThrow(NoSuchElementException::new);
+    public synchronized long getFillCount() {
+        return fillCount;
     }
 
     /**
-     * Returns the order added last to this book.
+     * Returns the smallest order in this book = the order with smallest order quantity.
      * @return
      */
-    public Order getLastOrder() {
-        return orders.values().stream().max(Comparator.comparing(Order::getEntryDate)).orElseThrow(NoSuchElementException::new);
+    public synchronized Order getMinOrder() {
+        return require(orders.getSmallest());
     }
 
     /**
-     * Calculates the order weights for all valid orders in this book.
-     * @param orders
+     * Returns the biggest order in this book = the order with largest order quantity.
+     * @return
+     */
+    public synchronized Order getMaxOrder() {
+        return require(orders.getLargest());
+    }
+
+    /**
+     * Returns the order added first to this book.
      * @return
      */
-    private Map<Long, Double> calculateWeights(List<Order> orders) {
-        Map<Long, Double> weights = new HashMap<>();
+    public synchronized Order getFirstOrder() {
+        return require(orders.getEarliest());
+    }
 
-        double sum = orders.stream().mapToInt(Order::getOrderQuantity).sum();
+    /**
+     * Returns the order added last to this book.
+     * @return
+     */
+    public synchronized Order getLastOrder() {
+        return require(orders.getLatest());
+    }
 
-        for (Order order : orders) {
-            weights.put(order.getOrderId(), order.getOrderQuantity() / sum);
+    private static Order require(Order order) {
+        if (order == null) {
+            throw new NoSuchElementException();
         }
-
-        return weights;
+        return order;
     }
 
     /**
@@ -327,9 +571,17 @@ public class OrderBook {
 
     /**
      *
-     * @return
+     * @return null if the book has no execution
      */
     public synchronized Double getExecutionPrice() {
+        return Prices.toBoxedPrice(executionPrice);
+    }
+
+    /**
+     *
+     * @return the execution price in ticks, {@link Prices#NONE} if the book has no execution
+     */
+    public synchronized long getExecutionPriceTicks() {
         return executionPrice;
     }
 
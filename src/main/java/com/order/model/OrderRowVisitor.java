@@ -0,0 +1,18 @@
+package com.order.model;
+
+/**
+ * Visits the orders of a book as primitive values, so scans over a book do not need an order object per order.
+ */
+public interface OrderRowVisitor {
+
+    /**
+     *
+     * @param orderId
+     * @param orderQuantity
+     * @param executionQuantity
+     * @param orderPrice in ticks, {@link Prices#NONE} for market orders
+     * @param entryNanos the entry date in nanos since the epoch, as UTC
+     * @param invalid
+     */
+    void visit(long orderId, int orderQuantity, int executionQuantity, long orderPrice, long entryNanos, boolean invalid);
+}
@@ -0,0 +1,122 @@
+package com.order.model;
+
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Storage of the orders of an order book, with the price ladder used to execute them. A store is owned by a single
+ * book and is only used under the book lock, except for the scan of {@link #forEachRow(OrderRowVisitor, Object)}. The
+ * running aggregates of the orders are kept by the book.
+ */
+interface OrderStore {
+
+    /**
+     * Receives the fill of an order.
+     */
+    interface FillConsumer {
+
+        void accept(long orderId, int fillQuantity, int executionQuantity, int orderQuantity);
+    }
+
+    /**
+     * Adds an order, replacing the order with the same order id.
+     * @param order
+     * @return the replaced order, null if there was none
+     */
+    Order put(Order order);
+
+    /**
+     *
+     * @param orderId
+     * @return null if there is no order with this id
+     */
+    Order get(long orderId);
+
+    /**
+     *
+     * @param orderId
+     * @return
+     */
+    boolean contains(long orderId);
+
+    /**
+     * Returns true if this order is in the store, as opposed to another order with the same order id.
+     * @param order
+     * @return
+     */
+    boolean holds(Order order);
+
+    /**
+     *
+     * @return
+     */
+    int size();
+
+    /**
+     *
+     * @param consumer
+     */
+    void forEach(Consumer<Order> consumer);
+
+    /**
+     * Passes every order to the visitor as primitive values, without creating orders. Called without the book lock,
+     * the store takes the lock for short parts of the scan at most, so orders changed during the scan are visited as
+     * they were before or after the change.
+     * @param visitor
+     * @param lock the lock of the book
+     */
+    void forEachRow(OrderRowVisitor visitor, Object lock);
+
+    /**
+     * Returns the number of limit price levels holding valid orders.
+     * @return
+     */
+    int getPriceLevelCount();
+
+    /**
+     * Returns the order with the smallest order quantity, the first one visited on ties.
+     * @return null if there are no orders
+     */
+    Order getSmallest();
+
+    /**
+     * Returns the order with the largest order quantity, the first one visited on ties.
+     * @return null if there are no orders
+     */
+    Order getLargest();
+
+    /**
+     * Returns the order entered first.
+     * @return null if there are no orders
+     */
+    Order getEarliest();
+
+    /**
+     * Returns the order entered last.
+     * @return null if there are no orders
+     */
+    Order getLatest();
+
+    /**
+     * Invalidates the limit orders priced lower than the execution price, since an invalid order never becomes valid
+     * again, and adds the valid orders which are not yet executed to the fill engine.
+     * @param executionPrice in ticks
+     * @param fillEngine
+     * @param invalidated receives the order quantity of every order invalidated
+     */
+    void prepareFills(long executionPrice, ProRataFillEngine fillEngine, IntConsumer invalidated);
+
+    /**
+     * Adds the fills allocated by the fill engine to the execution quantities of the orders.
+     * @param fillEngine
+     * @param executionPrice in ticks
+     * @param filled receives every fill
+     */
+    void applyFills(ProRataFillEngine fillEngine, long executionPrice, FillConsumer filled);
+
+    /**
+     * Drops the memory held outside the heap when the store is replaced, so it is freed once collected. The store holds
+     * no orders afterwards.
+     */
+    void release();
+}
@@ -0,0 +1,94 @@
+package com.order.model;
+
+import com.order.common.OrderBookException;
+
+/**
+ * Fixed-point prices. The engine keeps prices as a long number of ticks of 0.0001, so prices compare and index exactly
+ * and without boxing; prices are only converted from and to doubles where they enter or leave the engine, as JSON or
+ * in the binary formats. Prices entering through the REST or gateway edge must be an exact tick, see
+ * {@link #toExactTicks(Double)}; the binary formats only hold prices converted from ticks, which are rounded back.
+ */
+public final class Prices {
+
+    /**
+     * Ticks per unit of price.
+     */
+    public static final long SCALE = 10000;
+
+    /**
+     * The price of a market order, and the execution price of a book or order which is not executed.
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    /**
+     * The largest price in ticks, a price is in [-MAX_TICKS, MAX_TICKS], so it is exact as a double and never
+     * {@link #NONE}.
+     */
+    public static final long MAX_TICKS = 1L << 53;
+
+    private Prices() {
+    }
+
+    /**
+     *
+     * @param price
+     * @return the price in ticks, rounded to the nearest tick
+     * @throws IllegalArgumentException if the price is not finite or out of range
+     */
+    public static long toTicks(double price) {
+        double ticks = price * SCALE;
+        // also false for NaN
+        if (!(Math.abs(ticks) <= MAX_TICKS)) {
+            throw new IllegalArgumentException(String.format("Price is out of range! price=%s", price));
+        }
+        return Math.round(ticks);
+    }
+
+    /**
+     *
+     * @param price null for no price
+     * @return the price in ticks, {@link #NONE} for no price
+     */
+    public static long toTicks(Double price) {
+        return price != null ? toTicks(price.doubleValue()) : NONE;
+    }
+
+    /**
+     * Converts a price received from a client, which is rejected rather than rounded.
+     * @param price null for no price
+     * @return the price in ticks, {@link #NONE} for no price
+     * @throws OrderBookException if the price is not finite, out of range or not an exact tick
+     */
+    public static long toExactTicks(Double price) {
+        if (price == null) {
+            return NONE;
+        }
+        double ticks = price * SCALE;
+        if (!(Math.abs(ticks) <= MAX_TICKS)) {
+            throw new OrderBookException(String.format("Price is out of range! price=%s", price));
+        }
+        long exact = Math.round(ticks);
+        if (toPrice(exact) != price) {
+            throw new OrderBookException(String.format("Price is not an exact tick of %s! price=%s", toPrice(1), price));
+        }
+        return exact;
+    }
+
+    /**
+     *
+     * @param ticks
+     * @return the price, NaN for {@link #NONE}
+     */
+    public static double toPrice(long ticks) {
+        return ticks != NONE ? ticks / (double) SCALE : Double.NaN;
+    }
+
+    /**
+     *
+     * @param ticks
+     * @return the price, null for {@link #NONE}
+     */
+    public static Double toBoxedPrice(long ticks) {
+        return ticks != NONE ? ticks / (double) SCALE : null;
+    }
+}
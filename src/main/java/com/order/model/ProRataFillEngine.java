@@ -0,0 +1,122 @@
+package com.order.model;
+
+import java.util.Arrays;
+
+/**
+ * Distributes an execution over a set of orders proportional to their order quantity. The engine works on primitive
+ * arrays which are reused across executions, so it does not allocate once the arrays have grown to the book size.
+ * An engine is not thread safe and is owned by a single order book.
+ */
+public class ProRataFillEngine {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Order[] orders = new Order[INITIAL_CAPACITY];
+    private int[] rows = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private int[] remaining = new int[INITIAL_CAPACITY];
+    private int[] fills = new int[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Clears the orders from the previous execution.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Adds an order taking part in the next allocation.
+     * @param order
+     */
+    public void add(Order order) {
+        if (size == orders.length) {
+            grow();
+        }
+        orders[size] = order;
+        quantities[size] = order.getOrderQuantity();
+        remaining[size] = order.getOrderQuantity() - order.getExecutionQuantity();
+        size++;
+    }
+
+    /**
+     * Adds an order stored in a column row, taking part in the next allocation.
+     * @param row
+     * @param orderQuantity
+     * @param executionQuantity
+     */
+    public void add(int row, int orderQuantity, int executionQuantity) {
+        if (size == orders.length) {
+            grow();
+        }
+        orders[size] = null;
+        rows[size] = row;
+        quantities[size] = orderQuantity;
+        remaining[size] = orderQuantity - executionQuantity;
+        size++;
+    }
+
+    /**
+     * Calculates the fill quantity of each order. The weight of an order is its order quantity over the total order
+     * quantity, the weighted execution quantity is rounded and capped by the remaining order quantity.
+     * @param executionQuantity
+     */
+    public void allocate(int executionQuantity) {
+        int totalQuantity = 0;
+        for (int i = 0; i < size; i++) {
+            totalQuantity += quantities[i];
+        }
+
+        double sum = totalQuantity;
+        for (int i = 0; i < size; i++) {
+            double weight = quantities[i] / sum;
+            int weightedQty = Math.toIntExact(Math.round(weight * executionQuantity));
+            fills[i] = Math.min(remaining[i], weightedQty);
+        }
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @param index
+     * @return
+     */
+    public Order getOrder(int index) {
+        return orders[index];
+    }
+
+    /**
+     * Returns the column row of the order at the index, if it was added by row.
+     * @param index
+     * @return
+     */
+    public int getRow(int index) {
+        return rows[index];
+    }
+
+    /**
+     * Returns the fill quantity of the order at the index, as calculated by the last allocation.
+     * @param index
+     * @return
+     */
+    public int getFill(int index) {
+        return fills[index];
+    }
+
+    private void grow() {
+        int capacity = orders.length * 2;
+        orders = Arrays.copyOf(orders, capacity);
+        rows = Arrays.copyOf(rows, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        remaining = Arrays.copyOf(remaining, capacity);
+        fills = Arrays.copyOf(fills, capacity);
+    }
+}
@@ -0,0 +1,76 @@
+package com.order.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The tick size of every instrument, the price increment its orders and executions must be priced in. A tick size is
+ * a whole number of price ticks, instruments without a tick size of their own use the default one.
+ */
+public class TickSizes {
+
+    /**
+     * Every price tick is a valid price.
+     */
+    public static final TickSizes NONE = new TickSizes(1, new HashMap<>());
+
+    private final long defaultTickSize;
+
+    private final Map<String, Long> tickSizes;
+
+    private TickSizes(long defaultTickSize, Map<String, Long> tickSizes) {
+        this.defaultTickSize = defaultTickSize;
+        this.tickSizes = tickSizes;
+    }
+
+    /**
+     * Parses the tick sizes given as prices.
+     * @param defaultTickSize
+     * @param tickSizes entries of instrument id and tick size, as CS:0.01
+     * @return
+     */
+    public static TickSizes parse(double defaultTickSize, String[] tickSizes) {
+        Map<String, Long> parsed = new HashMap<>();
+        for (String entry : tickSizes) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException(String.format("Tick size must be given as instrument:size! entry=%s", entry));
+            }
+            parsed.put(entry.substring(0, separator).trim(), toTicks(Double.parseDouble(entry.substring(separator + 1).trim())));
+        }
+        return new TickSizes(toTicks(defaultTickSize), parsed);
+    }
+
+    /**
+     *
+     * @param instrumentId
+     * @return the tick size of the instrument in price ticks
+     */
+    public long of(String instrumentId) {
+        Objects.requireNonNull(instrumentId, "InstrumentId cannot not be null!");
+        Long tickSize = tickSizes.get(instrumentId);
+        return tickSize != null ? tickSize : defaultTickSize;
+    }
+
+    /**
+     * Returns true if the price is a multiple of the tick size of the instrument, or if there is no price.
+     * @param instrumentId
+     * @param price in ticks
+     * @return
+     */
+    public boolean isValid(String instrumentId, long price) {
+        return price == Prices.NONE || price % of(instrumentId) == 0;
+    }
+
+    private static long toTicks(double tickSize) {
+        long ticks = Prices.toTicks(tickSize);
+        if (ticks < 1 || Math.abs(tickSize * Prices.SCALE - ticks) > 1e-6) {
+            throw new IllegalArgumentException(String.format("Tick size must be a multiple of %s! tickSize=%s", 1.0 / Prices.SCALE, tickSize));
+        }
+        return ticks;
+    }
+}
@@ -0,0 +1,343 @@
+package com.order.replication;
+
+import com.order.enumeration.ReplicationRole;
+import com.order.journal.JournalPosition;
+import com.order.journal.JournalTailer;
+import com.order.journal.MappedJournal;
+import com.order.journal.SnapshotStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams the journal of this node to a standby over a socket, so the standby holds the same order books and can take
+ * over when this node fails. The standby sends the journal position it applied up to when it connects and the journal
+ * is tailed from there; when the segment of the position is deleted already, a fresh standby gets a snapshot first and
+ * the journal is tailed from the position of the snapshot.
+ * <p>
+ * Nothing is added to the appends of the journal. The sender thread polls the journal and copies all the records
+ * appended since its last write into one frame, so a frame carries the records appended while the previous one was
+ * written. The standby acks the sequence of every frame it applied. One standby is served at a time.
+ */
+@Component
+@ConditionalOnProperty(name = "order.replication.role", havingValue = "PRIMARY")
+@DependsOn("journalRecovery")
+public class ReplicationPrimary {
+
+    // frames sent to the standby
+    static final byte RECORDS = 1;
+    static final byte SNAPSHOT = 2;
+    static final byte BEHIND = 3;
+
+    // type, records, appended, position after the records and length of the records
+    static final int RECORDS_HEADER = 1 + 4 + 8 + 8 + 4 + 8 + 4;
+
+    // the position the standby applied up to
+    static final int HANDSHAKE_SIZE = 8 + 4 + 8;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final MappedJournal journal;
+
+    private final SnapshotStore snapshotStore;
+
+    private final int port;
+
+    private final int batchSize;
+
+    private final long pollNanos;
+
+    private final Counter events;
+
+    private final Counter bytes;
+
+    private final DistributionSummary batches;
+
+    private final Timer ack;
+
+    // the sent frames waiting for their ack, as sequence and send time
+    private final Queue<long[]> unacknowledged = new ConcurrentLinkedQueue<>();
+
+    private volatile long acknowledged;
+
+    private volatile SocketChannel standby;
+
+    private ServerSocketChannel server;
+
+    private Thread thread;
+
+    private volatile boolean running;
+
+    @Autowired
+    public ReplicationPrimary(MappedJournal journal, SnapshotStore snapshotStore, MeterRegistry meterRegistry,
+                              @Value("${order.replication.port:9200}") int port,
+                              @Value("${order.replication.batch-size:65536}") int batchSize,
+                              @Value("${order.replication.poll-interval:100}") long pollMicros) {
+        if (batchSize < 1024) {
+            throw new IllegalArgumentException(String.format("Batch size is too small! batchSize=%d", batchSize));
+        }
+        this.journal = journal;
+        this.snapshotStore = snapshotStore;
+        this.port = port;
+        this.batchSize = batchSize;
+        this.pollNanos = TimeUnit.MICROSECONDS.toNanos(pollMicros);
+
+        String role = ReplicationRole.PRIMARY.name().toLowerCase();
+        events = Counter.builder("order.replication.events")
+                .tag("role", role)
+                .description("Journal events sent to the standby")
+                .register(meterRegistry);
+        bytes = Counter.builder("order.replication.bytes")
+                .tag("role", role)
+                .baseUnit("bytes")
+                .description("Journal bytes sent to the standby")
+                .register(meterRegistry);
+        batches = DistributionSummary.builder("order.replication.batch")
+                .tag("role", role)
+                .description("Journal events per frame sent to the standby")
+                .register(meterRegistry);
+        ack = Timer.builder("order.replication.ack")
+                .tag("role", role)
+                .description("Time from sending a frame to the standby until the standby applied it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("order.replication.lag", this, ReplicationPrimary::getLag)
+                .tag("role", role)
+                .description("Journal events not yet applied by the standby")
+                .register(meterRegistry);
+        Gauge.builder("order.replication.connected", this, p -> p.isConnected() ? 1 : 0)
+                .tag("role", role)
+                .description("1 while a standby is connected")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+
+        running = true;
+        thread = new Thread(this::run, "order-replication-primary");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info(String.format("Replication primary listening on port %d", getPort()));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        server.close();
+        SocketChannel current = standby;
+        if (current != null) {
+            current.close();
+        }
+        thread.join(5000);
+    }
+
+    /**
+     *
+     * @return the port the primary listens on
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     *
+     * @return the sequence of the last journal event applied by the standby
+     */
+    public long getAcknowledged() {
+        return acknowledged;
+    }
+
+    /**
+     *
+     * @return the number of journal events appended which the standby did not apply yet
+     */
+    public long getLag() {
+        return Math.max(0, journal.getAppended() - acknowledged);
+    }
+
+    /**
+     *
+     * @return true while a standby is connected
+     */
+    public boolean isConnected() {
+        return standby != null;
+    }
+
+    private void run() {
+        while (running) {
+            try (SocketChannel channel = server.accept()) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                logger.info(String.format("Replication standby connected from %s", channel.getRemoteAddress()));
+                standby = channel;
+                serve(channel);
+            } catch (ClosedChannelException ex) {
+                // stopped, or the standby went away
+            } catch (IOException | RuntimeException ex) {
+                logger.warn(String.format("Replication to the standby failed: %s", ex.getMessage()));
+            } finally {
+                standby = null;
+                unacknowledged.clear();
+            }
+        }
+    }
+
+    /**
+     * Sends the journal to a standby until it disconnects.
+     * @param channel
+     * @throws IOException
+     */
+    private void serve(SocketChannel channel) throws IOException {
+        ByteBuffer handshake = ByteBuffer.allocate(HANDSHAKE_SIZE);
+        readFully(channel, handshake);
+        JournalPosition from = new JournalPosition(handshake.getLong(0), handshake.getInt(8), handshake.getLong(12));
+
+        JournalTailer tailer;
+        try {
+            tailer = new JournalTailer(journal, from);
+        } catch (NoSuchFileException ex) {
+            if (!from.equals(JournalPosition.START)) {
+                // the standby holds state the snapshot would be loaded over
+                logger.warn(String.format("Replication standby is behind the journal at %s, it must be restarted empty", from));
+                ByteBuffer behind = ByteBuffer.allocate(1).put(BEHIND);
+                behind.flip();
+                writeFully(channel, behind);
+                return;
+            }
+            from = sendSnapshot(channel);
+            tailer = new JournalTailer(journal, from);
+        }
+        acknowledged = from.getSequence();
+        logger.info(String.format("Replicating the journal from %s", from));
+
+        Thread acks = new Thread(() -> readAcks(channel), "order-replication-acks");
+        acks.setDaemon(true);
+        acks.start();
+
+        ByteBuffer frame = ByteBuffer.allocateDirect(batchSize);
+        while (running && channel.isOpen()) {
+            frame.clear();
+            frame.position(RECORDS_HEADER);
+            int records = tailer.copy(frame);
+            if (records == 0) {
+                LockSupport.parkNanos(pollNanos);
+                continue;
+            }
+
+            JournalPosition position = tailer.position();
+            int length = frame.position() - RECORDS_HEADER;
+            frame.put(0, RECORDS)
+                    .putInt(1, records)
+                    .putLong(5, tailer.getAppended())
+                    .putLong(13, position.getSegment())
+                    .putInt(21, position.getOffset())
+                    .putLong(25, position.getSequence())
+                    .putInt(33, length);
+            frame.flip();
+            unacknowledged.add(new long[]{position.getSequence(), System.nanoTime()});
+            writeFully(channel, frame);
+
+            events.increment(records);
+            bytes.increment(length);
+            batches.record(records);
+        }
+    }
+
+    /**
+     * Takes a snapshot and sends it, the journal after the snapshot follows.
+     * @param channel
+     * @return the position of the snapshot
+     * @throws IOException
+     */
+    private JournalPosition sendSnapshot(SocketChannel channel) throws IOException {
+        JournalPosition position = snapshotStore.take();
+        Path file = snapshotStore.fileOf(position);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            ByteBuffer header = ByteBuffer.allocate(9).put(SNAPSHOT).putLong(size);
+            header.flip();
+            writeFully(channel, header);
+            for (long sent = 0; sent < size; ) {
+                sent += in.transferTo(sent, size - sent, channel);
+            }
+            bytes.increment(size);
+        }
+        logger.info(String.format("Replication snapshot sent at %s", position));
+        return position;
+    }
+
+    private void readAcks(SocketChannel channel) {
+        ByteBuffer in = ByteBuffer.allocate(8);
+        try {
+            while (true) {
+                in.clear();
+                readFully(channel, in);
+                long sequence = in.getLong(0);
+                acknowledged = sequence;
+
+                long now = System.nanoTime();
+                long[] sent;
+                while ((sent = unacknowledged.peek()) != null && sent[0] <= sequence) {
+                    unacknowledged.poll();
+                    ack.record(now - sent[1], TimeUnit.NANOSECONDS);
+                }
+            }
+        } catch (IOException ex) {
+            logger.info(String.format("Replication standby disconnected: %s", ex.getMessage()));
+        } finally {
+            closeQuietly(channel);
+        }
+    }
+
+    static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Connection closed");
+            }
+        }
+    }
+
+    static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            // nothing left to do
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.order.replication;
+
+import com.order.enumeration.OrderStorage;
+import com.order.enumeration.ReplicationRole;
+import com.order.event.FillEvents;
+import com.order.journal.JournalApplier;
+import com.order.journal.JournalCodec;
+import com.order.journal.JournalPosition;
+import com.order.repository.ExecutionRepository;
+import com.order.repository.OrderBookRepository;
+import com.order.repository.OrderRepository;
+import com.order.service.OrderBookServiceImpl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Applies the journal streamed by a primary to the order books and repositories of this node, on a single thread, the
+ * way the journal is replayed at startup. Every frame applied is acked with its sequence. The standby reconnects from
+ * the position it applied up to when the connection is lost, and must start empty, as its position is not kept.
+ * <p>
+ * While it is a standby, the node serves reads only. Promoting it stops the replication and lets it accept commands,
+ * the ids of the replicated orders and executions are reserved so the new ones follow them.
+ */
+@Component
+@ConditionalOnProperty(name = "order.replication.role", havingValue = "STANDBY")
+public class ReplicationStandby {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final OrderBookRepository orderBookRepository;
+
+    private final FillEvents fillEvents;
+
+    private final OrderStorage orderStorage;
+
+    private final InetSocketAddress primary;
+
+    private final long retryMillis;
+
+    private final JournalApplier applier;
+
+    private final JournalCodec codec = new JournalCodec();
+
+    private final Counter events;
+
+    // the position applied up to and the last sequence appended by the primary
+    private volatile JournalPosition position = JournalPosition.START;
+
+    private volatile long appended;
+
+    private volatile SocketChannel channel;
+
+    private volatile boolean promoted;
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    @Autowired
+    public ReplicationStandby(OrderBookServiceImpl orderBookService, OrderBookRepository orderBookRepository, OrderRepository orderRepository,
+                              ExecutionRepository executionRepository, FillEvents fillEvents, MeterRegistry meterRegistry,
+                              @Value("${order.book.storage:HEAP}") OrderStorage orderStorage,
+                              @Value("${order.replication.primary:localhost:9200}") String primary,
+                              @Value("${order.replication.retry-interval:1000}") long retryMillis) {
+        int separator = primary.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException(String.format("Primary must be given as host:port! primary=%s", primary));
+        }
+        this.orderBookRepository = orderBookRepository;
+        this.fillEvents = fillEvents;
+        this.orderStorage = orderStorage;
+        this.primary = InetSocketAddress.createUnresolved(primary.substring(0, separator), Integer.parseInt(primary.substring(separator + 1)));
+        this.retryMillis = retryMillis;
+        this.applier = new JournalApplier(orderBookService, orderRepository, executionRepository);
+
+        String role = ReplicationRole.STANDBY.name().toLowerCase();
+        events = Counter.builder("order.replication.events")
+                .tag("role", role)
+                .description("Journal events applied from the primary")
+                .register(meterRegistry);
+        Gauge.builder("order.replication.lag", this, ReplicationStandby::getLag)
+                .tag("role", role)
+                .description("Journal events appended by the primary and not yet applied, as of the last frame received")
+                .register(meterRegistry);
+        Gauge.builder("order.replication.connected", this, s -> s.isConnected() ? 1 : 0)
+                .tag("role", role)
+                .description("1 while connected to the primary")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "order-replication-standby");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        disconnect();
+        thread.interrupt();
+        thread.join(5000);
+    }
+
+    /**
+     * Stops the replication, this node accepts commands from now on. The replication thread is stopped and joined
+     * before commands are accepted, so the events received from the primary are applied before any command.
+     * @throws InterruptedException
+     * @throws IllegalStateException if the replication thread does not stop, the node is not promoted then
+     */
+    public synchronized void promote() throws InterruptedException {
+        if (promoted) {
+            return;
+        }
+        stop();
+        if (thread.isAlive()) {
+            throw new IllegalStateException("Replication standby did not stop, it is not promoted");
+        }
+        promoted = true;
+        logger.info(String.format("Replication standby promoted at %s", position));
+    }
+
+    /**
+     *
+     * @return true once this node was promoted
+     */
+    public boolean isPromoted() {
+        return promoted;
+    }
+
+    /**
+     *
+     * @return true while connected to the primary
+     */
+    public boolean isConnected() {
+        return channel != null;
+    }
+
+    /**
+     *
+     * @return the position of the primary journal applied up to
+     */
+    public JournalPosition getPosition() {
+        return position;
+    }
+
+    /**
+     *
+     * @return the number of events the primary appended and this node did not apply, as of the last frame received
+     */
+    public long getLag() {
+        return Math.max(0, appended - position.getSequence());
+    }
+
+    private void run() {
+        while (running) {
+            try (SocketChannel connected = SocketChannel.open(new InetSocketAddress(primary.getHostString(), primary.getPort()))) {
+                connected.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel = connected;
+                logger.info(String.format("Replication standby connected to %s from %s", primary, position));
+                if (!receive(connected)) {
+                    running = false;
+                }
+            } catch (IOException | RuntimeException ex) {
+                if (running) {
+                    logger.warn(String.format("Replication from %s failed: %s", primary, ex.getMessage()));
+                }
+            } finally {
+                channel = null;
+            }
+
+            if (running) {
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the frames of the primary until the connection is lost.
+     * @param connected
+     * @return false if the primary cannot replicate to this node
+     * @throws IOException
+     */
+    private boolean receive(SocketChannel connected) throws IOException {
+        JournalPosition from = position;
+        ByteBuffer handshake = ByteBuffer.allocate(ReplicationPrimary.HANDSHAKE_SIZE)
+                .putLong(from.getSegment())
+                .putInt(from.getOffset())
+                .putLong(from.getSequence());
+        handshake.flip();
+        ReplicationPrimary.writeFully(connected, handshake);
+
+        ByteBuffer header = ByteBuffer.allocate(ReplicationPrimary.RECORDS_HEADER);
+        ByteBuffer records = ByteBuffer.allocateDirect(1 << 16);
+        ByteBuffer ack = ByteBuffer.allocate(8);
+        while (running) {
+            header.clear().limit(1);
+            ReplicationPrimary.readFully(connected, header);
+            switch (header.get(0)) {
+                case ReplicationPrimary.RECORDS:
+                    header.limit(ReplicationPrimary.RECORDS_HEADER);
+                    ReplicationPrimary.readFully(connected, header);
+                    int count = header.getInt(1);
+                    int length = header.getInt(33);
+                    if (length > records.capacity()) {
+                        records = ByteBuffer.allocateDirect(Integer.highestOneBit(length) << 1);
+                    }
+                    records.clear().limit(length);
+                    ReplicationPrimary.readFully(connected, records);
+                    records.flip();
+                    apply(records, count);
+
+                    appended = header.getLong(5);
+                    position = new JournalPosition(header.getLong(13), header.getInt(21), header.getLong(25));
+                    ack.clear();
+                    ack.putLong(0, position.getSequence());
+                    ReplicationPrimary.writeFully(connected, ack);
+                    break;
+                case ReplicationPrimary.SNAPSHOT:
+                    header.limit(9);
+                    ReplicationPrimary.readFully(connected, header);
+                    position = loadSnapshot(connected, header.getLong(1));
+                    appended = position.getSequence();
+                    break;
+                case ReplicationPrimary.BEHIND:
+                    logger.error(String.format("Replication primary no longer holds the journal at %s, the standby must be restarted empty", position));
+                    return false;
+                default:
+                    throw new IOException(String.format("Unknown replication frame %d", header.get(0)));
+            }
+        }
+        return true;
+    }
+
+    private void apply(ByteBuffer records, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (codec.read(records, applier) <= 0) {
+                throw new IOException(String.format("Corrupt replication frame at record %d of %d", i, count));
+            }
+        }
+        events.increment(count);
+    }
+
+    /**
+     * Receives a snapshot into a temporary file and loads it.
+     * @param connected
+     * @param size
+     * @return the position of the snapshot
+     * @throws IOException
+     */
+    private JournalPosition loadSnapshot(SocketChannel connected, long size) throws IOException {
+        Path file = Files.createTempFile("order-replication-", ".dat");
+        try {
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                for (long received = 0; received < size; ) {
+                    long read = out.transferFrom(connected, received, size - received);
+                    if (read <= 0) {
+                        throw new IOException("Connection closed while receiving the snapshot");
+                    }
+                    received += read;
+                }
+            }
+            return applier.load(file, orderBookRepository, fillEvents, orderStorage);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void disconnect() {
+        SocketChannel current = channel;
+        if (current != null) {
+            ReplicationPrimary.closeQuietly(current);
+        }
+    }
+}
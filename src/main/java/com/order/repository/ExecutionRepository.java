@@ -2,7 +2,7 @@ package com.order.repository;
 
 import com.order.model.Execution;
 
-import java.util.List;
+import java.util.Collection;
 
 /**
  * Repository for executions.
@@ -23,21 +23,52 @@ public interface ExecutionRepository {
     long nextExecutionId();
 
     /**
-     *
+     * Allocates a range of consecutive ids in one step.
+     * @param count at most {@link #getMaxExecutionIdCount()}
+     * @return the first id of the range
+     */
+    long nextExecutionIds(int count);
+
+    /**
+     * Returns the largest range of ids allocated in one step.
+     * @return
+     */
+    int getMaxExecutionIdCount();
+
+    /**
+     * Makes sure ids up to the given id are never allocated again, used when executions are restored.
+     * @param executionId
+     */
+    void reserveExecutionId(long executionId);
+
+    /**
+     * Returns a view of the executions for the instrument in id order, which is not copied.
      * @param instrumentId
      * @return
      */
-    List<Execution> findByInstrumentId(String instrumentId);
+    Collection<Execution> findByInstrumentId(String instrumentId);
 
     /**
-     *
+     * Returns a view of the executions with ids from fromId to toId inclusive in id order, for the instrument or for all
+     * instruments if the instrument is null, which is not copied.
+     * @param instrumentId
+     * @param fromId
+     * @param toId
      * @return
      */
-    List<Execution> findAll();
+    Collection<Execution> findByIdRange(String instrumentId, long fromId, long toId);
 
     /**
-     *
+     * Returns a weakly consistent view of all executions, which is not copied.
+     * @return
+     */
+    Collection<Execution> findAll();
+
+    /**
+     * Stores an execution, replacing the execution stored with its id. An execution without an instrument is stored
+     * but not found by instrument.
      * @param execution
+     * @throws IllegalArgumentException if an execution with the id is stored for another instrument
      */
     void store(Execution execution);
 }
@@ -1,25 +1,43 @@
 package com.order.repository;
 
+import com.order.id.IdAllocator;
+import com.order.id.SequenceIdAllocator;
 import com.order.model.Execution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.Collection;
 
 /**
- * In memory execution repository.
+ * In memory execution repository, sharded by execution id.
  */
 @Repository("executionRepository")
 public class ExecutionRepositoryInMem implements ExecutionRepository {
 
-    private Map<Long, Execution> executions = new HashMap<>();
+    private final LongShardedStore<Execution> executions;
 
-    private static AtomicLong currentExecutionId = new AtomicLong(0);
+    private final InstrumentIndex<Execution> instrumentIndex;
+
+    private final IdAllocator executionIds;
 
     public ExecutionRepositoryInMem() {
+        this(ShardedStore.DEFAULT_SHARDS);
+    }
+
+    @Autowired
+    public ExecutionRepositoryInMem(@Qualifier("executionIdAllocator") IdAllocator executionIds) {
+        this(ShardedStore.DEFAULT_SHARDS, executionIds);
+    }
+
+    public ExecutionRepositoryInMem(int shards) {
+        this(shards, new SequenceIdAllocator());
+    }
+
+    public ExecutionRepositoryInMem(int shards, IdAllocator executionIds) {
+        executions = new LongShardedStore<>(shards);
+        instrumentIndex = new InstrumentIndex<>(executions::get);
+        this.executionIds = executionIds;
     }
 
     @Override
@@ -29,21 +47,48 @@ public class ExecutionRepositoryInMem implements ExecutionRepository {
 
     @Override
     public long nextExecutionId() {
-        return currentExecutionId.incrementAndGet();
+        return executionIds.next();
+    }
+
+    @Override
+    public long nextExecutionIds(int count) {
+        return executionIds.next(count);
+    }
+
+    @Override
+    public int getMaxExecutionIdCount() {
+        return executionIds.getMaxCount();
+    }
+
+    @Override
+    public void reserveExecutionId(long executionId) {
+        executionIds.reserve(executionId);
+    }
+
+    @Override
+    public Collection<Execution> findByInstrumentId(final String instrumentId) {
+        return instrumentIndex.find(instrumentId);
     }
 
     @Override
-    public List<Execution> findByInstrumentId(final String instrumentId) {
-        return executions.values().stream().filter(e -> e.getInstrumentId().equals(instrumentId)).collect(Collectors.toList());
+    public Collection<Execution> findByIdRange(final String instrumentId, long fromId, long toId) {
+        return instrumentId != null ? instrumentIndex.find(instrumentId, fromId, toId) : instrumentIndex.findAll(fromId, toId);
     }
 
     @Override
-    public List<Execution> findAll() {
-        return executions.values().stream().collect(Collectors.toList());
+    public Collection<Execution> findAll() {
+        return executions.values();
     }
 
     @Override
     public void store(Execution execution) {
-        executions.put(execution.getExecutionId(), execution);
+        // ids are allocated once, so the same id is not stored concurrently
+        Execution previous = executions.get(execution.getExecutionId());
+        if (previous != null) {
+            InstrumentIndex.checkSameInstrument(previous.getInstrumentId(), execution.getInstrumentId(), execution.getExecutionId());
+        }
+        if (executions.put(execution.getExecutionId(), execution) == null) {
+            instrumentIndex.add(execution.getInstrumentId(), execution.getExecutionId());
+        }
     }
 }
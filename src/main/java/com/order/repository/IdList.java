@@ -0,0 +1,100 @@
+package com.order.repository;
+
+import java.util.Arrays;
+
+/**
+ * A sorted list of distinct primitive ids. Ids are allocated in increasing order and stored nearly in that order, so
+ * an add is almost always an append. An id stored out of order is put into a pending buffer, which is sorted and merged
+ * into a copy of the array on the next read or when the buffer outgrows an eighth of the list, so interleaved blocks
+ * of ids cost O(log n) per add amortized instead of a copy per add. Adds are synchronized, reads are lock free: a
+ * reader reads the size before the array, and both are volatile and written array first, so it always sees a sorted
+ * array holding at least that many ids, and a published prefix is never changed in place.
+ */
+class IdList {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    // volatile as well, a reader which reads a size published by a merge must read the merged array
+    private volatile long[] ids = new long[INITIAL_CAPACITY];
+
+    private volatile int size;
+
+    // ids stored out of order, not yet merged
+    private long[] pending = new long[INITIAL_CAPACITY];
+
+    private volatile int pendingCount;
+
+    synchronized void add(long id) {
+        int n = size;
+        long[] current = ids;
+        if (n == 0 || current[n - 1] < id) {
+            if (n == current.length) {
+                current = Arrays.copyOf(current, n << 1);
+            }
+            // the id is written before the array and the size are published
+            current[n] = id;
+            ids = current;
+            size = n + 1;
+            return;
+        }
+
+        if (Arrays.binarySearch(current, 0, n, id) >= 0) {
+            return;
+        }
+
+        int k = pendingCount;
+        if (k == pending.length) {
+            pending = Arrays.copyOf(pending, k << 1);
+        }
+        pending[k] = id;
+        pendingCount = k + 1;
+        if (k + 1 > Math.max(INITIAL_CAPACITY, n >> 3)) {
+            merge();
+        }
+    }
+
+    /**
+     * Returns the number of ids, merging the pending ids first.
+     * @return
+     */
+    int size() {
+        if (pendingCount > 0) {
+            merge();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the ids, the array may be longer than the size read before.
+     * @return
+     */
+    long[] ids() {
+        return ids;
+    }
+
+    private synchronized void merge() {
+        int k = pendingCount;
+        if (k == 0) {
+            return;
+        }
+        Arrays.sort(pending, 0, k);
+
+        // merge into a copy, readers may still be iterating the published array
+        int n = size;
+        long[] current = ids;
+        long[] merged = new long[Math.max(current.length, Integer.highestOneBit(n + k) << 1)];
+        int m = 0;
+        int i = 0;
+        int j = 0;
+        while (i < n || j < k) {
+            long id = j == k || (i < n && current[i] < pending[j]) ? current[i++] : pending[j++];
+            // pending ids can be stored twice
+            if (m == 0 || merged[m - 1] != id) {
+                merged[m++] = id;
+            }
+        }
+        ids = merged;
+        pendingCount = 0;
+        size = m;
+    }
+}
@@ -0,0 +1,203 @@
+package com.order.repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * Secondary index from instrument id to the ids stored for the instrument, in id order. Lookups return lazy views
+ * which resolve the ids through the primary store while iterating, so a lookup costs O(results), and id ranges are
+ * found by binary search. A range across all instruments merges the sorted ids of the instruments. Values without an
+ * instrument are not indexed.
+ * @param <V>
+ */
+class InstrumentIndex<V> {
+
+    private final ConcurrentHashMap<String, IdList> index = new ConcurrentHashMap<>();
+
+    private final LongFunction<V> store;
+
+    /**
+     *
+     * @param store looks up the stored value by id
+     */
+    InstrumentIndex(LongFunction<V> store) {
+        this.store = store;
+    }
+
+    /**
+     *
+     * @param instrumentId null for a value which is not indexed
+     * @param id
+     */
+    void add(String instrumentId, long id) {
+        if (instrumentId == null) {
+            return;
+        }
+        index.computeIfAbsent(instrumentId, i -> new IdList()).add(id);
+    }
+
+    /**
+     * Checks that a value stored again under its id keeps the instrument it is indexed by.
+     * @param previousInstrumentId the instrument of the value stored before, if any
+     * @param instrumentId
+     * @param id
+     * @throws IllegalArgumentException if the instruments differ
+     */
+    static void checkSameInstrument(String previousInstrumentId, String instrumentId, long id) {
+        if (!Objects.equals(previousInstrumentId, instrumentId)) {
+            throw new IllegalArgumentException(String.format("Id is stored for another instrument! id=%d instrumentId=%s storedInstrumentId=%s",
+                    id, instrumentId, previousInstrumentId));
+        }
+    }
+
+    /**
+     * Returns an unmodifiable view of the values stored for the instrument, holding the values stored before the call.
+     * @param instrumentId
+     * @return
+     */
+    Collection<V> find(String instrumentId) {
+        return find(instrumentId, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns an unmodifiable view of the values stored for the instrument with ids from fromId to toId inclusive, in
+     * id order, holding the values stored before the call.
+     * @param instrumentId
+     * @param fromId
+     * @param toId
+     * @return
+     */
+    Collection<V> find(String instrumentId, long fromId, long toId) {
+        IdList ids = instrumentId != null ? index.get(instrumentId) : null;
+        return ids != null && fromId <= toId ? new Values(new Range(ids, fromId, toId)) : Collections.emptyList();
+    }
+
+    /**
+     * Returns an unmodifiable view of the values stored for all instruments with ids from fromId to toId inclusive, in
+     * id order. The instruments are snapshot when the view is iterated.
+     * @param fromId
+     * @param toId
+     * @return
+     */
+    Collection<V> findAll(long fromId, long toId) {
+        return fromId <= toId ? new MergedValues(fromId, toId) : Collections.emptyList();
+    }
+
+    /**
+     * A snapshot of the ids of an instrument within an id range.
+     */
+    private static final class Range {
+
+        final long[] ids;
+
+        int from;
+
+        final int to;
+
+        Range(IdList idList, long fromId, long toId) {
+            // the size must be read before the ids
+            int size = idList.size();
+            ids = idList.ids();
+            from = lowerBound(ids, size, fromId);
+            to = toId == Long.MAX_VALUE ? size : lowerBound(ids, size, toId + 1);
+        }
+
+        int size() {
+            return Math.max(0, to - from);
+        }
+
+        private static int lowerBound(long[] ids, int size, long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    private class Values extends AbstractCollection<V> {
+
+        private final Range range;
+
+        Values(Range range) {
+            this.range = range;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+
+                private int index = range.from;
+
+                @Override
+                public boolean hasNext() {
+                    return index < range.to;
+                }
+
+                @Override
+                public V next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return store.apply(range.ids[index++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return range.size();
+        }
+    }
+
+    private class MergedValues extends AbstractCollection<V> {
+
+        private final long fromId;
+
+        private final long toId;
+
+        MergedValues(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            PriorityQueue<Range> ranges = new PriorityQueue<>(Math.max(1, index.size()), Comparator.comparingLong(r -> r.ids[r.from]));
+            for (IdList ids : index.values()) {
+                Range range = new Range(ids, fromId, toId);
+                if (range.size() > 0) {
+                    ranges.add(range);
+                }
+            }
+
+            return new Iterator<V>() {
+
+                @Override
+                public boolean hasNext() {
+                    return !ranges.isEmpty();
+                }
+
+                @Override
+                public V next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Range range = ranges.poll();
+                    long id = range.ids[range.from++];
+                    if (range.size() > 0) {
+                        ranges.add(range);
+                    }
+                    return store.apply(id);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (IdList ids : index.values()) {
+                size += new Range(ids, fromId, toId).size();
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.order.repository;
+
+import com.order.common.LongObjectHashMap;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A concurrent store keyed by primitive long ids, partitioned into shards of open addressing maps. Reads are lock free,
+ * writes only contend with writes to the same shard, and the values view iterates the shards one by one without
+ * copying them. The values view is weakly consistent.
+ * @param <V>
+ */
+class LongShardedStore<V> {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final LongObjectHashMap<V>[] shards;
+
+    private final int mask;
+
+    private final int shift;
+
+    private final Collection<V> values = new Values();
+
+    @SuppressWarnings("unchecked")
+    LongShardedStore(int shardCount) {
+        if (shardCount <= 0 || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException(String.format("Shard count must be a power of 2! shardCount=%d", shardCount));
+        }
+
+        shards = new LongObjectHashMap[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new LongObjectHashMap<>();
+        }
+        mask = shardCount - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(shardCount);
+    }
+
+    V get(long key) {
+        return shardOf(key).get(key);
+    }
+
+    V put(long key, V value) {
+        return shardOf(key).put(key, value);
+    }
+
+    int size() {
+        int size = 0;
+        for (LongObjectHashMap<V> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns an unmodifiable, weakly consistent view of the values in this store.
+     * @return
+     */
+    Collection<V> values() {
+        return values;
+    }
+
+    private LongObjectHashMap<V> shardOf(long key) {
+        // the shard is taken from the high bits of the mixed key, the maps within the shards use the low bits
+        return shards[(int) ((key * GOLDEN_RATIO) >>> shift) & mask];
+    }
+
+    private class Values extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+
+                private int shard = 0;
+
+                private Iterator<V> current = shards[0].values().iterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext()) {
+                        if (++shard == shards.length) {
+                            return false;
+                        }
+                        current = shards[shard].values().iterator();
+                    }
+                    return true;
+                }
+
+                @Override
+                public V next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return LongShardedStore.this.size();
+        }
+    }
+}
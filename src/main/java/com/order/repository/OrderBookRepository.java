@@ -2,7 +2,7 @@ package com.order.repository;
 
 import com.order.model.OrderBook;
 
-import java.util.List;
+import java.util.Collection;
 
 /**
  * Order book repository.
@@ -17,13 +17,13 @@ public interface OrderBookRepository {
     OrderBook findByInstrumentId(String instrumentId);
 
     /**
-     *
+     * Returns a weakly consistent view of all order books, which is not copied.
      * @return
      */
-    List<OrderBook> findAll();
+    Collection<OrderBook> findAll();
 
     /**
-     *
+     * Stores a book, a book replaced by another book for the same instrument is released.
      * @param orderBook
      */
     void store(OrderBook orderBook);
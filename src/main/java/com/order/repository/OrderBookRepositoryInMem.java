@@ -5,20 +5,23 @@ import com.order.model.Order;
 import com.order.model.OrderBook;
 import org.springframework.stereotype.Repository;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Collection;
 
 /**
- * In memory order book repository.
+ * In memory order book repository, sharded by instrument id.
  */
 @Repository("orderBookRepository")
 public class OrderBookRepositoryInMem implements OrderBookRepository {
 
-    private Map<String, OrderBook> orderBooks = new HashMap<>();
+    private final ShardedStore<String, OrderBook> orderBooks;
 
     public OrderBookRepositoryInMem() {
+        this(ShardedStore.DEFAULT_SHARDS);
+    }
+
+    public OrderBookRepositoryInMem(int shards) {
+        orderBooks = new ShardedStore<>(shards);
+
         OrderBook orderBook = new OrderBook("CS");
         orderBook.open();
         orderBook.addOrder(new Order(1, 100, "CS", 14.34));
@@ -34,12 +37,15 @@ public class OrderBookRepositoryInMem implements OrderBookRepository {
     }
 
     @Override
-    public List<OrderBook> findAll() {
-        return orderBooks.values().stream().collect(Collectors.toList());
+    public Collection<OrderBook> findAll() {
+        return orderBooks.values();
     }
 
     @Override
     public void store(OrderBook orderBook) {
-        orderBooks.put(orderBook.getInstrumentId(), orderBook);
+        OrderBook previous = orderBooks.put(orderBook.getInstrumentId(), orderBook);
+        if (previous != null && previous != orderBook) {
+            previous.release();
+        }
     }
 }
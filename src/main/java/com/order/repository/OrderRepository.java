@@ -2,7 +2,7 @@ package com.order.repository;
 
 import com.order.model.Order;
 
-import java.util.List;
+import java.util.Collection;
 
 /**
  * Order repository
@@ -23,21 +23,52 @@ public interface OrderRepository {
     long nextOrderId();
 
     /**
-     *
+     * Allocates a range of consecutive ids in one step.
+     * @param count at most {@link #getMaxOrderIdCount()}
+     * @return the first id of the range
+     */
+    long nextOrderIds(int count);
+
+    /**
+     * Returns the largest range of ids allocated in one step.
+     * @return
+     */
+    int getMaxOrderIdCount();
+
+    /**
+     * Makes sure ids up to the given id are never allocated again, used when orders are restored.
+     * @param orderId
+     */
+    void reserveOrderId(long orderId);
+
+    /**
+     * Returns a view of the orders for the instrument in id order, which is not copied.
      * @param instrumentId
      * @return
      */
-    List<Order> findByInstrumentId(String instrumentId);
+    Collection<Order> findByInstrumentId(String instrumentId);
 
     /**
-     *
+     * Returns a view of the orders with ids from fromId to toId inclusive in id order, for the instrument or for all
+     * instruments if the instrument is null, which is not copied.
+     * @param instrumentId
+     * @param fromId
+     * @param toId
      * @return
      */
-    List<Order> findAll();
+    Collection<Order> findByIdRange(String instrumentId, long fromId, long toId);
 
     /**
-     *
+     * Returns a weakly consistent view of all orders, which is not copied.
+     * @return
+     */
+    Collection<Order> findAll();
+
+    /**
+     * Stores an order, replacing the order stored with its id. An order without an instrument is stored but not found
+     * by instrument.
      * @param order
+     * @throws IllegalArgumentException if an order with the id is stored for another instrument
      */
     void store(Order order);
 }
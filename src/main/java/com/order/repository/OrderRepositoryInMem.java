@@ -1,29 +1,47 @@
 package com.order.repository;
 
+import com.order.id.IdAllocator;
+import com.order.id.SequenceIdAllocator;
 import com.order.model.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.Collection;
 
 /**
- * In memory order repository.
+ * In memory order repository, sharded by order id.
  */
 @Repository("orderRepository")
 public class OrderRepositoryInMem implements OrderRepository {
 
-    private Map<Long, Order> orders = new HashMap<>();
+    private final LongShardedStore<Order> orders;
 
-    private static AtomicLong currentOrderId = new AtomicLong(0);
+    private final InstrumentIndex<Order> instrumentIndex;
+
+    private final IdAllocator orderIds;
 
     public OrderRepositoryInMem() {
+        this(ShardedStore.DEFAULT_SHARDS);
         //orders.put(1, new Order(1, 100, "CS", 14.34));
         //orders.put(2, new Order(2, 50, "CS", 14.31));
     }
 
+    @Autowired
+    public OrderRepositoryInMem(@Qualifier("orderIdAllocator") IdAllocator orderIds) {
+        this(ShardedStore.DEFAULT_SHARDS, orderIds);
+    }
+
+    public OrderRepositoryInMem(int shards) {
+        this(shards, new SequenceIdAllocator());
+    }
+
+    public OrderRepositoryInMem(int shards, IdAllocator orderIds) {
+        orders = new LongShardedStore<>(shards);
+        instrumentIndex = new InstrumentIndex<>(orders::get);
+        this.orderIds = orderIds;
+    }
+
     @Override
     public Order findByOrderId(long orderId) {
         return orders.get(orderId);
@@ -31,21 +49,48 @@ public class OrderRepositoryInMem implements OrderRepository {
 
     @Override
     public long nextOrderId() {
-        return currentOrderId.incrementAndGet();
+        return orderIds.next();
+    }
+
+    @Override
+    public long nextOrderIds(int count) {
+        return orderIds.next(count);
+    }
+
+    @Override
+    public int getMaxOrderIdCount() {
+        return orderIds.getMaxCount();
+    }
+
+    @Override
+    public void reserveOrderId(long orderId) {
+        orderIds.reserve(orderId);
+    }
+
+    @Override
+    public Collection<Order> findByInstrumentId(final String instrumentId) {
+        return instrumentIndex.find(instrumentId);
     }
 
     @Override
-    public List<Order> findByInstrumentId(final String instrumentId) {
-        return orders.values().stream().filter(o -> o.getInstrumentId().equals(instrumentId)).collect(Collectors.toList());
+    public Collection<Order> findByIdRange(final String instrumentId, long fromId, long toId) {
+        return instrumentId != null ? instrumentIndex.find(instrumentId, fromId, toId) : instrumentIndex.findAll(fromId, toId);
     }
 
     @Override
-    public List<Order> findAll() {
-        return orders.values().stream().collect(Collectors.toList());
+    public Collection<Order> findAll() {
+        return orders.values();
     }
 
     @Override
     public void store(Order order) {
-        orders.put(order.getOrderId(), order);
+        // ids are allocated once, so the same id is not stored concurrently
+        Order previous = orders.get(order.getOrderId());
+        if (previous != null) {
+            InstrumentIndex.checkSameInstrument(previous.getInstrumentId(), order.getInstrumentId(), order.getOrderId());
+        }
+        if (orders.put(order.getOrderId(), order) == null) {
+            instrumentIndex.add(order.getInstrumentId(), order.getOrderId());
+        }
     }
 }
@@ -0,0 +1,112 @@
+package com.order.repository;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A concurrent key value store partitioned into shards by the hash of the key. Reads are lock free, writes only
+ * contend with writes to the same shard, and the values view iterates the shards one by one without copying them.
+ * The values view is weakly consistent, it reflects the stores done before the iteration reached a shard. A null key
+ * is never stored, so it finds no value.
+ * @param <K>
+ * @param <V>
+ */
+class ShardedStore<K, V> {
+
+    static final int DEFAULT_SHARDS = 16;
+
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private final ConcurrentHashMap<K, V>[] shards;
+
+    private final int mask;
+
+    private final int shift;
+
+    private final Collection<V> values = new Values();
+
+    @SuppressWarnings("unchecked")
+    ShardedStore(int shardCount) {
+        if (shardCount <= 0 || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException(String.format("Shard count must be a power of 2! shardCount=%d", shardCount));
+        }
+
+        shards = new ConcurrentHashMap[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        mask = shardCount - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(shardCount);
+    }
+
+    V get(K key) {
+        return key != null ? shardOf(key).get(key) : null;
+    }
+
+    V put(K key, V value) {
+        Objects.requireNonNull(key, "Key cannot not be null!");
+        return shardOf(key).put(key, value);
+    }
+
+    int size() {
+        int size = 0;
+        for (ConcurrentHashMap<K, V> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns an unmodifiable, weakly consistent view of the values in this store.
+     * @return
+     */
+    Collection<V> values() {
+        return values;
+    }
+
+    private ConcurrentHashMap<K, V> shardOf(K key) {
+        // the shard is taken from the high bits of the mixed hash, the maps within the shards use the low bits
+        return shards[((key.hashCode() * GOLDEN_RATIO) >>> shift) & mask];
+    }
+
+    private class Values extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+
+                private int shard = 0;
+
+                private Iterator<V> current = shards[0].values().iterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext()) {
+                        if (++shard == shards.length) {
+                            return false;
+                        }
+                        current = shards[shard].values().iterator();
+                    }
+                    return true;
+                }
+
+                @Override
+                public V next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ShardedStore.this.size();
+        }
+    }
+}
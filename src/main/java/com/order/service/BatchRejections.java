@@ -0,0 +1,114 @@
+package com.order.service;
+
+import com.order.common.OrderBookException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Splits batches of orders or executions into groups and collects the rejection of every item from the groups. A group
+ * which fails as a whole rejects each of its items, so the items of the other groups keep their own results.
+ */
+final class BatchRejections {
+
+    private BatchRejections() {
+    }
+
+    /**
+     * Groups the indexes of the items by instrument, keeping the order of the items within an instrument. Items without
+     * instrument are grouped under a null key, as a single item without instrument is added; items rejected already are
+     * left out.
+     * @param items
+     * @param instrumentOf
+     * @param rejections
+     * @param <T>
+     * @return
+     */
+    static <T> Map<String, List<Integer>> groupByInstrument(List<T> items, Function<T, String> instrumentOf, OrderBookException[] rejections) {
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (rejections[i] != null) {
+                continue;
+            }
+            groups.computeIfAbsent(instrumentOf.apply(items.get(i)), id -> new ArrayList<>()).add(i);
+        }
+        return groups;
+    }
+
+    static <T> List<T> gather(List<T> items, List<Integer> indexes) {
+        List<T> group = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            group.add(items.get(index));
+        }
+        return group;
+    }
+
+    static void scatter(OrderBookException[] groupRejections, List<Integer> indexes, OrderBookException[] rejections) {
+        for (int i = 0; i < groupRejections.length; i++) {
+            rejections[indexes.get(i)] = groupRejections[i];
+        }
+    }
+
+    /**
+     * Rejects every item of a group.
+     * @param rejection
+     * @param indexes
+     * @param rejections
+     */
+    static void reject(OrderBookException rejection, List<Integer> indexes, OrderBookException[] rejections) {
+        for (int index : indexes) {
+            rejections[index] = rejection;
+        }
+    }
+
+    /**
+     * Applies a command to the items of a group, the items are rejected if the command fails.
+     * @param command
+     * @param items
+     * @param indexes
+     * @param rejections
+     * @param <T>
+     */
+    static <T> void apply(Function<List<T>, OrderBookException[]> command, List<T> items, List<Integer> indexes, OrderBookException[] rejections) {
+        OrderBookException[] groupRejections;
+        try {
+            groupRejections = command.apply(gather(items, indexes));
+        } catch (RuntimeException ex) {
+            reject(rejectionOf(ex), indexes, rejections);
+            return;
+        }
+        scatter(groupRejections, indexes, rejections);
+    }
+
+    /**
+     * Waits for the result of a group, the items are rejected if the group failed.
+     * @param result
+     * @param indexes
+     * @param rejections
+     */
+    static void join(CompletableFuture<OrderBookException[]> result, List<Integer> indexes, OrderBookException[] rejections) {
+        OrderBookException[] groupRejections;
+        try {
+            groupRejections = result.join();
+        } catch (CompletionException ex) {
+            reject(rejectionOf(ex.getCause() != null ? ex.getCause() : ex), indexes, rejections);
+            return;
+        } catch (RuntimeException ex) {
+            reject(rejectionOf(ex), indexes, rejections);
+            return;
+        }
+        scatter(groupRejections, indexes, rejections);
+    }
+
+    private static OrderBookException rejectionOf(Throwable failure) {
+        if (failure instanceof OrderBookException) {
+            return (OrderBookException) failure;
+        }
+        return new OrderBookException(String.format("Batch failed! %s", failure));
+    }
+}
@@ -0,0 +1,98 @@
+package com.order.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sequences the commands for order books on a fixed number of shards. Each shard is a single thread and an instrument
+ * is always assigned to the same shard, so all mutations of an order book are applied by one thread in submission
+ * order while different instruments are processed in parallel.
+ */
+public class OrderBookSequencer {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final ExecutorService[] shards;
+
+    /**
+     *
+     * @param shardCount
+     */
+    public OrderBookSequencer(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException(String.format("Shard count must be positive! shardCount=%d", shardCount));
+        }
+
+        shards = new ExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            final String name = "order-book-sequencer-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Submits a command for the order book of the instrument.
+     * @param instrumentId null for a command without instrument
+     * @param command
+     * @param <T>
+     * @return a future completed with the result of the command
+     */
+    public <T> CompletableFuture<T> submit(String instrumentId, Supplier<T> command) {
+        return CompletableFuture.supplyAsync(command, shards[shardOf(instrumentId)]);
+    }
+
+    /**
+     * Submits a command without result for the order book of the instrument.
+     * @param instrumentId null for a command without instrument
+     * @param command
+     * @return a future completed when the command has been applied
+     */
+    public CompletableFuture<Void> execute(String instrumentId, Runnable command) {
+        return CompletableFuture.runAsync(command, shards[shardOf(instrumentId)]);
+    }
+
+    /**
+     * Returns the shard of the instrument, the first shard for commands without instrument.
+     * @param instrumentId
+     * @return
+     */
+    public int shardOf(String instrumentId) {
+        return instrumentId != null ? Math.floorMod(instrumentId.hashCode(), shards.length) : 0;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Stops accepting commands and waits for the submitted commands to be applied.
+     */
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        try {
+            for (ExecutorService shard : shards) {
+                if (!shard.awaitTermination(5, TimeUnit.SECONDS)) {
+                    logger.warn("Order book sequencer did not terminate in time");
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
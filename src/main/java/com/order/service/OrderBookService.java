@@ -1,10 +1,13 @@
 package com.order.service;
 
+import com.order.common.OrderBookException;
 import com.order.model.Execution;
 import com.order.model.Order;
 import com.order.model.OrderBook;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Order book service.
@@ -35,11 +38,85 @@ public interface OrderBookService {
      */
     void addExecution(Execution execution);
 
+    /**
+     * Submits opening an order book. The book is opened by the caller, unless the service applies its commands on
+     * its own threads.
+     * @param instrumentId
+     * @return completed when the book is open, or with the exception raised
+     */
+    default CompletableFuture<Void> submitOpen(String instrumentId) {
+        return CompletableFuture.runAsync(() -> open(instrumentId), Runnable::run);
+    }
+
+    /**
+     * Submits closing an order book.
+     * @param instrumentId
+     * @return completed when the book is closed, or with the exception raised
+     * @see #submitOpen(String)
+     */
+    default CompletableFuture<Void> submitClose(String instrumentId) {
+        return CompletableFuture.runAsync(() -> close(instrumentId), Runnable::run);
+    }
+
+    /**
+     * Submits adding an order to its book.
+     * @param order
+     * @return completed when the order is added, or with the exception raised
+     * @see #submitOpen(String)
+     */
+    default CompletableFuture<Void> submitOrder(Order order) {
+        return CompletableFuture.runAsync(() -> addOrder(order), Runnable::run);
+    }
+
+    /**
+     * Submits adding an execution to its book.
+     * @param execution
+     * @return completed when the execution is added, or with the exception raised
+     * @see #submitOpen(String)
+     */
+    default CompletableFuture<Void> submitExecution(Execution execution) {
+        return CompletableFuture.runAsync(() -> addExecution(execution), Runnable::run);
+    }
+
+    /**
+     * Adds a batch of orders to their books. An order which cannot be added does not stop the batch.
+     * @param orders
+     * @return the exception rejecting each order, null for the orders accepted
+     */
+    default OrderBookException[] addOrders(List<Order> orders) {
+        OrderBookException[] rejections = new OrderBookException[orders.size()];
+        for (int i = 0; i < rejections.length; i++) {
+            try {
+                addOrder(orders.get(i));
+            } catch (OrderBookException ex) {
+                rejections[i] = ex;
+            }
+        }
+        return rejections;
+    }
+
+    /**
+     * Adds a batch of executions to their books. An execution which cannot be added does not stop the batch.
+     * @param executions
+     * @return the exception rejecting each execution, null for the executions accepted
+     */
+    default OrderBookException[] addExecutions(List<Execution> executions) {
+        OrderBookException[] rejections = new OrderBookException[executions.size()];
+        for (int i = 0; i < rejections.length; i++) {
+            try {
+                addExecution(executions.get(i));
+            } catch (OrderBookException ex) {
+                rejections[i] = ex;
+            }
+        }
+        return rejections;
+    }
+
     /**
      *
      * @return
      */
-    List<OrderBook> findAll();
+    Collection<OrderBook> findAll();
 
     /**
      *
@@ -4,17 +4,25 @@ import com.order.common.OrderBookException;
 import com.order.model.Execution;
 import com.order.model.Order;
 import com.order.model.OrderBook;
+import com.order.model.Prices;
+import com.order.model.TickSizes;
 import com.order.enumeration.OrderBookState;
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
+import com.order.journal.Journal;
+import com.order.metrics.OrderBookMetrics;
 import com.order.repository.ExecutionRepository;
 import com.order.repository.OrderBookRepository;
 import com.order.repository.OrderRepository;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.ToLongFunction;
 
 /**
  * Order book service implementation.
@@ -30,15 +38,74 @@ public class OrderBookServiceImpl implements OrderBookService {
 
     private ExecutionRepository executionRepository;
 
+    private FillEvents fillEvents;
+
+    private Journal journal;
+
+    private OrderBookMetrics metrics;
+
+    private OrderStorage orderStorage;
+
+    private TickSizes tickSizes;
+
+    // orders the events journaled without a book before the open of a book created meanwhile
+    private final Object newBooks = new Object();
+
+    public OrderBookServiceImpl(OrderBookRepository orderBookRepository, OrderRepository orderRepository, ExecutionRepository executionRepository, FillEvents fillEvents) {
+        this(orderBookRepository, orderRepository, executionRepository, fillEvents, null);
+    }
+
+    public OrderBookServiceImpl(OrderBookRepository orderBookRepository, OrderRepository orderRepository, ExecutionRepository executionRepository,
+                                FillEvents fillEvents, @Nullable Journal journal) {
+        this(orderBookRepository, orderRepository, executionRepository, fillEvents, journal, null);
+    }
+
+    public OrderBookServiceImpl(OrderBookRepository orderBookRepository, OrderRepository orderRepository, ExecutionRepository executionRepository,
+                                FillEvents fillEvents, @Nullable Journal journal, @Nullable OrderBookMetrics metrics) {
+        this(orderBookRepository, orderRepository, executionRepository, fillEvents, journal, metrics, OrderStorage.HEAP);
+    }
+
+    public OrderBookServiceImpl(OrderBookRepository orderBookRepository, OrderRepository orderRepository, ExecutionRepository executionRepository,
+                                FillEvents fillEvents, @Nullable Journal journal, @Nullable OrderBookMetrics metrics, OrderStorage orderStorage) {
+        this(orderBookRepository, orderRepository, executionRepository, fillEvents, journal, metrics, orderStorage, TickSizes.NONE);
+    }
+
     @Autowired
-    public OrderBookServiceImpl(OrderBookRepository orderBookRepository, OrderRepository orderRepository, ExecutionRepository executionRepository) {
+    public OrderBookServiceImpl(OrderBookRepository orderBookRepository, OrderRepository orderRepository, ExecutionRepository executionRepository,
+                                FillEvents fillEvents, @Nullable Journal journal, @Nullable OrderBookMetrics metrics,
+                                @Value("${order.book.storage:HEAP}") OrderStorage orderStorage,
+                                @Value("${order.price.tick-size:0.0001}") double tickSize,
+                                @Value("${order.price.tick-sizes:}") String[] tickSizes) {
+        this(orderBookRepository, orderRepository, executionRepository, fillEvents, journal, metrics, orderStorage, TickSizes.parse(tickSize, tickSizes));
+    }
+
+    /**
+     *
+     * @param orderBookRepository
+     * @param orderRepository
+     * @param executionRepository
+     * @param fillEvents
+     * @param journal
+     * @param metrics
+     * @param orderStorage
+     * @param tickSizes the orders and executions of an instrument must be priced in its tick size
+     */
+    public OrderBookServiceImpl(OrderBookRepository orderBookRepository, OrderRepository orderRepository, ExecutionRepository executionRepository,
+                                FillEvents fillEvents, @Nullable Journal journal, @Nullable OrderBookMetrics metrics,
+                                OrderStorage orderStorage, TickSizes tickSizes) {
         this.orderBookRepository = orderBookRepository;
         this.orderRepository = orderRepository;
         this.executionRepository = executionRepository;
+        this.fillEvents = fillEvents;
+        this.journal = journal != null ? journal : Journal.NONE;
+        this.metrics = metrics != null ? metrics : OrderBookMetrics.NONE;
+        this.orderStorage = orderStorage;
+        this.tickSizes = tickSizes;
     }
 
     /**
-     * Opens an order book. Adds all the orders in the order repository.
+     * Opens an order book. Adds all the orders in the order repository. A new book keeps its orders in the configured
+     * order storage.
      * @param instrumentId
      */
     @Override
@@ -47,19 +114,32 @@ public class OrderBookServiceImpl implements OrderBookService {
 
         OrderBook orderBook = orderBookRepository.findByInstrumentId(instrumentId);
         if (orderBook == null) {
-            orderBook = new OrderBook(instrumentId);
+            orderBook = new OrderBook(instrumentId, fillEvents, orderStorage);
         }
 
-        if (orderBook.getState() == OrderBookState.OPEN) {
-            String msg = String.format("Order book is already open: %s", instrumentId);
-            logger.warn(msg);
-            throw new OrderBookException(msg);
+        long sequence;
+        long requested = metrics.lockRequested();
+        synchronized (orderBook) {
+            metrics.lockAcquired(requested);
+            if (orderBook.getState() == OrderBookState.OPEN) {
+                String msg = String.format("Order book is already open: %s", instrumentId);
+                logger.warn(msg);
+                throw new OrderBookException(msg);
 
+            }
+
+            // stored before it is journaled, a snapshot taken after the event always finds the book; an event which
+            // found no book is journaled before the book is stored, so before its open
+            synchronized (newBooks) {
+                orderBookRepository.store(orderBook);
+            }
+            orderBook.open();
+            sequence = journal.appendOpen(instrumentId);
         }
 
-        orderBook.open();
+        metrics.bind(orderBook);
 
-        orderBookRepository.store(orderBook);
+        journal.sync(sequence);
     }
 
     /**
@@ -77,44 +157,237 @@ public class OrderBookServiceImpl implements OrderBookService {
             throw new OrderBookException(msg);
         }
 
-        if (orderBook.getState() == OrderBookState.CLOSED) {
-            String msg = String.format("Order book is already closed: %s", instrumentId);
-            logger.warn(msg);
-            throw new OrderBookException(msg);
+        long sequence;
+        long requested = metrics.lockRequested();
+        synchronized (orderBook) {
+            metrics.lockAcquired(requested);
+            if (orderBook.getState() == OrderBookState.CLOSED) {
+                String msg = String.format("Order book is already closed: %s", instrumentId);
+                logger.warn(msg);
+                throw new OrderBookException(msg);
 
-        }
+            }
 
-        orderBook.close();
+            orderBook.close();
+            sequence = journal.appendClose(instrumentId);
+        }
 
         orderBookRepository.store(orderBook);
+        journal.sync(sequence);
     }
 
     /**
-     * Adds an order to this book if its open.
+     * Adds an order to this book if its open. The order is journaled even if it is ignored, since it is still stored.
+     * An order not priced in the tick size of its instrument is rejected.
      * @param order
      */
     @Override
     public void addOrder(Order order) {
         Objects.requireNonNull(order, "Order cannot not be null!");
+        checkTickSize(order.getInstrumentId(), order.getOrderPriceTicks());
 
+        long sequence = 0;
         OrderBook orderBook = orderBookRepository.findByInstrumentId(order.getInstrumentId());
-        if (orderBook != null && orderBook.getState() == OrderBookState.OPEN) {
-            orderBook.addOrder(order);
+        if (orderBook == null) {
+            synchronized (newBooks) {
+                // checked again under the lock open() stores a new book with
+                orderBook = orderBookRepository.findByInstrumentId(order.getInstrumentId());
+                if (orderBook == null) {
+                    sequence = journal.appendOrder(order);
+                }
+            }
+        }
+        if (orderBook != null) {
+            // the book is locked while journaling, so the journal holds the events of a book in the order they were applied
+            long requested = metrics.lockRequested();
+            synchronized (orderBook) {
+                metrics.lockAcquired(requested);
+                if (orderBook.getState() == OrderBookState.OPEN) {
+                    orderBook.addOrder(order);
+                }
+                sequence = journal.appendOrder(order);
+            }
         }
+        journal.sync(sequence);
     }
 
     /**
-     * Adds an execution to this book if its closed.
+     * Adds an execution to this book if its closed. The execution is journaled even if it is ignored, since it is
+     * still stored. An execution not priced in the tick size of its instrument is rejected.
      * @param execution
      */
     @Override
     public void addExecution(Execution execution) {
         Objects.requireNonNull(execution, "Execution cannot not be null!");
+        checkTickSize(execution.getInstrumentId(), execution.getExecutionPriceTicks());
 
+        long sequence = 0;
         OrderBook orderBook = orderBookRepository.findByInstrumentId(execution.getInstrumentId());
-        if (orderBook != null && orderBook.getState() == OrderBookState.CLOSED && !orderBook.isExecuted()) {
-            orderBook.addExecution(execution);
+        if (orderBook == null) {
+            synchronized (newBooks) {
+                // checked again under the lock open() stores a new book with
+                orderBook = orderBookRepository.findByInstrumentId(execution.getInstrumentId());
+                if (orderBook == null) {
+                    sequence = journal.appendExecution(execution);
+                }
+            }
+        }
+        if (orderBook != null) {
+            long requested = metrics.lockRequested();
+            synchronized (orderBook) {
+                metrics.lockAcquired(requested);
+                if (orderBook.getState() == OrderBookState.CLOSED && !orderBook.isExecuted()) {
+                    long start = System.nanoTime();
+                    orderBook.addExecution(execution);
+                    metrics.executed(orderBook, System.nanoTime() - start);
+                }
+                sequence = journal.appendExecution(execution);
+            }
+        }
+        journal.sync(sequence);
+    }
+
+    /**
+     * Adds a batch of orders. The orders are grouped by instrument and each group is added to its book with a single
+     * book lookup and lock acquisition. Each order gets the outcome of {@link #addOrder(Order)}: an order for a book which
+     * does not exist or is not open is journaled and accepted without being added. The accepted orders are journaled and
+     * synced once for the whole batch.
+     * @param orders
+     * @return the exception rejecting each order, null for the orders accepted
+     */
+    @Override
+    public OrderBookException[] addOrders(List<Order> orders) {
+        Objects.requireNonNull(orders, "Orders cannot not be null!");
+
+        OrderBookException[] rejections = new OrderBookException[orders.size()];
+        for (int i = 0; i < rejections.length; i++) {
+            Order order = orders.get(i);
+            rejections[i] = rejectTickSize(order.getInstrumentId(), order.getOrderPriceTicks());
+        }
+        long sequence = 0;
+        for (Map.Entry<String, List<Integer>> group : BatchRejections.groupByInstrument(orders, Order::getInstrumentId, rejections).entrySet()) {
+            OrderBook orderBook = orderBookRepository.findByInstrumentId(group.getKey());
+            List<Integer> indexes = group.getValue();
+            if (orderBook == null) {
+                synchronized (newBooks) {
+                    // checked again under the lock open() stores a new book with
+                    orderBook = orderBookRepository.findByInstrumentId(group.getKey());
+                    if (orderBook == null) {
+                        sequence = journal(orders, indexes, rejections, journal::appendOrder, sequence);
+                        continue;
+                    }
+                }
+            }
+            long requested = metrics.lockRequested();
+            synchronized (orderBook) {
+                metrics.lockAcquired(requested);
+                if (orderBook.getState() == OrderBookState.OPEN) {
+                    BatchRejections.scatter(orderBook.addOrders(BatchRejections.gather(orders, indexes)), indexes, rejections);
+                }
+                sequence = journal(orders, indexes, rejections, journal::appendOrder, sequence);
+            }
+        }
+        journal.sync(sequence);
+        return rejections;
+    }
+
+    /**
+     * Adds a batch of executions. The executions are grouped by instrument and each group is added to its book with a
+     * single book lookup and lock acquisition. Each execution gets the outcome of {@link #addExecution(Execution)}: an
+     * execution for a book which does not exist, is not closed or is already executed is journaled and accepted without
+     * being added. The accepted executions are journaled and synced once for the whole batch.
+     * @param executions
+     * @return the exception rejecting each execution, null for the executions accepted
+     */
+    @Override
+    public OrderBookException[] addExecutions(List<Execution> executions) {
+        Objects.requireNonNull(executions, "Executions cannot not be null!");
+
+        OrderBookException[] rejections = new OrderBookException[executions.size()];
+        for (int i = 0; i < rejections.length; i++) {
+            Execution execution = executions.get(i);
+            rejections[i] = rejectTickSize(execution.getInstrumentId(), execution.getExecutionPriceTicks());
+        }
+        long sequence = 0;
+        for (Map.Entry<String, List<Integer>> group : BatchRejections.groupByInstrument(executions, Execution::getInstrumentId, rejections).entrySet()) {
+            OrderBook orderBook = orderBookRepository.findByInstrumentId(group.getKey());
+            List<Integer> indexes = group.getValue();
+            if (orderBook == null) {
+                synchronized (newBooks) {
+                    // checked again under the lock open() stores a new book with
+                    orderBook = orderBookRepository.findByInstrumentId(group.getKey());
+                    if (orderBook == null) {
+                        sequence = journal(executions, indexes, rejections, journal::appendExecution, sequence);
+                        continue;
+                    }
+                }
+            }
+            long requested = metrics.lockRequested();
+            synchronized (orderBook) {
+                metrics.lockAcquired(requested);
+                // checked for each execution, an execution after the one which executed the book is ignored as when alone
+                for (int index : indexes) {
+                    if (orderBook.getState() == OrderBookState.CLOSED && !orderBook.isExecuted()) {
+                        long start = System.nanoTime();
+                        try {
+                            orderBook.addExecution(executions.get(index));
+                        } catch (OrderBookException ex) {
+                            rejections[index] = ex;
+                        }
+                        metrics.executed(orderBook, System.nanoTime() - start);
+                    }
+                }
+                sequence = journal(executions, indexes, rejections, journal::appendExecution, sequence);
+            }
+        }
+        journal.sync(sequence);
+        return rejections;
+    }
+
+    /**
+     *
+     * @param instrumentId
+     * @param price in ticks
+     * @throws OrderBookException if the price is not a multiple of the tick size of the instrument
+     */
+    private void checkTickSize(String instrumentId, long price) {
+        OrderBookException rejection = rejectTickSize(instrumentId, price);
+        if (rejection != null) {
+            throw rejection;
+        }
+    }
+
+    /**
+     *
+     * @param instrumentId
+     * @param price in ticks
+     * @return the exception rejecting a price which is not a multiple of the tick size of the instrument, null otherwise
+     */
+    private OrderBookException rejectTickSize(String instrumentId, long price) {
+        if (instrumentId == null || tickSizes.isValid(instrumentId, price)) {
+            return null;
+        }
+        return new OrderBookException(String.format("Price is not a multiple of the tick size! price=%s tickSize=%s",
+                Prices.toPrice(price), Prices.toPrice(tickSizes.of(instrumentId))));
+    }
+
+    /**
+     * Journals the items of a group which were not rejected.
+     * @param items
+     * @param indexes
+     * @param rejections
+     * @param append
+     * @param sequence the sequence of the last item journaled before
+     * @param <T>
+     * @return the sequence of the last item journaled
+     */
+    private static <T> long journal(List<T> items, List<Integer> indexes, OrderBookException[] rejections, ToLongFunction<T> append, long sequence) {
+        for (int index : indexes) {
+            if (rejections[index] == null) {
+                sequence = append.applyAsLong(items.get(index));
+            }
         }
+        return sequence;
     }
 
     /**
@@ -122,7 +395,7 @@ public class OrderBookServiceImpl implements OrderBookService {
      * @return
      */
     @Override
-    public List<OrderBook> findAll() {
+    public Collection<OrderBook> findAll() {
         return orderBookRepository.findAll();
     }
 
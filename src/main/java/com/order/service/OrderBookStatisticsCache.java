@@ -0,0 +1,94 @@
+package com.order.service;
+
+import com.order.factory.OrderBookStatisticsFactory;
+import com.order.model.OrderBook;
+import com.order.valueobject.OrderBookStatistics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of order book statistics by book and version. Statistics are only rebuilt when the book has changed since they
+ * were cached, so repeated reads of an unchanged book cost a version check. An entry belongs to one book instance: a
+ * book replaced for the same instrument starts its versions again, so its statistics are never served for another
+ * book. Cached statistics are shared between
+ * readers and must not be modified.
+ */
+@Component
+public class OrderBookStatisticsCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    @Autowired
+    public OrderBookStatisticsCache(MeterRegistry meterRegistry) {
+        hits = Counter.builder("order.statistics.cache")
+                .tag("result", "hit")
+                .description("Order book statistics served from the cache")
+                .register(meterRegistry);
+        misses = Counter.builder("order.statistics.cache")
+                .tag("result", "miss")
+                .description("Order book statistics rebuilt because the book changed")
+                .register(meterRegistry);
+        Gauge.builder("order.statistics.cache.hit.ratio", this, OrderBookStatisticsCache::getHitRatio)
+                .description("Ratio of order book statistics served from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the statistics of the current version of the book.
+     * @param orderBook
+     * @return
+     */
+    public OrderBookStatistics get(OrderBook orderBook) {
+        Objects.requireNonNull(orderBook, "OrderBook cannot not be null!");
+
+        long version = orderBook.getVersion();
+        Entry entry = entries.get(orderBook.getInstrumentId());
+        if (entry != null && entry.orderBook == orderBook && entry.version == version) {
+            hits.increment();
+            return entry.statistics;
+        }
+
+        misses.increment();
+        OrderBookStatistics statistics = OrderBookStatisticsFactory.createOrderBookStatistics(orderBook);
+        // statistics built while the book changed are returned but not cached
+        if (orderBook.getVersion() == version) {
+            entries.put(orderBook.getInstrumentId(), new Entry(orderBook, version, statistics));
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the ratio of reads served from the cache.
+     * @return
+     */
+    public double getHitRatio() {
+        double hitCount = hits.count();
+        double total = hitCount + misses.count();
+        return total > 0 ? hitCount / total : 0;
+    }
+
+    private static final class Entry {
+
+        final OrderBook orderBook;
+
+        final long version;
+
+        final OrderBookStatistics statistics;
+
+        Entry(OrderBook orderBook, long version, OrderBookStatistics statistics) {
+            this.orderBook = orderBook;
+            this.version = version;
+            this.statistics = statistics;
+        }
+    }
+}
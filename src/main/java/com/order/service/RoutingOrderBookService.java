@@ -0,0 +1,279 @@
+package com.order.service;
+
+import com.order.cluster.ClusterClient;
+import com.order.cluster.PartitionMap;
+import com.order.common.OrderBookException;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.valueobject.OrderBookStatistics;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Order book service of a node of the cluster, in front of the local service. Commands for instruments held by other
+ * nodes are forwarded to their node, a batch is split by node and the parts are applied in parallel. The order books
+ * themselves are only found on their node, {@link #findByInstrumentId(String)} and {@link #findAll()} return the local
+ * books, and the statistics of the books of all nodes are gathered by {@link #findAllStatistics()}.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "order.cluster.enabled", havingValue = "true")
+public class RoutingOrderBookService implements OrderBookService {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private OrderBookService orderBookService;
+
+    private PartitionMap partitionMap;
+
+    private ClusterClient clusterClient;
+
+    private OrderBookStatisticsCache statisticsCache;
+
+    private final ExecutorService remotes;
+
+    @Autowired
+    public RoutingOrderBookService(ObjectProvider<SequencedOrderBookService> sequencedOrderBookService, OrderBookServiceImpl orderBookService,
+                                   PartitionMap partitionMap, ClusterClient clusterClient, OrderBookStatisticsCache statisticsCache,
+                                   @Value("${order.cluster.threads:8}") int threads) {
+        this(localOf(sequencedOrderBookService, orderBookService), partitionMap, clusterClient, statisticsCache, threads);
+    }
+
+    public RoutingOrderBookService(OrderBookService orderBookService, PartitionMap partitionMap, ClusterClient clusterClient,
+                                   OrderBookStatisticsCache statisticsCache, int threads) {
+        this.orderBookService = orderBookService;
+        this.partitionMap = partitionMap;
+        this.clusterClient = clusterClient;
+        this.statisticsCache = statisticsCache;
+
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        this.remotes = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "order-cluster-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The local books are changed through the sequencer when it is enabled.
+     * @param sequencedOrderBookService
+     * @param orderBookService
+     * @return
+     */
+    private static OrderBookService localOf(ObjectProvider<SequencedOrderBookService> sequencedOrderBookService, OrderBookServiceImpl orderBookService) {
+        OrderBookService sequenced = sequencedOrderBookService.getIfAvailable();
+        return sequenced != null ? sequenced : orderBookService;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        remotes.shutdown();
+    }
+
+    /**
+     * Returns the service of the books held by this node, used to apply the commands forwarded by other nodes.
+     * @return
+     */
+    public OrderBookService getLocal() {
+        return orderBookService;
+    }
+
+    @Override
+    public void open(String instrumentId) {
+        Objects.requireNonNull(instrumentId, "Instrument cannot not be null!");
+        int node = partitionMap.nodeOf(instrumentId);
+        if (node == partitionMap.getNode()) {
+            orderBookService.open(instrumentId);
+        } else {
+            clusterClient.open(node, instrumentId);
+        }
+    }
+
+    @Override
+    public void close(String instrumentId) {
+        Objects.requireNonNull(instrumentId, "Instrument cannot not be null!");
+        int node = partitionMap.nodeOf(instrumentId);
+        if (node == partitionMap.getNode()) {
+            orderBookService.close(instrumentId);
+        } else {
+            clusterClient.close(node, instrumentId);
+        }
+    }
+
+    @Override
+    public void addOrder(Order order) {
+        Objects.requireNonNull(order, "Order cannot not be null!");
+        Objects.requireNonNull(order.getInstrumentId(), "Instrument cannot not be null!");
+        int node = partitionMap.nodeOf(order.getInstrumentId());
+        if (node == partitionMap.getNode()) {
+            orderBookService.addOrder(order);
+        } else {
+            rethrow(clusterClient.addOrders(node, Collections.singletonList(order)));
+        }
+    }
+
+    @Override
+    public void addExecution(Execution execution) {
+        Objects.requireNonNull(execution, "Execution cannot not be null!");
+        Objects.requireNonNull(execution.getInstrumentId(), "Instrument cannot not be null!");
+        int node = partitionMap.nodeOf(execution.getInstrumentId());
+        if (node == partitionMap.getNode()) {
+            orderBookService.addExecution(execution);
+        } else {
+            rethrow(clusterClient.addExecutions(node, Collections.singletonList(execution)));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> submitOpen(String instrumentId) {
+        return partitionMap.isLocal(instrumentId) ? orderBookService.submitOpen(instrumentId)
+                : CompletableFuture.runAsync(() -> open(instrumentId), remotes);
+    }
+
+    @Override
+    public CompletableFuture<Void> submitClose(String instrumentId) {
+        return partitionMap.isLocal(instrumentId) ? orderBookService.submitClose(instrumentId)
+                : CompletableFuture.runAsync(() -> close(instrumentId), remotes);
+    }
+
+    @Override
+    public CompletableFuture<Void> submitOrder(Order order) {
+        Objects.requireNonNull(order, "Order cannot not be null!");
+        return partitionMap.isLocal(order.getInstrumentId()) ? orderBookService.submitOrder(order)
+                : CompletableFuture.runAsync(() -> addOrder(order), remotes);
+    }
+
+    @Override
+    public CompletableFuture<Void> submitExecution(Execution execution) {
+        Objects.requireNonNull(execution, "Execution cannot not be null!");
+        return partitionMap.isLocal(execution.getInstrumentId()) ? orderBookService.submitExecution(execution)
+                : CompletableFuture.runAsync(() -> addExecution(execution), remotes);
+    }
+
+    @Override
+    public OrderBookException[] addOrders(List<Order> orders) {
+        Objects.requireNonNull(orders, "Orders cannot not be null!");
+        return route(orders, Order::getInstrumentId, orderBookService::addOrders, clusterClient::addOrders);
+    }
+
+    @Override
+    public OrderBookException[] addExecutions(List<Execution> executions) {
+        Objects.requireNonNull(executions, "Executions cannot not be null!");
+        return route(executions, Execution::getInstrumentId, orderBookService::addExecutions, clusterClient::addExecutions);
+    }
+
+    /**
+     * Returns the local books.
+     * @return
+     */
+    @Override
+    public Collection<OrderBook> findAll() {
+        return orderBookService.findAll();
+    }
+
+    /**
+     * Returns the book if it is held by this node.
+     * @param instrumentId
+     * @return
+     */
+    @Override
+    public OrderBook findByInstrumentId(String instrumentId) {
+        return orderBookService.findByInstrumentId(instrumentId);
+    }
+
+    /**
+     * Returns the statistics of the book from the node holding it.
+     * @param instrumentId
+     * @return null if there is no book for the instrument
+     */
+    public OrderBookStatistics findStatistics(String instrumentId) {
+        int node = partitionMap.nodeOf(instrumentId);
+        if (node != partitionMap.getNode()) {
+            return clusterClient.findStatistics(node, instrumentId);
+        }
+        OrderBook orderBook = orderBookService.findByInstrumentId(instrumentId);
+        return orderBook != null ? statisticsCache.get(orderBook) : null;
+    }
+
+    /**
+     * Gathers the statistics of the books of all nodes, the nodes are queried in parallel. The books of a node which
+     * cannot be reached are left out.
+     * @return
+     */
+    public List<OrderBookStatistics> findAllStatistics() {
+        Map<Integer, CompletableFuture<List<OrderBookStatistics>>> remoteStatistics = new TreeMap<>();
+        for (int node = 0; node < partitionMap.getNodeCount(); node++) {
+            if (node != partitionMap.getNode()) {
+                final int remote = node;
+                remoteStatistics.put(remote, CompletableFuture.supplyAsync(() -> clusterClient.findAllStatistics(remote), remotes));
+            }
+        }
+
+        List<OrderBookStatistics> statistics = new ArrayList<>();
+        for (OrderBook orderBook : orderBookService.findAll()) {
+            statistics.add(statisticsCache.get(orderBook));
+        }
+        for (Map.Entry<Integer, CompletableFuture<List<OrderBookStatistics>>> remote : remoteStatistics.entrySet()) {
+            try {
+                statistics.addAll(remote.getValue().join());
+            } catch (CompletionException ex) {
+                logger.warn(String.format("Order books of cluster node %d left out: %s", remote.getKey(), ex.getCause().getMessage()));
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Splits the items by the node of their instrument, keeping the order of the items within an instrument. The items
+     * of this node are applied locally while the others are forwarded in parallel.
+     */
+    private <T> OrderBookException[] route(List<T> items, Function<T, String> instrumentOf, Function<List<T>, OrderBookException[]> local,
+                                           BiFunction<Integer, List<T>, OrderBookException[]> remote) {
+        OrderBookException[] rejections = new OrderBookException[items.size()];
+        Map<Integer, List<Integer>> nodes = new TreeMap<>();
+        for (Map.Entry<String, List<Integer>> group : BatchRejections.groupByInstrument(items, instrumentOf, rejections).entrySet()) {
+            // as a single item, an item without instrument has no node
+            if (group.getKey() == null) {
+                BatchRejections.reject(new OrderBookException("Instrument cannot not be null!"), group.getValue(), rejections);
+                continue;
+            }
+            nodes.computeIfAbsent(partitionMap.nodeOf(group.getKey()), n -> new ArrayList<>()).addAll(group.getValue());
+        }
+
+        Map<Integer, CompletableFuture<OrderBookException[]>> forwarded = new TreeMap<>();
+        for (Map.Entry<Integer, List<Integer>> node : nodes.entrySet()) {
+            if (node.getKey() != partitionMap.getNode()) {
+                List<T> nodeItems = BatchRejections.gather(items, node.getValue());
+                forwarded.put(node.getKey(), CompletableFuture.supplyAsync(() -> remote.apply(node.getKey(), nodeItems), remotes));
+            }
+        }
+        List<Integer> localIndexes = nodes.get(partitionMap.getNode());
+        if (localIndexes != null) {
+            BatchRejections.apply(local, items, localIndexes, rejections);
+        }
+        for (Map.Entry<Integer, CompletableFuture<OrderBookException[]>> node : forwarded.entrySet()) {
+            BatchRejections.join(node.getValue(), nodes.get(node.getKey()), rejections);
+        }
+        return rejections;
+    }
+
+    private static void rethrow(OrderBookException[] rejections) {
+        if (rejections[0] != null) {
+            throw rejections[0];
+        }
+    }
+}
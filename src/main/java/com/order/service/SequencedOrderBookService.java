@@ -0,0 +1,180 @@
+package com.order.service;
+
+import com.order.common.OrderBookException;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Priority;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Order book service applying every mutation of an order book (open, close, orders and executions) on the single
+ * sequencer thread of its instrument. Commands can be submitted asynchronously and complete a future when applied,
+ * the synchronous service methods wait for the command. Queries are not sequenced. It is injected in place of the
+ * service it sequences, unless a primary service is in front of it.
+ */
+@Service
+@Priority(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "order.sequencer.enabled", havingValue = "true")
+public class SequencedOrderBookService implements OrderBookService {
+
+    private OrderBookService orderBookService;
+
+    private OrderBookSequencer sequencer;
+
+    @Autowired
+    public SequencedOrderBookService(OrderBookServiceImpl orderBookService, @Value("${order.sequencer.shards:0}") int shards) {
+        this(orderBookService, new OrderBookSequencer(shards > 0 ? shards : Runtime.getRuntime().availableProcessors()));
+    }
+
+    public SequencedOrderBookService(OrderBookService orderBookService, OrderBookSequencer sequencer) {
+        this.orderBookService = orderBookService;
+        this.sequencer = sequencer;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sequencer.shutdown();
+    }
+
+    /**
+     * Submits opening an order book.
+     * @param instrumentId
+     * @return
+     */
+    @Override
+    public CompletableFuture<Void> submitOpen(String instrumentId) {
+        return sequencer.execute(instrumentId, () -> orderBookService.open(instrumentId));
+    }
+
+    /**
+     * Submits closing an order book.
+     * @param instrumentId
+     * @return
+     */
+    @Override
+    public CompletableFuture<Void> submitClose(String instrumentId) {
+        return sequencer.execute(instrumentId, () -> orderBookService.close(instrumentId));
+    }
+
+    /**
+     * Submits adding an order to its book.
+     * @param order
+     * @return
+     */
+    @Override
+    public CompletableFuture<Void> submitOrder(Order order) {
+        Objects.requireNonNull(order, "Order cannot not be null!");
+        return sequencer.execute(order.getInstrumentId(), () -> orderBookService.addOrder(order));
+    }
+
+    /**
+     * Submits adding an execution to its book.
+     * @param execution
+     * @return
+     */
+    @Override
+    public CompletableFuture<Void> submitExecution(Execution execution) {
+        Objects.requireNonNull(execution, "Execution cannot not be null!");
+        return sequencer.execute(execution.getInstrumentId(), () -> orderBookService.addExecution(execution));
+    }
+
+    @Override
+    public void open(String instrumentId) {
+        Objects.requireNonNull(instrumentId, "Instrument cannot not be null!");
+        await(submitOpen(instrumentId));
+    }
+
+    @Override
+    public void close(String instrumentId) {
+        Objects.requireNonNull(instrumentId, "Instrument cannot not be null!");
+        await(submitClose(instrumentId));
+    }
+
+    @Override
+    public void addOrder(Order order) {
+        await(submitOrder(order));
+    }
+
+    @Override
+    public void addExecution(Execution execution) {
+        await(submitExecution(execution));
+    }
+
+    /**
+     * Adds a batch of orders, each instrument group is applied as one command on the sequencer of its instrument. A
+     * group which fails rejects its orders only.
+     * @param orders
+     * @return the exception rejecting each order, null for the orders accepted
+     */
+    @Override
+    public OrderBookException[] addOrders(List<Order> orders) {
+        Objects.requireNonNull(orders, "Orders cannot not be null!");
+        return sequence(orders, Order::getInstrumentId, orderBookService::addOrders);
+    }
+
+    /**
+     * Adds a batch of executions, each instrument group is applied as one command on the sequencer of its instrument. A
+     * group which fails rejects its executions only.
+     * @param executions
+     * @return the exception rejecting each execution, null for the executions accepted
+     */
+    @Override
+    public OrderBookException[] addExecutions(List<Execution> executions) {
+        Objects.requireNonNull(executions, "Executions cannot not be null!");
+        return sequence(executions, Execution::getInstrumentId, orderBookService::addExecutions);
+    }
+
+    @Override
+    public Collection<OrderBook> findAll() {
+        return orderBookService.findAll();
+    }
+
+    @Override
+    public OrderBook findByInstrumentId(String instrumentId) {
+        return orderBookService.findByInstrumentId(instrumentId);
+    }
+
+    private <T> OrderBookException[] sequence(List<T> items, Function<T, String> instrumentOf, Function<List<T>, OrderBookException[]> command) {
+        OrderBookException[] rejections = new OrderBookException[items.size()];
+        Map<String, List<Integer>> groups = BatchRejections.groupByInstrument(items, instrumentOf, rejections);
+
+        // submit all groups before waiting, so the instruments are applied in parallel on their sequencers
+        Map<String, CompletableFuture<OrderBookException[]>> results = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            List<T> groupItems = BatchRejections.gather(items, group.getValue());
+            results.put(group.getKey(), sequencer.submit(group.getKey(), () -> command.apply(groupItems)));
+        }
+        // every group is awaited, the groups applied keep their results when another one failed
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            BatchRejections.join(results.get(group.getKey()), group.getValue(), rejections);
+        }
+        return rejections;
+    }
+
+    /**
+     * Waits for the command and rethrows its exception to the caller.
+     * @param future
+     * @return the result of the command
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+}
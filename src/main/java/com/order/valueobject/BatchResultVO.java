@@ -0,0 +1,72 @@
+package com.order.valueobject;
+
+import java.util.Objects;
+
+/**
+ * Outcome of one item of a batch submission. The status is the HTTP status the item would have got if submitted alone.
+ */
+public class BatchResultVO {
+
+    private long id;
+
+    private int status;
+
+    private String message;
+
+    public BatchResultVO() {
+    }
+
+    public BatchResultVO(long id, int status, String message) {
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchResultVO that = (BatchResultVO) o;
+        return id == that.id &&
+                status == that.status &&
+                Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, status, message);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResultVO{" +
+                "id=" + id +
+                ", status=" + status +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,102 @@
+package com.order.valueobject;
+
+import java.util.Objects;
+
+/**
+ * Progress of a streaming ingest, written back to the client after every chunk and once more when the stream ends.
+ */
+public class IngestProgressVO {
+
+    private long records;
+
+    private long accepted;
+
+    private long rejected;
+
+    private long unavailable;
+
+    private boolean completed;
+
+    private String error;
+
+    public IngestProgressVO() {
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getUnavailable() {
+        return unavailable;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setRecords(long records) {
+        this.records = records;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public void setUnavailable(long unavailable) {
+        this.unavailable = unavailable;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IngestProgressVO that = (IngestProgressVO) o;
+        return records == that.records &&
+                accepted == that.accepted &&
+                rejected == that.rejected &&
+                unavailable == that.unavailable &&
+                completed == that.completed &&
+                Objects.equals(error, that.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(records, accepted, rejected, unavailable, completed, error);
+    }
+
+    @Override
+    public String toString() {
+        return "IngestProgressVO{" +
+                "records=" + records +
+                ", accepted=" + accepted +
+                ", rejected=" + rejected +
+                ", unavailable=" + unavailable +
+                ", completed=" + completed +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -37,6 +37,9 @@ public class OrderBookStatistics {
 
     private Map<Double, Integer> limitBreakdown = new HashMap<>();
 
+    public OrderBookStatistics() {
+    }
+
     public OrderBookStatistics(String instrumentId, String status, int orderSize, int totalDemand, int invalidDemand, int validDemand, long invalidOrders, long validOrders, int executionAmount, Double executionPrice, boolean executed) {
         this.instrumentId = instrumentId;
         this.status = status;
@@ -0,0 +1,61 @@
+package com.order.valueobject;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A page of items in id order. The next cursor is the id of the last item when more items follow, null otherwise.
+ * @param <T>
+ */
+public class PageVO<T> {
+
+    private List<T> items;
+
+    private Long next;
+
+    public PageVO() {
+    }
+
+    public PageVO(List<T> items, Long next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Long getNext() {
+        return next;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public void setNext(Long next) {
+        this.next = next;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PageVO<?> pageVO = (PageVO<?>) o;
+        return Objects.equals(items, pageVO.items) &&
+                Objects.equals(next, pageVO.next);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(items, next);
+    }
+
+    @Override
+    public String toString() {
+        return "PageVO{" +
+                "items=" + items +
+                ", next=" + next +
+                '}';
+    }
+}
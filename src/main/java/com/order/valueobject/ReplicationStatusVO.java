@@ -0,0 +1,99 @@
+package com.order.valueobject;
+
+import java.util.Objects;
+
+/**
+ * Replication state of a node. The sequence is the last journal event of the primary applied by the standby, the lag
+ * the number of events appended by the primary and not yet applied by the standby.
+ */
+public class ReplicationStatusVO {
+
+    private String role;
+
+    private boolean connected;
+
+    private boolean promoted;
+
+    private long sequence;
+
+    private long lag;
+
+    public ReplicationStatusVO() {
+    }
+
+    public ReplicationStatusVO(String role, boolean connected, boolean promoted, long sequence, long lag) {
+        this.role = role;
+        this.connected = connected;
+        this.promoted = promoted;
+        this.sequence = sequence;
+        this.lag = lag;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public boolean isPromoted() {
+        return promoted;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getLag() {
+        return lag;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public void setConnected(boolean connected) {
+        this.connected = connected;
+    }
+
+    public void setPromoted(boolean promoted) {
+        this.promoted = promoted;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public void setLag(long lag) {
+        this.lag = lag;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReplicationStatusVO that = (ReplicationStatusVO) o;
+        return connected == that.connected &&
+                promoted == that.promoted &&
+                sequence == that.sequence &&
+                lag == that.lag &&
+                Objects.equals(role, that.role);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(role, connected, promoted, sequence, lag);
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicationStatusVO{" +
+                "role='" + role + '\'' +
+                ", connected=" + connected +
+                ", promoted=" + promoted +
+                ", sequence=" + sequence +
+                ", lag=" + lag +
+                '}';
+    }
+}
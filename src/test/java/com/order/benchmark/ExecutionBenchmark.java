@@ -0,0 +1,60 @@
+package com.order.benchmark;
+
+import com.order.enumeration.OrderStorage;
+import com.order.model.Execution;
+import com.order.model.OrderBook;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executing a closed book completely over increasing book sizes, with an increasing number of executions each filling
+ * every valid order pro rata, with the orders on the heap and off-heap. A book is executed only once, so each iteration
+ * executes a new book in one invocation.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Thread)
+public class ExecutionBenchmark {
+
+    private static final double EXECUTION_PRICE = 14.10;
+
+    @Param({"1000", "100000"})
+    private int orderCount;
+
+    @Param({"1", "100"})
+    private int executionCount;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    private OrderStorage storage;
+
+    private OrderBook orderBook;
+
+    private int executionQuantity;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        orderBook = OrderBookBenchmark.createOrderBook(orderCount, storage);
+        orderBook.close();
+
+        // the orders priced below the execution price are invalidated by the first execution
+        int validDemand = 0;
+        for (int orderId = 1; orderId <= orderCount; orderId++) {
+            if (orderBook.getOrder(orderId).getOrderPrice() >= EXECUTION_PRICE) {
+                validDemand += orderBook.getOrder(orderId).getOrderQuantity();
+            }
+        }
+        executionQuantity = validDemand / executionCount;
+    }
+
+    @Benchmark
+    public OrderBook execute() {
+        for (int i = 0; i < executionCount; i++) {
+            orderBook.addExecution(new Execution(i + 1, executionQuantity, "CS", EXECUTION_PRICE));
+        }
+        return orderBook;
+    }
+}
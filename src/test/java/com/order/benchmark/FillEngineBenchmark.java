@@ -0,0 +1,85 @@
+package com.order.benchmark;
+
+import com.order.model.Order;
+import com.order.model.ProRataFillEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the pro-rata allocation of an execution using the weight map of the previous OrderBook implementation
+ * against the ProRataFillEngine. Orders are not updated, so every invocation allocates over the same book.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FillEngineBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int orderCount;
+
+    private List<Order> orders;
+
+    private int executionQuantity;
+
+    private final ProRataFillEngine fillEngine = new ProRataFillEngine();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        orders = new ArrayList<>(orderCount);
+        int totalQuantity = 0;
+        for (int i = 0; i < orderCount; i++) {
+            int quantity = 1 + random.nextInt(1000);
+            orders.add(new Order(i + 1, quantity, "CS", 14.30 + random.nextInt(10) / 100.0));
+            totalQuantity += quantity;
+        }
+        executionQuantity = totalQuantity / 3;
+    }
+
+    @Benchmark
+    public void weightMap(Blackhole blackhole) {
+        List<Order> validOrders = orders.stream().filter(o -> !o.isInvalid() && !o.isExecuted()).collect(Collectors.toList());
+
+        Map<Long, Double> weights = new HashMap<>();
+        double sum = validOrders.stream().mapToInt(Order::getOrderQuantity).sum();
+        for (Order order : validOrders) {
+            weights.put(order.getOrderId(), order.getOrderQuantity() / sum);
+        }
+
+        for (Order order : validOrders) {
+            if (!order.isExecuted()) {
+                int weightedQty = Math.toIntExact((Math.round(weights.get(order.getOrderId()) * executionQuantity)));
+                int requiredQty = order.getOrderQuantity() - order.getExecutionQuantity();
+                blackhole.consume(Math.min(requiredQty, weightedQty));
+            }
+        }
+    }
+
+    @Benchmark
+    public void fillEngine(Blackhole blackhole) {
+        fillEngine.reset();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            if (!order.isInvalid() && !order.isExecuted()) {
+                fillEngine.add(order);
+            }
+        }
+
+        fillEngine.allocate(executionQuantity);
+
+        for (int i = 0; i < fillEngine.size(); i++) {
+            blackhole.consume(fillEngine.getFill(i));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.order.benchmark;
+
+import com.order.event.FillEvents;
+import com.order.event.OrderEventsStub;
+import com.order.gateway.GatewayCodec;
+import com.order.gateway.GatewayServer;
+import com.order.repository.ExecutionRepositoryInMem;
+import com.order.repository.OrderBookRepositoryInMem;
+import com.order.repository.OrderRepositoryInMem;
+import com.order.service.OrderBookServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Localhost round trip of new orders through the binary gateway, one order at a time and pipelined.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GatewayBenchmark {
+
+    private static final int PIPELINED = 100;
+
+    private GatewayServer gateway;
+
+    private SocketChannel client;
+
+    private ByteBuffer request;
+
+    private ByteBuffer requests;
+
+    private ByteBuffer ack;
+
+    private ByteBuffer acks;
+
+    @Setup
+    public void setup() throws IOException {
+        OrderRepositoryInMem orderRepository = new OrderRepositoryInMem();
+        ExecutionRepositoryInMem executionRepository = new ExecutionRepositoryInMem();
+        OrderBookServiceImpl orderBookService = new OrderBookServiceImpl(new OrderBookRepositoryInMem(), orderRepository, executionRepository, FillEvents.NONE);
+        orderBookService.open("CS");
+        gateway = new GatewayServer(new OrderEventsStub(orderBookService), orderBookService, orderRepository, executionRepository, null, 0, 1 << 16, 0);
+        gateway.start();
+
+        client = SocketChannel.open(new InetSocketAddress("localhost", gateway.getPort()));
+        client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        request = ByteBuffer.allocateDirect(GatewayCodec.ORDER_SIZE);
+        GatewayCodec.putNewOrder(request, 1, 100, 14.32, "CS");
+        requests = ByteBuffer.allocateDirect(PIPELINED * GatewayCodec.ORDER_SIZE);
+        for (int i = 0; i < PIPELINED; i++) {
+            GatewayCodec.putNewOrder(requests, i, 100, 14.32, "CS");
+        }
+        ack = ByteBuffer.allocateDirect(GatewayCodec.ACK_SIZE);
+        acks = ByteBuffer.allocateDirect(PIPELINED * GatewayCodec.ACK_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+        gateway.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte roundTrip() throws IOException {
+        return exchange(request, ack);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(PIPELINED)
+    public byte pipelined() throws IOException {
+        return exchange(requests, acks);
+    }
+
+    private byte exchange(ByteBuffer out, ByteBuffer in) throws IOException {
+        out.clear();
+        while (out.hasRemaining()) {
+            client.write(out);
+        }
+        in.clear();
+        while (in.hasRemaining()) {
+            client.read(in);
+        }
+        return in.get(GatewayCodec.ACK_SIZE - 1);
+    }
+}
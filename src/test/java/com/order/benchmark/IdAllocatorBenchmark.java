@@ -0,0 +1,59 @@
+package com.order.benchmark;
+
+import com.order.id.BlockIdAllocator;
+import com.order.id.IdAllocator;
+import com.order.id.SequenceIdAllocator;
+import com.order.id.SnowflakeIdAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocating ids from one thread and from several threads sharing the allocator: the shared counter, thread-local
+ * blocks of the counter, Snowflake ids and thread-local blocks of Snowflake ids. Run with -t to vary the threads of
+ * the contended variant.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdAllocatorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Allocator {
+
+        @Param({"SEQUENCE", "BLOCK", "SNOWFLAKE", "SNOWFLAKE_BLOCK"})
+        String allocation;
+
+        IdAllocator allocator;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            switch (allocation) {
+                case "BLOCK":
+                    allocator = new BlockIdAllocator(new SequenceIdAllocator(), 1024);
+                    break;
+                case "SNOWFLAKE":
+                    allocator = new SnowflakeIdAllocator(1);
+                    break;
+                case "SNOWFLAKE_BLOCK":
+                    allocator = new BlockIdAllocator(new SnowflakeIdAllocator(1), 1024);
+                    break;
+                default:
+                    allocator = new SequenceIdAllocator();
+            }
+        }
+    }
+
+    @Benchmark
+    public long next(Allocator allocator) {
+        return allocator.allocator.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextShared(Allocator allocator) {
+        return allocator.allocator.next();
+    }
+}
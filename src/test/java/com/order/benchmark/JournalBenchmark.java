@@ -0,0 +1,100 @@
+package com.order.benchmark;
+
+import com.order.enumeration.FlushPolicy;
+import com.order.journal.JournalHandler;
+import com.order.journal.MappedJournal;
+import com.order.model.Execution;
+import com.order.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append and replay cost of the journal. The appends are not synced, the replay reads a journal of eventCount orders
+ * without applying them.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+
+    @Param({"10000000"})
+    private int eventCount;
+
+    private Path directory;
+
+    private MappedJournal journal;
+
+    private Order order;
+
+    @Setup
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("order-journal-benchmark");
+        MappedJournal writer = new MappedJournal(directory.toString(), 64 << 20, FlushPolicy.ASYNC, 1000);
+        writer.replay(new CountingHandler());
+        for (int i = 1; i <= eventCount; i++) {
+            writer.appendOrder(new Order(i, 100, "CS", 14.32));
+        }
+        writer.close();
+
+        journal = new MappedJournal(directory.toString(), 64 << 20, FlushPolicy.ASYNC, 1000);
+        journal.replay(new CountingHandler());
+        order = new Order(eventCount + 1, 100, "CS", 14.32);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long append() {
+        return journal.appendOrder(order);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long replay() throws Exception {
+        CountingHandler handler = new CountingHandler();
+        MappedJournal replayed = new MappedJournal(directory.toString(), 64 << 20, FlushPolicy.ASYNC, 1000);
+        replayed.replay(handler);
+        replayed.close();
+        return handler.count;
+    }
+
+    private static class CountingHandler implements JournalHandler {
+
+        long count;
+
+        @Override
+        public void onOpen(String instrumentId) {
+            count++;
+        }
+
+        @Override
+        public void onClose(String instrumentId) {
+            count++;
+        }
+
+        @Override
+        public void onOrder(Order order) {
+            count++;
+        }
+
+        @Override
+        public void onExecution(Execution execution) {
+            count++;
+        }
+    }
+}
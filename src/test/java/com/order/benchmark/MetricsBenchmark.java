@@ -0,0 +1,50 @@
+package com.order.benchmark;
+
+import com.order.event.FillEvents;
+import com.order.metrics.MicrometerOrderBookMetrics;
+import com.order.metrics.OrderBookMetrics;
+import com.order.model.Order;
+import com.order.repository.ExecutionRepositoryInMem;
+import com.order.repository.OrderBookRepositoryInMem;
+import com.order.repository.OrderRepositoryInMem;
+import com.order.service.OrderBookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the order book meters on the hot path, adding orders through the service without and with the meters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    @Param({"none", "micrometer"})
+    private String metrics;
+
+    private OrderBookServiceImpl orderBookService;
+
+    private long orderId;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        OrderBookRepositoryInMem orderBookRepository = new OrderBookRepositoryInMem();
+        OrderBookMetrics orderBookMetrics = "none".equals(metrics) ? OrderBookMetrics.NONE
+                : new MicrometerOrderBookMetrics(new SimpleMeterRegistry(), orderBookRepository, 64);
+        orderBookService = new OrderBookServiceImpl(orderBookRepository, new OrderRepositoryInMem(), new ExecutionRepositoryInMem(),
+                FillEvents.NONE, null, orderBookMetrics);
+        orderBookService.open("CS");
+        orderId = 0;
+    }
+
+    @Benchmark
+    public long addOrder() {
+        orderBookService.addOrder(new Order(++orderId, 100, "CS", 14.00 + (orderId % 100) / 100.0));
+        return orderId;
+    }
+}
@@ -0,0 +1,103 @@
+package com.order.benchmark;
+
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adding orders to an open book over increasing book sizes. The contended variants add from several threads, either
+ * all to the same book, serialized by the book lock, or each to a book of its own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    @State(Scope.Thread)
+    public static class OwnBook {
+
+        @Param({"1000", "100000"})
+        int orderCount;
+
+        OrderBook orderBook;
+
+        long orderId;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            // every iteration starts from the same book, the orders added by the previous iteration are dropped
+            orderBook = createOrderBook(orderCount);
+            orderId = orderCount;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedBook {
+
+        @Param({"1000", "100000"})
+        int orderCount;
+
+        OrderBook orderBook;
+
+        final AtomicLong orderId = new AtomicLong();
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            orderBook = createOrderBook(orderCount);
+            orderId.set(orderCount);
+        }
+    }
+
+    @Benchmark
+    public OrderBook addOrder(OwnBook book) {
+        book.orderBook.addOrder(new Order(++book.orderId, 100, "CS", 14.32));
+        return book.orderBook;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public OrderBook addOrderOwnBooks(OwnBook book) {
+        book.orderBook.addOrder(new Order(++book.orderId, 100, "CS", 14.32));
+        return book.orderBook;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public OrderBook addOrderSharedBook(SharedBook book) {
+        book.orderBook.addOrder(new Order(book.orderId.incrementAndGet(), 100, "CS", 14.32));
+        return book.orderBook;
+    }
+
+    /**
+     * Creates an open book with limit orders of random quantities, priced from 14.00 to 14.99.
+     * @param orderCount
+     * @return
+     */
+    static OrderBook createOrderBook(int orderCount) {
+        return createOrderBook(orderCount, OrderStorage.HEAP);
+    }
+
+    /**
+     * Creates an open book with limit orders of random quantities, priced from 14.00 to 14.99.
+     * @param orderCount
+     * @param storage
+     * @return
+     */
+    static OrderBook createOrderBook(int orderCount, OrderStorage storage) {
+        Random random = new Random(42);
+        OrderBook orderBook = new OrderBook("CS", FillEvents.NONE, storage);
+        orderBook.open();
+        for (int orderId = 1; orderId <= orderCount; orderId++) {
+            orderBook.addOrder(new Order(orderId, 100 * (1 + random.nextInt(10)), "CS", 14.00 + random.nextInt(100) / 100.0));
+        }
+        return orderBook;
+    }
+}
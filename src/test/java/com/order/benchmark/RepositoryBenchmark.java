@@ -0,0 +1,112 @@
+package com.order.benchmark;
+
+import com.order.model.Order;
+import com.order.repository.OrderRepository;
+import com.order.repository.OrderRepositoryInMem;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read scaling of the sharded order repository, the same lookups are measured with an increasing number of threads.
+ * Stores into an empty repository and iterations of the orders of an instrument are measured as well.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    private static final String[] INSTRUMENT_IDS = {"CS", "UBS", "ABB", "NESN", "NOVN", "ROG", "ZURN", "SREN", "LONN", "GIVN"};
+
+    private static final int STORE_COUNT = 100000;
+
+    @Param({"1000000"})
+    private int orderCount;
+
+    private OrderRepository orderRepository;
+
+    @Setup
+    public void setup() {
+        orderRepository = new OrderRepositoryInMem();
+        for (int i = 1; i <= orderCount; i++) {
+            orderRepository.store(new Order(i, 100, INSTRUMENT_IDS[i % INSTRUMENT_IDS.length], 14.32));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Order findByOrderId1() {
+        return findByOrderId();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Order findByOrderId2() {
+        return findByOrderId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Order findByOrderId4() {
+        return findByOrderId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Order findByOrderId8() {
+        return findByOrderId();
+    }
+
+    private Order findByOrderId() {
+        return orderRepository.findByOrderId(1 + ThreadLocalRandom.current().nextInt(orderCount));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void findByInstrumentId(Blackhole blackhole) {
+        for (Order order : orderRepository.findByInstrumentId(INSTRUMENT_IDS[ThreadLocalRandom.current().nextInt(INSTRUMENT_IDS.length)])) {
+            blackhole.consume(order);
+        }
+    }
+
+    /**
+     * Orders stored into an empty repository by each invocation of the store benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class Store {
+
+        Order[] orders;
+
+        OrderRepository orderRepository;
+
+        @Setup(Level.Trial)
+        public void createOrders() {
+            orders = new Order[STORE_COUNT];
+            for (int i = 0; i < STORE_COUNT; i++) {
+                orders[i] = new Order(i + 1, 100, INSTRUMENT_IDS[i % INSTRUMENT_IDS.length], 14.32);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void createRepository() {
+            orderRepository = new OrderRepositoryInMem();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(STORE_COUNT)
+    public OrderRepository store(Store store) {
+        for (Order order : store.orders) {
+            store.orderRepository.store(order);
+        }
+        return store.orderRepository;
+    }
+}
@@ -0,0 +1,64 @@
+package com.order.benchmark;
+
+import com.order.factory.OrderBookStatisticsFactory;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.valueobject.OrderBookStatistics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares building the statistics of a large book with the multi pass implementation, which copied the orders on
+ * every getOrders call and scanned the book once per breakdown order, against the single pass collector.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StatisticsBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int orderCount;
+
+    private OrderBook orderBook;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        orderBook = new OrderBook("CS");
+        orderBook.open();
+        for (int i = 1; i <= orderCount; i++) {
+            orderBook.addOrder(new Order(i, 1 + random.nextInt(1000), "CS", 14.30 + random.nextInt(10) / 100.0));
+        }
+    }
+
+    @Benchmark
+    public OrderBookStatistics multiPass() {
+        OrderBookStatistics stats = new OrderBookStatistics(orderBook.getInstrumentId(), orderBook.getState().name(),
+                orderBook.getOrders().size(), orderBook.getTotalDemand(), orderBook.getInvalidDemand(), orderBook.getValidDemand(),
+                orderBook.getInvalidOrderCount(), orderBook.getValidOrderCount(), orderBook.getExecutionAmount(), orderBook.getExecutionPrice(),
+                orderBook.isExecuted());
+
+        Map<Double, Integer> limitBreakdown = orderBook.getOrders().stream().collect(Collectors.groupingBy(Order::getOrderPrice, Collectors.summingInt(Order::getOrderQuantity)));
+        stats.setLimitBreakdown(limitBreakdown);
+
+        if (orderBook.getOrders().size() > 0) {
+            stats.addOrderBreakdown("smallest", orderBook.getMinOrder());
+            stats.addOrderBreakdown("largest", orderBook.getMaxOrder());
+            stats.addOrderBreakdown("earliest", orderBook.getFirstOrder());
+            stats.addOrderBreakdown("latest", orderBook.getLastOrder());
+        }
+        return stats;
+    }
+
+    @Benchmark
+    public OrderBookStatistics singlePass() {
+        return OrderBookStatisticsFactory.createOrderBookStatistics(orderBook);
+    }
+}
@@ -0,0 +1,150 @@
+package com.order.cluster;
+
+import com.order.Application;
+import com.order.id.SnowflakeIdAllocator;
+import com.order.valueobject.OrderVO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs a cluster of two nodes in one JVM, each node is an application context with its own port. CS is held by the
+ * first node and UBS by the second one.
+ */
+public class ClusterIntegrationTest {
+
+    private final TestRestTemplate restTemplate = new TestRestTemplate();
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    private int[] ports;
+
+    @Before
+    public void setUp() throws IOException {
+        ports = new int[]{freePort(), freePort()};
+        String urls = String.format("http://localhost:%d,http://localhost:%d", ports[0], ports[1]);
+        for (int node = 0; node < ports.length; node++) {
+            nodes.add(new SpringApplicationBuilder(Application.class).run(
+                    "--server.port=" + ports[node],
+                    "--spring.jmx.enabled=false",
+                    "--order.audit.file.enabled=false",
+                    "--order.cluster.enabled=true",
+                    "--order.cluster.nodes=" + urls,
+                    "--order.cluster.node=" + node,
+                    "--order.cluster.assignments=CS:0,UBS:1",
+                    "--order.id.mode=SNOWFLAKE"));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    public void testRouting() {
+        // every command is sent to the first node
+        assertEquals(HttpStatus.CREATED, post(0, "/orderbook/open/CS", null).getStatusCode());
+        assertEquals(HttpStatus.CREATED, post(0, "/orderbook/open/UBS", null).getStatusCode());
+        assertEquals(HttpStatus.CREATED, post(0, "/order", createOrderVO("CS", 100, 14.32)).getStatusCode());
+        assertEquals(HttpStatus.CREATED, post(0, "/order", createOrderVO("UBS", 50, 21.10)).getStatusCode());
+        ResponseEntity<List> batch = restTemplate.exchange(url(0, "/order/batch"), HttpMethod.POST,
+                new HttpEntity<>(Arrays.asList(createOrderVO("UBS", 30, 21.20), createOrderVO("CS", 20, null), createOrderVO("UBS", 10, null))), List.class);
+        assertEquals(HttpStatus.CREATED, batch.getStatusCode());
+        assertEquals(HttpStatus.CREATED, post(0, "/orderbook/close/UBS", null).getStatusCode());
+        assertEquals(HttpStatus.CREATED, post(0, "/execution", createOrderVO("UBS", 45, 21.00)).getStatusCode());
+
+        // the books are held by their nodes
+        Map<String, Object> cs = restTemplate.getForObject(url(0, ClusterClient.ORDER_BOOK_PATH + "/CS"), Map.class);
+        Map<String, Object> ubs = restTemplate.getForObject(url(1, ClusterClient.ORDER_BOOK_PATH + "/UBS"), Map.class);
+        assertEquals(120, cs.get("totalDemand"));
+        assertEquals(90, ubs.get("totalDemand"));
+        assertEquals(45, ubs.get("executionAmount"));
+        assertEquals(HttpStatus.NO_CONTENT, restTemplate.getForEntity(url(1, ClusterClient.ORDER_BOOK_PATH + "/CS"), Map.class).getStatusCode());
+
+        // queries are answered by any node
+        assertEquals(90, restTemplate.getForObject(url(0, "/orderbook/UBS"), Map.class).get("totalDemand"));
+        assertEquals(120, restTemplate.getForObject(url(1, "/orderbook/CS"), Map.class).get("totalDemand"));
+        for (int node = 0; node < ports.length; node++) {
+            Set<Object> instruments = new HashSet<>();
+            for (Object statistics : restTemplate.getForObject(url(node, "/orderbook/all"), List.class)) {
+                instruments.add(((Map) statistics).get("instrumentId"));
+            }
+            assertEquals(new HashSet<>(Arrays.asList("CS", "UBS")), instruments);
+        }
+
+        // the ids of the nodes do not collide
+        long orderId = ((Number) ((Map) post(1, "/order/batch", Collections.singletonList(createOrderVO("CS", 10, 14.30)))
+                .getBody().get(0)).get("id")).longValue();
+        assertEquals(1, SnowflakeIdAllocator.nodeOf(orderId));
+        assertEquals(0, SnowflakeIdAllocator.nodeOf(((Number) ((Map) batch.getBody().get(0)).get("id")).longValue()));
+        assertNotEquals(orderId, ((Number) ((Map) batch.getBody().get(0)).get("id")).longValue());
+    }
+
+    @Test
+    public void testNodeUnavailable() {
+        assertEquals(HttpStatus.CREATED, post(0, "/orderbook/open/CS", null).getStatusCode());
+        assertEquals(HttpStatus.CREATED, post(0, "/orderbook/open/UBS", null).getStatusCode());
+        nodes.remove(1).close();
+
+        // the commands for the books of the node are refused, its books are left out of the queries
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, post(0, "/order", createOrderVO("UBS", 50, 21.10)).getStatusCode());
+        assertEquals(HttpStatus.CREATED, post(0, "/order", createOrderVO("CS", 100, 14.32)).getStatusCode());
+        assertEquals(1, restTemplate.getForObject(url(0, "/orderbook/all"), List.class).size());
+    }
+
+    @Test
+    public void testSequenceIds() throws IOException {
+        // the nodes would allocate the same ids
+        try {
+            new SpringApplicationBuilder(Application.class).run(
+                    "--server.port=" + freePort(),
+                    "--spring.jmx.enabled=false",
+                    "--order.cluster.enabled=true",
+                    "--order.cluster.nodes=" + url(0, "") + "," + url(1, ""),
+                    "--order.cluster.node=1",
+                    "--order.id.mode=SEQUENCE").close();
+            fail("Startup failure expected");
+        } catch (RuntimeException ex) {
+            Throwable cause = ex;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            assertEquals("Cluster nodes must allocate snowflake ids! mode=SEQUENCE", cause.getMessage());
+        }
+    }
+
+    private ResponseEntity<List> post(int node, String uri, Object body) {
+        return restTemplate.exchange(url(node, uri), HttpMethod.POST, new HttpEntity<>(body), List.class);
+    }
+
+    private String url(int node, String uri) {
+        return "http://localhost:" + ports[node] + uri;
+    }
+
+    private static OrderVO createOrderVO(String instrumentId, int quantity, Double price) {
+        OrderVO orderVO = new OrderVO();
+        orderVO.setQuantity(quantity);
+        orderVO.setInstrumentId(instrumentId);
+        orderVO.setPrice(price);
+        return orderVO;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.order.common;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        for (long key = -500; key < 500; key++) {
+            assertNull(map.put(key, Long.toString(key)));
+        }
+        assertEquals(1000, map.size());
+        for (long key = -500; key < 500; key++) {
+            assertEquals(Long.toString(key), map.get(key));
+        }
+        assertNull(map.get(500));
+        assertFalse(map.containsKey(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testReplace() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(1);
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(1, "one"));
+        assertEquals("zero", map.put(0, "ZERO"));
+        assertEquals("one", map.put(1, "ONE"));
+        assertEquals(2, map.size());
+        assertEquals("ZERO", map.get(0));
+        assertEquals("ONE", map.get(1));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPutNull() {
+        new LongObjectHashMap<String>().put(1, null);
+    }
+
+    @Test
+    public void testValues() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        assertFalse(map.values().iterator().hasNext());
+
+        Set<Long> expected = new HashSet<>();
+        for (long key = 0; key < 100; key++) {
+            map.put(key * 1000, key);
+            expected.add(key);
+        }
+        assertEquals(100, map.values().size());
+        assertEquals(expected, new HashSet<>(map.values()));
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final long keys = 200000;
+
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                for (long key = 1; key <= keys; key += 997) {
+                    Long value = map.get(key);
+                    if (value != null && value != key) {
+                        failure.set(String.format("key=%d value=%d", key, value));
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        for (long key = 1; key <= keys; key++) {
+            map.put(key, key);
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(keys, map.size());
+        assertTrue(map.containsKey(keys));
+    }
+
+    @Test
+    public void testConcurrentPublication() throws Exception {
+        final LongObjectHashMap<long[]> map = new LongObjectHashMap<>();
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final long keys = 200000;
+
+        // the values are mutable, a reader must see them as they were before they were put
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                for (long key = 1; key <= keys; key += 991) {
+                    // the keys are put in order, so a key below the size was put before the get
+                    int size = map.size();
+                    long[] value = map.get(key);
+                    if (value != null && value[0] != key) {
+                        failure.set(String.format("key=%d value=%d", key, value[0]));
+                    }
+                    if (value == null && size >= key) {
+                        failure.set(String.format("key=%d put but not found", key));
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        for (long key = 1; key <= keys; key++) {
+            long[] value = new long[1];
+            value[0] = key;
+            map.put(key, value);
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+    }
+}
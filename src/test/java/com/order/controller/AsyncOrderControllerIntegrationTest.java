@@ -0,0 +1,66 @@
+package com.order.controller;
+
+import com.order.Application;
+import com.order.valueobject.OrderVO;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.*;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the order entry routes on the asynchronous handlers, completed by the sequencer of the instrument.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"order.web.mode=ASYNC", "order.sequencer.enabled=true"})
+public class AsyncOrderControllerIntegrationTest {
+
+    private final TestRestTemplate restTemplate = new TestRestTemplate();
+
+    private HttpHeaders headers = new HttpHeaders();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void testAddAndExecute() throws Exception {
+        assertEquals(HttpStatus.CREATED, post("/orderbook/open/CS", null));
+        assertEquals(HttpStatus.CREATED, post("/order", createOrderVO(100, 34.56)));
+        assertEquals(HttpStatus.CREATED, post("/order", createOrderVO(50, null)));
+        assertEquals(HttpStatus.CREATED, post("/orderbook/close/CS", null));
+        assertEquals(HttpStatus.CREATED, post("/execution", createOrderVO(30, 34.50)));
+
+        Map<String, Object> order = restTemplate.getForObject(createURLWithPort("/order/1"), Map.class);
+        assertEquals(1, order.get("orderId"));
+        assertEquals(20, order.get("executionQuantity"));
+
+        // the failures of the commands are responded
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, post("/orderbook/close/UBS", null));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, post("/order", createOrderVO(10, 29.99995)));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, post("/execution", createOrderVO(10, 29.99995)));
+    }
+
+    private HttpStatus post(String uri, OrderVO orderVO) {
+        HttpEntity<OrderVO> entity = new HttpEntity<>(orderVO, headers);
+        return restTemplate.exchange(createURLWithPort(uri), HttpMethod.POST, entity, String.class).getStatusCode();
+    }
+
+    private static OrderVO createOrderVO(int quantity, Double price) {
+        OrderVO orderVO = new OrderVO();
+        orderVO.setQuantity(quantity);
+        orderVO.setInstrumentId("CS");
+        orderVO.setPrice(price);
+        return orderVO;
+    }
+
+    private String createURLWithPort(String uri) {
+        return "http://localhost:" + port + uri;
+    }
+}
@@ -0,0 +1,60 @@
+package com.order.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonArrayBodyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testWriteTo() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JsonArrayBody(objectMapper, Arrays.asList(1, 2, 3)).writeTo(out);
+        assertEquals("[1,2,3]", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWriteToWhenIteratorFails() {
+        // fails after the first two items, as a repository view failing while it is streamed
+        Iterable<Integer> items = () -> new Iterator<Integer>() {
+
+            private int next = 1;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (next > 2) {
+                    throw new NoSuchElementException("Order is gone!");
+                }
+                return next++;
+            }
+        };
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            new JsonArrayBody(objectMapper, items).writeTo(out);
+            fail("IOException expected");
+        } catch (IOException ex) {
+            assertTrue(ex.getCause() instanceof NoSuchElementException);
+        }
+        // the array is never closed, so the truncated body is not valid JSON
+        assertFalse(new String(out.toByteArray(), StandardCharsets.UTF_8).endsWith("]"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.order.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.common.BackpressureException;
+import com.order.common.OrderBookException;
+import com.order.factory.OrderFactory;
+import com.order.model.Order;
+import com.order.valueobject.IngestProgressVO;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class NdjsonIngestTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong ids = new AtomicLong(0);
+
+    private final List<Order> stored = new ArrayList<>();
+
+    @Test
+    public void testIngest() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 1; i <= 10; i++) {
+            body.append(String.format("{\"quantity\":%d,\"instrumentId\":\"CS\",\"price\":14.32}\n", i * 10));
+        }
+        body.append("\n{\"quantity\":5,\"instrumentId\":\"CS\"}\n");
+
+        // rejects quantity 20 and refuses every fourth order once with backpressure
+        List<Long> refused = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IngestProgressVO progress = ingest(body.toString(), out, orders -> {
+            OrderBookException[] rejections = new OrderBookException[orders.size()];
+            for (int i = 0; i < orders.size(); i++) {
+                Order order = orders.get(i);
+                if (order.getOrderQuantity() == 20) {
+                    rejections[i] = new OrderBookException("rejected");
+                } else if (order.getOrderId() % 4 == 0 && !refused.contains(order.getOrderId())) {
+                    refused.add(order.getOrderId());
+                    rejections[i] = new BackpressureException("full");
+                }
+            }
+            return rejections;
+        });
+
+        assertTrue(progress.isCompleted());
+        assertEquals(11, progress.getRecords());
+        assertEquals(10, progress.getAccepted());
+        assertEquals(1, progress.getRejected());
+        assertEquals(0, progress.getUnavailable());
+        assertEquals(10, stored.size());
+        assertEquals(2, refused.size());
+
+        // a progress line per chunk of 4 records and the final line
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(4, objectMapper.readValue(lines[0], IngestProgressVO.class).getRecords());
+        assertFalse(objectMapper.readValue(lines[1], IngestProgressVO.class).isCompleted());
+        assertEquals(progress, objectMapper.readValue(lines[2], IngestProgressVO.class));
+    }
+
+    @Test
+    public void testIngestMalformed() throws Exception {
+        String body = "{\"quantity\":10,\"instrumentId\":\"CS\"}\n{\"quantity\":\n";
+
+        IngestProgressVO progress = ingest(body, new ByteArrayOutputStream(), orders -> new OrderBookException[orders.size()]);
+
+        assertTrue(progress.isCompleted());
+        assertEquals(1, progress.getRecords());
+        assertEquals(1, progress.getAccepted());
+        assertNotNull(progress.getError());
+    }
+
+    @Test
+    public void testIngestInvalidPrice() throws Exception {
+        String body = "{\"quantity\":10,\"instrumentId\":\"CS\",\"price\":29.99995}\n{\"quantity\":20,\"instrumentId\":\"CS\",\"price\":-1e300}\n"
+                + "{\"quantity\":30,\"instrumentId\":\"CS\",\"price\":14.32}\n";
+
+        IngestProgressVO progress = ingest(body, new ByteArrayOutputStream(), orders -> new OrderBookException[orders.size()]);
+
+        assertTrue(progress.isCompleted());
+        assertEquals(3, progress.getRecords());
+        assertEquals(1, progress.getAccepted());
+        assertEquals(2, progress.getRejected());
+        assertEquals(1, stored.size());
+        assertEquals(30, stored.get(0).getOrderQuantity());
+    }
+
+    @Test
+    public void testIngestUnavailable() throws Exception {
+        String body = "{\"quantity\":10,\"instrumentId\":\"CS\"}\n";
+        NdjsonIngest ndjsonIngest = new NdjsonIngest(objectMapper, 4, 10);
+
+        IngestProgressVO progress = ndjsonIngest.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream(),
+                ids::getAndAdd, (id, orderVO) -> OrderFactory.createOrder(id, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice()),
+                orders -> new OrderBookException[]{new BackpressureException("full")}, stored::add);
+
+        assertEquals(1, progress.getUnavailable());
+        assertEquals(0, stored.size());
+    }
+
+    private IngestProgressVO ingest(String body, ByteArrayOutputStream out, Function<List<Order>, OrderBookException[]> submit) throws Exception {
+        NdjsonIngest ndjsonIngest = new NdjsonIngest(objectMapper, 4, 1000);
+        return ndjsonIngest.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out,
+                count -> ids.getAndAdd(count) + 1,
+                (id, orderVO) -> OrderFactory.createOrder(id, orderVO.getQuantity(), orderVO.getInstrumentId(), orderVO.getPrice()),
+                submit, stored::add);
+    }
+}
@@ -7,9 +7,13 @@ import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
@@ -56,6 +60,49 @@ public class OrderControllerIntegrationTest {
         assertFalse((Boolean)response2.get("executed"));
     }
 
+    @Test
+    @DirtiesContext
+    public void testAddInvalidPrice() throws Exception {
+        HttpEntity<Object> open = new HttpEntity<Object>(headers);
+        assertEquals(HttpStatus.CREATED, restTemplate.exchange(createURLWithPort("/orderbook/open/NESN"), HttpMethod.POST, open, String.class).getStatusCode());
+
+        // a price which is not an exact tick is unprocessable instead of rounded
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, post("/order", createOrderVO(100, 29.99995)).getStatusCode());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, post("/order", createOrderVO(100, -1e300)).getStatusCode());
+
+        // an order without instrument is stored
+        OrderVO withoutInstrument = createOrderVO(100, 30.0);
+        withoutInstrument.setInstrumentId(null);
+        assertEquals(HttpStatus.CREATED, post("/order", withoutInstrument).getStatusCode());
+
+        // executions are accepted for an instrument without a book
+        OrderVO execution = createOrderVO(100, 30.0);
+        execution.setInstrumentId("ABBN");
+        assertEquals(HttpStatus.CREATED, post("/execution", execution).getStatusCode());
+        execution.setPrice(29.99995);
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, post("/execution", execution).getStatusCode());
+
+        // only the invalid item of a batch is rejected
+        HttpEntity<List<OrderVO>> batch = new HttpEntity<>(Arrays.asList(createOrderVO(100, 30.0), createOrderVO(50, 29.99995)), headers);
+        ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(createURLWithPort("/order/batch"), HttpMethod.POST, batch,
+                new ParameterizedTypeReference<List<Map<String, Object>>>() {});
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+        assertEquals(HttpStatus.CREATED.value(), response.getBody().get(0).get("status"));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), response.getBody().get(1).get("status"));
+    }
+
+    private ResponseEntity<String> post(String uri, OrderVO orderVO) {
+        return restTemplate.exchange(createURLWithPort(uri), HttpMethod.POST, new HttpEntity<>(orderVO, headers), String.class);
+    }
+
+    private static OrderVO createOrderVO(int quantity, Double price) {
+        OrderVO orderVO = new OrderVO();
+        orderVO.setQuantity(quantity);
+        orderVO.setInstrumentId("NESN");
+        orderVO.setPrice(price);
+        return orderVO;
+    }
+
     private String createURLWithPort(String uri) {
         return "http://localhost:" + port + uri;
     }
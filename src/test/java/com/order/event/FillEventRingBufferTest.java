@@ -0,0 +1,84 @@
+package com.order.event;
+
+import com.order.model.Prices;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FillEventRingBufferTest {
+
+    private final static String INSTRUMENT_ID = "CS";
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRingSizeNotPowerOfTwo() {
+        new FillEventRingBuffer(Collections.emptyList(), 100);
+    }
+
+    @Test
+    public void testNewFill() throws Exception {
+        final int fills = 10000;
+        final List<Long> orderIds = new ArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(fills);
+
+        FillSubscriber subscriber = event -> {
+            assertEquals(INSTRUMENT_ID, event.getInstrumentId());
+            assertEquals(event.getOrderId() * 2, event.getOrderQuantity());
+            orderIds.add(event.getOrderId());
+            latch.countDown();
+        };
+
+        // a small ring forces the publisher to wrap and wait for the consumer
+        FillEventRingBuffer ringBuffer = new FillEventRingBuffer(Collections.singletonList(subscriber), 16);
+        ringBuffer.start();
+        try {
+            for (long orderId = 0; orderId < fills; orderId++) {
+                ringBuffer.newFill(INSTRUMENT_ID, 1, orderId, 1, 1, (int) orderId * 2, Prices.toTicks(14.32));
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            ringBuffer.stop();
+        }
+
+        assertEquals(fills, orderIds.size());
+        for (int i = 0; i < fills; i++) {
+            assertEquals(i, orderIds.get(i).longValue());
+        }
+        assertEquals(0L, ringBuffer.getBacklog());
+    }
+
+    @Test(timeout = 10000)
+    public void testNewFillAfterStop() throws Exception {
+        FillEventRingBuffer ringBuffer = new FillEventRingBuffer(Collections.emptyList(), 16);
+        ringBuffer.start();
+        ringBuffer.stop();
+        for (long orderId = 0; orderId < 100; orderId++) {
+            ringBuffer.newFill(INSTRUMENT_ID, 1, orderId, 1, 1, 2, Prices.toTicks(14.32));
+        }
+        assertEquals(100L, ringBuffer.getDropped());
+    }
+
+    @Test(timeout = 10000)
+    public void testNewFillAfterConsumerDied() throws Exception {
+        FillSubscriber subscriber = event -> {
+            throw new Error("Subscriber died");
+        };
+        FillEventRingBuffer ringBuffer = new FillEventRingBuffer(Collections.singletonList(subscriber), 16);
+        ringBuffer.start();
+        try {
+            // more fills than the ring holds, the publisher must not wait for the dead consumer
+            for (long orderId = 0; orderId < 100; orderId++) {
+                ringBuffer.newFill(INSTRUMENT_ID, 1, orderId, 1, 1, 2, Prices.toTicks(14.32));
+            }
+        } finally {
+            ringBuffer.stop();
+        }
+        assertTrue(ringBuffer.getDropped() > 0);
+    }
+}
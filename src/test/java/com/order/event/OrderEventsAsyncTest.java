@@ -0,0 +1,203 @@
+package com.order.event;
+
+import com.order.common.BackpressureException;
+import com.order.common.OrderBookException;
+import com.order.enumeration.BackpressurePolicy;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OrderEventsAsyncTest {
+
+    private final static String INSTRUMENT_ID = "CS";
+
+    @Test
+    public void testOrderPreservedPerInstrument() throws Exception {
+        final int events = 5000;
+        RecordingOrderBookService service = new RecordingOrderBookService(events, null);
+        OrderEventsAsync orderEvents = new OrderEventsAsync(service, new SimpleMeterRegistry(), 100, 16, 2,
+                BackpressurePolicy.BLOCK, 10000);
+        try {
+            for (long orderId = 1; orderId <= events; orderId++) {
+                orderEvents.newOrder(new Order(orderId, 10, INSTRUMENT_ID, 14.32));
+            }
+            assertTrue(service.applied.await(10, TimeUnit.SECONDS));
+        } finally {
+            orderEvents.shutdown();
+        }
+
+        assertEquals(events, service.orderIds.size());
+        for (int i = 0; i < events; i++) {
+            assertEquals(i + 1, service.orderIds.get(i).longValue());
+        }
+        assertEquals(0, orderEvents.getQueueDepth());
+    }
+
+    @Test
+    public void testReject() throws Exception {
+        assertFull(BackpressurePolicy.REJECT, OrderBookException.class);
+    }
+
+    @Test
+    public void testUnavailable() throws Exception {
+        assertFull(BackpressurePolicy.UNAVAILABLE, BackpressureException.class);
+    }
+
+    @Test
+    public void testBlockTimeout() throws Exception {
+        assertFull(BackpressurePolicy.BLOCK, BackpressureException.class);
+    }
+
+    @Test
+    public void testSubmitWaitsForRoom() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingOrderBookService service = new RecordingOrderBookService(5, release);
+        OrderEventsAsync orderEvents = new OrderEventsAsync(service, new SimpleMeterRegistry(), 2, 16, 1,
+                BackpressurePolicy.BLOCK, 10000);
+        try {
+            orderEvents.newOrder(new Order(1, 10, INSTRUMENT_ID, 14.32));
+            service.started.await(10, TimeUnit.SECONDS);
+            assertTrue(orderEvents.submitOrder(new Order(2, 10, INSTRUMENT_ID, 14.32)).isDone());
+            assertTrue(orderEvents.submitOrder(new Order(3, 10, INSTRUMENT_ID, 14.32)).isDone());
+
+            // the queue is full, the caller is not blocked and the orders wait for room
+            CompletableFuture<Void> fourth = orderEvents.submitOrder(new Order(4, 10, INSTRUMENT_ID, 14.32));
+            CompletableFuture<Void> fifth = orderEvents.submitOrder(new Order(5, 10, INSTRUMENT_ID, 14.32));
+            assertFalse(fourth.isDone());
+            assertFalse(fifth.isDone());
+
+            release.countDown();
+            fourth.get(10, TimeUnit.SECONDS);
+            fifth.get(10, TimeUnit.SECONDS);
+            assertTrue(service.applied.await(10, TimeUnit.SECONDS));
+        } finally {
+            orderEvents.shutdown();
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1, service.orderIds.get(i).longValue());
+        }
+    }
+
+    @Test
+    public void testSubmitTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingOrderBookService service = new RecordingOrderBookService(3, release);
+        OrderEventsAsync orderEvents = new OrderEventsAsync(service, new SimpleMeterRegistry(), 1, 16, 1,
+                BackpressurePolicy.BLOCK, 10);
+        try {
+            orderEvents.newOrder(new Order(1, 10, INSTRUMENT_ID, 14.32));
+            service.started.await(10, TimeUnit.SECONDS);
+            orderEvents.newOrder(new Order(2, 10, INSTRUMENT_ID, 14.32));
+            try {
+                orderEvents.submitOrder(new Order(3, 10, INSTRUMENT_ID, 14.32)).get(10, TimeUnit.SECONDS);
+                fail("Queue should be full");
+            } catch (ExecutionException ex) {
+                assertEquals(BackpressureException.class, ex.getCause().getClass());
+            }
+            // the expired order is never applied
+            orderEvents.submitOrder(new Order(4, 10, "UBS", 14.32)).get(10, TimeUnit.SECONDS);
+
+            release.countDown();
+            assertTrue(service.applied.await(10, TimeUnit.SECONDS));
+        } finally {
+            orderEvents.shutdown();
+        }
+        assertFalse(service.orderIds.contains(3L));
+    }
+
+    private void assertFull(BackpressurePolicy policy, Class<? extends Exception> expected) throws Exception {
+        // the worker blocks on the first event so the queue of capacity 2 fills up behind it
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingOrderBookService service = new RecordingOrderBookService(4, release);
+        OrderEventsAsync orderEvents = new OrderEventsAsync(service, new SimpleMeterRegistry(), 2, 16, 1, policy, 10);
+        try {
+            orderEvents.newOrder(new Order(1, 10, INSTRUMENT_ID, 14.32));
+            service.started.await(10, TimeUnit.SECONDS);
+            orderEvents.newOrder(new Order(2, 10, INSTRUMENT_ID, 14.32));
+            orderEvents.newOrder(new Order(3, 10, INSTRUMENT_ID, 14.32));
+            try {
+                orderEvents.newOrder(new Order(4, 10, INSTRUMENT_ID, 14.32));
+                fail("Queue should be full");
+            } catch (Exception ex) {
+                assertEquals(expected, ex.getClass());
+            }
+            // other instruments have their own queue
+            orderEvents.newOrder(new Order(5, 10, "UBS", 14.32));
+
+            release.countDown();
+            assertTrue(service.applied.await(10, TimeUnit.SECONDS));
+        } finally {
+            orderEvents.shutdown();
+        }
+    }
+
+    private static class RecordingOrderBookService implements OrderBookService {
+
+        final List<Long> orderIds = Collections.synchronizedList(new ArrayList<>());
+
+        final CountDownLatch started = new CountDownLatch(1);
+
+        final CountDownLatch applied;
+
+        final CountDownLatch release;
+
+        RecordingOrderBookService(int events, CountDownLatch release) {
+            this.applied = new CountDownLatch(events);
+            this.release = release;
+        }
+
+        @Override
+        public void addOrder(Order order) {
+            started.countDown();
+            if (release != null && INSTRUMENT_ID.equals(order.getInstrumentId())) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            orderIds.add(order.getOrderId());
+            applied.countDown();
+        }
+
+        @Override
+        public void open(String instrumentId) {
+        }
+
+        @Override
+        public void close(String instrumentId) {
+        }
+
+        @Override
+        public void addExecution(Execution execution) {
+        }
+
+        @Override
+        public Collection<OrderBook> findAll() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public OrderBook findByInstrumentId(String instrumentId) {
+            return null;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.order.factory;
 
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
 import com.order.model.Execution;
 import com.order.model.Order;
 import com.order.model.OrderBook;
@@ -8,6 +10,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class OrderBookStatisticsFactoryTest {
@@ -71,4 +74,49 @@ public class OrderBookStatisticsFactoryTest {
         assertEquals(ORDER_ID_1, stats.getOrderBreakdown().get("largest").getOrderId());
     }
 
+    @Test
+    public void testCreateWithMarketOrders() {
+        OrderBook marketBook = new OrderBook(INSTRUMENT_ID_1);
+        marketBook.open();
+        marketBook.addOrder(new Order(ORDER_ID_1, 50, INSTRUMENT_ID_1));
+        marketBook.addOrder(new Order(ORDER_ID_2, 50, INSTRUMENT_ID_1, 14.31));
+        marketBook.addOrder(new Order(3, 80, INSTRUMENT_ID_1, 14.31));
+        OrderBookStatistics stats = OrderBookStatisticsFactory.createOrderBookStatistics(marketBook);
+        assertEquals(3, stats.getOrderSize());
+        assertEquals(180, stats.getTotalDemand());
+        assertEquals(1, stats.getLimitBreakdown().size());
+        int demand = stats.getLimitBreakdown().get(14.31);
+        assertEquals(130, demand);
+        assertEquals(3L, stats.getOrderBreakdown().get("largest").getOrderId());
+        assertFalse(stats.isExecuted());
+    }
+
+    @Test(timeout = 30000)
+    public void testCreateWhileAddingOrders() throws InterruptedException {
+        OrderBook offHeapBook = new OrderBook(INSTRUMENT_ID_1, FillEvents.NONE, OrderStorage.OFF_HEAP);
+        offHeapBook.open();
+        for (int i = 1; i <= 10000; i++) {
+            offHeapBook.addOrder(new Order(i, 10, INSTRUMENT_ID_1, 14.31));
+        }
+
+        // the scan only holds the book lock for short runs, so orders are added while the statistics are created
+        Thread writer = new Thread(() -> {
+            for (int i = 10001; i <= 30000; i++) {
+                offHeapBook.addOrder(new Order(i, 10, INSTRUMENT_ID_1, 14.31));
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            OrderBookStatistics stats = OrderBookStatisticsFactory.createOrderBookStatistics(offHeapBook);
+            assertEquals(stats.getOrderSize() * 10, stats.getTotalDemand());
+            assertTrue(stats.getLimitBreakdown().get(14.31) >= stats.getTotalDemand());
+            assertEquals(1L, stats.getOrderBreakdown().get("smallest").getOrderId());
+        }
+        writer.join();
+
+        OrderBookStatistics stats = OrderBookStatisticsFactory.createOrderBookStatistics(offHeapBook);
+        assertEquals(30000, stats.getOrderSize());
+        int demand = stats.getLimitBreakdown().get(14.31);
+        assertEquals(300000, demand);
+    }
 }
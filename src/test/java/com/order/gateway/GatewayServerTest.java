@@ -0,0 +1,283 @@
+package com.order.gateway;
+
+import com.order.common.BackpressureException;
+import com.order.enumeration.OrderBookState;
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
+import com.order.event.OrderEvents;
+import com.order.event.OrderEventsStub;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.replication.ReplicationStandby;
+import com.order.repository.ExecutionRepositoryInMem;
+import com.order.repository.OrderBookRepositoryInMem;
+import com.order.repository.OrderRepositoryInMem;
+import com.order.service.OrderBookService;
+import com.order.service.OrderBookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GatewayServerTest {
+
+    private final static String INSTRUMENT_ID = "CS";
+
+    private final OrderRepositoryInMem orderRepository = new OrderRepositoryInMem();
+
+    private final ExecutionRepositoryInMem executionRepository = new ExecutionRepositoryInMem();
+
+    private final OrderBookService orderBookService = new OrderBookServiceImpl(new OrderBookRepositoryInMem(), orderRepository,
+            executionRepository, FillEvents.NONE);
+
+    private ReplicationStandby standby;
+
+    private GatewayServer gateway;
+
+    @After
+    public void shutdown() throws Exception {
+        gateway.stop();
+    }
+
+    @Test
+    public void testPipelined() throws Exception {
+        start(new OrderEventsStub(orderBookService));
+        try (SocketChannel client = connect()) {
+            ByteBuffer requests = ByteBuffer.allocate(1024);
+            GatewayCodec.putBook(requests, GatewayCodec.OPEN_BOOK, 1, INSTRUMENT_ID);
+            GatewayCodec.putNewOrder(requests, 2, 10, 14.32, INSTRUMENT_ID);
+            GatewayCodec.putNewOrder(requests, 3, 20, null, INSTRUMENT_ID);
+            GatewayCodec.putNewOrder(requests, 4, 20, 13.0, INSTRUMENT_ID);
+            GatewayCodec.putBook(requests, GatewayCodec.OPEN_BOOK, 5, INSTRUMENT_ID);
+            GatewayCodec.putBook(requests, GatewayCodec.CLOSE_BOOK, 6, INSTRUMENT_ID);
+            GatewayCodec.putExecution(requests, 7, 30, 14.0, INSTRUMENT_ID);
+            requests.flip();
+            write(client, requests);
+
+            ByteBuffer acks = read(client, 7);
+            assertAck(acks, 1, 0, GatewayCodec.ACCEPTED);
+            assertAck(acks, 2, 1, GatewayCodec.ACCEPTED);
+            assertAck(acks, 3, 2, GatewayCodec.ACCEPTED);
+            assertAck(acks, 4, 3, GatewayCodec.ACCEPTED);
+            // already open
+            assertAck(acks, 5, 0, GatewayCodec.REJECTED);
+            assertAck(acks, 6, 0, GatewayCodec.ACCEPTED);
+            assertAck(acks, 7, 1, GatewayCodec.ACCEPTED);
+        }
+
+        OrderBook orderBook = orderBookService.findByInstrumentId(INSTRUMENT_ID);
+        assertTrue(orderBook.isExecuted());
+        assertEquals(20, orderBook.getOrder(2).getExecutionQuantity());
+        assertNull(orderBook.getOrder(2).getOrderPrice());
+        assertTrue(orderBook.getOrder(3).isInvalid());
+        assertEquals(3, orderRepository.findAll().size());
+        assertEquals(1, executionRepository.findAll().size());
+    }
+
+    @Test
+    public void testManyPipelined() throws Exception {
+        final int orders = 10000;
+        orderBookService.open(INSTRUMENT_ID);
+        start(new OrderEventsStub(orderBookService));
+        try (SocketChannel client = connect()) {
+            // many more acks than the buffers of the gateway hold, written while they are read
+            Thread writer = new Thread(() -> {
+                ByteBuffer requests = ByteBuffer.allocate(100 * GatewayCodec.ORDER_SIZE);
+                try {
+                    for (int i = 0; i < orders; i++) {
+                        GatewayCodec.putNewOrder(requests, i, 10, 14.32, INSTRUMENT_ID);
+                        if (!requests.hasRemaining()) {
+                            requests.flip();
+                            write(client, requests);
+                            requests.clear();
+                        }
+                    }
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            writer.start();
+
+            ByteBuffer acks = read(client, orders);
+            for (int i = 0; i < orders; i++) {
+                assertAck(acks, i, i + 1, GatewayCodec.ACCEPTED);
+            }
+            writer.join();
+        }
+        assertEquals(10 * orders, orderBookService.findByInstrumentId(INSTRUMENT_ID).getTotalDemand());
+    }
+
+    @Test
+    public void testPartialMessages() throws Exception {
+        start(new OrderEventsStub(orderBookService));
+        try (SocketChannel client = connect()) {
+            ByteBuffer requests = ByteBuffer.allocate(1024);
+            GatewayCodec.putBook(requests, GatewayCodec.OPEN_BOOK, 1, INSTRUMENT_ID);
+            GatewayCodec.putNewOrder(requests, 2, 10, 14.32, INSTRUMENT_ID);
+            requests.flip();
+            // one byte at a time, every message is split
+            while (requests.hasRemaining()) {
+                ByteBuffer single = ByteBuffer.allocate(1);
+                single.put(requests.get()).flip();
+                write(client, single);
+            }
+
+            ByteBuffer acks = read(client, 2);
+            assertAck(acks, 1, 0, GatewayCodec.ACCEPTED);
+            assertAck(acks, 2, 1, GatewayCodec.ACCEPTED);
+        }
+        assertEquals(10, orderBookService.findByInstrumentId(INSTRUMENT_ID).getTotalDemand());
+    }
+
+    @Test
+    public void testBusy() throws Exception {
+        start(new OrderEvents() {
+            @Override
+            public void newOrder(Order order) {
+                throw new BackpressureException("Queue is full");
+            }
+
+            @Override
+            public void newExecution(Execution execution) {
+            }
+        });
+        try (SocketChannel client = connect()) {
+            ByteBuffer requests = ByteBuffer.allocate(1024);
+            GatewayCodec.putNewOrder(requests, 1, 10, 14.32, INSTRUMENT_ID);
+            GatewayCodec.putNewOrder(requests, 2, 10, 14.32, "");
+            requests.flip();
+            write(client, requests);
+
+            ByteBuffer acks = read(client, 2);
+            assertAck(acks, 1, 0, GatewayCodec.BUSY);
+            assertAck(acks, 2, 0, GatewayCodec.REJECTED);
+        }
+        // refused orders are not stored
+        assertEquals(0, orderRepository.findAll().size());
+    }
+
+    @Test(timeout = 10000)
+    public void testBlockedCommand() throws Exception {
+        orderBookService.open(INSTRUMENT_ID);
+        CountDownLatch release = new CountDownLatch(1);
+        OrderEventsStub orderEvents = new OrderEventsStub(orderBookService);
+        start(new OrderEvents() {
+            @Override
+            public void newOrder(Order order) {
+                if ("SLOW".equals(order.getInstrumentId())) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                orderEvents.newOrder(order);
+            }
+
+            @Override
+            public void newExecution(Execution execution) {
+                orderEvents.newExecution(execution);
+            }
+        });
+        try (SocketChannel slow = connect(); SocketChannel client = connect()) {
+            ByteBuffer requests = ByteBuffer.allocate(1024);
+            GatewayCodec.putNewOrder(requests, 1, 10, 14.32, "SLOW");
+            requests.flip();
+            write(slow, requests);
+
+            // the blocked command holds neither the selector thread nor the other connections
+            requests.clear();
+            GatewayCodec.putNewOrder(requests, 2, 10, 14.32, INSTRUMENT_ID);
+            requests.flip();
+            write(client, requests);
+            ByteBuffer ack = read(client, 1);
+            long orderId = ack.getLong(1 + 8);
+            assertAck(ack, 2, orderId, GatewayCodec.ACCEPTED);
+            assertEquals(10, orderBookService.findByInstrumentId(INSTRUMENT_ID).getOrder(orderId).getOrderQuantity());
+
+            release.countDown();
+            ack = read(slow, 1);
+            assertAck(ack, 1, ack.getLong(1 + 8), GatewayCodec.ACCEPTED);
+            assertEquals(2, orderRepository.findAll().size());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testStandby() throws Exception {
+        // no primary is listening, the standby retries until it is promoted
+        standby = new ReplicationStandby((OrderBookServiceImpl) orderBookService, new OrderBookRepositoryInMem(), orderRepository, executionRepository,
+                FillEvents.NONE, new SimpleMeterRegistry(), OrderStorage.HEAP, "localhost:1", 100);
+        standby.start();
+        start(new OrderEventsStub(orderBookService));
+        try (SocketChannel client = connect()) {
+            ByteBuffer requests = ByteBuffer.allocate(1024);
+            GatewayCodec.putBook(requests, GatewayCodec.OPEN_BOOK, 1, INSTRUMENT_ID);
+            requests.flip();
+            write(client, requests);
+            assertAck(read(client, 1), 1, 0, GatewayCodec.BUSY);
+
+            standby.promote();
+            requests.flip();
+            write(client, requests);
+            assertAck(read(client, 1), 1, 0, GatewayCodec.ACCEPTED);
+        }
+        assertEquals(OrderBookState.OPEN, orderBookService.findByInstrumentId(INSTRUMENT_ID).getState());
+    }
+
+    @Test
+    public void testUnknownMessage() throws Exception {
+        start(new OrderEventsStub(orderBookService));
+        try (SocketChannel client = connect()) {
+            ByteBuffer requests = ByteBuffer.allocate(GatewayCodec.BOOK_SIZE);
+            GatewayCodec.putBook(requests, (byte) 'X', 1, INSTRUMENT_ID);
+            requests.flip();
+            write(client, requests);
+
+            // the connection is closed
+            assertEquals(-1, client.read(ByteBuffer.allocate(GatewayCodec.ACK_SIZE)));
+        }
+    }
+
+    private void start(OrderEvents orderEvents) throws IOException {
+        gateway = new GatewayServer(orderEvents, orderBookService, orderRepository, executionRepository, standby, 0, 256, 2);
+        gateway.start();
+    }
+
+    private SocketChannel connect() throws IOException {
+        return SocketChannel.open(new InetSocketAddress("localhost", gateway.getPort()));
+    }
+
+    private static void write(SocketChannel client, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            client.write(buffer);
+        }
+    }
+
+    private static ByteBuffer read(SocketChannel client, int acks) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(acks * GatewayCodec.ACK_SIZE);
+        while (buffer.hasRemaining()) {
+            if (client.read(buffer) < 0) {
+                throw new IOException("Connection closed");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void assertAck(ByteBuffer acks, long requestId, long id, byte status) {
+        assertEquals(GatewayCodec.ACK, acks.get());
+        assertEquals(requestId, acks.getLong());
+        assertEquals(id, acks.getLong());
+        assertEquals(status, acks.get());
+    }
+}
@@ -0,0 +1,125 @@
+package com.order.id;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IdAllocatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSequence() {
+        SequenceIdAllocator allocator = new SequenceIdAllocator();
+        assertEquals(1, allocator.next());
+        assertEquals(2, allocator.next(10));
+        assertEquals(12, allocator.next());
+
+        allocator.reserve(100);
+        assertEquals(101, allocator.next());
+    }
+
+    @Test
+    public void testBlocksUniqueAcrossThreads() throws Exception {
+        BlockIdAllocator allocator = new BlockIdAllocator(new SequenceIdAllocator(), 64);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    long first = i % 10 == 0 ? allocator.next(3) : allocator.next();
+                    for (long id = first; id < first + (i % 10 == 0 ? 3 : 1); id++) {
+                        assertTrue(ids.add(id));
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4 * (9000 + 1000 * 3), ids.size());
+
+        // the ids reserved are not allocated from the blocks taken before
+        allocator.reserve(100000);
+        assertTrue(allocator.next() > 100000);
+    }
+
+    @Test
+    public void testSnowflake() {
+        Instant now = Instant.parse("2018-08-20T10:15:30Z");
+        SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(7, Clock.fixed(now, ZoneOffset.UTC), IdHighWaterMark.NONE);
+        SnowflakeIdAllocator other = new SnowflakeIdAllocator(8, Clock.fixed(now, ZoneOffset.UTC), IdHighWaterMark.NONE);
+
+        long id = allocator.next();
+        assertEquals(now.toEpochMilli(), SnowflakeIdAllocator.timestampOf(id));
+        assertEquals(7, SnowflakeIdAllocator.nodeOf(id));
+        assertEquals(id + 1, allocator.next());
+
+        // a range does not span milliseconds, the ids run ahead of a clock which does not move
+        long first = allocator.next(SnowflakeIdAllocator.MAX_COUNT);
+        assertEquals(now.toEpochMilli() + 1, SnowflakeIdAllocator.timestampOf(first));
+        assertEquals(now.toEpochMilli() + 1, SnowflakeIdAllocator.timestampOf(first + SnowflakeIdAllocator.MAX_COUNT - 1));
+        assertTrue(allocator.next() > first);
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            ids.add(allocator.next());
+            ids.add(other.next());
+        }
+        assertEquals(20000, ids.size());
+    }
+
+    @Test
+    public void testHighWaterMarkSurvivesRestart() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("order.hwm");
+        SequenceIdAllocator allocator = new SequenceIdAllocator(new FileIdHighWaterMark(file, 100));
+        assertEquals(1, allocator.next());
+        long last = 0;
+        for (int i = 0; i < 250; i++) {
+            last = allocator.next();
+        }
+
+        // the ids leased before the restart are skipped
+        SequenceIdAllocator restarted = new SequenceIdAllocator(new FileIdHighWaterMark(file, 100));
+        long next = restarted.next();
+        assertTrue(next > last);
+        assertTrue(next <= last + 101);
+
+        // the clock set back does not allocate the same Snowflake ids
+        Path snowflakeFile = folder.getRoot().toPath().resolve("execution.hwm");
+        Clock clock = Clock.fixed(Instant.parse("2018-08-20T10:15:30Z"), ZoneOffset.UTC);
+        long id = new SnowflakeIdAllocator(1, clock, new FileIdHighWaterMark(snowflakeFile, 100)).next();
+        Clock earlier = Clock.fixed(Instant.parse("2018-08-20T10:00:00Z"), ZoneOffset.UTC);
+        assertTrue(new SnowflakeIdAllocator(1, earlier, new FileIdHighWaterMark(snowflakeFile, 100)).next() > id);
+    }
+
+    @Test
+    public void testMaxCount() {
+        assertEquals(Integer.MAX_VALUE, new BlockIdAllocator(new SequenceIdAllocator(), 10000).getMaxCount());
+        SnowflakeIdAllocator snowflake = new SnowflakeIdAllocator(1);
+        assertEquals(SnowflakeIdAllocator.MAX_COUNT, new BlockIdAllocator(snowflake, SnowflakeIdAllocator.MAX_COUNT).getMaxCount());
+        try {
+            // every block would be refused by the shared allocator
+            new BlockIdAllocator(snowflake, SnowflakeIdAllocator.MAX_COUNT + 1);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage().startsWith("Block size must be between 1 and 4096!"));
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.order.journal;
+
+import com.order.enumeration.FlushPolicy;
+import com.order.event.FillEvents;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.repository.ExecutionRepositoryInMem;
+import com.order.repository.OrderBookRepositoryInMem;
+import com.order.repository.OrderRepositoryInMem;
+import com.order.service.OrderBookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MappedJournalTest {
+
+    private final static String INSTRUMENT_ID = "CS";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplay() throws Exception {
+        LocalDateTime entryDate = LocalDateTime.of(2018, 9, 1, 10, 15, 30, 123456789);
+        MappedJournal journal = journal(FlushPolicy.PER_EVENT, 1024);
+        assertEquals(0, journal.replay(new RecordingHandler()));
+        journal.appendOpen(INSTRUMENT_ID);
+        journal.appendOrder(new Order(1, 10, INSTRUMENT_ID, 14.32, entryDate));
+        journal.appendOrder(new Order(2, 20, INSTRUMENT_ID, null, entryDate));
+        journal.appendClose(INSTRUMENT_ID);
+        journal.sync(journal.appendExecution(new Execution(3, 30, INSTRUMENT_ID, 14.0, entryDate)));
+        assertEquals(5, journal.getFlushed());
+        journal.close();
+
+        RecordingHandler handler = new RecordingHandler();
+        assertEquals(5, journal(FlushPolicy.PER_EVENT, 1024).replay(handler));
+        assertEquals(Arrays.asList("open CS", "order 1", "order 2", "close CS", "execution 3"), handler.events);
+
+        Order limit = handler.orders.get(0);
+        assertEquals(10, limit.getOrderQuantity());
+        assertEquals(14.32, limit.getOrderPrice(), 0.0);
+        assertEquals(entryDate, limit.getEntryDate());
+        assertNull(handler.orders.get(1).getOrderPrice());
+
+        Execution execution = handler.executions.get(0);
+        assertEquals(30, execution.getExecutionQuantity());
+        assertEquals(14.0, execution.getExecutionPrice(), 0.0);
+        assertEquals(entryDate, execution.getExecutionDate());
+    }
+
+    @Test
+    public void testRotate() throws Exception {
+        MappedJournal journal = journal(FlushPolicy.GROUP, 1024);
+        journal.replay(new RecordingHandler());
+        long sequence = 0;
+        for (long orderId = 1; orderId <= 100; orderId++) {
+            sequence = journal.appendOrder(new Order(orderId, 10, INSTRUMENT_ID, 14.32));
+        }
+        journal.sync(sequence);
+        assertEquals(100, journal.getFlushed());
+        journal.close();
+        assertTrue(folder.getRoot().listFiles().length > 1);
+
+        RecordingHandler handler = new RecordingHandler();
+        journal = journal(FlushPolicy.GROUP, 1024);
+        assertEquals(100, journal.replay(handler));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i + 1, handler.orders.get(i).getOrderId());
+        }
+
+        // appends continue after the last replayed event
+        journal.sync(journal.appendOrder(new Order(101, 10, INSTRUMENT_ID, 14.32)));
+        journal.close();
+        assertEquals(101, journal(FlushPolicy.GROUP, 1024).replay(new RecordingHandler()));
+    }
+
+    @Test
+    public void testTornEvent() throws Exception {
+        MappedJournal journal = journal(FlushPolicy.PER_EVENT, 1024);
+        journal.replay(new RecordingHandler());
+        journal.appendOrder(new Order(1, 10, INSTRUMENT_ID, 14.32));
+        journal.sync(journal.appendOrder(new Order(2, 10, INSTRUMENT_ID, 14.32)));
+        journal.close();
+
+        // tear the payload of the last event
+        File segment = folder.getRoot().listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            int length = readLength(file, 0);
+            file.seek(JournalCodec.HEADER_SIZE + length + JournalCodec.HEADER_SIZE + 5);
+            file.write(0xFF);
+        }
+
+        RecordingHandler handler = new RecordingHandler();
+        journal = journal(FlushPolicy.PER_EVENT, 1024);
+        assertEquals(1, journal.replay(handler));
+        assertEquals(Arrays.asList("order 1"), handler.events);
+
+        // the torn event is replaced by the next one
+        journal.sync(journal.appendOrder(new Order(3, 10, INSTRUMENT_ID, 14.32)));
+        journal.close();
+        handler = new RecordingHandler();
+        assertEquals(2, journal(FlushPolicy.PER_EVENT, 1024).replay(handler));
+        assertEquals(Arrays.asList("order 1", "order 3"), handler.events);
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        MappedJournal journal = journal(FlushPolicy.ASYNC, 4096);
+        journal.replay(new RecordingHandler());
+        journal.sync(journal.appendOpen(INSTRUMENT_ID));
+        // the flusher forces periodically
+        for (int i = 0; i < 1000 && journal.getFlushed() < 1; i++) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, journal.getFlushed());
+        journal.close();
+    }
+
+    @Test
+    public void testRecovery() throws Exception {
+        MappedJournal journal = journal(FlushPolicy.GROUP, 4096);
+        journal.replay(new RecordingHandler());
+        OrderBookServiceImpl orderBookService = new OrderBookServiceImpl(new OrderBookRepositoryInMem(), new OrderRepositoryInMem(),
+                new ExecutionRepositoryInMem(), FillEvents.NONE, journal);
+        orderBookService.open(INSTRUMENT_ID);
+        orderBookService.addOrders(Arrays.asList(new Order(1, 10, INSTRUMENT_ID, 14.32), new Order(2, 10, INSTRUMENT_ID, 13.0)));
+        orderBookService.addOrder(new Order(3, 10, "UBS", 14.32));
+        orderBookService.close(INSTRUMENT_ID);
+        orderBookService.addExecution(new Execution(1, 10, INSTRUMENT_ID, 14.0));
+        journal.close();
+
+        OrderBookRepositoryInMem orderBookRepository = new OrderBookRepositoryInMem();
+        OrderRepositoryInMem orderRepository = new OrderRepositoryInMem();
+        ExecutionRepositoryInMem executionRepository = new ExecutionRepositoryInMem();
+        journal = journal(FlushPolicy.GROUP, 4096);
+        OrderBookServiceImpl recovered = new OrderBookServiceImpl(orderBookRepository, orderRepository, executionRepository, FillEvents.NONE, journal);
+        SnapshotStore snapshotStore = new SnapshotStore(journal, orderBookRepository, orderRepository, executionRepository, FillEvents.NONE,
+                folder.getRoot().getPath(), 0, 2);
+        new JournalRecovery(journal, snapshotStore, recovered, orderRepository, executionRepository, new SimpleMeterRegistry()).recover();
+
+        assertEquals(3, orderRepository.findAll().size());
+        assertEquals(4, orderRepository.nextOrderId());
+        assertEquals(2, executionRepository.nextExecutionId());
+
+        OrderBook orderBook = orderBookRepository.findByInstrumentId(INSTRUMENT_ID);
+        assertTrue(orderBook.isExecuted());
+        assertEquals(2, orderBook.getOrders().size());
+        assertEquals(1, orderBook.getInvalidOrderCount());
+        assertEquals(10, orderBook.getExecutionAmount());
+
+        // the replayed events are not journaled again
+        journal.close();
+        assertEquals(6, journal(FlushPolicy.GROUP, 4096).replay(new RecordingHandler()));
+    }
+
+    @Test
+    public void testTailer() throws Exception {
+        MappedJournal journal = journal(FlushPolicy.ASYNC, 1024);
+        journal.replay(new RecordingHandler());
+        JournalTailer tailer = new JournalTailer(journal, journal.position());
+        ByteBuffer target = ByteBuffer.allocate(1024);
+        assertEquals(0, tailer.copy(target));
+
+        // more records than a segment holds, copied in batches which fit into the target
+        journal.appendOpen(INSTRUMENT_ID);
+        for (int i = 1; i <= 40; i++) {
+            journal.appendOrder(new Order(i, 10, INSTRUMENT_ID, 14.32));
+        }
+        RecordingHandler handler = new RecordingHandler();
+        JournalCodec codec = new JournalCodec();
+        int copied = 0;
+        int records;
+        while ((records = tailer.copy(target)) > 0) {
+            copied += records;
+            target.flip();
+            while (codec.read(target, handler) > 0) {
+            }
+            target.clear();
+        }
+        assertEquals(41, copied);
+        assertEquals(41, handler.events.size());
+        assertEquals("order 40", handler.events.get(40));
+        assertEquals(journal.position(), tailer.position());
+        assertEquals(41, tailer.getAppended());
+        journal.close();
+    }
+
+    private MappedJournal journal(FlushPolicy flushPolicy, int segmentSize) {
+        return new MappedJournal(folder.getRoot().getPath(), segmentSize, flushPolicy, 1);
+    }
+
+    private static int readLength(RandomAccessFile file, long position) throws Exception {
+        file.seek(position);
+        return file.readInt();
+    }
+
+    private static class RecordingHandler implements JournalHandler {
+
+        final List<String> events = new ArrayList<>();
+
+        final List<Order> orders = new ArrayList<>();
+
+        final List<Execution> executions = new ArrayList<>();
+
+        @Override
+        public void onOpen(String instrumentId) {
+            events.add("open " + instrumentId);
+        }
+
+        @Override
+        public void onClose(String instrumentId) {
+            events.add("close " + instrumentId);
+        }
+
+        @Override
+        public void onOrder(Order order) {
+            events.add("order " + order.getOrderId());
+            orders.add(order);
+        }
+
+        @Override
+        public void onExecution(Execution execution) {
+            events.add("execution " + execution.getExecutionId());
+            executions.add(execution);
+        }
+    }
+}
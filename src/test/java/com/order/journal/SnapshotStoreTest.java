@@ -0,0 +1,197 @@
+package com.order.journal;
+
+import com.order.enumeration.FlushPolicy;
+import com.order.enumeration.OrderBookState;
+import com.order.event.FillEvents;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.repository.ExecutionRepositoryInMem;
+import com.order.repository.OrderBookRepositoryInMem;
+import com.order.repository.OrderRepositoryInMem;
+import com.order.service.OrderBookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotStoreTest {
+
+    private final static String INSTRUMENT_ID = "CS";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    @After
+    public void shutdown() throws Exception {
+        for (Node node : nodes) {
+            node.journal.close();
+        }
+    }
+
+    @Test
+    public void testSnapshotAndTail() throws Exception {
+        Node node = recover(4096);
+        node.service.open(INSTRUMENT_ID);
+        node.addOrder(new Order(1, 10, INSTRUMENT_ID, 14.32));
+        node.addOrder(new Order(2, 20, INSTRUMENT_ID, 13.0));
+        node.addOrder(new Order(3, 30, INSTRUMENT_ID));
+        node.addOrder(new Order(4, 10, "UBS", 14.32));
+        node.service.close(INSTRUMENT_ID);
+        node.addExecution(new Execution(1, 20, INSTRUMENT_ID, 14.0));
+        node.snapshots.take();
+
+        // the tail after the snapshot
+        node.addExecution(new Execution(2, 20, INSTRUMENT_ID, 14.0));
+        node.service.open("ABB");
+        node.addOrder(new Order(5, 10, "ABB", 14.32));
+        node.journal.close();
+
+        Node recovered = recover(4096);
+        assertEquals(3, recovered.recovery.getEvents());
+
+        OrderBook orderBook = recovered.orderBooks.findByInstrumentId(INSTRUMENT_ID);
+        assertEquals(OrderBookState.CLOSED, orderBook.getState());
+        assertEquals(14.0, orderBook.getExecutionPrice(), 0.0);
+        assertTrue(orderBook.isExecuted());
+        assertEquals(60, orderBook.getTotalDemand());
+        assertEquals(20, orderBook.getInvalidDemand());
+        assertEquals(40, orderBook.getExecutionAmount());
+        assertTrue(orderBook.getOrder(2).isInvalid());
+        assertEquals(10, orderBook.getOrder(1).getExecutionQuantity());
+        assertEquals(30, orderBook.getOrder(3).getExecutionQuantity());
+        assertEquals(14.0, orderBook.getOrder(3).getExecutionPrice(), 0.0);
+        assertNotNull(orderBook.getExecution(2));
+
+        // the repositories hold the instances of the books and the orders without book
+        assertSame(orderBook.getOrder(1), recovered.orders.findByOrderId(1));
+        assertSame(orderBook.getExecution(1), recovered.executions.findByExecutionId(1));
+        assertNotNull(recovered.orders.findByOrderId(4));
+        assertEquals(1, recovered.orderBooks.findByInstrumentId("ABB").getOrders().size());
+        assertEquals(6, recovered.orders.nextOrderId());
+        assertEquals(3, recovered.executions.nextExecutionId());
+    }
+
+    @Test
+    public void testSnapshotWhileWriting() throws Exception {
+        Node node = recover(1 << 20);
+        node.service.open(INSTRUMENT_ID);
+        final int orders = 20000;
+        Thread writer = new Thread(() -> {
+            for (long orderId = 1; orderId <= orders; orderId++) {
+                node.addOrder(new Order(orderId, 10, INSTRUMENT_ID, 14.32));
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            node.snapshots.take();
+        }
+        writer.join();
+        node.journal.close();
+
+        Node recovered = recover(1 << 20);
+        OrderBook orderBook = recovered.orderBooks.findByInstrumentId(INSTRUMENT_ID);
+        assertEquals(10 * orders, orderBook.getTotalDemand());
+        assertEquals(orders, orderBook.getOrders().size());
+        assertEquals(orders, recovered.orders.findAll().size());
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        Node node = recover(1024);
+        node.service.open(INSTRUMENT_ID);
+        for (long orderId = 1; orderId <= 300; orderId++) {
+            node.addOrder(new Order(orderId, 10, INSTRUMENT_ID, 14.32));
+            if (orderId % 100 == 0) {
+                node.snapshots.take();
+            }
+        }
+        node.journal.close();
+
+        assertFalse(new File(folder.getRoot(), "journal-0000000000.dat").exists());
+        assertEquals(2, folder.getRoot().listFiles((dir, name) -> name.startsWith("snapshot-")).length);
+
+        Node recovered = recover(1024);
+        assertEquals(0, recovered.recovery.getEvents());
+        assertEquals(300, recovered.orderBooks.findByInstrumentId(INSTRUMENT_ID).getOrders().size());
+    }
+
+    @Test
+    public void testCorruptSnapshot() throws Exception {
+        Node node = recover(4096);
+        node.service.open(INSTRUMENT_ID);
+        node.addOrder(new Order(1, 10, INSTRUMENT_ID, 14.32));
+        node.snapshots.take();
+        node.addOrder(new Order(2, 10, INSTRUMENT_ID, 14.32));
+        node.snapshots.take();
+        node.journal.close();
+
+        File[] snapshots = folder.getRoot().listFiles((dir, name) -> name.startsWith("snapshot-"));
+        File latest = snapshots[0].getName().compareTo(snapshots[1].getName()) > 0 ? snapshots[0] : snapshots[1];
+        try (RandomAccessFile file = new RandomAccessFile(latest, "rw")) {
+            file.seek(file.length() - 10);
+            file.write(0xFF);
+        }
+
+        // the older snapshot is loaded and the journal after it is replayed
+        Node recovered = recover(4096);
+        assertEquals(1, recovered.recovery.getEvents());
+        assertEquals(2, recovered.orderBooks.findByInstrumentId(INSTRUMENT_ID).getOrders().size());
+    }
+
+    private Node recover(int segmentSize) throws Exception {
+        Node node = new Node(segmentSize);
+        node.recovery.recover();
+        return node;
+    }
+
+    private class Node {
+
+        final OrderBookRepositoryInMem orderBooks = new OrderBookRepositoryInMem();
+
+        final OrderRepositoryInMem orders = new OrderRepositoryInMem();
+
+        final ExecutionRepositoryInMem executions = new ExecutionRepositoryInMem();
+
+        final MappedJournal journal;
+
+        final OrderBookServiceImpl service;
+
+        final SnapshotStore snapshots;
+
+        final JournalRecovery recovery;
+
+        Node(int segmentSize) {
+            journal = new MappedJournal(folder.getRoot().getPath(), segmentSize, FlushPolicy.ASYNC, 1);
+            service = new OrderBookServiceImpl(orderBooks, orders, executions, FillEvents.NONE, journal);
+            snapshots = new SnapshotStore(journal, orderBooks, orders, executions, FillEvents.NONE, folder.getRoot().getPath(), 0, 2);
+            recovery = new JournalRecovery(journal, snapshots, service, orders, executions, new SimpleMeterRegistry());
+            nodes.add(this);
+        }
+
+        void addOrder(Order order) {
+            // as the order controller does
+            service.addOrder(order);
+            orders.store(order);
+        }
+
+        void addExecution(Execution execution) {
+            service.addExecution(execution);
+            executions.store(execution);
+        }
+    }
+}
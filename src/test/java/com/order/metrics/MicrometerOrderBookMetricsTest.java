@@ -0,0 +1,92 @@
+package com.order.metrics;
+
+import com.order.configuration.PrometheusConfiguration;
+import com.order.event.FillEvents;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.repository.ExecutionRepositoryInMem;
+import com.order.repository.OrderBookRepositoryInMem;
+import com.order.repository.OrderRepositoryInMem;
+import com.order.service.OrderBookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MicrometerOrderBookMetricsTest {
+
+    private final static String INSTRUMENT_ID = "CS";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OrderBookRepositoryInMem orderBookRepository;
+
+    private OrderBookServiceImpl orderBookService;
+
+    @Before
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        orderBookRepository = new OrderBookRepositoryInMem();
+        // every lock acquisition is timed
+        MicrometerOrderBookMetrics metrics = new MicrometerOrderBookMetrics(meterRegistry, orderBookRepository, 1);
+        orderBookService = new OrderBookServiceImpl(orderBookRepository, new OrderRepositoryInMem(), new ExecutionRepositoryInMem(),
+                FillEvents.NONE, null, metrics);
+    }
+
+    @Test
+    public void testMeters() {
+        orderBookService.open(INSTRUMENT_ID);
+        orderBookService.addOrder(new Order(1, 100, INSTRUMENT_ID, 14.30));
+        orderBookService.addOrder(new Order(2, 50, INSTRUMENT_ID, 14.00));
+        orderBookService.addOrders(Arrays.asList(new Order(3, 30, INSTRUMENT_ID, 14.40), new Order(4, 20, INSTRUMENT_ID, null)));
+
+        assertEquals(4.0, meterRegistry.get("order.book.orders").tag("instrument", INSTRUMENT_ID).functionCounter().count(), 0.0);
+        assertEquals(4.0, meterRegistry.get("order.book.depth").tag("instrument", INSTRUMENT_ID).gauge().value(), 0.0);
+        assertEquals(3.0, meterRegistry.get("order.book.price.levels").tag("instrument", INSTRUMENT_ID).gauge().value(), 0.0);
+
+        orderBookService.close(INSTRUMENT_ID);
+        orderBookService.addExecution(new Execution(1, 50, INSTRUMENT_ID, 14.10));
+        orderBookService.addExecutions(Arrays.asList(new Execution(2, 100, INSTRUMENT_ID, 14.10)));
+
+        // the order priced below the execution price is invalid
+        assertEquals(150.0, meterRegistry.get("order.book.demand").tags("instrument", INSTRUMENT_ID, "validity", "valid").gauge().value(), 0.0);
+        assertEquals(50.0, meterRegistry.get("order.book.demand").tags("instrument", INSTRUMENT_ID, "validity", "invalid").gauge().value(), 0.0);
+        assertEquals(3.0, meterRegistry.get("order.book.depth").tag("instrument", INSTRUMENT_ID).gauge().value(), 0.0);
+        assertEquals(6.0, meterRegistry.get("order.book.fills").tag("instrument", INSTRUMENT_ID).functionCounter().count(), 0.0);
+        assertEquals(2, meterRegistry.get("order.book.execute").tag("instrument", INSTRUMENT_ID).timer().count());
+        // open, two orders, one batch, close and two executions
+        assertEquals(7, meterRegistry.get("order.book.lock.wait").timer().count());
+    }
+
+    @Test
+    public void testBindAll() {
+        // a book restored without being opened through the service
+        OrderBook orderBook = new OrderBook(INSTRUMENT_ID);
+        orderBook.open();
+        orderBook.addOrder(new Order(1, 100, INSTRUMENT_ID, 14.30));
+        orderBookRepository.store(orderBook);
+        assertNull(meterRegistry.find("order.book.orders").functionCounter());
+
+        MicrometerOrderBookMetrics metrics = new MicrometerOrderBookMetrics(meterRegistry, orderBookRepository, 64);
+        metrics.bindAll();
+        metrics.bindAll();
+        assertEquals(1.0, meterRegistry.get("order.book.orders").tag("instrument", INSTRUMENT_ID).functionCounter().count(), 0.0);
+        assertEquals(1, meterRegistry.find("order.book.orders").functionCounters().size());
+    }
+
+    @Test
+    public void testInstrumentLimit() {
+        meterRegistry.config().meterFilter(new PrometheusConfiguration().orderBookInstrumentLimit(2));
+        orderBookService.open("CS");
+        orderBookService.open("UBS");
+        orderBookService.open("ABB");
+
+        assertEquals(2, meterRegistry.find("order.book.orders").functionCounters().size());
+        assertNull(meterRegistry.find("order.book.orders").tag("instrument", "ABB").functionCounter());
+    }
+}
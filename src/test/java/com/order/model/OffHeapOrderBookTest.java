@@ -0,0 +1,173 @@
+package com.order.model;
+
+import com.order.enumeration.OrderBookState;
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
+import com.order.factory.OrderBookStatisticsFactory;
+import com.order.valueobject.OrderBookStatistics;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs the order book tests on an off-heap book, and compares off-heap books with heap books.
+ */
+public class OffHeapOrderBookTest extends OrderBookTest {
+
+    private final static String INSTRUMENT_ID = "CS";
+
+    @Override
+    protected OrderBook createOrderBook(String instrumentId) {
+        return new OrderBook(instrumentId, FillEvents.NONE, OrderStorage.OFF_HEAP);
+    }
+
+    @Test
+    public void testOrdersAreCopied() {
+        OrderBook orderBook = createOrderBook(INSTRUMENT_ID);
+        orderBook.open();
+        LocalDateTime entryDate = LocalDateTime.of(2018, 8, 20, 10, 15, 30, 123456789);
+        Order order = new Order(1, 100, INSTRUMENT_ID, 14.32, entryDate);
+        orderBook.addOrder(order);
+        orderBook.addOrder(new Order(2, 50, INSTRUMENT_ID));
+        orderBook.close();
+        orderBook.addExecution(new Execution(1, 60, INSTRUMENT_ID, 14.30));
+
+        // the order added is not filled, the order read from the book is
+        assertEquals(0, order.getExecutionQuantity());
+        Order booked = orderBook.getOrder(1);
+        assertNotSame(order, booked);
+        assertTrue(orderBook.holdsOrder(order));
+        assertEquals(40, booked.getExecutionQuantity());
+        assertEquals(14.30, booked.getExecutionPrice(), 0.0);
+        assertEquals(14.32, booked.getOrderPrice(), 0.0);
+        assertEquals(entryDate, booked.getEntryDate());
+        assertEquals(INSTRUMENT_ID, booked.getInstrumentId());
+        assertEquals(null, orderBook.getOrder(2).getOrderPrice());
+        assertEquals(20, orderBook.getOrder(2).getExecutionQuantity());
+    }
+
+    @Test
+    public void testSameAsHeap() {
+        // more orders than a chunk of columns holds
+        List<long[]> heapFills = new ArrayList<>();
+        List<long[]> offHeapFills = new ArrayList<>();
+        OrderBook heap = new OrderBook(INSTRUMENT_ID, recorder(heapFills), OrderStorage.HEAP);
+        OrderBook offHeap = new OrderBook(INSTRUMENT_ID, recorder(offHeapFills), OrderStorage.OFF_HEAP);
+        heap.open();
+        offHeap.open();
+
+        Random random = new Random(11);
+        LocalDateTime start = LocalDateTime.of(2018, 8, 20, 10, 0);
+        for (int i = 0; i < 100000; i++) {
+            // some orders are replaced
+            long orderId = 1 + random.nextInt(90000);
+            int quantity = 1 + random.nextInt(1000);
+            Double price = random.nextInt(10) == 0 ? null : 14.00 + random.nextInt(100) / 100.0;
+            LocalDateTime entryDate = start.plusNanos(random.nextInt(1000000000));
+            heap.addOrder(new Order(orderId, quantity, INSTRUMENT_ID, price, entryDate));
+            offHeap.addOrder(new Order(orderId, quantity, INSTRUMENT_ID, price, entryDate));
+        }
+        assertEquals(heap.getPriceLevelCount(), offHeap.getPriceLevelCount());
+        assertEquals(heap.getMinOrder().getOrderQuantity(), offHeap.getMinOrder().getOrderQuantity());
+        assertEquals(heap.getMaxOrder().getOrderQuantity(), offHeap.getMaxOrder().getOrderQuantity());
+        assertEquals(heap.getFirstOrder().getEntryDate(), offHeap.getFirstOrder().getEntryDate());
+        assertEquals(heap.getLastOrder().getEntryDate(), offHeap.getLastOrder().getEntryDate());
+
+        heap.close();
+        offHeap.close();
+        for (int i = 1; i <= 3; i++) {
+            heap.addExecution(new Execution(i, heap.getValidDemand() / 4, INSTRUMENT_ID, 14.50));
+            offHeap.addExecution(new Execution(i, offHeap.getValidDemand() / 4, INSTRUMENT_ID, 14.50));
+        }
+
+        assertSameAggregates(heap, offHeap);
+        assertEquals(heap.getPriceLevelCount(), offHeap.getPriceLevelCount());
+        assertEquals(heap.getFillCount(), offHeap.getFillCount());
+        assertEquals(heapFills.size(), offHeapFills.size());
+        for (Order order : heap.getOrders()) {
+            Order booked = offHeap.getOrder(order.getOrderId());
+            assertEquals(order.getOrderQuantity(), booked.getOrderQuantity());
+            assertEquals(order.getExecutionQuantity(), booked.getExecutionQuantity());
+            assertEquals(order.getExecutionPrice(), booked.getExecutionPrice(), 0.0);
+            assertEquals(order.isInvalid(), booked.isInvalid());
+        }
+
+        OrderBookStatistics heapStatistics = OrderBookStatisticsFactory.createOrderBookStatistics(heap);
+        OrderBookStatistics offHeapStatistics = OrderBookStatisticsFactory.createOrderBookStatistics(offHeap);
+        assertEquals(heapStatistics.getLimitBreakdown(), offHeapStatistics.getLimitBreakdown());
+        assertEquals(heapStatistics.getValidDemand(), offHeapStatistics.getValidDemand());
+        assertEquals(heapStatistics.getExecutionAmount(), offHeapStatistics.getExecutionAmount());
+    }
+
+    @Test
+    public void testRestore() {
+        Order filled = new Order(1, 100, INSTRUMENT_ID, 14.32);
+        filled.setExecutionQuantity(40);
+        filled.setExecutionPrice(14.30);
+        Order invalid = new Order(2, 50, INSTRUMENT_ID, 14.10);
+        invalid.setInvalid(true);
+
+        OrderBook orderBook = createOrderBook(INSTRUMENT_ID);
+        orderBook.restore(OrderBookState.CLOSED, 14.30, Arrays.asList(filled, invalid, new Order(3, 60, INSTRUMENT_ID)),
+                Arrays.asList(new Execution(1, 40, INSTRUMENT_ID, 14.30)));
+
+        assertEquals(210, orderBook.getTotalDemand());
+        assertEquals(50, orderBook.getInvalidDemand());
+        assertEquals(40, orderBook.getExecutionAmount());
+        assertEquals(1, orderBook.getPriceLevelCount());
+        assertTrue(orderBook.getOrder(2).isInvalid());
+        assertFalse(orderBook.isExecuted());
+
+        // the restored fill caps the fill of the first order
+        orderBook.addExecution(new Execution(2, 120, INSTRUMENT_ID, 14.30));
+        assertEquals(100, orderBook.getOrder(1).getExecutionQuantity());
+        assertEquals(45, orderBook.getOrder(3).getExecutionQuantity());
+        assertEquals(145, orderBook.getExecutionAmount());
+    }
+
+    @Test
+    public void testRelease() {
+        OrderBook orderBook = createOrderBook(INSTRUMENT_ID);
+        orderBook.open();
+        // more orders than the first chunk holds before it grows
+        for (int i = 1; i <= 5000; i++) {
+            orderBook.addOrder(new Order(i, 10, INSTRUMENT_ID, 14.32));
+        }
+        assertEquals(10, orderBook.getOrder(5000).getOrderQuantity());
+
+        // the orders replaced by a restore are dropped
+        orderBook.restore(OrderBookState.OPEN, (Double) null, Arrays.asList(new Order(1, 20, INSTRUMENT_ID, 14.32)), Collections.emptyList());
+        assertEquals(20, orderBook.getOrder(1).getOrderQuantity());
+        assertNull(orderBook.getOrder(5000));
+
+        orderBook.release();
+        assertNull(orderBook.getOrder(1));
+        assertEquals(0, orderBook.getPriceLevelCount());
+        orderBook.forEachRow((orderId, orderQuantity, executionQuantity, orderPrice, entryNanos, invalid) -> fail("Order is released"));
+    }
+
+    private static void assertSameAggregates(OrderBook expected, OrderBook actual) {
+        assertEquals(expected.getTotalDemand(), actual.getTotalDemand());
+        assertEquals(expected.getInvalidDemand(), actual.getInvalidDemand());
+        assertEquals(expected.getExecutionAmount(), actual.getExecutionAmount());
+        assertEquals(expected.getValidOrderCount(), actual.getValidOrderCount());
+        assertEquals(expected.getInvalidOrderCount(), actual.getInvalidOrderCount());
+    }
+
+    private static FillEvents recorder(List<long[]> fills) {
+        return (instrumentId, executionId, orderId, fillQuantity, executionQuantity, orderQuantity, executionPrice) ->
+                fills.add(new long[]{executionId, orderId, fillQuantity});
+    }
+}
@@ -5,9 +5,13 @@ import com.order.enumeration.OrderBookState;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class OrderBookTest {
 
@@ -26,7 +30,11 @@ public class OrderBookTest {
 
     @Before
     public void init() {
-        orderBook = new OrderBook(INSTRUMENT_ID_1);
+        orderBook = createOrderBook(INSTRUMENT_ID_1);
+    }
+
+    protected OrderBook createOrderBook(String instrumentId) {
+        return new OrderBook(instrumentId);
     }
 
     @Test
@@ -153,4 +161,116 @@ public class OrderBookTest {
         assertEquals(100, orderBook.getOrder(ORDER_ID_1).getExecutionQuantity());
         assertEquals(50, orderBook.getOrder(ORDER_ID_2).getExecutionQuantity());
     }
+
+    @Test
+    public void testAggregates() {
+        orderBook.open();
+        orderBook.addOrder(new Order(ORDER_ID_1, 100, INSTRUMENT_ID_1, 14.34));
+        orderBook.addOrder(new Order(ORDER_ID_2, 50, INSTRUMENT_ID_1, 14.31));
+        orderBook.addOrder(new Order(3, 30, INSTRUMENT_ID_1));
+        orderBook.addOrder(new Order(3, 20, INSTRUMENT_ID_1));
+        assertEquals(170, orderBook.getTotalDemand());
+        assertEquals(170, orderBook.getValidDemand());
+        assertEquals(0, orderBook.getInvalidDemand());
+        assertEquals(3L, orderBook.getValidOrderCount());
+        orderBook.close();
+        orderBook.addExecution(new Execution(EXECUTION_ID_1, 60, INSTRUMENT_ID_1, 14.32));
+        assertEquals(170, orderBook.getTotalDemand());
+        assertEquals(120, orderBook.getValidDemand());
+        assertEquals(50, orderBook.getInvalidDemand());
+        assertEquals(1L, orderBook.getInvalidOrderCount());
+        assertEquals(2L, orderBook.getValidOrderCount());
+        assertEquals(60, orderBook.getExecutionAmount());
+        assertFalse(orderBook.isExecuted());
+        orderBook.addExecution(new Execution(EXECUTION_ID_2, 60, INSTRUMENT_ID_1, 14.32));
+        assertEquals(120, orderBook.getExecutionAmount());
+        assertTrue(orderBook.isExecuted());
+    }
+
+    @Test
+    public void testAddExecutionMarketOrders() {
+        orderBook.open();
+        orderBook.addOrder(new Order(ORDER_ID_1, 100, INSTRUMENT_ID_1));
+        orderBook.addOrder(new Order(ORDER_ID_2, 50, INSTRUMENT_ID_1, 14.31));
+        orderBook.addOrder(new Order(3, 50, INSTRUMENT_ID_1, 14.29));
+        orderBook.close();
+        orderBook.addExecution(new Execution(EXECUTION_ID_1, 100, INSTRUMENT_ID_1, 14.32));
+        assertTrue(orderBook.isExecuted());
+        assertFalse(orderBook.getOrder(ORDER_ID_1).isInvalid());
+        assertTrue(orderBook.getOrder(ORDER_ID_2).isInvalid());
+        assertTrue(orderBook.getOrder(3).isInvalid());
+        assertEquals(100, orderBook.getOrder(ORDER_ID_1).getExecutionQuantity());
+        assertEquals(2L, orderBook.getInvalidOrderCount());
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void testAddOrdersWhenClosed() {
+        orderBook.addOrders(Arrays.asList(new Order(ORDER_ID_1, ORDER_QUANTITY, INSTRUMENT_ID_1, ORDER_PRICE)));
+    }
+
+    @Test
+    public void testAddOrdersAndExecutions() {
+        orderBook.open();
+        OrderBookException[] rejections = orderBook.addOrders(Arrays.asList(
+                new Order(ORDER_ID_1, 100, INSTRUMENT_ID_1, 14.34),
+                new Order(ORDER_ID_2, 50, INSTRUMENT_ID_2, 14.31),
+                new Order(3, 50, INSTRUMENT_ID_1, 14.31)));
+        assertNull(rejections[0]);
+        assertNotNull(rejections[1]);
+        assertNull(rejections[2]);
+        assertEquals(2, orderBook.getOrders().size());
+        assertEquals(150, orderBook.getTotalDemand());
+        orderBook.close();
+        rejections = orderBook.addExecutions(Arrays.asList(
+                new Execution(EXECUTION_ID_1, 100, INSTRUMENT_ID_1, 14.30),
+                new Execution(EXECUTION_ID_2, 50, INSTRUMENT_ID_1, 14.32),
+                new Execution(3, 50, INSTRUMENT_ID_1, 14.30)));
+        assertNull(rejections[0]);
+        assertNotNull(rejections[1]);
+        assertNull(rejections[2]);
+        assertTrue(orderBook.isExecuted());
+        assertFalse(orderBook.containsExecution(EXECUTION_ID_2));
+    }
+
+    @Test
+    public void testExactPrices() {
+        orderBook.open();
+        orderBook.addOrder(new Order(ORDER_ID_1, 100, INSTRUMENT_ID_1, 0.3));
+        orderBook.addOrder(new Order(ORDER_ID_2, 50, INSTRUMENT_ID_1, 0.2999));
+        orderBook.close();
+        // 0.1 + 0.2 is not 0.3 as a double, the engine rounds it to the same tick; the REST and gateway edge reject it
+        orderBook.addExecution(new Execution(EXECUTION_ID_1, 50, INSTRUMENT_ID_1, 0.1 + 0.2));
+        assertEquals(Prices.toTicks(0.3), orderBook.getExecutionPriceTicks());
+        assertFalse(orderBook.getOrder(ORDER_ID_1).isInvalid());
+        assertTrue(orderBook.getOrder(ORDER_ID_2).isInvalid());
+        assertEquals(Prices.toTicks(0.3), orderBook.getOrder(ORDER_ID_1).getExecutionPriceTicks());
+
+        // a price one tick apart is a different price
+        OrderBookException[] rejections = orderBook.addExecutions(Arrays.asList(
+                new Execution(EXECUTION_ID_2, 10, INSTRUMENT_ID_1, 0.3001),
+                new Execution(3, 10, INSTRUMENT_ID_1, 0.30000001)));
+        assertNotNull(rejections[0]);
+        assertNull(rejections[1]);
+        assertEquals(60, orderBook.getExecutionAmount());
+    }
+
+    @Test
+    public void testVersion() {
+        long version = orderBook.getVersion();
+        orderBook.open();
+        assertTrue(orderBook.getVersion() > version);
+        version = orderBook.getVersion();
+        orderBook.addOrder(new Order(ORDER_ID_1, ORDER_QUANTITY, INSTRUMENT_ID_1, ORDER_PRICE));
+        assertTrue(orderBook.getVersion() > version);
+        version = orderBook.getVersion();
+        try {
+            orderBook.addOrder(new Order(ORDER_ID_2, ORDER_QUANTITY, INSTRUMENT_ID_2, ORDER_PRICE));
+        } catch (OrderBookException ex) {
+            assertEquals(version, orderBook.getVersion());
+        }
+        orderBook.close();
+        version = orderBook.getVersion();
+        orderBook.addExecution(new Execution(EXECUTION_ID_1, EXECUTION_QUANTITY, INSTRUMENT_ID_1, EXECUTION_PRICE));
+        assertTrue(orderBook.getVersion() > version);
+    }
 }
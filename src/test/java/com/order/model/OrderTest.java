@@ -41,6 +41,19 @@ public class OrderTest {
         order.setExecutionQuantity(150);
     }
 
+    @Test
+    public void testPriceTicks() {
+        final Order order = new Order(ORDER_ID, ORDER_QUANTITY, INSTRUMENT_ID, ORDER_PRICE);
+        assertThat(order.getOrderPriceTicks()).isEqualTo(143500);
+        assertThat(order.getOrderPrice()).isEqualTo(ORDER_PRICE);
+        order.setExecutionPrice(14.3);
+        assertThat(order.getExecutionPriceTicks()).isEqualTo(143000);
+
+        final Order market = new Order(ORDER_ID, ORDER_QUANTITY, INSTRUMENT_ID);
+        assertThat(market.getOrderPriceTicks()).isEqualTo(Prices.NONE);
+        assertThat(market.getOrderPrice()).isNull();
+    }
+
     @Test
     public void testEquality() {
         Order o1 = new Order(1, 100, "CS", 34.12);
@@ -0,0 +1,43 @@
+package com.order.model;
+
+import com.order.common.OrderBookException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PricesTest {
+
+    @Test
+    public void testToExactTicks() {
+        assertEquals(143200, Prices.toExactTicks(14.32));
+        assertEquals(-3, Prices.toExactTicks(-0.0003));
+        assertEquals(Prices.NONE, Prices.toExactTicks(null));
+        assertEquals(Prices.MAX_TICKS, Prices.toExactTicks(Prices.toPrice(Prices.MAX_TICKS)));
+    }
+
+    @Test
+    public void testToExactTicksRejected() {
+        for (double price : new double[]{29.99995, 14.32001, -1e300, 1e300, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            try {
+                Prices.toExactTicks(price);
+                fail(String.format("Price should be rejected! price=%s", price));
+            } catch (OrderBookException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testToTicksNeverNone() {
+        assertEquals(300000, Prices.toTicks(29.99995));
+        for (double price : new double[]{-1e300, Double.NaN, Double.NEGATIVE_INFINITY}) {
+            try {
+                Prices.toTicks(price);
+                fail(String.format("Price should be out of range! price=%s", price));
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.order.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProRataFillEngineTest {
+
+    private final static String INSTRUMENT_ID = "CS";
+
+    @Test
+    public void testAllocate() {
+        ProRataFillEngine engine = new ProRataFillEngine();
+        engine.add(new Order(1, 100, INSTRUMENT_ID, 14.34));
+        engine.add(new Order(2, 50, INSTRUMENT_ID, 14.31));
+        engine.allocate(100);
+        assertEquals(2, engine.size());
+        assertEquals(67, engine.getFill(0));
+        assertEquals(33, engine.getFill(1));
+    }
+
+    @Test
+    public void testAllocateCappedByRemainingQuantity() {
+        ProRataFillEngine engine = new ProRataFillEngine();
+        Order order = new Order(1, 100, INSTRUMENT_ID);
+        order.setExecutionQuantity(90);
+        engine.add(order);
+        engine.add(new Order(2, 100, INSTRUMENT_ID));
+        engine.allocate(100);
+        assertEquals(10, engine.getFill(0));
+        assertEquals(50, engine.getFill(1));
+    }
+
+    @Test
+    public void testAllocateSameAsWeights() {
+        Random random = new Random(7);
+        ProRataFillEngine engine = new ProRataFillEngine();
+        for (int round = 0; round < 10; round++) {
+            List<Order> orders = new ArrayList<>();
+            int total = 0;
+            for (int i = 0; i < 1000; i++) {
+                Order order = new Order(i, 1 + random.nextInt(500), INSTRUMENT_ID);
+                orders.add(order);
+                total += order.getOrderQuantity();
+            }
+            int executionQuantity = random.nextInt(total);
+
+            engine.reset();
+            orders.forEach(engine::add);
+            engine.allocate(executionQuantity);
+
+            double sum = total;
+            for (int i = 0; i < orders.size(); i++) {
+                Order order = orders.get(i);
+                int weightedQty = Math.toIntExact(Math.round(order.getOrderQuantity() / sum * executionQuantity));
+                assertEquals(Math.min(order.getOrderQuantity(), weightedQty), engine.getFill(i));
+            }
+        }
+    }
+}
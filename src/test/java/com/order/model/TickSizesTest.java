@@ -0,0 +1,35 @@
+package com.order.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TickSizesTest {
+
+    @Test
+    public void testParse() {
+        TickSizes tickSizes = TickSizes.parse(0.01, new String[]{"UBS:0.05", " NESN : 1 ", ""});
+        assertEquals(100, tickSizes.of("CS"));
+        assertEquals(500, tickSizes.of("UBS"));
+        assertEquals(10000, tickSizes.of("NESN"));
+    }
+
+    @Test
+    public void testIsValid() {
+        TickSizes tickSizes = TickSizes.parse(0.01, new String[]{"UBS:0.05"});
+        assertTrue(tickSizes.isValid("CS", Prices.toTicks(14.32)));
+        assertFalse(tickSizes.isValid("CS", Prices.toTicks(14.325)));
+        assertTrue(tickSizes.isValid("UBS", Prices.toTicks(14.35)));
+        assertFalse(tickSizes.isValid("UBS", Prices.toTicks(14.32)));
+        // market orders have no price
+        assertTrue(tickSizes.isValid("UBS", Prices.NONE));
+        assertTrue(TickSizes.NONE.isValid("CS", Prices.toTicks(14.3201)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTickSizeBelowPriceTick() {
+        TickSizes.parse(0.00005, new String[0]);
+    }
+}
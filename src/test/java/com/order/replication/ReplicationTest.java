@@ -0,0 +1,171 @@
+package com.order.replication;
+
+import com.order.enumeration.FlushPolicy;
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
+import com.order.journal.JournalRecovery;
+import com.order.journal.MappedJournal;
+import com.order.journal.SnapshotStore;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.repository.ExecutionRepositoryInMem;
+import com.order.repository.OrderBookRepositoryInMem;
+import com.order.repository.OrderRepositoryInMem;
+import com.order.service.OrderBookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicationTest {
+
+    private final static String INSTRUMENT_ID = "CS";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final OrderBookRepositoryInMem orderBooks = new OrderBookRepositoryInMem();
+
+    private final OrderRepositoryInMem orders = new OrderRepositoryInMem();
+
+    private final ExecutionRepositoryInMem executions = new ExecutionRepositoryInMem();
+
+    private final List<ReplicationStandby> standbys = new ArrayList<>();
+
+    private MappedJournal journal;
+
+    private OrderBookServiceImpl service;
+
+    private SnapshotStore snapshots;
+
+    private ReplicationPrimary primary;
+
+    @Before
+    public void setUp() throws Exception {
+        journal = new MappedJournal(folder.getRoot().getPath(), 1024, FlushPolicy.ASYNC, 1);
+        service = new OrderBookServiceImpl(orderBooks, orders, executions, FillEvents.NONE, journal);
+        snapshots = new SnapshotStore(journal, orderBooks, orders, executions, FillEvents.NONE, folder.getRoot().getPath(), 0, 1);
+        new JournalRecovery(journal, snapshots, service, orders, executions, new SimpleMeterRegistry()).recover();
+        primary = new ReplicationPrimary(journal, snapshots, new SimpleMeterRegistry(), 0, 1024, 100);
+        primary.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (ReplicationStandby standby : standbys) {
+            standby.stop();
+        }
+        primary.stop();
+        journal.close();
+    }
+
+    @Test
+    public void testReplicate() throws Exception {
+        Standby standby = new Standby();
+        service.open(INSTRUMENT_ID);
+        // more events than a frame and a journal segment hold
+        for (int i = 1; i <= 100; i++) {
+            addOrder(new Order(i, 10, INSTRUMENT_ID, i % 2 == 0 ? 14.32 : 13.0));
+        }
+        service.close(INSTRUMENT_ID);
+        addExecution(new Execution(1, 300, INSTRUMENT_ID, 14.0));
+
+        standby.awaitSequence(journal.getAppended());
+        assertEquals(0, primary.getLag());
+        assertEquals(0, standby.replication.getLag());
+        assertSameBook(orderBooks.findByInstrumentId(INSTRUMENT_ID), standby.orderBooks.findByInstrumentId(INSTRUMENT_ID));
+        assertEquals(100, standby.orders.findAll().size());
+
+        // the promoted standby refuses nothing and allocates ids after the replicated ones
+        assertFalse(standby.replication.isPromoted());
+        standby.replication.promote();
+        assertTrue(standby.replication.isPromoted());
+        assertFalse(standby.replication.isConnected());
+        assertEquals(101, standby.orders.nextOrderId());
+        assertEquals(2, standby.executions.nextExecutionId());
+    }
+
+    @Test
+    public void testSnapshotForNewStandby() throws Exception {
+        service.open(INSTRUMENT_ID);
+        for (int i = 1; i <= 50; i++) {
+            addOrder(new Order(i, 10, INSTRUMENT_ID, 14.32));
+        }
+        // the first segments are deleted with the snapshot
+        snapshots.take();
+        service.close(INSTRUMENT_ID);
+        addExecution(new Execution(1, 100, INSTRUMENT_ID, 14.0));
+
+        Standby standby = new Standby();
+        standby.awaitSequence(journal.getAppended());
+        OrderBook orderBook = standby.orderBooks.findByInstrumentId(INSTRUMENT_ID);
+        assertSameBook(orderBooks.findByInstrumentId(INSTRUMENT_ID), orderBook);
+        assertEquals(100, orderBook.getExecutionAmount());
+        assertNotNull(standby.executions.findByExecutionId(1));
+
+        // the events after the snapshot keep streaming
+        addExecution(new Execution(2, 100, INSTRUMENT_ID, 14.0));
+        standby.awaitSequence(journal.getAppended());
+        assertEquals(200, orderBook.getExecutionAmount());
+    }
+
+    private void addOrder(Order order) {
+        // as the order controller does
+        service.addOrder(order);
+        orders.store(order);
+    }
+
+    private void addExecution(Execution execution) {
+        service.addExecution(execution);
+        executions.store(execution);
+    }
+
+    private static void assertSameBook(OrderBook expected, OrderBook actual) {
+        assertEquals(expected.getState(), actual.getState());
+        assertEquals(expected.getTotalDemand(), actual.getTotalDemand());
+        assertEquals(expected.getValidDemand(), actual.getValidDemand());
+        assertEquals(expected.getExecutionAmount(), actual.getExecutionAmount());
+        assertEquals(expected.getOrders().size(), actual.getOrders().size());
+        for (Order order : expected.getOrders()) {
+            assertEquals(order.getExecutionQuantity(), actual.getOrder(order.getOrderId()).getExecutionQuantity());
+        }
+    }
+
+    private class Standby {
+
+        final OrderBookRepositoryInMem orderBooks = new OrderBookRepositoryInMem();
+
+        final OrderRepositoryInMem orders = new OrderRepositoryInMem();
+
+        final ExecutionRepositoryInMem executions = new ExecutionRepositoryInMem();
+
+        final ReplicationStandby replication;
+
+        Standby() {
+            OrderBookServiceImpl service = new OrderBookServiceImpl(orderBooks, orders, executions, FillEvents.NONE);
+            replication = new ReplicationStandby(service, orderBooks, orders, executions, FillEvents.NONE, new SimpleMeterRegistry(),
+                    OrderStorage.HEAP, "localhost:" + primary.getPort(), 100);
+            replication.start();
+            standbys.add(replication);
+        }
+
+        void awaitSequence(long sequence) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (replication.getPosition().getSequence() < sequence || primary.getAcknowledged() < sequence) {
+                assertTrue("Replication did not catch up", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+        }
+    }
+}
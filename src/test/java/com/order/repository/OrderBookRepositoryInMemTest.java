@@ -0,0 +1,21 @@
+package com.order.repository;
+
+import com.order.model.OrderBook;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class OrderBookRepositoryInMemTest {
+
+    @Test
+    public void testFindWithoutInstrument() {
+        OrderBookRepositoryInMem orderBookRepository = new OrderBookRepositoryInMem(4);
+        OrderBook orderBook = new OrderBook("CS");
+        orderBookRepository.store(orderBook);
+
+        // an order without instrument finds no book instead of failing
+        assertNull(orderBookRepository.findByInstrumentId(null));
+        assertSame(orderBook, orderBookRepository.findByInstrumentId("CS"));
+    }
+}
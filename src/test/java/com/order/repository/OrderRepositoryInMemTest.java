@@ -0,0 +1,140 @@
+package com.order.repository;
+
+import com.order.model.Order;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OrderRepositoryInMemTest {
+
+    private final static String INSTRUMENT_ID_1 = "CS";
+    private final static String INSTRUMENT_ID_2 = "UBS";
+
+    private OrderRepository orderRepository;
+
+    @Before
+    public void init() {
+        orderRepository = new OrderRepositoryInMem();
+    }
+
+    @Test
+    public void testFindByInstrumentId() {
+        for (long orderId = 1; orderId <= 100; orderId++) {
+            orderRepository.store(new Order(orderId, 100, orderId % 2 == 0 ? INSTRUMENT_ID_1 : INSTRUMENT_ID_2, 14.32));
+        }
+        orderRepository.store(new Order(2, 50, INSTRUMENT_ID_1, 14.31));
+
+        Collection<Order> orders = orderRepository.findByInstrumentId(INSTRUMENT_ID_1);
+        assertEquals(50, orders.size());
+        List<Long> orderIds = new ArrayList<>();
+        for (Order order : orders) {
+            assertEquals(INSTRUMENT_ID_1, order.getInstrumentId());
+            orderIds.add(order.getOrderId());
+        }
+        assertEquals(2L, orderIds.get(0).longValue());
+        assertEquals(100L, orderIds.get(49).longValue());
+        assertEquals(50, orders.iterator().next().getOrderQuantity());
+
+        assertTrue(orderRepository.findByInstrumentId("ABB").isEmpty());
+        assertEquals(100, orderRepository.findAll().size());
+    }
+
+    @Test
+    public void testFindByInstrumentIdView() {
+        orderRepository.store(new Order(1, 100, INSTRUMENT_ID_1));
+        Collection<Order> orders = orderRepository.findByInstrumentId(INSTRUMENT_ID_1);
+        orderRepository.store(new Order(2, 100, INSTRUMENT_ID_1));
+        assertEquals(1, orders.size());
+        assertEquals(Arrays.asList(1L, 2L), orderRepository.findByInstrumentId(INSTRUMENT_ID_1).stream().map(Order::getOrderId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFindByIdRange() {
+        // stored out of id order, as concurrent requests do
+        long[] orderIds = {3, 1, 2, 6, 5, 4, 9, 7, 8, 10};
+        for (long orderId : orderIds) {
+            orderRepository.store(new Order(orderId, 100, orderId % 3 == 0 ? INSTRUMENT_ID_1 : INSTRUMENT_ID_2, 14.32));
+        }
+        orderRepository.store(new Order(5, 50, INSTRUMENT_ID_2, 14.32));
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), ids(orderRepository.findByIdRange(null, 0, Long.MAX_VALUE)));
+        assertEquals(Arrays.asList(4L, 5L, 6L, 7L), ids(orderRepository.findByIdRange(null, 4, 7)));
+        assertEquals(4, orderRepository.findByIdRange(null, 4, 7).size());
+        assertEquals(Arrays.asList(3L, 6L, 9L), ids(orderRepository.findByIdRange(INSTRUMENT_ID_1, 0, Long.MAX_VALUE)));
+        assertEquals(Arrays.asList(5L, 7L), ids(orderRepository.findByIdRange(INSTRUMENT_ID_2, 5, 7)));
+        assertEquals(2, orderRepository.findByIdRange(INSTRUMENT_ID_2, 5, 7).size());
+        assertTrue(orderRepository.findByIdRange(INSTRUMENT_ID_1, 7, 5).isEmpty());
+        assertTrue(orderRepository.findByIdRange("ABB", 0, Long.MAX_VALUE).isEmpty());
+    }
+
+    private static List<Long> ids(Collection<Order> orders) {
+        return orders.stream().map(Order::getOrderId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testStoreWithoutInstrument() {
+        orderRepository.store(new Order(1, 100, null, 14.32));
+        orderRepository.store(new Order(2, 100, INSTRUMENT_ID_1, 14.32));
+        assertEquals(100, orderRepository.findByOrderId(1).getOrderQuantity());
+        assertTrue(orderRepository.findByInstrumentId(null).isEmpty());
+        assertEquals(1, orderRepository.findByIdRange(null, 1, 2).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStoreWithAnotherInstrument() {
+        orderRepository.store(new Order(1, 100, INSTRUMENT_ID_1, 14.32));
+        try {
+            orderRepository.store(new Order(1, 100, INSTRUMENT_ID_2, 14.32));
+        } finally {
+            assertEquals(INSTRUMENT_ID_1, orderRepository.findByOrderId(1).getInstrumentId());
+            assertTrue(orderRepository.findByInstrumentId(INSTRUMENT_ID_2).isEmpty());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testStoreInterleavedIdBlocks() throws InterruptedException {
+        // each thread stores its id blocks from the last one, so most ids are stored before smaller ones
+        int threadCount = 4;
+        int blockCount = 25;
+        int blockSize = 1000;
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int thread = t;
+            writers.add(new Thread(() -> {
+                for (int block = blockCount - 1 - thread; block >= 0; block -= threadCount) {
+                    for (long orderId = block * blockSize + 1; orderId <= (block + 1) * blockSize; orderId++) {
+                        orderRepository.store(new Order(orderId, 100, INSTRUMENT_ID_1, 14.32));
+                    }
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+
+        boolean running = true;
+        while (running) {
+            running = writers.stream().anyMatch(Thread::isAlive);
+            List<Long> orderIds = ids(orderRepository.findByInstrumentId(INSTRUMENT_ID_1));
+            for (int i = 1; i < orderIds.size(); i++) {
+                assertTrue(orderIds.get(i - 1) < orderIds.get(i));
+            }
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        List<Long> orderIds = ids(orderRepository.findByInstrumentId(INSTRUMENT_ID_1));
+        assertEquals(blockCount * blockSize, orderIds.size());
+        for (int i = 0; i < orderIds.size(); i++) {
+            assertEquals(i + 1, orderIds.get(i).longValue());
+        }
+        assertEquals(Arrays.asList(1000L, 1001L), ids(orderRepository.findByIdRange(INSTRUMENT_ID_1, 1000, 1001)));
+    }
+}
@@ -0,0 +1,59 @@
+package com.order.repository;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class ShardedStoreTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShardCountNotPowerOfTwo() {
+        new ShardedStore<Long, String>(3);
+    }
+
+    @Test
+    public void testPutAndGet() {
+        ShardedStore<Long, String> store = new ShardedStore<>(4);
+        for (long i = 0; i < 1000; i++) {
+            store.put(i, Long.toString(i));
+        }
+        store.put(7L, "seven");
+        assertEquals(1000, store.size());
+        assertEquals("seven", store.get(7L));
+        assertEquals("999", store.get(999L));
+        assertNull(store.get(1000L));
+    }
+
+    @Test
+    public void testValues() {
+        ShardedStore<String, String> store = new ShardedStore<>(1);
+        assertEquals(0, store.values().size());
+        assertEquals(false, store.values().iterator().hasNext());
+
+        store = new ShardedStore<>(8);
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            store.put("I" + i, "V" + i);
+            expected.add("V" + i);
+        }
+        assertEquals(100, store.values().size());
+        assertEquals(expected, new HashSet<>(store.values()));
+    }
+
+    @Test
+    public void testNullKey() {
+        ShardedStore<String, String> store = new ShardedStore<>(8);
+        assertNull(store.get(null));
+        try {
+            store.put(null, "V");
+            fail("Null key should be rejected");
+        } catch (NullPointerException ex) {
+            assertEquals(0, store.size());
+        }
+    }
+}
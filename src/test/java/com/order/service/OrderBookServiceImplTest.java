@@ -0,0 +1,153 @@
+package com.order.service;
+
+import com.order.common.OrderBookException;
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
+import com.order.journal.Journal;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.TickSizes;
+import com.order.repository.ExecutionRepositoryInMem;
+import com.order.repository.OrderBookRepositoryInMem;
+import com.order.repository.OrderRepositoryInMem;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OrderBookServiceImplTest {
+
+    private final static String INSTRUMENT_ID = "NESN";
+
+    @Test
+    public void testJournalWithoutBookBeforeOpen() throws Exception {
+        CountDownLatch appending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> events = new CopyOnWriteArrayList<>();
+        OrderBookServiceImpl orderBookService = new OrderBookServiceImpl(new OrderBookRepositoryInMem(), new OrderRepositoryInMem(),
+                new ExecutionRepositoryInMem(), FillEvents.NONE, new RecordingJournal(events) {
+
+            @Override
+            public long appendOrder(Order order) {
+                // the order found no book, the book is opened while it is journaled
+                appending.countDown();
+                await(release);
+                return super.appendOrder(order);
+            }
+        });
+
+        Thread adding = new Thread(() -> orderBookService.addOrder(new Order(1, 10, INSTRUMENT_ID, 14.32)));
+        adding.start();
+        assertTrue(appending.await(5, TimeUnit.SECONDS));
+        Thread opening = new Thread(() -> orderBookService.open(INSTRUMENT_ID));
+        opening.start();
+        opening.join(200);
+
+        release.countDown();
+        adding.join();
+        opening.join();
+
+        // the order is replayed before the open, so the recovered book does not hold it either
+        assertEquals(Arrays.asList("ORDER", "OPEN"), events);
+        assertEquals(0, orderBookService.findByInstrumentId(INSTRUMENT_ID).getOrderCount());
+    }
+
+    @Test
+    public void testBatchAsSingle() {
+        // open, closed and missing book, without instrument and off the tick size
+        List<Order> orders = Arrays.asList(new Order(2, 10, "CS", 14.32), new Order(3, 10, "UBS", 14.32), new Order(4, 10, INSTRUMENT_ID, 14.32),
+                new Order(5, 10, null, 14.32), new Order(6, 10, "CS", 14.325));
+        // open and missing book, off the tick size, executing the book and after the book is executed
+        List<Execution> executions = Arrays.asList(new Execution(1, 10, "CS", 14.32), new Execution(2, 10, INSTRUMENT_ID, 14.32),
+                new Execution(3, 10, "UBS", 14.325), new Execution(4, 100, "UBS", 14.32), new Execution(5, 10, "UBS", 14.32));
+
+        OrderBookServiceImpl single = createOrderBookService();
+        OrderBookServiceImpl batch = createOrderBookService();
+        OrderBookException[] rejections = batch.addOrders(orders);
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            assertEquals(order.toString(), rejections[i] == null, isAccepted(() -> single.addOrder(order)));
+        }
+        rejections = batch.addExecutions(executions);
+        for (int i = 0; i < executions.size(); i++) {
+            Execution execution = executions.get(i);
+            assertEquals(execution.toString(), rejections[i] == null, isAccepted(() -> single.addExecution(execution)));
+        }
+        assertTrue(batch.findByInstrumentId("UBS").isExecuted());
+    }
+
+    private static OrderBookServiceImpl createOrderBookService() {
+        OrderBookServiceImpl orderBookService = new OrderBookServiceImpl(new OrderBookRepositoryInMem(), new OrderRepositoryInMem(),
+                new ExecutionRepositoryInMem(), FillEvents.NONE, null, null, OrderStorage.HEAP, TickSizes.parse(0.01, new String[0]));
+        orderBookService.open("CS");
+        orderBookService.open("UBS");
+        orderBookService.addOrder(new Order(1, 100, "UBS", 14.32));
+        orderBookService.close("UBS");
+        return orderBookService;
+    }
+
+    /**
+     *
+     * @param command
+     * @return true if the command is accepted
+     */
+    private static boolean isAccepted(Runnable command) {
+        try {
+            command.run();
+            return true;
+        } catch (OrderBookException ex) {
+            return false;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingJournal implements Journal {
+
+        private final List<String> events;
+
+        RecordingJournal(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public long appendOpen(String instrumentId) {
+            events.add("OPEN");
+            return events.size();
+        }
+
+        @Override
+        public long appendClose(String instrumentId) {
+            events.add("CLOSE");
+            return events.size();
+        }
+
+        @Override
+        public long appendOrder(Order order) {
+            events.add("ORDER");
+            return events.size();
+        }
+
+        @Override
+        public long appendExecution(Execution execution) {
+            events.add("EXECUTION");
+            return events.size();
+        }
+
+        @Override
+        public void sync(long sequence) {
+        }
+    }
+}
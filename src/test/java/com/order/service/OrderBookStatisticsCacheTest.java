@@ -0,0 +1,65 @@
+package com.order.service;
+
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.valueobject.OrderBookStatistics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class OrderBookStatisticsCacheTest {
+
+    private final static String INSTRUMENT_ID = "CS";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OrderBookStatisticsCache statisticsCache;
+
+    @Before
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        statisticsCache = new OrderBookStatisticsCache(meterRegistry);
+    }
+
+    @Test
+    public void testGet() {
+        OrderBook orderBook = new OrderBook(INSTRUMENT_ID);
+        orderBook.open();
+        orderBook.addOrder(new Order(1, 100, INSTRUMENT_ID, 14.34));
+
+        OrderBookStatistics statistics = statisticsCache.get(orderBook);
+        assertEquals(100, statistics.getTotalDemand());
+        assertSame(statistics, statisticsCache.get(orderBook));
+        assertSame(statistics, statisticsCache.get(orderBook));
+
+        orderBook.addOrder(new Order(2, 50, INSTRUMENT_ID, 14.31));
+        OrderBookStatistics changed = statisticsCache.get(orderBook);
+        assertNotSame(statistics, changed);
+        assertEquals(150, changed.getTotalDemand());
+
+        assertEquals(2.0, meterRegistry.get("order.statistics.cache").tag("result", "hit").counter().count(), 0.0);
+        assertEquals(2.0, meterRegistry.get("order.statistics.cache").tag("result", "miss").counter().count(), 0.0);
+        assertEquals(0.5, meterRegistry.get("order.statistics.cache.hit.ratio").gauge().value(), 0.0);
+    }
+
+    @Test
+    public void testGetReplacedBook() {
+        OrderBook orderBook = new OrderBook(INSTRUMENT_ID);
+        orderBook.open();
+        orderBook.addOrder(new Order(1, 100, INSTRUMENT_ID, 14.34));
+        assertEquals(100, statisticsCache.get(orderBook).getTotalDemand());
+
+        // a replacing book for the same instrument reaches the same version with other orders
+        OrderBook replaced = new OrderBook(INSTRUMENT_ID);
+        replaced.open();
+        replaced.addOrder(new Order(2, 70, INSTRUMENT_ID, 14.31));
+        assertEquals(orderBook.getVersion(), replaced.getVersion());
+
+        assertEquals(70, statisticsCache.get(replaced).getTotalDemand());
+        assertEquals(0.0, meterRegistry.get("order.statistics.cache").tag("result", "hit").counter().count(), 0.0);
+    }
+}
@@ -0,0 +1,181 @@
+package com.order.service;
+
+import com.order.common.OrderBookException;
+import com.order.enumeration.OrderBookState;
+import com.order.enumeration.OrderStorage;
+import com.order.event.FillEvents;
+import com.order.model.Execution;
+import com.order.model.Order;
+import com.order.model.OrderBook;
+import com.order.model.TickSizes;
+import com.order.repository.ExecutionRepositoryInMem;
+import com.order.repository.OrderBookRepositoryInMem;
+import com.order.repository.OrderRepositoryInMem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SequencedOrderBookServiceTest {
+
+    private final static String[] INSTRUMENT_IDS = {"CS", "UBS", "ABB", "NESN"};
+    private final static int ORDERS_PER_INSTRUMENT = 1000;
+
+    private SequencedOrderBookService orderBookService;
+
+    @Before
+    public void init() {
+        OrderBookServiceImpl delegate = new OrderBookServiceImpl(new OrderBookRepositoryInMem(), new OrderRepositoryInMem(),
+                new ExecutionRepositoryInMem(), FillEvents.NONE);
+        orderBookService = new SequencedOrderBookService(delegate, new OrderBookSequencer(2));
+    }
+
+    @After
+    public void shutdown() {
+        orderBookService.shutdown();
+    }
+
+    @Test
+    public void testSubmit() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long orderId = 0;
+        for (String instrumentId : INSTRUMENT_IDS) {
+            futures.add(orderBookService.submitOpen(instrumentId));
+        }
+        for (int i = 0; i < ORDERS_PER_INSTRUMENT; i++) {
+            for (String instrumentId : INSTRUMENT_IDS) {
+                futures.add(orderBookService.submitOrder(new Order(++orderId, 10, instrumentId)));
+            }
+        }
+        for (String instrumentId : INSTRUMENT_IDS) {
+            futures.add(orderBookService.submitClose(instrumentId));
+            futures.add(orderBookService.submitExecution(new Execution(++orderId, 10 * ORDERS_PER_INSTRUMENT, instrumentId, 14.32)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        for (String instrumentId : INSTRUMENT_IDS) {
+            OrderBook orderBook = orderBookService.findByInstrumentId(instrumentId);
+            assertEquals(OrderBookState.CLOSED, orderBook.getState());
+            assertEquals(ORDERS_PER_INSTRUMENT, orderBook.getOrders().size());
+            assertTrue(orderBook.isExecuted());
+        }
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void testOpenWhenOpen() {
+        orderBookService.open(INSTRUMENT_IDS[0]);
+        orderBookService.open(INSTRUMENT_IDS[0]);
+    }
+
+    @Test
+    public void testAddOrdersBatch() {
+        for (String instrumentId : INSTRUMENT_IDS) {
+            orderBookService.open(instrumentId);
+        }
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS_PER_INSTRUMENT; i++) {
+            orders.add(new Order(i + 1, 10, INSTRUMENT_IDS[i % INSTRUMENT_IDS.length]));
+        }
+        orders.add(new Order(ORDERS_PER_INSTRUMENT + 1, 10, null));
+
+        OrderBookException[] rejections = orderBookService.addOrders(orders);
+        assertEquals(orders.size(), rejections.length);
+        // as a single order, an order without instrument is accepted but added to no book
+        for (int i = 0; i <= ORDERS_PER_INSTRUMENT; i++) {
+            assertNull(rejections[i]);
+        }
+        for (String instrumentId : INSTRUMENT_IDS) {
+            assertEquals(ORDERS_PER_INSTRUMENT / INSTRUMENT_IDS.length, orderBookService.findByInstrumentId(instrumentId).getOrders().size());
+        }
+
+        orderBookService.close(INSTRUMENT_IDS[0]);
+        rejections = orderBookService.addExecutions(Arrays.asList(
+                new Execution(1, 100, INSTRUMENT_IDS[0], 14.32),
+                new Execution(2, 100, INSTRUMENT_IDS[0], 14.33)));
+        assertNull(rejections[0]);
+        assertNotNull(rejections[1]);
+    }
+
+    @Test
+    public void testTickSize() {
+        orderBookService.shutdown();
+        OrderBookServiceImpl delegate = new OrderBookServiceImpl(new OrderBookRepositoryInMem(), new OrderRepositoryInMem(),
+                new ExecutionRepositoryInMem(), FillEvents.NONE, null, null, OrderStorage.HEAP,
+                TickSizes.parse(0.01, new String[]{"UBS:0.05"}));
+        orderBookService = new SequencedOrderBookService(delegate, new OrderBookSequencer(2));
+        orderBookService.open(INSTRUMENT_IDS[0]);
+        orderBookService.open(INSTRUMENT_IDS[1]);
+
+        try {
+            orderBookService.addOrder(new Order(1, 10, INSTRUMENT_IDS[0], 14.325));
+            fail("Order off the tick size was added");
+        } catch (OrderBookException ex) {
+            // expected
+        }
+        OrderBookException[] rejections = orderBookService.addOrders(Arrays.asList(
+                new Order(2, 10, INSTRUMENT_IDS[0], 14.32),
+                new Order(3, 10, INSTRUMENT_IDS[1], 14.32),
+                new Order(4, 10, INSTRUMENT_IDS[1], 14.35),
+                new Order(5, 10, INSTRUMENT_IDS[1])));
+        assertNull(rejections[0]);
+        assertNotNull(rejections[1]);
+        assertNull(rejections[2]);
+        assertNull(rejections[3]);
+        assertEquals(1, orderBookService.findByInstrumentId(INSTRUMENT_IDS[0]).getOrders().size());
+        assertEquals(2, orderBookService.findByInstrumentId(INSTRUMENT_IDS[1]).getOrders().size());
+
+        orderBookService.close(INSTRUMENT_IDS[1]);
+        rejections = orderBookService.addExecutions(Arrays.asList(
+                new Execution(1, 10, INSTRUMENT_IDS[1], 14.33),
+                new Execution(2, 10, INSTRUMENT_IDS[1], 14.35)));
+        assertNotNull(rejections[0]);
+        assertNull(rejections[1]);
+    }
+
+    @Test
+    public void testAddOrdersBatchGroupFails() {
+        orderBookService.shutdown();
+        OrderBookServiceImpl delegate = new OrderBookServiceImpl(new OrderBookRepositoryInMem(), new OrderRepositoryInMem(),
+                new ExecutionRepositoryInMem(), FillEvents.NONE) {
+            @Override
+            public OrderBookException[] addOrders(List<Order> orders) {
+                if (INSTRUMENT_IDS[1].equals(orders.get(0).getInstrumentId())) {
+                    throw new IllegalStateException("Journal failed");
+                }
+                return super.addOrders(orders);
+            }
+        };
+        orderBookService = new SequencedOrderBookService(delegate, new OrderBookSequencer(2));
+        orderBookService.open(INSTRUMENT_IDS[0]);
+        orderBookService.open(INSTRUMENT_IDS[1]);
+
+        // the group which failed rejects its orders, the groups applied keep their results
+        OrderBookException[] rejections = orderBookService.addOrders(Arrays.asList(
+                new Order(1, 10, INSTRUMENT_IDS[0]),
+                new Order(2, 10, INSTRUMENT_IDS[1]),
+                new Order(3, 10, INSTRUMENT_IDS[0]),
+                new Order(4, 10, INSTRUMENT_IDS[2])));
+        assertNull(rejections[0]);
+        assertNotNull(rejections[1]);
+        assertNull(rejections[2]);
+        // as a single order, an order without book is accepted but added to no book
+        assertNull(rejections[3]);
+        assertEquals(2, orderBookService.findByInstrumentId(INSTRUMENT_IDS[0]).getOrders().size());
+
+        orderBookService.close(INSTRUMENT_IDS[0]);
+        rejections = orderBookService.addOrders(Collections.singletonList(new Order(5, 10, INSTRUMENT_IDS[0])));
+        assertNull(rejections[0]);
+        assertEquals(2, orderBookService.findByInstrumentId(INSTRUMENT_IDS[0]).getOrders().size());
+    }
+}